@@ -0,0 +1,78 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection
+
+import android.util.Log
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import org.junit.After
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+import org.junit.runners.Parameterized.Parameters
+
+/**
+ * Measures building and discarding [SimpleArrayMap]s with the default array pool, which only
+ * recycles capacities 4 and 8, against a pool that recycles every capacity up to [maxPooled].
+ */
+@RunWith(Parameterized::class)
+class ArrayPoolBenchmarkTest(private val size: Int, private val maxPooled: Int) {
+    private val pool = ArrayPool.getSimpleArrayMapPool()
+
+    @get:Rule
+    val benchmark = BenchmarkRule()
+
+    @Before
+    fun setUp() {
+        pool.setMaxPooledCapacity(maxPooled)
+        pool.clear()
+        pool.resetStats()
+    }
+
+    @After
+    fun tearDown() {
+        Log.d(
+            "ArrayPoolBenchmark",
+            "size=$size maxPooled=$maxPooled hits=${pool.hitCount} misses=${pool.missCount} " +
+                "recycled=${pool.recycleCount} dropped=${pool.dropCount}"
+        )
+        pool.setMaxPooledCapacity(8)
+        pool.clear()
+    }
+
+    @Test
+    fun fillThenClear() {
+        val map = SimpleArrayMap<Int, Int>()
+        benchmark.measureRepeated {
+            for (i in 0 until size) {
+                map.put(i, i)
+            }
+            map.clear()
+        }
+    }
+
+    companion object {
+        @JvmStatic
+        @Parameters(name = "size={0},maxPooled={1}")
+        fun parameters() = buildParameters(
+            listOf(16, 100, 1_000),
+            listOf(8, 1_024)
+        )
+    }
+}
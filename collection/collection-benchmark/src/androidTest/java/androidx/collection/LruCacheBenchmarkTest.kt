@@ -28,6 +28,10 @@ private class MyCache(maxSize: Int) : LruCache<Int, String>(maxSize) {
     override fun create(key: Int): String? = "value of $key"
 }
 
+private class MyConcurrentCache(maxSize: Int) : ConcurrentLruCache<Int, String>(maxSize) {
+    override fun create(key: Int): String? = "value of $key"
+}
+
 @RunWith(Parameterized::class)
 class LruCacheBenchmarkTest(val size: Int) {
 
@@ -60,6 +64,30 @@ class LruCacheBenchmarkTest(val size: Int) {
         }
     }
 
+    @Test
+    fun concurrentCreateThenFetchWithAllHits() {
+        benchmark.measureRepeated {
+            val cache = MyConcurrentCache(size)
+            for (e in keyList) {
+                cache.get(e)
+            }
+
+            for (e in keyList) {
+                cache.get(e)
+            }
+        }
+    }
+
+    @Test
+    fun concurrentAllMisses() {
+        benchmark.measureRepeated {
+            val cache = MyConcurrentCache(size / 2)
+            for (e in keyList) {
+                cache.get(e)
+            }
+        }
+    }
+
     companion object {
         @JvmStatic
         @Parameters(name = "size={0}")
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection
+
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+import org.junit.runners.Parameterized.Parameters
+import kotlin.random.Random
+
+/**
+ * Compares the open-addressing primitive maps against [SparseArrayCompat], [LongSparseArray]
+ * and [SimpleArrayMap] for random (non-appending) inserts, lookups and iteration.
+ */
+@RunWith(Parameterized::class)
+class PrimitiveMapBenchmarkTest(private val size: Int) {
+    // Despite the fixed seed, the algorithm which produces random values may vary across
+    // OS versions. Since we're not doing cross-device comparison this is acceptable.
+    private val keys = IntArray(size).also { array ->
+        val random = Random(0)
+        for (i in array.indices) {
+            array[i] = random.nextInt()
+        }
+    }
+    private val longKeys = LongArray(size) { keys[it].toLong() shl 16 }
+    private val boxedKeys = Array(size) { keys[it] }
+
+    @get:Rule
+    val benchmark = BenchmarkRule()
+
+    @Test
+    fun intObjectMapPut() {
+        benchmark.measureRepeated {
+            val map = IntObjectMap<String>()
+            for (key in keys) {
+                map.put(key, VALUE)
+            }
+        }
+    }
+
+    @Test
+    fun sparseArrayCompatPut() {
+        benchmark.measureRepeated {
+            val map = SparseArrayCompat<String>()
+            for (key in keys) {
+                map.put(key, VALUE)
+            }
+        }
+    }
+
+    @Test
+    fun simpleArrayMapPut() {
+        benchmark.measureRepeated {
+            val map = SimpleArrayMap<Int, String>()
+            for (key in boxedKeys) {
+                map.put(key, VALUE)
+            }
+        }
+    }
+
+    @Test
+    fun intObjectMapGet() {
+        val map = IntObjectMap<String>().apply { keys.forEach { put(it, VALUE) } }
+        benchmark.measureRepeated {
+            for (key in keys) {
+                map.get(key)
+            }
+        }
+    }
+
+    @Test
+    fun sparseArrayCompatGet() {
+        val map = SparseArrayCompat<String>().apply { keys.forEach { put(it, VALUE) } }
+        benchmark.measureRepeated {
+            for (key in keys) {
+                map.get(key)
+            }
+        }
+    }
+
+    @Test
+    fun simpleArrayMapGet() {
+        val map = SimpleArrayMap<Int, String>().apply { boxedKeys.forEach { put(it, VALUE) } }
+        benchmark.measureRepeated {
+            for (key in boxedKeys) {
+                map.get(key)
+            }
+        }
+    }
+
+    @Test
+    fun intIntMapIterate() {
+        val map = IntIntMap().apply { keys.forEach { put(it, it) } }
+        benchmark.measureRepeated {
+            var sum = 0
+            for (i in 0 until map.size()) {
+                sum += map.valueAt(i)
+            }
+        }
+    }
+
+    @Test
+    fun longLongMapPut() {
+        benchmark.measureRepeated {
+            val map = LongLongMap()
+            for (key in longKeys) {
+                map.put(key, key)
+            }
+        }
+    }
+
+    @Test
+    fun longObjectMapPut() {
+        benchmark.measureRepeated {
+            val map = LongObjectMap<String>()
+            for (key in longKeys) {
+                map.put(key, VALUE)
+            }
+        }
+    }
+
+    @Test
+    fun longSparseArrayPut() {
+        benchmark.measureRepeated {
+            val map = LongSparseArray<String>()
+            for (key in longKeys) {
+                map.put(key, VALUE)
+            }
+        }
+    }
+
+    @Test
+    fun longObjectMapGet() {
+        val map = LongObjectMap<String>().apply { longKeys.forEach { put(it, VALUE) } }
+        benchmark.measureRepeated {
+            for (key in longKeys) {
+                map.get(key)
+            }
+        }
+    }
+
+    @Test
+    fun longSparseArrayGet() {
+        val map = LongSparseArray<String>().apply { longKeys.forEach { put(it, VALUE) } }
+        benchmark.measureRepeated {
+            for (key in longKeys) {
+                map.get(key)
+            }
+        }
+    }
+
+    companion object {
+        private const val VALUE = "value"
+
+        @JvmStatic
+        @Parameters(name = "size={0}")
+        fun parameters() = buildParameters(
+            listOf(10, 100, 1_000, 10_000, 50_000)
+        )
+    }
+}
@@ -0,0 +1,346 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Process-wide pool of the backing arrays freed by {@link SimpleArrayMap} (and so
+ * {@link ArrayMap}) or by {@link ArraySet}, so that maps and sets which repeatedly grow, shrink
+ * or get discarded do not keep producing garbage.
+ *
+ * <p>Arrays are pooled by capacity. By default only the two smallest capacities, 4 and 8, are
+ * pooled, matching the historical behavior of these containers. Calling
+ * {@link #setMaxPooledCapacity(int)} with a larger power of two also pools every power of two
+ * capacity up to that limit; while it is in effect, containers growing to a capacity within the
+ * limit round it up to the next power of two so the arrays they free can be reused.</p>
+ *
+ * <p>The pool is split into stripes selected by the calling thread, each guarded by its own lock,
+ * so that threads churning through containers concurrently rarely contend.
+ * {@link #setMaxArraysPerCapacity(int)} bounds the arrays kept per capacity by the whole pool,
+ * however many stripes it has.</p>
+ *
+ * <p>This class is thread-safe.</p>
+ */
+public final class ArrayPool {
+    private static final int MIN_POOLED_CAPACITY = 4;
+    private static final int DEFAULT_MAX_POOLED_CAPACITY = 8;
+    private static final int MAX_POOLED_CAPACITY_LIMIT = 1 << 16;
+    private static final int BUCKET_COUNT = 15; // 4 ... 65536
+    private static final int DEFAULT_MAX_ARRAYS_PER_CAPACITY = 10;
+    private static final int MAX_STRIPES = 8;
+
+    static final ArrayPool sSimpleArrayMapPool = new ArrayPool(2);
+    static final ArrayPool sArraySetPool = new ArrayPool(1);
+
+    private final int mObjectsPerEntry;
+    private final Stripe[] mStripes;
+    // Number of pooled arrays of each capacity across all stripes, bounded by
+    // mMaxArraysPerCapacity. A stripe reserves a slot here before pooling an array.
+    private final AtomicIntegerArray mPooledCounts = new AtomicIntegerArray(BUCKET_COUNT);
+    private volatile int mMaxPooledCapacity = DEFAULT_MAX_POOLED_CAPACITY;
+    private volatile int mMaxArraysPerCapacity = DEFAULT_MAX_ARRAYS_PER_CAPACITY;
+
+    /**
+     * Returns the pool shared by all {@link SimpleArrayMap} and {@link ArrayMap} instances.
+     */
+    @NonNull
+    public static ArrayPool getSimpleArrayMapPool() {
+        return sSimpleArrayMapPool;
+    }
+
+    /**
+     * Returns the pool shared by all {@link ArraySet} instances.
+     */
+    @NonNull
+    public static ArrayPool getArraySetPool() {
+        return sArraySetPool;
+    }
+
+    private ArrayPool(int objectsPerEntry) {
+        mObjectsPerEntry = objectsPerEntry;
+        int stripes = 1;
+        int processors = Runtime.getRuntime().availableProcessors();
+        while (stripes < processors && stripes < MAX_STRIPES) {
+            stripes <<= 1;
+        }
+        mStripes = new Stripe[stripes];
+        for (int i = 0; i < stripes; i++) {
+            mStripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * Sets the largest capacity whose arrays are pooled. Arrays freed with a larger capacity are
+     * left to the garbage collector. Lowering the limit releases pooled arrays above it.
+     *
+     * @param capacity a power of two between 8 and 65536, inclusive.
+     */
+    public void setMaxPooledCapacity(int capacity) {
+        if (capacity < DEFAULT_MAX_POOLED_CAPACITY || capacity > MAX_POOLED_CAPACITY_LIMIT
+                || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a power of two between "
+                    + DEFAULT_MAX_POOLED_CAPACITY + " and " + MAX_POOLED_CAPACITY_LIMIT);
+        }
+        mMaxPooledCapacity = capacity;
+        trim();
+    }
+
+    /**
+     * Returns the largest capacity whose arrays are pooled.
+     */
+    public int getMaxPooledCapacity() {
+        return mMaxPooledCapacity;
+    }
+
+    /**
+     * Sets how many arrays of each capacity the pool may hold. Lowering the limit releases pooled
+     * arrays above it; 0 disables pooling.
+     */
+    public void setMaxArraysPerCapacity(int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("count < 0");
+        }
+        mMaxArraysPerCapacity = count;
+        trim();
+    }
+
+    /**
+     * Returns how many arrays of each capacity the pool may hold.
+     */
+    public int getMaxArraysPerCapacity() {
+        return mMaxArraysPerCapacity;
+    }
+
+    /**
+     * Returns the number of times a container's arrays were served from this pool.
+     */
+    public long getHitCount() {
+        long count = 0;
+        for (Stripe stripe : mStripes) {
+            synchronized (stripe) {
+                count += stripe.mHitCount;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of times a container needed arrays of a pooled capacity but this pool
+     * had none, so new arrays were allocated.
+     */
+    public long getMissCount() {
+        long count = 0;
+        for (Stripe stripe : mStripes) {
+            synchronized (stripe) {
+                count += stripe.mMissCount;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of times freed arrays were kept by this pool for reuse.
+     */
+    public long getRecycleCount() {
+        long count = 0;
+        for (Stripe stripe : mStripes) {
+            synchronized (stripe) {
+                count += stripe.mRecycleCount;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of times freed arrays of a pooled capacity were dropped because this
+     * pool was full.
+     */
+    public long getDropCount() {
+        long count = 0;
+        for (Stripe stripe : mStripes) {
+            synchronized (stripe) {
+                count += stripe.mDropCount;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Resets all statistics counters to zero.
+     */
+    public void resetStats() {
+        for (Stripe stripe : mStripes) {
+            synchronized (stripe) {
+                stripe.mHitCount = 0;
+                stripe.mMissCount = 0;
+                stripe.mRecycleCount = 0;
+                stripe.mDropCount = 0;
+            }
+        }
+    }
+
+    /**
+     * Releases every pooled array.
+     */
+    public void clear() {
+        for (Stripe stripe : mStripes) {
+            synchronized (stripe) {
+                for (int i = 0; i < BUCKET_COUNT; i++) {
+                    mPooledCounts.addAndGet(i, -stripe.mCounts[i]);
+                    stripe.mHeads[i] = null;
+                    stripe.mCounts[i] = 0;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the capacity a container should allocate for {@code requested} entries so that its
+     * arrays can later be pooled.
+     */
+    int capacityFor(int requested) {
+        if (requested <= DEFAULT_MAX_POOLED_CAPACITY || requested > mMaxPooledCapacity) {
+            return requested;
+        }
+        return Integer.highestOneBit(requested - 1) << 1;
+    }
+
+    /**
+     * Returns pooled arrays for {@code capacity}, or null if there are none. The returned
+     * {@code Object[]} holds the matching {@code int[]} hash array at index 1; the caller must
+     * clear indices 0 and 1 before use.
+     */
+    @Nullable
+    Object[] acquire(int capacity) {
+        final int bucket = bucketOf(capacity);
+        if (bucket < 0) {
+            return null;
+        }
+        final Stripe stripe = stripe();
+        synchronized (stripe) {
+            final Object[] array = stripe.mHeads[bucket];
+            if (array == null) {
+                stripe.mMissCount++;
+                return null;
+            }
+            try {
+                if (array[1] instanceof int[]) {
+                    stripe.mHeads[bucket] = (Object[]) array[0];
+                    stripe.mCounts[bucket]--;
+                    mPooledCounts.decrementAndGet(bucket);
+                    stripe.mHitCount++;
+                    return array;
+                }
+            } catch (ClassCastException e) {
+            }
+            // Whoops!  Someone trampled the array (probably due to not protecting
+            // their access with a lock).  Our cache is corrupt; report and give up.
+            System.out.println("ArrayPool Found corrupt cache: [0]=" + array[0]
+                    + " [1]=" + array[1]);
+            mPooledCounts.addAndGet(bucket, -stripe.mCounts[bucket]);
+            stripe.mHeads[bucket] = null;
+            stripe.mCounts[bucket] = 0;
+            stripe.mMissCount++;
+            return null;
+        }
+    }
+
+    /**
+     * Offers {@code hashes} and {@code array}, of which the first {@code size} entries are in use,
+     * to the pool. Make sure <b>NOT</b> to call this method with arrays that can still be
+     * modified.
+     */
+    void release(@NonNull int[] hashes, @NonNull Object[] array, int size) {
+        final int bucket = bucketOf(hashes.length);
+        if (bucket < 0) {
+            return;
+        }
+        final Stripe stripe = stripe();
+        synchronized (stripe) {
+            if (!reserve(bucket)) {
+                stripe.mDropCount++;
+                return;
+            }
+            array[0] = stripe.mHeads[bucket];
+            array[1] = hashes;
+            for (int i = size * mObjectsPerEntry - 1; i >= 2; i--) {
+                array[i] = null;
+            }
+            stripe.mHeads[bucket] = array;
+            stripe.mCounts[bucket]++;
+            stripe.mRecycleCount++;
+        }
+    }
+
+    private int bucketOf(int capacity) {
+        if (capacity < MIN_POOLED_CAPACITY || capacity > mMaxPooledCapacity
+                || Integer.bitCount(capacity) != 1) {
+            return -1;
+        }
+        return Integer.numberOfTrailingZeros(capacity) - 2;
+    }
+
+    // Claims room for one more pooled array of the bucket, unless the pool is full.
+    private boolean reserve(int bucket) {
+        while (true) {
+            final int count = mPooledCounts.get(bucket);
+            if (count >= mMaxArraysPerCapacity) {
+                return false;
+            }
+            if (mPooledCounts.compareAndSet(bucket, count, count + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private Stripe stripe() {
+        return mStripes[(int) Thread.currentThread().getId() & (mStripes.length - 1)];
+    }
+
+    private void trim() {
+        final int maxBucket = Integer.numberOfTrailingZeros(mMaxPooledCapacity) - 2;
+        final int maxCount = mMaxArraysPerCapacity;
+        for (Stripe stripe : mStripes) {
+            synchronized (stripe) {
+                for (int i = 0; i < BUCKET_COUNT; i++) {
+                    while (stripe.mCounts[i] > 0
+                            && mPooledCounts.get(i) > (i <= maxBucket ? maxCount : 0)) {
+                        Object[] head = stripe.mHeads[i];
+                        stripe.mHeads[i] = head != null ? (Object[]) head[0] : null;
+                        stripe.mCounts[i]--;
+                        mPooledCounts.decrementAndGet(i);
+                    }
+                }
+            }
+        }
+    }
+
+    private static final class Stripe {
+        // Each head is a linked list of pooled arrays: index 0 of each array points to the next
+        // array in the list and index 1 to the int[] hash array belonging to it.
+        final Object[][] mHeads = new Object[BUCKET_COUNT][];
+        final int[] mCounts = new int[BUCKET_COUNT];
+        long mHitCount;
+        long mMissCount;
+        long mRecycleCount;
+        long mDropCount;
+    }
+}
@@ -0,0 +1,577 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A cache with the same contract as {@link LruCache} that is designed to be shared by many
+ * threads.
+ *
+ * <p>Reads never block: values are looked up in a {@link ConcurrentHashMap} and the access is
+ * recorded in one of several striped, lossy buffers. Recency (and, for
+ * {@link #EVICTION_POLICY_TINY_LFU}, frequency) bookkeeping is applied in batches when a buffer
+ * fills up or when a write happens. Writes and evictions are serialized on a single eviction
+ * lock, which is never held while calling {@link #create}, {@link #entryRemoved} or any other
+ * user code except {@link #sizeOf}.
+ *
+ * <p>Because recency updates are batched and may be dropped under heavy contention, the eviction
+ * order is an approximation of strict LRU order. All statistics counters are updated without
+ * locking.
+ */
+public class ConcurrentLruCache<K, V> {
+    /**
+     * Evicts the least recently used entry when the cache is over capacity.
+     */
+    public static final int EVICTION_POLICY_LRU = 0;
+
+    /**
+     * Evicts the least recently used entry, unless the entry being added has been requested less
+     * often than that entry, in which case the new entry is evicted instead. This keeps a one-off
+     * scan over many keys from flushing frequently used entries out of the cache.
+     */
+    public static final int EVICTION_POLICY_TINY_LFU = 1;
+
+    private static final int READ_BUFFER_SIZE = 32;
+    private static final int READ_BUFFER_DRAIN_THRESHOLD = 16;
+    private static final int MAX_READ_BUFFERS = 64;
+
+    private final ConcurrentHashMap<K, Node<K, V>> mMap;
+    private final ReentrantLock mEvictionLock = new ReentrantLock();
+    private final ReadBuffer[] mReadBuffers;
+    private final int mEvictionPolicy;
+    @Nullable
+    private final FrequencySketch mSketch;
+
+    // Sentinel of the circular access order list, least recently used first. Guarded by
+    // mEvictionLock.
+    private final Node<K, V> mHead = new Node<>(null, null, 0);
+
+    /** Size of this cache in units. Not necessarily the number of elements. */
+    private volatile int mSize;
+    private volatile int mMaxSize;
+
+    private final AtomicInteger mPutCount = new AtomicInteger();
+    private final AtomicInteger mCreateCount = new AtomicInteger();
+    private final AtomicInteger mEvictionCount = new AtomicInteger();
+    private final AtomicInteger mHitCount = new AtomicInteger();
+    private final AtomicInteger mMissCount = new AtomicInteger();
+
+    /**
+     * Creates a cache using {@link #EVICTION_POLICY_LRU}.
+     *
+     * @param maxSize for caches that do not override {@link #sizeOf}, this is
+     *     the maximum number of entries in the cache. For all other caches,
+     *     this is the maximum sum of the sizes of the entries in this cache.
+     */
+    public ConcurrentLruCache(int maxSize) {
+        this(maxSize, EVICTION_POLICY_LRU);
+    }
+
+    /**
+     * @param maxSize for caches that do not override {@link #sizeOf}, this is
+     *     the maximum number of entries in the cache. For all other caches,
+     *     this is the maximum sum of the sizes of the entries in this cache.
+     * @param evictionPolicy either {@link #EVICTION_POLICY_LRU} or
+     *     {@link #EVICTION_POLICY_TINY_LFU}.
+     */
+    public ConcurrentLruCache(int maxSize, int evictionPolicy) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize <= 0");
+        }
+        if (evictionPolicy != EVICTION_POLICY_LRU && evictionPolicy != EVICTION_POLICY_TINY_LFU) {
+            throw new IllegalArgumentException("Unknown eviction policy " + evictionPolicy);
+        }
+        mMaxSize = maxSize;
+        mEvictionPolicy = evictionPolicy;
+        mSketch = evictionPolicy == EVICTION_POLICY_TINY_LFU ? new FrequencySketch() : null;
+        mMap = new ConcurrentHashMap<>();
+        mHead.mPrev = mHead;
+        mHead.mNext = mHead;
+
+        int stripes = 1;
+        int processors = Runtime.getRuntime().availableProcessors();
+        while (stripes < processors && stripes < MAX_READ_BUFFERS) {
+            stripes <<= 1;
+        }
+        mReadBuffers = new ReadBuffer[stripes];
+        for (int i = 0; i < stripes; i++) {
+            mReadBuffers[i] = new ReadBuffer();
+        }
+    }
+
+    /**
+     * Sets the size of the cache.
+     *
+     * @param maxSize The new maximum size.
+     */
+    public void resize(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize <= 0");
+        }
+        mMaxSize = maxSize;
+        trimToSize(maxSize);
+    }
+
+    /**
+     * Returns the value for {@code key} if it exists in the cache or can be
+     * created by {@code #create}. If a value was returned, it is moved to the
+     * head of the queue. This returns null if a value is not cached and cannot
+     * be created.
+     */
+    @Nullable
+    public final V get(@NonNull K key) {
+        if (key == null) {
+            throw new NullPointerException("key == null");
+        }
+
+        Node<K, V> node = mMap.get(key);
+        if (node != null) {
+            mHitCount.incrementAndGet();
+            recordRead(node);
+            return node.mValue;
+        }
+        mMissCount.incrementAndGet();
+
+        /*
+         * Attempt to create a value. This may take a long time, and the map
+         * may be different when create() returns. If a conflicting value was
+         * added to the map while create() was working, we leave that value in
+         * the map and release the created value.
+         */
+
+        V createdValue = create(key);
+        if (createdValue == null) {
+            return null;
+        }
+
+        mCreateCount.incrementAndGet();
+        V mapValue = null;
+        List<Node<K, V>> evicted;
+        mEvictionLock.lock();
+        try {
+            drainReadBuffers();
+            Node<K, V> existing = mMap.get(key);
+            if (existing != null) {
+                mapValue = existing.mValue;
+                evicted = null;
+            } else {
+                Node<K, V> created = new Node<>(key, createdValue, safeSizeOf(key, createdValue));
+                mMap.put(key, created);
+                linkLast(created);
+                evicted = evictLocked(mMaxSize, created);
+            }
+        } finally {
+            mEvictionLock.unlock();
+        }
+
+        if (mapValue != null) {
+            entryRemoved(false, key, createdValue, mapValue);
+            return mapValue;
+        }
+        notifyEvicted(evicted);
+        return createdValue;
+    }
+
+    /**
+     * Caches {@code value} for {@code key}. The value is moved to the head of
+     * the queue.
+     *
+     * @return the previous value mapped by {@code key}.
+     */
+    @Nullable
+    public final V put(@NonNull K key, @NonNull V value) {
+        if (key == null || value == null) {
+            throw new NullPointerException("key == null || value == null");
+        }
+
+        mPutCount.incrementAndGet();
+        Node<K, V> previous;
+        List<Node<K, V>> evicted;
+        mEvictionLock.lock();
+        try {
+            drainReadBuffers();
+            Node<K, V> node = new Node<>(key, value, safeSizeOf(key, value));
+            previous = mMap.put(key, node);
+            if (previous != null) {
+                unlink(previous);
+            }
+            linkLast(node);
+            evicted = evictLocked(mMaxSize, node);
+        } finally {
+            mEvictionLock.unlock();
+        }
+
+        if (previous != null) {
+            entryRemoved(false, key, previous.mValue, value);
+        }
+        notifyEvicted(evicted);
+        return previous != null ? previous.mValue : null;
+    }
+
+    /**
+     * Remove the eldest entries until the total of remaining entries is at or
+     * below the requested size.
+     *
+     * @param maxSize the maximum size of the cache before returning. May be -1
+     *            to evict even 0-sized elements.
+     */
+    public void trimToSize(int maxSize) {
+        List<Node<K, V>> evicted;
+        mEvictionLock.lock();
+        try {
+            drainReadBuffers();
+            evicted = evictLocked(maxSize, null);
+        } finally {
+            mEvictionLock.unlock();
+        }
+        notifyEvicted(evicted);
+    }
+
+    /**
+     * Removes the entry for {@code key} if it exists.
+     *
+     * @return the previous value mapped by {@code key}.
+     */
+    @Nullable
+    public final V remove(@NonNull K key) {
+        if (key == null) {
+            throw new NullPointerException("key == null");
+        }
+
+        Node<K, V> previous;
+        mEvictionLock.lock();
+        try {
+            previous = mMap.remove(key);
+            if (previous != null) {
+                unlink(previous);
+            }
+        } finally {
+            mEvictionLock.unlock();
+        }
+
+        if (previous != null) {
+            entryRemoved(false, key, previous.mValue, null);
+            return previous.mValue;
+        }
+        return null;
+    }
+
+    /**
+     * Called for entries that have been evicted or removed. This method is
+     * invoked when a value is evicted to make space, removed by a call to
+     * {@link #remove}, or replaced by a call to {@link #put}. The default
+     * implementation does nothing.
+     *
+     * <p>The method is called without synchronization: other threads may
+     * access the cache while this method is executing.
+     *
+     * @param evicted true if the entry is being removed to make space, false
+     *     if the removal was caused by a {@link #put} or {@link #remove}.
+     * @param newValue the new value for {@code key}, if it exists. If non-null,
+     *     this removal was caused by a {@link #put}. Otherwise it was caused by
+     *     an eviction or a {@link #remove}.
+     */
+    protected void entryRemoved(boolean evicted, @NonNull K key, @NonNull V oldValue,
+            @Nullable V newValue) {
+    }
+
+    /**
+     * Called after a cache miss to compute a value for the corresponding key.
+     * Returns the computed value or null if no value can be computed. The
+     * default implementation returns null.
+     *
+     * <p>The method is called without synchronization: other threads may
+     * access the cache while this method is executing.
+     *
+     * <p>If a value for {@code key} exists in the cache when this method
+     * returns, the created value will be released with {@link #entryRemoved}
+     * and discarded. This can occur when multiple threads request the same key
+     * at the same time (causing multiple values to be created), or when one
+     * thread calls {@link #put} while another is creating a value for the same
+     * key.
+     */
+    @Nullable
+    protected V create(@NonNull K key) {
+        return null;
+    }
+
+    private int safeSizeOf(K key, V value) {
+        int result = sizeOf(key, value);
+        if (result < 0) {
+            throw new IllegalStateException("Negative size: " + key + "=" + value);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the size of the entry for {@code key} and {@code value} in
+     * user-defined units.  The default implementation returns 1 so that size
+     * is the number of entries and max size is the maximum number of entries.
+     *
+     * <p>An entry's size must not change while it is in the cache. This method is called while
+     * holding the cache's eviction lock and must not access the cache.
+     */
+    protected int sizeOf(@NonNull K key, @NonNull V value) {
+        return 1;
+    }
+
+    /**
+     * Clear the cache, calling {@link #entryRemoved} on each removed entry.
+     */
+    public final void evictAll() {
+        trimToSize(-1); // -1 will evict 0-sized elements
+    }
+
+    /**
+     * For caches that do not override {@link #sizeOf}, this returns the number
+     * of entries in the cache. For all other caches, this returns the sum of
+     * the sizes of the entries in this cache.
+     */
+    public final int size() {
+        return mSize;
+    }
+
+    /**
+     * For caches that do not override {@link #sizeOf}, this returns the maximum
+     * number of entries in the cache. For all other caches, this returns the
+     * maximum sum of the sizes of the entries in this cache.
+     */
+    public final int maxSize() {
+        return mMaxSize;
+    }
+
+    /**
+     * Returns the eviction policy this cache was created with.
+     */
+    public final int evictionPolicy() {
+        return mEvictionPolicy;
+    }
+
+    /**
+     * Returns the number of times {@link #get} returned a value that was
+     * already present in the cache.
+     */
+    public final int hitCount() {
+        return mHitCount.get();
+    }
+
+    /**
+     * Returns the number of times {@link #get} returned null or required a new
+     * value to be created.
+     */
+    public final int missCount() {
+        return mMissCount.get();
+    }
+
+    /**
+     * Returns the number of times {@link #create(Object)} returned a value.
+     */
+    public final int createCount() {
+        return mCreateCount.get();
+    }
+
+    /**
+     * Returns the number of times {@link #put} was called.
+     */
+    public final int putCount() {
+        return mPutCount.get();
+    }
+
+    /**
+     * Returns the number of values that have been evicted.
+     */
+    public final int evictionCount() {
+        return mEvictionCount.get();
+    }
+
+    /**
+     * Returns a copy of the current contents of the cache, ordered from least
+     * recently accessed to most recently accessed.
+     */
+    @NonNull
+    public final Map<K, V> snapshot() {
+        mEvictionLock.lock();
+        try {
+            drainReadBuffers();
+            LinkedHashMap<K, V> snapshot = new LinkedHashMap<>();
+            for (Node<K, V> node = mHead.mNext; node != mHead; node = node.mNext) {
+                snapshot.put(node.mKey, node.mValue);
+            }
+            return snapshot;
+        } finally {
+            mEvictionLock.unlock();
+        }
+    }
+
+    @Override
+    public final String toString() {
+        int hitCount = mHitCount.get();
+        int accesses = hitCount + mMissCount.get();
+        int hitPercent = accesses != 0 ? (100 * hitCount / accesses) : 0;
+        return String.format(Locale.US,
+                "ConcurrentLruCache[maxSize=%d,hits=%d,misses=%d,hitRate=%d%%]",
+                mMaxSize, hitCount, accesses - hitCount, hitPercent);
+    }
+
+    private void recordRead(Node<K, V> node) {
+        int stripe = (int) Thread.currentThread().getId() & (mReadBuffers.length - 1);
+        ReadBuffer buffer = mReadBuffers[stripe];
+        int slot = buffer.mWriteCount.getAndIncrement();
+        if (slot >= 0 && slot < READ_BUFFER_SIZE) {
+            buffer.mNodes.lazySet(slot, node);
+        }
+        if (slot + 1 >= READ_BUFFER_DRAIN_THRESHOLD && mEvictionLock.tryLock()) {
+            try {
+                drainReadBuffers();
+            } finally {
+                mEvictionLock.unlock();
+            }
+        }
+    }
+
+    // Must hold mEvictionLock.
+    private void drainReadBuffers() {
+        for (ReadBuffer buffer : mReadBuffers) {
+            if (buffer.mWriteCount.get() == 0) {
+                continue;
+            }
+            // Scan every slot: a reader may still publish into a slot it claimed before the
+            // previous drain reset the count.
+            for (int i = 0; i < READ_BUFFER_SIZE; i++) {
+                @SuppressWarnings("unchecked")
+                Node<K, V> node = (Node<K, V>) buffer.mNodes.getAndSet(i, null);
+                if (node == null) {
+                    continue;
+                }
+                if (mSketch != null) {
+                    mSketch.increment(node.mKey);
+                }
+                // Nodes that were replaced or evicted since the read are no longer linked.
+                if (node.mNext != null) {
+                    unlink(node);
+                    linkLast(node);
+                }
+            }
+            buffer.mWriteCount.set(0);
+        }
+    }
+
+    // Must hold mEvictionLock.
+    @Nullable
+    private List<Node<K, V>> evictLocked(int maxSize, @Nullable Node<K, V> candidate) {
+        if (mSketch != null && candidate != null) {
+            // maxSize is in sizeOf() units, so the sketch is sized by the number of entries.
+            mSketch.ensureCapacity(mMap.size());
+            mSketch.increment(candidate.mKey);
+        }
+        List<Node<K, V>> evicted = null;
+        while (true) {
+            if (mSize < 0 || (mMap.isEmpty() && mSize != 0)) {
+                throw new IllegalStateException(getClass().getName()
+                        + ".sizeOf() is reporting inconsistent results!");
+            }
+            if (mSize <= maxSize || mHead.mNext == mHead) {
+                break;
+            }
+
+            Node<K, V> victim = mHead.mNext;
+            if (mSketch != null && candidate != null && candidate != victim
+                    && candidate.mNext != null
+                    && mSketch.frequency(candidate.mKey) < mSketch.frequency(victim.mKey)) {
+                // Admission rejected: keep the more popular entry and drop the new one.
+                victim = candidate;
+                candidate = null;
+            }
+            mMap.remove(victim.mKey, victim);
+            unlink(victim);
+            mEvictionCount.incrementAndGet();
+            if (evicted == null) {
+                evicted = new ArrayList<>();
+            }
+            evicted.add(victim);
+        }
+        return evicted;
+    }
+
+    @VisibleForTesting
+    @Nullable
+    FrequencySketch frequencySketch() {
+        return mSketch;
+    }
+
+    private void notifyEvicted(@Nullable List<Node<K, V>> evicted) {
+        if (evicted == null) {
+            return;
+        }
+        for (int i = 0, size = evicted.size(); i < size; i++) {
+            Node<K, V> node = evicted.get(i);
+            entryRemoved(true, node.mKey, node.mValue, null);
+        }
+    }
+
+    // Must hold mEvictionLock.
+    private void linkLast(Node<K, V> node) {
+        Node<K, V> last = mHead.mPrev;
+        node.mPrev = last;
+        node.mNext = mHead;
+        last.mNext = node;
+        mHead.mPrev = node;
+        mSize += node.mWeight;
+    }
+
+    // Must hold mEvictionLock.
+    private void unlink(Node<K, V> node) {
+        node.mPrev.mNext = node.mNext;
+        node.mNext.mPrev = node.mPrev;
+        node.mPrev = null;
+        node.mNext = null;
+        mSize -= node.mWeight;
+    }
+
+    private static final class Node<K, V> {
+        final K mKey;
+        final V mValue;
+        final int mWeight;
+        // Guarded by mEvictionLock; both are null while the node is not in the cache.
+        Node<K, V> mPrev;
+        Node<K, V> mNext;
+
+        Node(K key, V value, int weight) {
+            mKey = key;
+            mValue = value;
+            mWeight = weight;
+        }
+    }
+
+    private static final class ReadBuffer {
+        final AtomicInteger mWriteCount = new AtomicInteger();
+        final AtomicReferenceArray<Object> mNodes = new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+    }
+}
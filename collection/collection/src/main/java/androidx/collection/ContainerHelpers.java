@@ -37,6 +37,25 @@ class ContainerHelpers {
         return need;
     }
 
+    // Largest power of two slot count that fits in an int.
+    private static final int MAX_SLOT_COUNT = 1 << 30;
+
+    // Smallest power of two slot count whose 3/4 load holds the requested capacity.
+    static int slotCountForCapacity(int capacity) {
+        if (capacity > capacityForSlotCount(MAX_SLOT_COUNT)) {
+            throw new IllegalArgumentException("capacity " + capacity + " is too large");
+        }
+        int slots = 4;
+        while (capacityForSlotCount(slots) < capacity) {
+            slots <<= 1;
+        }
+        return slots;
+    }
+
+    static int capacityForSlotCount(int slotCount) {
+        return slotCount - (slotCount >> 2);
+    }
+
     public static boolean equal(Object a, Object b) {
         return a == b || (a != null && a.equals(b));
     }
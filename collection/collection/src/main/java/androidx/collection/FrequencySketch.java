@@ -0,0 +1,132 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Count-min sketch of 4-bit counters estimating how often keys were accessed, used by
+ * {@link ConcurrentLruCache} for TinyLFU admission.
+ *
+ * <p>Each {@code long} of the table holds sixteen counters; each of the four hash rows picks one
+ * table entry and one of four counters inside it. Once the number of increments reaches ten times
+ * the table width all counters are halved, so the estimates age and favor recent popularity.
+ *
+ * <p>The table starts small and is grown through {@link #ensureCapacity} as the number of entries
+ * in the cache grows, since the maximum size of a cache need not be a number of entries.
+ *
+ * <p>This class is not thread safe; callers must synchronize access.
+ */
+final class FrequencySketch {
+    private static final long[] SEEDS = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+    };
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final int MIN_TABLE_SIZE = 16;
+    private static final int MAX_TABLE_SIZE = 1 << 20;
+
+    private long[] mTable;
+    private int mTableMask;
+    private int mSampleSize;
+    private int mAdditions;
+
+    FrequencySketch() {
+        setTableSize(MIN_TABLE_SIZE);
+    }
+
+    /**
+     * Grows the table to hold one {@code long} per entry if {@code expectedEntries} is more than
+     * it currently holds. Growing the table forgets all the recorded accesses.
+     */
+    void ensureCapacity(int expectedEntries) {
+        if (expectedEntries <= mTable.length || mTable.length >= MAX_TABLE_SIZE) {
+            return;
+        }
+        int size = mTable.length;
+        while (size < expectedEntries && size < MAX_TABLE_SIZE) {
+            size <<= 1;
+        }
+        setTableSize(size);
+    }
+
+    /** Returns the number of {@code long}s in the table. */
+    int tableSize() {
+        return mTable.length;
+    }
+
+    private void setTableSize(int size) {
+        mTable = new long[size];
+        mTableMask = size - 1;
+        mSampleSize = 10 * size;
+        mAdditions = 0;
+    }
+
+    /** Returns the estimated number of recent accesses of {@code key}, at most 15. */
+    int frequency(@NonNull Object key) {
+        final int hash = spread(key.hashCode());
+        int frequency = Integer.MAX_VALUE;
+        for (int row = 0; row < 4; row++) {
+            int shift = counterShift(hash, row);
+            int count = (int) ((mTable[indexOf(hash, row)] >>> shift) & 0xfL);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    /** Records an access of {@code key}. */
+    void increment(@NonNull Object key) {
+        final int hash = spread(key.hashCode());
+        boolean added = false;
+        for (int row = 0; row < 4; row++) {
+            int index = indexOf(hash, row);
+            int shift = counterShift(hash, row);
+            if (((mTable[index] >>> shift) & 0xfL) != 0xfL) {
+                mTable[index] += 1L << shift;
+                added = true;
+            }
+        }
+        if (added && ++mAdditions >= mSampleSize) {
+            reset();
+        }
+    }
+
+    private void reset() {
+        final long[] table = mTable;
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        mAdditions >>>= 1;
+    }
+
+    private int indexOf(int hash, int row) {
+        long h = (hash + SEEDS[row]) * SEEDS[row];
+        h += h >>> 32;
+        return (int) h & mTableMask;
+    }
+
+    // Row i uses counters 4i to 4i+3 of the selected entry, so rows never share a counter.
+    private static int counterShift(int hash, int row) {
+        int counter = (row << 2) + ((hash >>> (row << 3)) & 3);
+        return counter << 2;
+    }
+
+    private static int spread(int hash) {
+        hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+        hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+        return (hash >>> 16) ^ hash;
+    }
+}
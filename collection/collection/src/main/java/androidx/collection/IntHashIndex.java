@@ -0,0 +1,198 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash index over a dense array of {@code int} keys.
+ *
+ * <p>Keys are stored densely in {@link #mKeys} at indices {@code 0...mSize-1}, so owners can keep
+ * parallel value arrays and iterate by index without allocating. {@link #mSlots} is a power of
+ * two sized, linearly probed table holding {@code index + 1} for each key, or 0 for an empty
+ * slot. Removal uses backward-shift deletion, so no tombstones accumulate, and moves the last
+ * key into the vacated index.
+ */
+final class IntHashIndex {
+    // Maximum load factor of the slot table is 3/4.
+    private static final int MIN_SLOTS = 4;
+
+    int[] mKeys;
+    int[] mSlots;
+    int mSize;
+
+    IntHashIndex(int initialCapacity) {
+        if (initialCapacity <= 0) {
+            mKeys = ContainerHelpers.EMPTY_INTS;
+            mSlots = ContainerHelpers.EMPTY_INTS;
+        } else {
+            int slots = ContainerHelpers.slotCountForCapacity(initialCapacity);
+            mKeys = new int[ContainerHelpers.capacityForSlotCount(slots)];
+            mSlots = new int[slots];
+        }
+    }
+
+    IntHashIndex(IntHashIndex other) {
+        mKeys = other.mKeys.clone();
+        mSlots = other.mSlots.clone();
+        mSize = other.mSize;
+    }
+
+    static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Returns the dense index of {@code key}, or -1 if it is not present.
+     */
+    int indexOf(int key) {
+        final int[] slots = mSlots;
+        if (slots.length == 0) {
+            return -1;
+        }
+        final int[] keys = mKeys;
+        final int mask = slots.length - 1;
+        int slot = hash(key) & mask;
+        while (true) {
+            int entry = slots[slot];
+            if (entry == 0) {
+                return -1;
+            }
+            if (keys[entry - 1] == key) {
+                return entry - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * Returns the dense index of {@code key}, appending it if it is not present. A newly
+     * appended key is returned as the bitwise complement of its index. Callers keeping parallel
+     * arrays must resize them to {@code mKeys.length} after this call.
+     */
+    int add(int key) {
+        if (mSlots.length == 0) {
+            resize(MIN_SLOTS);
+        }
+        int[] slots = mSlots;
+        int mask = slots.length - 1;
+        int slot = hash(key) & mask;
+        while (true) {
+            int entry = slots[slot];
+            if (entry == 0) {
+                break;
+            }
+            if (mKeys[entry - 1] == key) {
+                return entry - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        final int index = mSize;
+        if (index >= mKeys.length) {
+            resize(ContainerHelpers.slotCountForCapacity(index + 1));
+            slots = mSlots;
+            mask = slots.length - 1;
+            slot = hash(key) & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+        }
+        mKeys[index] = key;
+        slots[slot] = index + 1;
+        mSize = index + 1;
+        return ~index;
+    }
+
+    /**
+     * Removes the key at {@code index}. If another key had to be moved into {@code index} to keep
+     * the keys dense, returns the index it was moved from (always the last index), which the
+     * caller must mirror in its parallel arrays. Returns -1 if nothing was moved.
+     */
+    int removeAt(int index) {
+        final int[] keys = mKeys;
+        final int last = mSize - 1;
+        deleteSlot(slotOf(index));
+        if (index != last) {
+            mSlots[slotOf(last)] = index + 1;
+            keys[index] = keys[last];
+            mSize = last;
+            return last;
+        }
+        mSize = last;
+        return -1;
+    }
+
+    void clear() {
+        Arrays.fill(mSlots, 0);
+        mSize = 0;
+    }
+
+    void ensureCapacity(int minimumCapacity) {
+        if (minimumCapacity > mKeys.length) {
+            resize(ContainerHelpers.slotCountForCapacity(minimumCapacity));
+        }
+    }
+
+    private int slotOf(int index) {
+        final int[] slots = mSlots;
+        final int mask = slots.length - 1;
+        int slot = hash(mKeys[index]) & mask;
+        while (slots[slot] != index + 1) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void deleteSlot(int hole) {
+        final int[] slots = mSlots;
+        final int[] keys = mKeys;
+        final int mask = slots.length - 1;
+        int slot = hole;
+        while (true) {
+            slot = (slot + 1) & mask;
+            int entry = slots[slot];
+            if (entry == 0) {
+                break;
+            }
+            int ideal = hash(keys[entry - 1]) & mask;
+            // Shift the entry back unless its ideal slot lies cyclically in (hole, slot].
+            if (((slot - ideal) & mask) >= ((slot - hole) & mask)) {
+                slots[hole] = entry;
+                hole = slot;
+            }
+        }
+        slots[hole] = 0;
+    }
+
+    private void resize(int slotCount) {
+        final int[] keys = mKeys;
+        final int size = mSize;
+        final int[] slots = new int[slotCount];
+        final int mask = slotCount - 1;
+        for (int i = 0; i < size; i++) {
+            int slot = hash(keys[i]) & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = i + 1;
+        }
+        mSlots = slots;
+        mKeys = Arrays.copyOf(keys, ContainerHelpers.capacityForSlotCount(slotCount));
+    }
+}
@@ -0,0 +1,265 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import androidx.annotation.NonNull;
+
+import java.util.Arrays;
+
+/**
+ * IntIntMap maps integers to integers using an open-addressing hash table. Neither keys nor
+ * values are ever boxed, and neither lookups nor iteration allocate.
+ *
+ * <p>It is possible to iterate over the items in this container using
+ * {@link #keyAt(int)} and {@link #valueAt(int)}. Mappings are kept in insertion order until a
+ * removal, which moves the last mapping into the removed index. Iterating with descending
+ * values of the index therefore visits every mapping exactly once even when calling
+ * {@link #removeAt(int)} on the current index.</p>
+ */
+public class IntIntMap implements Cloneable {
+    private IntHashIndex mIndex;
+    private int[] mValues;
+
+    /**
+     * Creates a new IntIntMap containing no mappings.
+     */
+    public IntIntMap() {
+        this(0);
+    }
+
+    /**
+     * Creates a new IntIntMap containing no mappings that will not
+     * require any additional memory allocation to store the specified
+     * number of mappings.
+     */
+    public IntIntMap(int initialCapacity) {
+        mIndex = new IntHashIndex(initialCapacity);
+        mValues = mIndex.mKeys.length == 0
+                ? ContainerHelpers.EMPTY_INTS : new int[mIndex.mKeys.length];
+    }
+
+    @Override
+    @NonNull
+    public IntIntMap clone() {
+        IntIntMap clone;
+        try {
+            clone = (IntIntMap) super.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError(e); // Cannot happen as we implement Cloneable.
+        }
+        clone.mIndex = new IntHashIndex(mIndex);
+        clone.mValues = mValues.clone();
+        return clone;
+    }
+
+    /**
+     * Gets the value mapped from the specified key, or <code>0</code>
+     * if no such mapping has been made.
+     */
+    public int get(int key) {
+        return get(key, 0);
+    }
+
+    /**
+     * Gets the value mapped from the specified key, or the specified value
+     * if no such mapping has been made.
+     */
+    public int get(int key, int valueIfKeyNotFound) {
+        int index = mIndex.indexOf(key);
+        return index < 0 ? valueIfKeyNotFound : mValues[index];
+    }
+
+    /**
+     * Adds a mapping from the specified key to the specified value,
+     * replacing the previous mapping from the specified key if there
+     * was one.
+     */
+    public void put(int key, int value) {
+        int index = indexForPut(key);
+        mValues[index] = value;
+    }
+
+    /**
+     * Adds {@code delta} to the value mapped from the specified key, treating an absent mapping
+     * as {@code 0}.
+     *
+     * @return Returns the updated value.
+     */
+    public int addTo(int key, int delta) {
+        int index = indexForPut(key);
+        return mValues[index] += delta;
+    }
+
+    /**
+     * Copies all of the mappings from the {@code other} to this map. The effect of this call is
+     * equivalent to that of calling {@link #put(int, int)} on this map once for each mapping
+     * from key to value in {@code other}.
+     */
+    public void putAll(@NonNull IntIntMap other) {
+        ensureCapacity(size() + other.size());
+        for (int i = 0, size = other.size(); i < size; i++) {
+            put(other.keyAt(i), other.valueAt(i));
+        }
+    }
+
+    /**
+     * Removes the mapping from the specified key, if there was any.
+     *
+     * @return Returns true if a mapping was removed.
+     */
+    public boolean remove(int key) {
+        int index = mIndex.indexOf(key);
+        if (index < 0) {
+            return false;
+        }
+        removeAt(index);
+        return true;
+    }
+
+    /**
+     * Removes the mapping at the specified index. The last mapping is moved into {@code index}.
+     */
+    public void removeAt(int index) {
+        checkIndex(index);
+        int moved = mIndex.removeAt(index);
+        if (moved >= 0) {
+            mValues[index] = mValues[moved];
+        }
+    }
+
+    /**
+     * Ensures this map can hold at least {@code minimumCapacity} mappings without any further
+     * allocation.
+     */
+    public void ensureCapacity(int minimumCapacity) {
+        mIndex.ensureCapacity(minimumCapacity);
+        if (mValues.length != mIndex.mKeys.length) {
+            mValues = Arrays.copyOf(mValues, mIndex.mKeys.length);
+        }
+    }
+
+    /**
+     * Returns the number of key-value mappings that this IntIntMap
+     * currently stores.
+     */
+    public int size() {
+        return mIndex.mSize;
+    }
+
+    /**
+     * Return true if size() is 0.
+     * @return true if size() is 0.
+     */
+    public boolean isEmpty() {
+        return mIndex.mSize == 0;
+    }
+
+    /**
+     * Given an index in the range <code>0...size()-1</code>, returns
+     * the key from the <code>index</code>th key-value mapping that this
+     * IntIntMap stores.
+     */
+    public int keyAt(int index) {
+        checkIndex(index);
+        return mIndex.mKeys[index];
+    }
+
+    /**
+     * Given an index in the range <code>0...size()-1</code>, returns
+     * the value from the <code>index</code>th key-value mapping that this
+     * IntIntMap stores.
+     */
+    public int valueAt(int index) {
+        checkIndex(index);
+        return mValues[index];
+    }
+
+    /**
+     * Given an index in the range <code>0...size()-1</code>, sets a new
+     * value for the <code>index</code>th key-value mapping that this
+     * IntIntMap stores.
+     */
+    public void setValueAt(int index, int value) {
+        checkIndex(index);
+        mValues[index] = value;
+    }
+
+    /**
+     * Returns the index for which {@link #keyAt} would return the
+     * specified key, or a negative number if the specified
+     * key is not mapped.
+     */
+    public int indexOfKey(int key) {
+        return mIndex.indexOf(key);
+    }
+
+    /** Returns true if the specified key is mapped. */
+    public boolean containsKey(int key) {
+        return mIndex.indexOf(key) >= 0;
+    }
+
+    /**
+     * Removes all key-value mappings from this IntIntMap.
+     */
+    public void clear() {
+        mIndex.clear();
+    }
+
+    private int indexForPut(int key) {
+        int index = mIndex.add(key);
+        if (index < 0) {
+            index = ~index;
+            if (mValues.length != mIndex.mKeys.length) {
+                mValues = Arrays.copyOf(mValues, mIndex.mKeys.length);
+            }
+            mValues[index] = 0;
+        }
+        return index;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= mIndex.mSize) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>This implementation composes a string by iterating over its mappings.
+     */
+    @Override
+    public String toString() {
+        final int size = size();
+        if (size <= 0) {
+            return "{}";
+        }
+
+        StringBuilder buffer = new StringBuilder(size * 28);
+        buffer.append('{');
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                buffer.append(", ");
+            }
+            buffer.append(mIndex.mKeys[i]);
+            buffer.append('=');
+            buffer.append(mValues[i]);
+        }
+        buffer.append('}');
+        return buffer.toString();
+    }
+}
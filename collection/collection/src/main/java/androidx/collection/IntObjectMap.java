@@ -0,0 +1,279 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * IntObjectMap maps integers to Objects using an open-addressing hash table.
+ *
+ * <p>Unlike {@link SparseArrayCompat}, lookups, insertions and removals take constant time on
+ * average regardless of the number of mappings, which makes this container appropriate for maps
+ * holding many thousands of keys. Like {@link SparseArrayCompat}, keys are never boxed, and
+ * neither lookups nor iteration allocate.</p>
+ *
+ * <p>It is possible to iterate over the items in this container using
+ * {@link #keyAt(int)} and {@link #valueAt(int)}. Mappings are kept in insertion order until a
+ * removal, which moves the last mapping into the removed index. Iterating with descending
+ * values of the index therefore visits every mapping exactly once even when calling
+ * {@link #removeAt(int)} on the current index.</p>
+ */
+public class IntObjectMap<E> implements Cloneable {
+    private IntHashIndex mIndex;
+    private Object[] mValues;
+
+    /**
+     * Creates a new IntObjectMap containing no mappings.
+     */
+    public IntObjectMap() {
+        this(0);
+    }
+
+    /**
+     * Creates a new IntObjectMap containing no mappings that will not
+     * require any additional memory allocation to store the specified
+     * number of mappings.
+     */
+    public IntObjectMap(int initialCapacity) {
+        mIndex = new IntHashIndex(initialCapacity);
+        mValues = mIndex.mKeys.length == 0
+                ? ContainerHelpers.EMPTY_OBJECTS : new Object[mIndex.mKeys.length];
+    }
+
+    @Override
+    @NonNull
+    @SuppressWarnings("unchecked")
+    public IntObjectMap<E> clone() {
+        IntObjectMap<E> clone;
+        try {
+            clone = (IntObjectMap<E>) super.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError(e); // Cannot happen as we implement Cloneable.
+        }
+        clone.mIndex = new IntHashIndex(mIndex);
+        clone.mValues = mValues.clone();
+        return clone;
+    }
+
+    /**
+     * Gets the Object mapped from the specified key, or <code>null</code>
+     * if no such mapping has been made.
+     */
+    @Nullable
+    public E get(int key) {
+        return get(key, null);
+    }
+
+    /**
+     * Gets the Object mapped from the specified key, or the specified Object
+     * if no such mapping has been made.
+     */
+    @SuppressWarnings("unchecked")
+    public E get(int key, E valueIfKeyNotFound) {
+        int index = mIndex.indexOf(key);
+        return index < 0 ? valueIfKeyNotFound : (E) mValues[index];
+    }
+
+    /**
+     * Adds a mapping from the specified key to the specified value,
+     * replacing the previous mapping from the specified key if there
+     * was one.
+     *
+     * @return Returns the previous mapped value or null.
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public E put(int key, E value) {
+        int index = mIndex.add(key);
+        if (index < 0) {
+            index = ~index;
+            if (mValues.length != mIndex.mKeys.length) {
+                mValues = Arrays.copyOf(mValues, mIndex.mKeys.length);
+            }
+            mValues[index] = value;
+            return null;
+        }
+        E previous = (E) mValues[index];
+        mValues[index] = value;
+        return previous;
+    }
+
+    /**
+     * Copies all of the mappings from the {@code other} to this map. The effect of this call is
+     * equivalent to that of calling {@link #put(int, Object)} on this map once for each mapping
+     * from key to value in {@code other}.
+     */
+    public void putAll(@NonNull IntObjectMap<? extends E> other) {
+        ensureCapacity(size() + other.size());
+        for (int i = 0, size = other.size(); i < size; i++) {
+            put(other.keyAt(i), other.valueAt(i));
+        }
+    }
+
+    /**
+     * Removes the mapping from the specified key, if there was any.
+     *
+     * @return Returns the previous mapped value or null.
+     */
+    @Nullable
+    public E remove(int key) {
+        int index = mIndex.indexOf(key);
+        return index < 0 ? null : removeAt(index);
+    }
+
+    /**
+     * Removes the mapping at the specified index. The last mapping is moved into {@code index}.
+     *
+     * @return Returns the removed value.
+     */
+    @SuppressWarnings("unchecked")
+    public E removeAt(int index) {
+        checkIndex(index);
+        final Object[] values = mValues;
+        E previous = (E) values[index];
+        int moved = mIndex.removeAt(index);
+        if (moved >= 0) {
+            values[index] = values[moved];
+            values[moved] = null;
+        } else {
+            values[index] = null;
+        }
+        return previous;
+    }
+
+    /**
+     * Ensures this map can hold at least {@code minimumCapacity} mappings without any further
+     * allocation.
+     */
+    public void ensureCapacity(int minimumCapacity) {
+        mIndex.ensureCapacity(minimumCapacity);
+        if (mValues.length != mIndex.mKeys.length) {
+            mValues = Arrays.copyOf(mValues, mIndex.mKeys.length);
+        }
+    }
+
+    /**
+     * Returns the number of key-value mappings that this IntObjectMap
+     * currently stores.
+     */
+    public int size() {
+        return mIndex.mSize;
+    }
+
+    /**
+     * Return true if size() is 0.
+     * @return true if size() is 0.
+     */
+    public boolean isEmpty() {
+        return mIndex.mSize == 0;
+    }
+
+    /**
+     * Given an index in the range <code>0...size()-1</code>, returns
+     * the key from the <code>index</code>th key-value mapping that this
+     * IntObjectMap stores.
+     */
+    public int keyAt(int index) {
+        checkIndex(index);
+        return mIndex.mKeys[index];
+    }
+
+    /**
+     * Given an index in the range <code>0...size()-1</code>, returns
+     * the value from the <code>index</code>th key-value mapping that this
+     * IntObjectMap stores.
+     */
+    @SuppressWarnings("unchecked")
+    public E valueAt(int index) {
+        checkIndex(index);
+        return (E) mValues[index];
+    }
+
+    /**
+     * Given an index in the range <code>0...size()-1</code>, sets a new
+     * value for the <code>index</code>th key-value mapping that this
+     * IntObjectMap stores.
+     */
+    public void setValueAt(int index, E value) {
+        checkIndex(index);
+        mValues[index] = value;
+    }
+
+    /**
+     * Returns the index for which {@link #keyAt} would return the
+     * specified key, or a negative number if the specified
+     * key is not mapped.
+     */
+    public int indexOfKey(int key) {
+        return mIndex.indexOf(key);
+    }
+
+    /** Returns true if the specified key is mapped. */
+    public boolean containsKey(int key) {
+        return mIndex.indexOf(key) >= 0;
+    }
+
+    /**
+     * Removes all key-value mappings from this IntObjectMap.
+     */
+    public void clear() {
+        Arrays.fill(mValues, 0, mIndex.mSize, null);
+        mIndex.clear();
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= mIndex.mSize) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>This implementation composes a string by iterating over its mappings. If
+     * this map contains itself as a value, the string "(this Map)"
+     * will appear in its place.
+     */
+    @Override
+    public String toString() {
+        final int size = size();
+        if (size <= 0) {
+            return "{}";
+        }
+
+        StringBuilder buffer = new StringBuilder(size * 28);
+        buffer.append('{');
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                buffer.append(", ");
+            }
+            buffer.append(mIndex.mKeys[i]);
+            buffer.append('=');
+            Object value = mValues[i];
+            if (value != this) {
+                buffer.append(value);
+            } else {
+                buffer.append("(this Map)");
+            }
+        }
+        buffer.append('}');
+        return buffer.toString();
+    }
+}
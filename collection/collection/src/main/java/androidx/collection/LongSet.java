@@ -0,0 +1,173 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import androidx.annotation.NonNull;
+
+/**
+ * LongSet is a set of longs backed by an open-addressing hash table. Values are never boxed,
+ * and neither lookups nor iteration allocate.
+ *
+ * <p>It is possible to iterate over the items in this container using {@link #valueAt(int)}.
+ * Values are kept in insertion order until a removal, which moves the last value into the
+ * removed index. Iterating with descending values of the index therefore visits every value
+ * exactly once even when calling {@link #removeAt(int)} on the current index.</p>
+ */
+public class LongSet implements Cloneable {
+    private LongHashIndex mIndex;
+
+    /**
+     * Creates a new empty LongSet.
+     */
+    public LongSet() {
+        this(0);
+    }
+
+    /**
+     * Creates a new empty LongSet that will not require any additional memory allocation to store
+     * the specified number of values.
+     */
+    public LongSet(int initialCapacity) {
+        mIndex = new LongHashIndex(initialCapacity);
+    }
+
+    @Override
+    @NonNull
+    public LongSet clone() {
+        LongSet clone;
+        try {
+            clone = (LongSet) super.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError(e); // Cannot happen as we implement Cloneable.
+        }
+        clone.mIndex = new LongHashIndex(mIndex);
+        return clone;
+    }
+
+    /**
+     * Adds the specified value to the set.
+     *
+     * @return Returns true if this set did not already contain the value.
+     */
+    public boolean add(long value) {
+        return mIndex.add(value) < 0;
+    }
+
+    /**
+     * Adds all values of {@code other} to this set.
+     */
+    public void addAll(@NonNull LongSet other) {
+        ensureCapacity(size() + other.size());
+        for (int i = 0, size = other.size(); i < size; i++) {
+            add(other.valueAt(i));
+        }
+    }
+
+    /**
+     * Removes the specified value from the set, if present.
+     *
+     * @return Returns true if the value was removed.
+     */
+    public boolean remove(long value) {
+        int index = mIndex.indexOf(value);
+        if (index < 0) {
+            return false;
+        }
+        mIndex.removeAt(index);
+        return true;
+    }
+
+    /**
+     * Removes the value at the specified index. The last value is moved into {@code index}.
+     */
+    public void removeAt(int index) {
+        checkIndex(index);
+        mIndex.removeAt(index);
+    }
+
+    /** Returns true if the set contains the specified value. */
+    public boolean contains(long value) {
+        return mIndex.indexOf(value) >= 0;
+    }
+
+    /**
+     * Returns the index for which {@link #valueAt} would return the specified value, or a
+     * negative number if the value is not in the set.
+     */
+    public int indexOf(long value) {
+        return mIndex.indexOf(value);
+    }
+
+    /**
+     * Given an index in the range <code>0...size()-1</code>, returns the value at that index.
+     */
+    public long valueAt(int index) {
+        checkIndex(index);
+        return mIndex.mKeys[index];
+    }
+
+    /**
+     * Ensures this set can hold at least {@code minimumCapacity} values without any further
+     * allocation.
+     */
+    public void ensureCapacity(int minimumCapacity) {
+        mIndex.ensureCapacity(minimumCapacity);
+    }
+
+    /** Returns the number of values in this set. */
+    public int size() {
+        return mIndex.mSize;
+    }
+
+    /**
+     * Return true if size() is 0.
+     * @return true if size() is 0.
+     */
+    public boolean isEmpty() {
+        return mIndex.mSize == 0;
+    }
+
+    /** Removes all values from this set. */
+    public void clear() {
+        mIndex.clear();
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= mIndex.mSize) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+    }
+
+    @Override
+    public String toString() {
+        final int size = size();
+        if (size <= 0) {
+            return "{}";
+        }
+
+        StringBuilder buffer = new StringBuilder(size * 22);
+        buffer.append('{');
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                buffer.append(", ");
+            }
+            buffer.append(mIndex.mKeys[i]);
+        }
+        buffer.append('}');
+        return buffer.toString();
+    }
+}
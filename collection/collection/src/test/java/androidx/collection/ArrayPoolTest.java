@@ -0,0 +1,172 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RunWith(JUnit4.class)
+public class ArrayPoolTest {
+    private final ArrayPool mMapPool = ArrayPool.getSimpleArrayMapPool();
+    private final ArrayPool mSetPool = ArrayPool.getArraySetPool();
+
+    @Before
+    public void setUp() {
+        mMapPool.clear();
+        mMapPool.resetStats();
+        mSetPool.clear();
+        mSetPool.resetStats();
+    }
+
+    @After
+    public void tearDown() {
+        mMapPool.setMaxPooledCapacity(8);
+        mMapPool.setMaxArraysPerCapacity(10);
+        mSetPool.setMaxPooledCapacity(8);
+        mSetPool.setMaxArraysPerCapacity(10);
+    }
+
+    @Test
+    public void defaultPoolsOnlySmallCapacities() {
+        assertEquals(8, mMapPool.getMaxPooledCapacity());
+        SimpleArrayMap<Integer, Integer> map = new SimpleArrayMap<>();
+        fill(map, 100);
+        mMapPool.resetStats();
+        map.clear();
+        assertEquals(0, mMapPool.getRecycleCount());
+    }
+
+    @Test
+    public void largerCapacitiesAreRecycled() {
+        mMapPool.setMaxPooledCapacity(1024);
+        SimpleArrayMap<Integer, Integer> map = new SimpleArrayMap<>();
+        fill(map, 100);
+        map.clear();
+        assertTrue(mMapPool.getRecycleCount() > 0);
+
+        long hits = mMapPool.getHitCount();
+        SimpleArrayMap<Integer, Integer> other = new SimpleArrayMap<>();
+        fill(other, 100);
+        assertTrue(mMapPool.getHitCount() > hits);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, (int) other.get(i));
+        }
+    }
+
+    @Test
+    public void recycledArraysAreCleared() {
+        mSetPool.setMaxPooledCapacity(64);
+        ArraySet<String> set = new ArraySet<>(32);
+        for (int i = 0; i < 20; i++) {
+            set.add("value " + i);
+        }
+        set.clear();
+        ArraySet<String> other = new ArraySet<>(32);
+        assertEquals(1, mSetPool.getHitCount());
+        other.add("a");
+        assertEquals(1, other.size());
+        assertTrue(other.contains("a"));
+        for (int i = 0; i < 20; i++) {
+            assertTrue(!other.contains("value " + i));
+        }
+    }
+
+    @Test
+    public void fullPoolDropsArrays() {
+        mMapPool.setMaxArraysPerCapacity(1);
+        SimpleArrayMap<Integer, Integer> first = new SimpleArrayMap<>(4);
+        SimpleArrayMap<Integer, Integer> second = new SimpleArrayMap<>(4);
+        first.put(1, 1);
+        second.put(1, 1);
+        first.clear();
+        second.clear();
+        assertEquals(1, mMapPool.getRecycleCount());
+        assertEquals(1, mMapPool.getDropCount());
+    }
+
+    @Test
+    public void limitAppliesAcrossThreads() throws InterruptedException {
+        mMapPool.setMaxArraysPerCapacity(2);
+        final List<SimpleArrayMap<Integer, Integer>> maps = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            SimpleArrayMap<Integer, Integer> map = new SimpleArrayMap<>(4);
+            map.put(1, 1);
+            maps.add(map);
+        }
+        // Threads with consecutive ids release their arrays into different stripes of the pool.
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            final int first = 2 * t;
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    maps.get(first).clear();
+                    maps.get(first + 1).clear();
+                }
+            });
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(2, mMapPool.getRecycleCount());
+        assertEquals(14, mMapPool.getDropCount());
+    }
+
+    @Test
+    public void zeroArraysPerCapacityDisablesPooling() {
+        mMapPool.setMaxArraysPerCapacity(0);
+        SimpleArrayMap<Integer, Integer> map = new SimpleArrayMap<>(4);
+        map.put(1, 1);
+        map.clear();
+        assertEquals(0, mMapPool.getRecycleCount());
+        new SimpleArrayMap<Integer, Integer>(4);
+        assertEquals(0, mMapPool.getHitCount());
+    }
+
+    @Test
+    public void maxPooledCapacityMustBePowerOfTwo() {
+        try {
+            mMapPool.setMaxPooledCapacity(100);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+        try {
+            mMapPool.setMaxPooledCapacity(4);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    private static void fill(SimpleArrayMap<Integer, Integer> map, int count) {
+        for (int i = 0; i < count; i++) {
+            map.put(i, i);
+        }
+    }
+}
@@ -0,0 +1,313 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@RunWith(JUnit4.class)
+public class ConcurrentLruCacheTest {
+
+    @Test
+    public void testStatistics() {
+        ConcurrentLruCache<String, String> cache = new ConcurrentLruCache<>(3);
+        assertNull(cache.put("a", "A"));
+        assertNull(cache.put("b", "B"));
+        assertNull(cache.put("c", "C"));
+        assertEquals("A", cache.get("a"));
+        assertNull(cache.put("d", "D")); // evicts b, since a was read after b was put
+        assertNull(cache.get("b"));
+        assertSnapshot(cache, "c", "C", "a", "A", "d", "D");
+        assertEquals(4, cache.putCount());
+        assertEquals(1, cache.hitCount());
+        assertEquals(1, cache.missCount());
+        assertEquals(1, cache.evictionCount());
+        assertEquals(0, cache.createCount());
+        assertEquals(3, cache.size());
+    }
+
+    @Test
+    public void testCreateOnCacheMiss() {
+        ConcurrentLruCache<String, String> cache = newCreatingCache();
+        assertEquals("created-aa", cache.get("aa"));
+        assertEquals("created-aa", cache.get("aa"));
+        assertEquals(1, cache.createCount());
+        assertEquals(1, cache.hitCount());
+        assertEquals(1, cache.missCount());
+        assertNull(cache.get("a"));
+        assertEquals(1, cache.createCount());
+    }
+
+    @Test
+    public void testConstructorDoesNotAllowZeroCacheSize() {
+        try {
+            new ConcurrentLruCache<String, String>(0);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @Test
+    public void testConstructorDoesNotAllowUnknownPolicy() {
+        try {
+            new ConcurrentLruCache<String, String>(1, 5);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @Test
+    public void testCannotPutNullValue() {
+        ConcurrentLruCache<String, String> cache = new ConcurrentLruCache<>(3);
+        try {
+            cache.put("a", null);
+            fail();
+        } catch (NullPointerException expected) {
+        }
+    }
+
+    @Test
+    public void testToString() {
+        ConcurrentLruCache<String, String> cache = new ConcurrentLruCache<>(3);
+        cache.put("a", "A");
+        cache.get("a"); // hit
+        cache.get("b"); // miss
+        assertEquals("ConcurrentLruCache[maxSize=3,hits=1,misses=1,hitRate=50%]",
+                cache.toString());
+    }
+
+    @Test
+    public void testEntryEvictedWhenFull() {
+        List<String> log = new ArrayList<>();
+        ConcurrentLruCache<String, String> cache = newRemovalLogCache(log);
+        cache.put("a", "A");
+        cache.put("b", "B");
+        cache.put("c", "C");
+        assertEquals(Collections.<String>emptyList(), log);
+        cache.put("d", "D");
+        assertEquals(Arrays.asList("a=A"), log);
+    }
+
+    @Test
+    public void testPutCauseEviction() {
+        List<String> log = new ArrayList<>();
+        ConcurrentLruCache<String, String> cache = newRemovalLogCache(log);
+        cache.put("a", "A");
+        cache.put("b", "B");
+        cache.put("c", "C");
+        cache.put("b", "B2");
+        assertEquals(Arrays.asList("b=B>B2"), log);
+        assertSnapshot(cache, "a", "A", "c", "C", "b", "B2");
+    }
+
+    @Test
+    public void testEvictionWithCustomSizes() {
+        ConcurrentLruCache<String, String> cache = new ConcurrentLruCache<String, String>(4) {
+            @Override
+            protected int sizeOf(String key, String value) {
+                return value.length();
+            }
+        };
+        cache.put("a", "AAAA");
+        cache.put("b", "BBBB"); // should evict a
+        assertSnapshot(cache, "b", "BBBB");
+        cache.put("c", "CC"); // should evict b
+        cache.put("d", "DD");
+        assertSnapshot(cache, "c", "CC", "d", "DD");
+        cache.put("i", "III"); // should evict c and d
+        assertSnapshot(cache, "i", "III");
+        assertEquals(3, cache.size());
+    }
+
+    @Test
+    public void testEvictAllEvictsSizeZeroElements() {
+        ConcurrentLruCache<String, String> cache = new ConcurrentLruCache<String, String>(10) {
+            @Override
+            protected int sizeOf(String key, String value) {
+                return 0;
+            }
+        };
+        cache.put("a", "A");
+        cache.put("b", "B");
+        cache.evictAll();
+        assertEquals(0, cache.size());
+        assertSnapshot(cache);
+    }
+
+    @Test
+    public void testRemoveCallsEntryRemoved() {
+        List<String> log = new ArrayList<>();
+        ConcurrentLruCache<String, String> cache = newRemovalLogCache(log);
+        cache.put("a", "A");
+        assertEquals("A", cache.remove("a"));
+        assertNull(cache.remove("a"));
+        assertEquals(Arrays.asList("a=A>null"), log);
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testResizeEvicts() {
+        ConcurrentLruCache<String, String> cache = new ConcurrentLruCache<>(3);
+        cache.put("a", "A");
+        cache.put("b", "B");
+        cache.put("c", "C");
+        cache.resize(1);
+        assertEquals(1, cache.maxSize());
+        assertSnapshot(cache, "c", "C");
+    }
+
+    @Test
+    public void testManyReadsKeepRecencyOrder() {
+        ConcurrentLruCache<Integer, Integer> cache = new ConcurrentLruCache<>(100);
+        for (int i = 0; i < 100; i++) {
+            cache.put(i, i);
+        }
+        // Read the first half repeatedly, enough to overflow the read buffers several times.
+        for (int round = 0; round < 10; round++) {
+            for (int i = 0; i < 50; i++) {
+                cache.get(i);
+            }
+        }
+        for (int i = 100; i < 150; i++) {
+            cache.put(i, i);
+        }
+        Map<Integer, Integer> snapshot = cache.snapshot();
+        for (int i = 0; i < 50; i++) {
+            assertTrue(snapshot.containsKey(i));
+        }
+    }
+
+    @Test
+    public void testTinyLfuResistsScan() {
+        ConcurrentLruCache<Integer, Integer> cache =
+                new ConcurrentLruCache<>(10, ConcurrentLruCache.EVICTION_POLICY_TINY_LFU);
+        assertEquals(ConcurrentLruCache.EVICTION_POLICY_TINY_LFU, cache.evictionPolicy());
+        for (int i = 0; i < 10; i++) {
+            cache.put(i, i);
+        }
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 10; i++) {
+                cache.get(i);
+            }
+        }
+        // A one-off scan over keys that are never read again.
+        for (int i = 1000; i < 1100; i++) {
+            cache.put(i, i);
+        }
+        Map<Integer, Integer> snapshot = cache.snapshot();
+        int retained = 0;
+        for (int i = 0; i < 10; i++) {
+            if (snapshot.containsKey(i)) {
+                retained++;
+            }
+        }
+        assertTrue("retained " + retained, retained >= 9);
+        assertEquals(10, cache.size());
+    }
+
+    @Test
+    public void consistentMultithreadedAccess() throws InterruptedException {
+        final int threads = 8;
+        final int rounds = 20000;
+        final AtomicInteger removed = new AtomicInteger();
+        final ConcurrentLruCache<Integer, Integer> cache =
+                new ConcurrentLruCache<Integer, Integer>(64) {
+                    @Override
+                    protected Integer create(Integer key) {
+                        return key;
+                    }
+
+                    @Override
+                    protected void entryRemoved(boolean evicted, Integer key, Integer oldValue,
+                            Integer newValue) {
+                        removed.incrementAndGet();
+                    }
+                };
+        final CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            final int seed = t;
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < rounds; i++) {
+                        int key = (i * 31 + seed) % 200;
+                        if (i % 10 == 0) {
+                            cache.put(key, key);
+                        } else {
+                            assertEquals(key, (int) cache.get(key));
+                        }
+                    }
+                    done.countDown();
+                }
+            }).start();
+        }
+        done.await();
+
+        assertEquals(threads * rounds, cache.hitCount() + cache.missCount() + cache.putCount());
+        assertTrue(cache.size() <= 64);
+        assertEquals(cache.snapshot().size(), cache.size());
+        cache.evictAll();
+        assertEquals(0, cache.size());
+    }
+
+    private ConcurrentLruCache<String, String> newCreatingCache() {
+        return new ConcurrentLruCache<String, String>(3) {
+            @Override
+            protected String create(String key) {
+                return (key.length() > 1) ? ("created-" + key) : null;
+            }
+        };
+    }
+
+    private ConcurrentLruCache<String, String> newRemovalLogCache(final List<String> log) {
+        return new ConcurrentLruCache<String, String>(3) {
+            @Override
+            protected void entryRemoved(
+                    boolean evicted, String key, String oldValue, String newValue) {
+                String message = evicted
+                        ? (key + "=" + oldValue)
+                        : (key + "=" + oldValue + ">" + newValue);
+                log.add(message);
+            }
+        };
+    }
+
+    private static <T> void assertSnapshot(ConcurrentLruCache<T, T> cache, T... keysAndValues) {
+        List<T> actualKeysAndValues = new ArrayList<>();
+        for (Map.Entry<T, T> entry : cache.snapshot().entrySet()) {
+            actualKeysAndValues.add(entry.getKey());
+            actualKeysAndValues.add(entry.getValue());
+        }
+
+        // assert using lists because order is important for LRUs
+        assertEquals(Arrays.asList(keysAndValues), actualKeysAndValues);
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class FrequencySketchTest {
+    @Test
+    public void frequencyCountsIncrements() {
+        FrequencySketch sketch = new FrequencySketch();
+        for (int i = 0; i < 5; i++) {
+            sketch.increment("a");
+        }
+        assertEquals(5, sketch.frequency("a"));
+        assertEquals(0, sketch.frequency("b"));
+    }
+
+    @Test
+    public void frequencyIsCappedAt15() {
+        FrequencySketch sketch = new FrequencySketch();
+        for (int i = 0; i < 20; i++) {
+            sketch.increment("a");
+        }
+        assertEquals(15, sketch.frequency("a"));
+    }
+
+    @Test
+    public void ensureCapacityGrowsTable() {
+        FrequencySketch sketch = new FrequencySketch();
+        assertEquals(16, sketch.tableSize());
+        sketch.ensureCapacity(10);
+        assertEquals(16, sketch.tableSize());
+        sketch.ensureCapacity(100);
+        assertEquals(128, sketch.tableSize());
+        sketch.ensureCapacity(Integer.MAX_VALUE);
+        assertEquals(1 << 20, sketch.tableSize());
+    }
+
+    @Test
+    public void weightedCacheSizesSketchByEntries() {
+        // maxSize is in bytes here; the sketch must follow the few entries that fit.
+        ConcurrentLruCache<Integer, byte[]> cache = new ConcurrentLruCache<Integer, byte[]>(
+                Integer.MAX_VALUE, ConcurrentLruCache.EVICTION_POLICY_TINY_LFU) {
+            @Override
+            protected int sizeOf(Integer key, byte[] value) {
+                return 1 << 20;
+            }
+        };
+        for (int i = 0; i < 100; i++) {
+            cache.put(i, new byte[0]);
+        }
+        assertEquals(128, cache.frequencySketch().tableSize());
+    }
+}
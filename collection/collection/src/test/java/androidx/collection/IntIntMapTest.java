@@ -0,0 +1,95 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class IntIntMapTest {
+    @Test
+    public void getReturnsZeroWhenAbsent() {
+        IntIntMap map = new IntIntMap();
+        assertEquals(0, map.get(1));
+        assertEquals(-1, map.get(1, -1));
+    }
+
+    @Test
+    public void putReplacesValue() {
+        IntIntMap map = new IntIntMap();
+        map.put(1, 10);
+        map.put(1, 20);
+        assertEquals(1, map.size());
+        assertEquals(20, map.get(1));
+    }
+
+    @Test
+    public void addToTreatsAbsentAsZero() {
+        IntIntMap map = new IntIntMap();
+        assertEquals(5, map.addTo(7, 5));
+        assertEquals(8, map.addTo(7, 3));
+        assertEquals(8, map.get(7));
+    }
+
+    @Test
+    public void addToAfterRemoveStartsFromZero() {
+        IntIntMap map = new IntIntMap();
+        map.put(1, 10);
+        map.put(2, 20);
+        map.remove(2);
+        assertEquals(3, map.addTo(3, 3));
+    }
+
+    @Test
+    public void growsAndKeepsAllMappings() {
+        IntIntMap map = new IntIntMap();
+        for (int i = 0; i < 100_000; i++) {
+            map.put(i * 31, i);
+        }
+        assertEquals(100_000, map.size());
+        for (int i = 0; i < 100_000; i++) {
+            assertEquals(i, map.get(i * 31, -1));
+        }
+        for (int i = 0; i < 100_000; i += 2) {
+            assertTrue(map.remove(i * 31));
+        }
+        assertEquals(50_000, map.size());
+        for (int i = 0; i < 100_000; i++) {
+            assertEquals((i & 1) == 0 ? -1 : i, map.get(i * 31, -1));
+        }
+    }
+
+    @Test
+    public void removeAbsentKeyReturnsFalse() {
+        IntIntMap map = new IntIntMap();
+        assertFalse(map.remove(1));
+    }
+
+    @Test
+    public void toStringFormat() {
+        IntIntMap map = new IntIntMap();
+        assertEquals("{}", map.toString());
+        map.put(1, 10);
+        map.put(2, 20);
+        assertEquals("{1=10, 2=20}", map.toString());
+    }
+}
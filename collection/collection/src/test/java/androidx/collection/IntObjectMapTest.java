@@ -0,0 +1,154 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+@RunWith(JUnit4.class)
+public class IntObjectMapTest {
+    @Test
+    public void putReturnsPreviousValue() {
+        IntObjectMap<String> map = new IntObjectMap<>();
+        assertNull(map.put(1, "1"));
+        assertEquals("1", map.put(1, "2"));
+        assertEquals("2", map.get(1));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    public void getOrDefaultUsesDefaultWhenAbsent() {
+        IntObjectMap<String> map = new IntObjectMap<>();
+        assertEquals("1", map.get(1, "1"));
+        assertFalse(map.containsKey(1));
+    }
+
+    @Test
+    public void removeMovesLastMappingIntoRemovedIndex() {
+        IntObjectMap<String> map = new IntObjectMap<>();
+        map.put(10, "10");
+        map.put(20, "20");
+        map.put(30, "30");
+        assertEquals("10", map.remove(10));
+        assertEquals(2, map.size());
+        assertEquals(30, map.keyAt(0));
+        assertEquals("30", map.valueAt(0));
+        assertEquals(0, map.indexOfKey(30));
+        assertEquals(1, map.indexOfKey(20));
+        assertTrue(map.indexOfKey(10) < 0);
+    }
+
+    @Test
+    public void removeAtWhileIteratingBackwardsVisitsAll() {
+        IntObjectMap<String> map = new IntObjectMap<>();
+        for (int i = 0; i < 100; i++) {
+            map.put(i, Integer.toString(i));
+        }
+        int visited = 0;
+        for (int i = map.size() - 1; i >= 0; i--) {
+            if (map.keyAt(i) % 2 == 0) {
+                map.removeAt(i);
+            }
+            visited++;
+        }
+        assertEquals(100, visited);
+        assertEquals(50, map.size());
+        for (int i = 0; i < map.size(); i++) {
+            assertEquals(1, map.keyAt(i) % 2);
+        }
+    }
+
+    @Test
+    public void matchesHashMapUnderRandomOperations() {
+        Random random = new Random(0);
+        IntObjectMap<Integer> map = new IntObjectMap<>();
+        Map<Integer, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 50_000; i++) {
+            int key = random.nextInt(5_000) - 2_500;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                int value = random.nextInt();
+                assertEquals(expected.put(key, value), map.put(key, value));
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        for (int i = 0; i < map.size(); i++) {
+            assertEquals(expected.get(map.keyAt(i)), map.valueAt(i));
+        }
+    }
+
+    @Test
+    public void cloneIsIndependent() {
+        IntObjectMap<String> map = new IntObjectMap<>();
+        map.put(1, "1");
+        IntObjectMap<String> clone = map.clone();
+        clone.put(2, "2");
+        clone.remove(1);
+        assertEquals("1", map.get(1));
+        assertFalse(map.containsKey(2));
+    }
+
+    @Test
+    public void putAll() {
+        IntObjectMap<String> map = new IntObjectMap<>();
+        map.put(1, "1");
+        IntObjectMap<String> other = new IntObjectMap<>();
+        other.put(1, "one");
+        other.put(2, "2");
+        map.putAll(other);
+        assertEquals(2, map.size());
+        assertEquals("one", map.get(1));
+        assertEquals("2", map.get(2));
+    }
+
+    @Test
+    public void clear() {
+        IntObjectMap<String> map = new IntObjectMap<>(10);
+        map.put(1, "1");
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertNull(map.get(1));
+        map.put(1, "2");
+        assertEquals("2", map.get(1));
+    }
+
+    @Test
+    public void toStringFormat() {
+        IntObjectMap<String> map = new IntObjectMap<>();
+        assertEquals("{}", map.toString());
+        map.put(1, "one");
+        map.put(2, "two");
+        assertEquals("{1=one, 2=two}", map.toString());
+    }
+
+    @Test(expected = ArrayIndexOutOfBoundsException.class)
+    public void keyAtOutOfBoundsThrows() {
+        IntObjectMap<String> map = new IntObjectMap<>(10);
+        map.keyAt(0);
+    }
+}
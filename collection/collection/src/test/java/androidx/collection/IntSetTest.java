@@ -0,0 +1,80 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class IntSetTest {
+    @Test
+    public void addReportsWhetherValueWasNew() {
+        IntSet set = new IntSet();
+        assertTrue(set.add(1));
+        assertFalse(set.add(1));
+        assertEquals(1, set.size());
+    }
+
+    @Test
+    public void removeAndContains() {
+        IntSet set = new IntSet();
+        for (int i = 0; i < 1000; i++) {
+            set.add(i);
+        }
+        for (int i = 0; i < 1000; i += 3) {
+            assertTrue(set.remove(i));
+        }
+        assertFalse(set.remove(0));
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i % 3 != 0, set.contains(i));
+        }
+        for (int i = 0; i < set.size(); i++) {
+            assertEquals(i, set.indexOf(set.valueAt(i)));
+        }
+    }
+
+    @Test
+    public void addAll() {
+        IntSet set = new IntSet();
+        set.add(1);
+        IntSet other = new IntSet();
+        other.add(1);
+        other.add(2);
+        set.addAll(other);
+        assertEquals(2, set.size());
+        assertTrue(set.contains(2));
+    }
+
+    @Test
+    public void clear() {
+        IntSet set = new IntSet(4);
+        set.add(1);
+        set.clear();
+        assertTrue(set.isEmpty());
+        assertFalse(set.contains(1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void tooLargeCapacityThrows() {
+        new IntSet(Integer.MAX_VALUE);
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+@RunWith(JUnit4.class)
+public class LongLongMapTest {
+    @Test
+    public void keysDifferingOnlyInHighBitsAreDistinct() {
+        LongLongMap map = new LongLongMap();
+        map.put(1L, 1L);
+        map.put(1L << 32 | 1L, 2L);
+        map.put(Long.MIN_VALUE | 1L, 3L);
+        assertEquals(3, map.size());
+        assertEquals(1L, map.get(1L));
+        assertEquals(2L, map.get(1L << 32 | 1L));
+        assertEquals(3L, map.get(Long.MIN_VALUE | 1L));
+    }
+
+    @Test
+    public void matchesHashMapUnderRandomOperations() {
+        Random random = new Random(0);
+        LongLongMap map = new LongLongMap();
+        Map<Long, Long> expected = new HashMap<>();
+        for (int i = 0; i < 50_000; i++) {
+            long key = random.nextInt(5_000) * 0x100000001L;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key) != null, map.remove(key));
+            } else {
+                long value = random.nextLong();
+                expected.put(key, value);
+                map.put(key, value);
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        for (int i = 0; i < map.size(); i++) {
+            assertEquals((long) expected.get(map.keyAt(i)), map.valueAt(i));
+        }
+    }
+
+    @Test
+    public void containsKey() {
+        LongLongMap map = new LongLongMap();
+        assertFalse(map.containsKey(5L));
+        map.put(5L, 0L);
+        assertTrue(map.containsKey(5L));
+    }
+}
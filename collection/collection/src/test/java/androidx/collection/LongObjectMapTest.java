@@ -0,0 +1,170 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+@RunWith(JUnit4.class)
+public class LongObjectMapTest {
+    @Test
+    public void putReturnsPreviousValue() {
+        LongObjectMap<String> map = new LongObjectMap<>();
+        assertNull(map.put(1L, "1"));
+        assertEquals("1", map.put(1L, "2"));
+        assertEquals("2", map.get(1L));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    public void getOrDefaultUsesDefaultWhenAbsent() {
+        LongObjectMap<String> map = new LongObjectMap<>();
+        assertEquals("1", map.get(1L, "1"));
+        assertFalse(map.containsKey(1L));
+    }
+
+    @Test
+    public void keysDifferingOnlyInHighBitsAreDistinct() {
+        LongObjectMap<String> map = new LongObjectMap<>();
+        map.put(1L, "1");
+        map.put(1L << 32 | 1L, "2");
+        map.put(Long.MIN_VALUE | 1L, "3");
+        assertEquals(3, map.size());
+        assertEquals("1", map.get(1L));
+        assertEquals("2", map.get(1L << 32 | 1L));
+        assertEquals("3", map.get(Long.MIN_VALUE | 1L));
+    }
+
+    @Test
+    public void removeMovesLastMappingIntoRemovedIndex() {
+        LongObjectMap<String> map = new LongObjectMap<>();
+        map.put(10L, "10");
+        map.put(20L, "20");
+        map.put(30L, "30");
+        assertEquals("10", map.remove(10L));
+        assertEquals(2, map.size());
+        assertEquals(30L, map.keyAt(0));
+        assertEquals("30", map.valueAt(0));
+        assertEquals(0, map.indexOfKey(30L));
+        assertEquals(1, map.indexOfKey(20L));
+        assertTrue(map.indexOfKey(10L) < 0);
+    }
+
+    @Test
+    public void removeAtWhileIteratingBackwardsVisitsAll() {
+        LongObjectMap<String> map = new LongObjectMap<>();
+        for (long i = 0; i < 100; i++) {
+            map.put(i, Long.toString(i));
+        }
+        int visited = 0;
+        for (int i = map.size() - 1; i >= 0; i--) {
+            if (map.keyAt(i) % 2 == 0) {
+                map.removeAt(i);
+            }
+            visited++;
+        }
+        assertEquals(100, visited);
+        assertEquals(50, map.size());
+        for (int i = 0; i < map.size(); i++) {
+            assertEquals(1L, map.keyAt(i) % 2);
+        }
+    }
+
+    @Test
+    public void matchesHashMapUnderRandomOperations() {
+        Random random = new Random(0);
+        LongObjectMap<Long> map = new LongObjectMap<>();
+        Map<Long, Long> expected = new HashMap<>();
+        for (int i = 0; i < 50_000; i++) {
+            long key = (random.nextInt(5_000) - 2_500) * 0x100000001L;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                long value = random.nextLong();
+                assertEquals(expected.put(key, value), map.put(key, value));
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        for (int i = 0; i < map.size(); i++) {
+            assertEquals(expected.get(map.keyAt(i)), map.valueAt(i));
+        }
+    }
+
+    @Test
+    public void cloneIsIndependent() {
+        LongObjectMap<String> map = new LongObjectMap<>();
+        map.put(1L, "1");
+        LongObjectMap<String> clone = map.clone();
+        clone.put(2L, "2");
+        clone.remove(1L);
+        assertEquals("1", map.get(1L));
+        assertFalse(map.containsKey(2L));
+    }
+
+    @Test
+    public void putAll() {
+        LongObjectMap<String> map = new LongObjectMap<>();
+        map.put(1L, "1");
+        LongObjectMap<String> other = new LongObjectMap<>();
+        other.put(1L, "one");
+        other.put(2L, "2");
+        map.putAll(other);
+        assertEquals(2, map.size());
+        assertEquals("one", map.get(1L));
+        assertEquals("2", map.get(2L));
+    }
+
+    @Test
+    public void clear() {
+        LongObjectMap<String> map = new LongObjectMap<>(10);
+        map.put(1L, "1");
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertNull(map.get(1L));
+        map.put(1L, "2");
+        assertEquals("2", map.get(1L));
+    }
+
+    @Test
+    public void toStringFormat() {
+        LongObjectMap<String> map = new LongObjectMap<>();
+        assertEquals("{}", map.toString());
+        map.put(1L, "one");
+        map.put(2L, "two");
+        assertEquals("{1=one, 2=two}", map.toString());
+    }
+
+    @Test(expected = ArrayIndexOutOfBoundsException.class)
+    public void keyAtOutOfBoundsThrows() {
+        LongObjectMap<String> map = new LongObjectMap<>(10);
+        map.keyAt(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void tooLargeCapacityThrows() {
+        new LongObjectMap<String>(Integer.MAX_VALUE);
+    }
+}
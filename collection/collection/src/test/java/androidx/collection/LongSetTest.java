@@ -0,0 +1,100 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class LongSetTest {
+    @Test
+    public void addReportsWhetherValueWasNew() {
+        LongSet set = new LongSet();
+        assertTrue(set.add(1L));
+        assertFalse(set.add(1L));
+        assertTrue(set.add(1L << 32 | 1L));
+        assertEquals(2, set.size());
+    }
+
+    @Test
+    public void removeAndContains() {
+        LongSet set = new LongSet();
+        for (long i = 0; i < 1000; i++) {
+            set.add(i * 0x100000001L);
+        }
+        for (long i = 0; i < 1000; i += 3) {
+            assertTrue(set.remove(i * 0x100000001L));
+        }
+        assertFalse(set.remove(0L));
+        for (long i = 0; i < 1000; i++) {
+            assertEquals(i % 3 != 0, set.contains(i * 0x100000001L));
+        }
+        for (int i = 0; i < set.size(); i++) {
+            assertEquals(i, set.indexOf(set.valueAt(i)));
+        }
+    }
+
+    @Test
+    public void addAll() {
+        LongSet set = new LongSet();
+        set.add(1L);
+        LongSet other = new LongSet();
+        other.add(1L);
+        other.add(2L);
+        set.addAll(other);
+        assertEquals(2, set.size());
+        assertTrue(set.contains(2L));
+    }
+
+    @Test
+    public void cloneIsIndependent() {
+        LongSet set = new LongSet();
+        set.add(1L);
+        LongSet clone = set.clone();
+        clone.add(2L);
+        clone.remove(1L);
+        assertTrue(set.contains(1L));
+        assertFalse(set.contains(2L));
+    }
+
+    @Test
+    public void clear() {
+        LongSet set = new LongSet(4);
+        set.add(1L);
+        set.clear();
+        assertTrue(set.isEmpty());
+        assertFalse(set.contains(1L));
+    }
+
+    @Test
+    public void toStringFormat() {
+        LongSet set = new LongSet();
+        assertEquals("{}", set.toString());
+        set.add(1L);
+        set.add(2L);
+        assertEquals("{1, 2}", set.toString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void tooLargeCapacityThrows() {
+        new LongSet().ensureCapacity(Integer.MAX_VALUE);
+    }
+}
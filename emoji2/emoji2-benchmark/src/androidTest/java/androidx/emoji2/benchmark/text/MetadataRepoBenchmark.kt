@@ -0,0 +1,102 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.emoji2.benchmark.text
+
+import android.content.Context
+import android.graphics.Typeface
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import androidx.emoji2.text.EmojiCompat
+import androidx.emoji2.text.MetadataRepo
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.filters.LargeTest
+import androidx.test.filters.SdkSuppress
+import org.junit.After
+import org.junit.Assert.assertNotSame
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import java.nio.ByteBuffer
+
+/**
+ * Measures building the [MetadataRepo] trie from the bundled font, and walking it while
+ * processing a long chat text.
+ */
+@RunWith(AndroidJUnit4::class)
+@LargeTest
+@SdkSuppress(minSdkVersion = 19)
+class MetadataRepoBenchmark {
+
+    @get:Rule
+    val benchmarkRule = BenchmarkRule()
+
+    private lateinit var fontBuffer: ByteBuffer
+
+    @Before
+    fun setUp() {
+        val context = ApplicationProvider.getApplicationContext<Context>()
+        val bytes = context.assets.open(FONT_FILE).use { it.readBytes() }
+        fontBuffer = ByteBuffer.wrap(bytes)
+    }
+
+    @After
+    fun tearDown() {
+        EmojiCompat.reset(null as EmojiCompat?)
+    }
+
+    @Test
+    fun createMetadataRepo() {
+        benchmarkRule.measureRepeated {
+            fontBuffer.rewind()
+            MetadataRepo.create(Typeface.DEFAULT, fontBuffer)
+        }
+    }
+
+    @Test
+    fun processLongText() {
+        fontBuffer.rewind()
+        val metadataRepo = MetadataRepo.create(Typeface.DEFAULT, fontBuffer)
+        val config = NoFontTestEmojiConfig.fromLoader { it.onLoaded(metadataRepo) }
+            .setReplaceAll(true)
+        EmojiCompat.reset(config)
+        EmojiCompat.skipDefaultConfigurationLookup(true)
+        val emojiCompat = EmojiCompat.get()
+        val text = buildString {
+            while (length < TEXT_LENGTH) {
+                append(CHAT_LINE)
+            }
+        }
+
+        benchmarkRule.measureRepeated {
+            val result = emojiCompat.process(text)
+            runWithTimingDisabled {
+                assertNotSame(text, result)
+            }
+        }
+    }
+
+    companion object {
+        private const val FONT_FILE = "NotoColorEmojiCompat.ttf"
+        private const val TEXT_LENGTH = 10_000
+
+        // plain text, single codepoint, variation selector, keycap, flag, skin tone and
+        // ZWJ sequence emojis
+        private const val CHAT_LINE = "See you at 8 😀 ❤️ #️⃣ 🇬🇧 👍🏽 👨‍👩‍👧 ok?\n"
+    }
+}
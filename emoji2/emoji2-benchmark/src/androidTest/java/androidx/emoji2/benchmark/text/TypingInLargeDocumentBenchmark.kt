@@ -0,0 +1,108 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.emoji2.benchmark.text
+
+import android.content.Context
+import android.graphics.Typeface
+import android.text.DynamicLayout
+import android.text.Layout
+import android.text.TextPaint
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import androidx.emoji2.text.EmojiCompat
+import androidx.emoji2.text.MetadataRepo
+import androidx.emoji2.text.SpannableBuilder
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.filters.LargeTest
+import androidx.test.filters.SdkSuppress
+import org.junit.After
+import org.junit.Assert.assertSame
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+
+/**
+ * Measures processing an emoji typed near the end of a large document which is laid out with a
+ * [DynamicLayout], the way [EmojiCompat] is called by the EmojiTextWatcher of an EditText.
+ */
+@LargeTest
+@SdkSuppress(minSdkVersion = 19)
+@RunWith(Parameterized::class)
+class TypingInLargeDocumentBenchmark(private val documentLength: Int) {
+
+    @get:Rule
+    val benchmarkRule = BenchmarkRule()
+
+    private lateinit var emojiCompat: EmojiCompat
+
+    @Before
+    fun setUp() {
+        val context = ApplicationProvider.getApplicationContext<Context>()
+        val metadataRepo = context.assets.open(FONT_FILE).use {
+            MetadataRepo.create(Typeface.DEFAULT, it)
+        }
+        val config = NoFontTestEmojiConfig.fromLoader { it.onLoaded(metadataRepo) }
+            .setReplaceAll(true)
+        EmojiCompat.reset(config)
+        EmojiCompat.skipDefaultConfigurationLookup(true)
+        emojiCompat = EmojiCompat.get()
+    }
+
+    @After
+    fun tearDown() {
+        EmojiCompat.reset(null as EmojiCompat?)
+    }
+
+    @Suppress("DEPRECATION")
+    @Test
+    fun typeEmojiNearEnd() {
+        val watcherClass = Class.forName("android.text.DynamicLayout\$ChangeWatcher")
+        val document = SpannableBuilder.create(watcherClass, buildString {
+            while (length < documentLength) {
+                append(PARAGRAPH)
+            }
+        })
+        assertSame(document, emojiCompat.process(document))
+        // attaches its ChangeWatcher to the document
+        DynamicLayout(
+            document, TextPaint(), LAYOUT_WIDTH, Layout.Alignment.ALIGN_NORMAL, 1f, 0f, false
+        )
+        val offset = document.length - PARAGRAPH.length / 2
+
+        benchmarkRule.measureRepeated {
+            document.insert(offset, TYPED_EMOJI)
+            val result = emojiCompat.process(document, offset, offset + TYPED_EMOJI.length)
+            runWithTimingDisabled {
+                assertSame(document, result)
+                document.delete(offset, offset + TYPED_EMOJI.length)
+            }
+        }
+    }
+
+    companion object {
+        private const val FONT_FILE = "NotoColorEmojiCompat.ttf"
+        private const val LAYOUT_WIDTH = 1080
+        private const val TYPED_EMOJI = "😀"
+        private const val PARAGRAPH = "Typing a long message with a few emojis 👍🏽 ❤️ in it.\n"
+
+        @JvmStatic
+        @Parameterized.Parameters(name = "documentLength={0}")
+        fun data(): List<Int> = listOf(1_000, 10_000, 50_000)
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.emoji2.text;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import android.graphics.Typeface;
+
+import androidx.annotation.NonNull;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SdkSuppress;
+import androidx.test.filters.SmallTest;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+@SmallTest
+@RunWith(AndroidJUnit4.class)
+@SdkSuppress(minSdkVersion = 19)
+public class GlyphCacheTest {
+    private static final int EMOJI_COUNT = GlyphCache.CHUNK_SIZE * 2 + 10;
+
+    private ExecutorService mExecutor;
+    private File mFile;
+
+    @Before
+    public void setup() {
+        mExecutor = Executors.newFixedThreadPool(4);
+        mFile = new File(ApplicationProvider.getApplicationContext().getCacheDir(),
+                "glyph_cache_test");
+        //noinspection ResultOfMethodCallIgnored
+        mFile.delete();
+    }
+
+    @After
+    public void teardown() {
+        mExecutor.shutdownNow();
+        //noinspection ResultOfMethodCallIgnored
+        mFile.delete();
+    }
+
+    @Test
+    public void testPrecompute_checksAllEmojis() throws InterruptedException {
+        final MetadataRepo metadataRepo = createMetadataRepo();
+        final EvenCodepointGlyphChecker glyphChecker = new EvenCodepointGlyphChecker();
+
+        precompute(metadataRepo, glyphChecker);
+
+        synchronized (glyphChecker) {
+            assertEquals(EMOJI_COUNT, glyphChecker.mCheckCount);
+        }
+        assertHasGlyphs(metadataRepo);
+    }
+
+    @Test
+    public void testWriteAndRestore() throws InterruptedException {
+        final MetadataRepo metadataRepo = createMetadataRepo();
+        precompute(metadataRepo, new EvenCodepointGlyphChecker());
+        GlyphCache.write(metadataRepo, "key", mFile);
+
+        final MetadataRepo restored = createMetadataRepo();
+        assertTrue(GlyphCache.restore(restored, "key", mFile));
+        assertHasGlyphs(restored);
+    }
+
+    @Test
+    public void testRestore_withDifferentKey_returnsFalse() throws InterruptedException {
+        final MetadataRepo metadataRepo = createMetadataRepo();
+        precompute(metadataRepo, new EvenCodepointGlyphChecker());
+        GlyphCache.write(metadataRepo, "key", mFile);
+
+        final MetadataRepo restored = createMetadataRepo();
+        assertFalse(GlyphCache.restore(restored, "other key", mFile));
+        assertEquals(EmojiMetadata.HAS_GLYPH_UNKNOWN, restored.getEmoji(0).getHasGlyph());
+    }
+
+    @Test
+    public void testWrite_withUncheckedEmojis_doesNotWrite() {
+        final MetadataRepo metadataRepo = createMetadataRepo();
+        GlyphCache.write(metadataRepo, "key", mFile);
+        assertFalse(mFile.exists());
+    }
+
+    @Test
+    public void testCreateKey_isStable() {
+        // The key must only depend on state apps can read, or the file would never be used.
+        final MetadataRepo metadataRepo = createMetadataRepo();
+        final EmojiCompat.GlyphChecker glyphChecker = new EvenCodepointGlyphChecker();
+        assertEquals(GlyphCache.createKey(metadataRepo, glyphChecker),
+                GlyphCache.createKey(createMetadataRepo(), glyphChecker));
+    }
+
+    private void precompute(MetadataRepo metadataRepo, EmojiCompat.GlyphChecker glyphChecker)
+            throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        GlyphCache.precompute(metadataRepo, glyphChecker, mExecutor, new Runnable() {
+            @Override
+            public void run() {
+                latch.countDown();
+            }
+        });
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+    }
+
+    private static MetadataRepo createMetadataRepo() {
+        final MetadataRepo metadataRepo = MetadataRepo.create(mock(Typeface.class));
+        for (int i = 0; i < EMOJI_COUNT; i++) {
+            metadataRepo.put(new TestEmojiMetadata(new int[]{0x1F000 + i}));
+        }
+        return metadataRepo;
+    }
+
+    private static void assertHasGlyphs(MetadataRepo metadataRepo) {
+        for (int i = 0; i < EMOJI_COUNT; i++) {
+            final int expected = i % 2 == 0 ? EmojiMetadata.HAS_GLYPH_EXISTS
+                    : EmojiMetadata.HAS_GLYPH_ABSENT;
+            assertEquals(expected, metadataRepo.getEmoji(i).getHasGlyph());
+        }
+    }
+
+    private static class EvenCodepointGlyphChecker implements EmojiCompat.GlyphChecker {
+        int mCheckCount;
+
+        @Override
+        public synchronized boolean hasGlyph(@NonNull CharSequence charSequence, int start,
+                int end, int sdkAdded) {
+            mCheckCount++;
+            return Character.codePointAt(charSequence, start) % 2 == 0;
+        }
+    }
+}
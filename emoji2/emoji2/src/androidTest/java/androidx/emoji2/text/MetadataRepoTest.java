@@ -15,6 +15,7 @@
  */
 package androidx.emoji2.text;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.mockito.Mockito.mock;
@@ -95,16 +96,43 @@ public class MetadataRepoTest {
         assertNull(getNode(new int[]{1, 2, 3, 4, 5}));
     }
 
-    final EmojiMetadata getNode(final int[] codepoints) {
-        return getNode(mMetadataRepo.getRootNode(), codepoints, 0);
+    @Test
+    public void testPut_siblingsInSameAndDifferentBlocks() {
+        final int[][] codePoints = new int[][]{
+                {0x1F600}, {0x1F601}, {0x1F6FF}, {0x1F700}, {0x23}, {0x23, 0xFE0F}, {0x10FFFF}};
+        final EmojiMetadata[] metadata = new EmojiMetadata[codePoints.length];
+        // add out of order to check that children are sorted
+        for (int i = codePoints.length - 1; i >= 0; i--) {
+            metadata[i] = new TestEmojiMetadata(codePoints[i]);
+            mMetadataRepo.put(metadata[i]);
+        }
+
+        for (int i = 0; i < codePoints.length; i++) {
+            assertSame(metadata[i], getNode(codePoints[i]));
+        }
+        assertNull(getNode(new int[]{0x1F602}));
+        assertNull(getNode(new int[]{0x24}));
+        assertNull(getNode(new int[]{0x1F600, 0xFE0F}));
     }
 
-    final EmojiMetadata getNode(MetadataRepo.Node node, final int[] codepoints, int start) {
-        if (codepoints.length < start) return null;
-        if (codepoints.length == start) return node.getData();
+    @Test
+    public void testPut_sameCodePoints_replacesMetadata() {
+        final int[] codePoint = new int[]{1, 2};
+        mMetadataRepo.put(new TestEmojiMetadata(codePoint));
+        final EmojiMetadata metadata = new TestEmojiMetadata(codePoint);
+        mMetadataRepo.put(metadata);
+
+        assertSame(metadata, getNode(codePoint));
+        assertEquals(3, mMetadataRepo.getTrie().getNodeCount());
+    }
 
-        final MetadataRepo.Node childNode = node.get(codepoints[start]);
-        if (childNode == null) return null;
-        return getNode(childNode, codepoints, start + 1);
+    final EmojiMetadata getNode(final int[] codepoints) {
+        final MetadataTrie trie = mMetadataRepo.getTrie();
+        int node = MetadataTrie.ROOT;
+        for (int codepoint : codepoints) {
+            node = trie.getChild(node, codepoint);
+            if (node == MetadataTrie.NO_NODE) return null;
+        }
+        return trie.getData(node);
     }
 }
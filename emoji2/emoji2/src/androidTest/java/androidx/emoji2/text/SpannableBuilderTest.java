@@ -24,6 +24,7 @@ import static org.junit.Assert.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyObject;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.same;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
@@ -210,4 +211,36 @@ public class SpannableBuilderTest {
                 anyInt());
         verify(textWatcher, times(1)).afterTextChanged(any(Editable.class));
     }
+
+    @Test
+    public void testEndBatchEdit_notifiesOnlyChangedEmojiSpanRange() {
+        final EmojiSpan oldSpan = mock(EmojiSpan.class);
+        final EmojiSpan newSpan = mock(EmojiSpan.class);
+        final SpannableBuilder spannable = new SpannableBuilder(mClass, "0123456789");
+        spannable.setSpan(mWatcher, 0, spannable.length(), Spanned.SPAN_INCLUSIVE_INCLUSIVE);
+        spannable.setSpan(oldSpan, 6, 8, Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+        reset(mWatcher);
+
+        spannable.beginBatchEdit();
+        spannable.removeSpan(oldSpan);
+        spannable.setSpan(newSpan, 3, 5, Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+        spannable.endBatchEdit();
+
+        verify(mWatcher, times(1)).onTextChanged(any(CharSequence.class), anyInt(), anyInt(),
+                anyInt());
+        verify(mWatcher).onTextChanged(same(spannable), eq(3), eq(5), eq(5));
+    }
+
+    @Test
+    public void testEndBatchEdit_withoutEmojiSpanChanges_doesNotNotify() {
+        final SpannableBuilder spannable = new SpannableBuilder(mClass, "0123456789");
+        spannable.setSpan(mWatcher, 0, spannable.length(), Spanned.SPAN_INCLUSIVE_INCLUSIVE);
+        reset(mWatcher);
+
+        spannable.beginBatchEdit();
+        spannable.endBatchEdit();
+
+        verify(mWatcher, never()).onTextChanged(any(CharSequence.class), anyInt(), anyInt(),
+                anyInt());
+    }
 }
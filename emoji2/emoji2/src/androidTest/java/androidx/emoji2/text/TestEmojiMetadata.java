@@ -46,4 +46,9 @@ public class TestEmojiMetadata extends EmojiMetadata {
     public int getCodepointsLength() {
         return mCodePoints.length;
     }
+
+    @Override
+    public short getSdkAdded() {
+        return 0;
+    }
 }
@@ -44,6 +44,7 @@ import androidx.annotation.RestrictTo;
 import androidx.collection.ArraySet;
 import androidx.core.util.Preconditions;
 
+import java.io.File;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.util.ArrayList;
@@ -51,6 +52,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Executor;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
@@ -270,6 +272,20 @@ public class EmojiCompat {
     @SuppressWarnings("WeakerAccess") /* synthetic access */
     private final GlyphChecker mGlyphChecker;
 
+    /**
+     * @see Config#setGlyphCacheFile(File)
+     */
+    @SuppressWarnings("WeakerAccess") /* synthetic access */
+    @Nullable
+    private final File mGlyphCacheFile;
+
+    /**
+     * @see Config#setGlyphPrecomputeExecutor(Executor)
+     */
+    @SuppressWarnings("WeakerAccess") /* synthetic access */
+    @Nullable
+    private final Executor mGlyphPrecomputeExecutor;
+
     /**
      * Private constructor for singleton instance.
      *
@@ -286,6 +302,8 @@ public class EmojiCompat {
         mMetadataLoader = config.mMetadataLoader;
         mMetadataLoadStrategy = config.mMetadataLoadStrategy;
         mGlyphChecker = config.mGlyphChecker;
+        mGlyphCacheFile = config.mGlyphCacheFile;
+        mGlyphPrecomputeExecutor = config.mGlyphPrecomputeExecutor;
         mMainHandler = new Handler(Looper.getMainLooper());
         mInitCallbacks = new ArraySet<>();
         if (config.mInitCallbacks != null && !config.mInitCallbacks.isEmpty()) {
@@ -1085,6 +1103,12 @@ public class EmojiCompat {
         @SuppressWarnings("WeakerAccess") /* synthetic access */
         @NonNull
         GlyphChecker mGlyphChecker = new EmojiProcessor.DefaultGlyphChecker();
+        @SuppressWarnings("WeakerAccess") /* synthetic access */
+        @Nullable
+        File mGlyphCacheFile;
+        @SuppressWarnings("WeakerAccess") /* synthetic access */
+        @Nullable
+        Executor mGlyphPrecomputeExecutor;
 
         /**
          * Default constructor.
@@ -1281,6 +1305,42 @@ public class EmojiCompat {
             return this;
         }
 
+        /**
+         * Sets the file that the result of the {@link GlyphChecker} for each emoji is stored in.
+         * When the metadata is loaded, the results are read from this file if they were written
+         * for the same metadata, {@link GlyphChecker} and system fonts, so that no emoji has to
+         * be checked again. The file is written after the emojis are checked with
+         * {@link #setGlyphPrecomputeExecutor(Executor)}.
+         * <p>
+         * The file is read on the thread the {@link MetadataRepoLoader} loads the metadata on.
+         * By default the results are not stored.
+         *
+         * @param glyphCacheFile the file to store the results in, or {@code null} to not store
+         *                       them
+         */
+        @NonNull
+        public Config setGlyphCacheFile(@Nullable File glyphCacheFile) {
+            mGlyphCacheFile = glyphCacheFile;
+            return this;
+        }
+
+        /**
+         * Sets the executor that all emojis are checked with the {@link GlyphChecker} on, in
+         * parallel, as soon as the metadata is loaded. Afterwards processing a text does not
+         * call the {@link GlyphChecker} anymore. Only needed when emojis that the system can
+         * render are not replaced, see {@link #setReplaceAll(boolean)}.
+         * <p>
+         * By default each emoji is checked the first time it is processed.
+         *
+         * @param executor the executor to check the emojis on, or {@code null} to check them
+         *                 when they are processed
+         */
+        @NonNull
+        public Config setGlyphPrecomputeExecutor(@Nullable Executor executor) {
+            mGlyphPrecomputeExecutor = executor;
+            return this;
+        }
+
         /**
          * Returns the {@link MetadataRepoLoader}.
          */
@@ -1426,6 +1486,12 @@ public class EmojiCompat {
                 return;
             }
 
+            if (mEmojiCompat.mGlyphCacheFile != null
+                    || mEmojiCompat.mGlyphPrecomputeExecutor != null) {
+                GlyphCache.restoreOrPrecompute(metadataRepo, mEmojiCompat.mGlyphChecker,
+                        mEmojiCompat.mGlyphCacheFile, mEmojiCompat.mGlyphPrecomputeExecutor);
+            }
+
             mMetadataRepo = metadataRepo;
             mProcessor = new EmojiProcessor(
                     mMetadataRepo,
@@ -121,7 +121,7 @@ final class EmojiProcessor {
     }
 
     EmojiMetadata getEmojiMetadata(@NonNull final CharSequence charSequence) {
-        final ProcessorSm sm = new ProcessorSm(mMetadataRepo.getRootNode(),
+        final ProcessorSm sm = new ProcessorSm(mMetadataRepo.getTrie(),
                 mUseEmojiAsDefaultStyle, mEmojiAsDefaultStyleExceptions);
         final int end = charSequence.length();
         int currentOffset = 0;
@@ -223,7 +223,7 @@ final class EmojiProcessor {
             }
             // add new ones
             int addedCount = 0;
-            final ProcessorSm sm = new ProcessorSm(mMetadataRepo.getRootNode(),
+            final ProcessorSm sm = new ProcessorSm(mMetadataRepo.getTrie(),
                     mUseEmojiAsDefaultStyle, mEmojiAsDefaultStyleExceptions);
 
             int currentOffset = start;
@@ -479,20 +479,20 @@ final class EmojiProcessor {
         private int mState = STATE_DEFAULT;
 
         /**
-         * Root of the trie
+         * The metadata trie
          */
-        private final MetadataRepo.Node mRootNode;
+        private final MetadataTrie mTrie;
 
         /**
          * Pointer to the node after last codepoint.
          */
-        private MetadataRepo.Node mCurrentNode;
+        private int mCurrentNode = MetadataTrie.ROOT;
 
         /**
          * The node where ACTION_FLUSH is called. Required since after flush action is
          * returned mCurrentNode is reset to be the root.
          */
-        private MetadataRepo.Node mFlushNode;
+        private int mFlushNode = MetadataTrie.NO_NODE;
 
         /**
          * The code point that was checked.
@@ -514,10 +514,9 @@ final class EmojiProcessor {
          */
         private final int[] mEmojiAsDefaultStyleExceptions;
 
-        ProcessorSm(MetadataRepo.Node rootNode, boolean useEmojiAsDefaultStyle,
+        ProcessorSm(MetadataTrie trie, boolean useEmojiAsDefaultStyle,
                 int[] emojiAsDefaultStyleExceptions) {
-            mRootNode = rootNode;
-            mCurrentNode = rootNode;
+            mTrie = trie;
             mUseEmojiAsDefaultStyle = useEmojiAsDefaultStyle;
             mEmojiAsDefaultStyleExceptions = emojiAsDefaultStyleExceptions;
         }
@@ -525,10 +524,10 @@ final class EmojiProcessor {
         @Action
         int check(final int codePoint) {
             final int action;
-            MetadataRepo.Node node = mCurrentNode.get(codePoint);
+            final int node = mTrie.getChild(mCurrentNode, codePoint);
             switch (mState) {
                 case STATE_WALKING:
-                    if (node != null) {
+                    if (node != MetadataTrie.NO_NODE) {
                         mCurrentNode = node;
                         mCurrentDepth += 1;
                         action = ACTION_ADVANCE_END;
@@ -537,7 +536,7 @@ final class EmojiProcessor {
                             action = reset();
                         } else if (isEmojiStyle(codePoint)) {
                             action = ACTION_ADVANCE_END;
-                        } else if (mCurrentNode.getData() != null) {
+                        } else if (mTrie.getData(mCurrentNode) != null) {
                             if (mCurrentDepth == 1) {
                                 if (shouldUseEmojiPresentationStyleForSingleCodepoint()) {
                                     mFlushNode = mCurrentNode;
@@ -558,7 +557,7 @@ final class EmojiProcessor {
                     break;
                 case STATE_DEFAULT:
                 default:
-                    if (node == null) {
+                    if (node == MetadataTrie.NO_NODE) {
                         action = reset();
                     } else {
                         mState = STATE_WALKING;
@@ -576,7 +575,7 @@ final class EmojiProcessor {
         @Action
         private int reset() {
             mState = STATE_DEFAULT;
-            mCurrentNode = mRootNode;
+            mCurrentNode = MetadataTrie.ROOT;
             mCurrentDepth = 0;
             return ACTION_ADVANCE_BOTH;
         }
@@ -585,14 +584,14 @@ final class EmojiProcessor {
          * @return the metadata node when ACTION_FLUSH is returned
          */
         EmojiMetadata getFlushMetadata() {
-            return mFlushNode.getData();
+            return mTrie.getData(mFlushNode);
         }
 
         /**
          * @return current pointer to the metadata node in the trie
          */
         EmojiMetadata getCurrentMetadata() {
-            return mCurrentNode.getData();
+            return mTrie.getData(mCurrentNode);
         }
 
         /**
@@ -603,12 +602,13 @@ final class EmojiProcessor {
          * @return whether the current state requires an emoji to be added
          */
         boolean isInFlushableState() {
-            return mState == STATE_WALKING && mCurrentNode.getData() != null
+            return mState == STATE_WALKING && mTrie.getData(mCurrentNode) != null
                     && (mCurrentDepth > 1 || shouldUseEmojiPresentationStyleForSingleCodepoint());
         }
 
         private boolean shouldUseEmojiPresentationStyleForSingleCodepoint() {
-            if (mCurrentNode.getData().isDefaultEmoji()) {
+            final EmojiMetadata data = mTrie.getData(mCurrentNode);
+            if (data.isDefaultEmoji()) {
                 // The codepoint is emoji style by default.
                 return true;
             }
@@ -622,7 +622,7 @@ final class EmojiProcessor {
                 if (mEmojiAsDefaultStyleExceptions == null) {
                     return true;
                 }
-                final int codepoint = mCurrentNode.getData().getCodepointAt(0);
+                final int codepoint = data.getCodepointAt(0);
                 final int index = Arrays.binarySearch(mEmojiAsDefaultStyleExceptions, codepoint);
                 if (index < 0) {
                     // Index is negative, so the codepoint was not found in the array of exceptions.
@@ -797,12 +797,12 @@ final class EmojiProcessor {
 
         /**
          * TextPaint used during {@link PaintCompat#hasGlyph(android.graphics.Paint, String)} check.
+         * There is one per thread, since glyphs can be checked on several threads at once when
+         * they are precomputed.
          */
-        private final TextPaint mTextPaint;
+        private static final ThreadLocal<TextPaint> sTextPaint = new ThreadLocal<>();
 
         DefaultGlyphChecker() {
-            mTextPaint = new TextPaint();
-            mTextPaint.setTextSize(PAINT_TEXT_SIZE);
         }
 
         @Override
@@ -827,7 +827,17 @@ final class EmojiProcessor {
                 start++;
             }
 
-            return PaintCompat.hasGlyph(mTextPaint, builder.toString());
+            return PaintCompat.hasGlyph(getTextPaint(), builder.toString());
+        }
+
+        private static TextPaint getTextPaint() {
+            TextPaint textPaint = sTextPaint.get();
+            if (textPaint == null) {
+                textPaint = new TextPaint();
+                textPaint.setTextSize(PAINT_TEXT_SIZE);
+                sTextPaint.set(textPaint);
+            }
+            return textPaint;
         }
 
         private static StringBuilder getStringBuilder() {
@@ -0,0 +1,294 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.emoji2.text;
+
+import static androidx.annotation.RestrictTo.Scope.LIBRARY;
+
+import android.graphics.fonts.Font;
+import android.graphics.fonts.SystemFonts;
+import android.os.Build;
+import android.util.Log;
+
+import androidx.annotation.AnyThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RequiresApi;
+import androidx.annotation.RestrictTo;
+import androidx.annotation.VisibleForTesting;
+import androidx.annotation.WorkerThread;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Computes whether the system can render each emoji in a {@link MetadataRepo} ahead of time, and
+ * persists the results so that the next process does not have to call
+ * {@link EmojiCompat.GlyphChecker} at all.
+ * <p>
+ * The results are stored in the {@link EmojiMetadata}s, where {@link EmojiProcessor} reads them,
+ * and written to disk as a bitset with one bit per emoji. The file is only used if it was written
+ * for the same metadata, {@link EmojiCompat.GlyphChecker} and system fonts.
+ * <p>
+ * Apps cannot read the fonts that are updated without a system update, so on API 29 and above the
+ * system fonts are identified by the paths of their files, which change with each such update.
+ * Below API 29, only fonts changed by a system update are detected.
+ *
+ * @hide
+ */
+@AnyThread
+@RestrictTo(LIBRARY)
+@RequiresApi(19)
+final class GlyphCache {
+    private static final String TAG = "EmojiCompat.GlyphCache";
+
+    /**
+     * Version of the file format, part of the header of the file.
+     */
+    private static final int FORMAT_VERSION = 1;
+
+    /**
+     * System emoji font that is checked for changes in addition to the build fingerprint.
+     */
+    private static final String SYSTEM_EMOJI_FONT_PATH = "/system/fonts/NotoColorEmoji.ttf";
+
+    /**
+     * Number of emojis checked in a single task during {@link #precompute}.
+     */
+    @VisibleForTesting
+    static final int CHUNK_SIZE = 256;
+
+    private GlyphCache() {
+    }
+
+    /**
+     * Applies the glyph availability stored in {@code file} to the emojis of the
+     * {@code metadataRepo}, or if there is no such file for this metadata, checker and system
+     * fonts, computes it on the {@code executor} and writes it to {@code file}.
+     *
+     * @param metadataRepo the emojis to check
+     * @param glyphChecker the checker the results are computed with
+     * @param file the file to read the results from and write them to, or {@code null} to only
+     *             compute the results
+     * @param executor the executor to compute the results on in parallel, or {@code null} to
+     *                 leave them to be computed on demand
+     */
+    @WorkerThread
+    static void restoreOrPrecompute(@NonNull final MetadataRepo metadataRepo,
+            @NonNull final EmojiCompat.GlyphChecker glyphChecker, @Nullable final File file,
+            @Nullable final Executor executor) {
+        final String key = createKey(metadataRepo, glyphChecker);
+        if (file != null && restore(metadataRepo, key, file)) {
+            return;
+        }
+        if (executor != null) {
+            precompute(metadataRepo, glyphChecker, executor, new Runnable() {
+                @Override
+                public void run() {
+                    if (file != null) {
+                        write(metadataRepo, key, file);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Checks every emoji in the {@code metadataRepo} whose glyph availability is not known yet,
+     * in chunks of {@link #CHUNK_SIZE} that run in parallel on the {@code executor}.
+     *
+     * @param onComplete run on the executor after all the emojis are checked
+     */
+    @VisibleForTesting
+    static void precompute(@NonNull final MetadataRepo metadataRepo,
+            @NonNull final EmojiCompat.GlyphChecker glyphChecker, @NonNull Executor executor,
+            @NonNull final Runnable onComplete) {
+        final int count = metadataRepo.getEmojiCount();
+        final int chunks = (count + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        if (chunks == 0) {
+            onComplete.run();
+            return;
+        }
+        final AtomicInteger remaining = new AtomicInteger(chunks);
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            final int start = chunk * CHUNK_SIZE;
+            final int end = Math.min(start + CHUNK_SIZE, count);
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        for (int i = start; i < end; i++) {
+                            check(metadataRepo.getEmoji(i), glyphChecker);
+                        }
+                    } finally {
+                        if (remaining.decrementAndGet() == 0) {
+                            onComplete.run();
+                        }
+                    }
+                }
+            });
+        }
+    }
+
+    private static void check(@NonNull final EmojiMetadata metadata,
+            @NonNull final EmojiCompat.GlyphChecker glyphChecker) {
+        if (metadata.getHasGlyph() != EmojiMetadata.HAS_GLYPH_UNKNOWN) {
+            return;
+        }
+        final int length = metadata.getCodepointsLength();
+        final int[] codepoints = new int[length];
+        for (int i = 0; i < length; i++) {
+            codepoints[i] = metadata.getCodepointAt(i);
+        }
+        final String sequence = new String(codepoints, 0, length);
+        metadata.setHasGlyph(glyphChecker.hasGlyph(sequence, 0, sequence.length(),
+                metadata.getSdkAdded()));
+    }
+
+    /**
+     * @return the key that identifies the inputs of the glyph availability
+     */
+    @VisibleForTesting
+    @NonNull
+    static String createKey(@NonNull final MetadataRepo metadataRepo,
+            @NonNull final EmojiCompat.GlyphChecker glyphChecker) {
+        final StringBuilder builder = new StringBuilder();
+        builder.append(metadataRepo.getMetadataVersion());
+        builder.append('|');
+        final String sourceSha = metadataRepo.getMetadataList().sourceSha();
+        builder.append(sourceSha == null ? "" : sourceSha);
+        builder.append('|');
+        builder.append(glyphChecker.getClass().getName());
+        builder.append('|');
+        builder.append(Build.VERSION.SDK_INT);
+        builder.append('|');
+        builder.append(Build.FINGERPRINT);
+        final File font = new File(SYSTEM_EMOJI_FONT_PATH);
+        builder.append('|');
+        builder.append(font.length());
+        builder.append(':');
+        builder.append(font.lastModified());
+        if (Build.VERSION.SDK_INT >= 29) {
+            builder.append('|');
+            builder.append(SystemFonts29Impl.hashFontFilePaths());
+        }
+        return builder.toString();
+    }
+
+    /**
+     * @return {@code true} if the results were restored from the file
+     */
+    @VisibleForTesting
+    static boolean restore(@NonNull final MetadataRepo metadataRepo, @NonNull final String key,
+            @NonNull final File file) {
+        if (!file.exists()) {
+            return false;
+        }
+        try (DataInputStream input = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(file)))) {
+            if (input.readInt() != FORMAT_VERSION || !key.equals(input.readUTF())) {
+                return false;
+            }
+            final int count = input.readInt();
+            if (count != metadataRepo.getEmojiCount()) {
+                return false;
+            }
+            final long[] bits = new long[(count + 63) / 64];
+            for (int i = 0; i < bits.length; i++) {
+                bits[i] = input.readLong();
+            }
+            for (int i = 0; i < count; i++) {
+                metadataRepo.getEmoji(i).setHasGlyph((bits[i >> 6] & (1L << i)) != 0);
+            }
+            return true;
+        } catch (IOException e) {
+            Log.w(TAG, "Cannot read glyph cache", e);
+            return false;
+        }
+    }
+
+    /**
+     * Writes the glyph availability of all emojis in the {@code metadataRepo} to the
+     * {@code file}, replacing it atomically.
+     */
+    @VisibleForTesting
+    static void write(@NonNull final MetadataRepo metadataRepo, @NonNull final String key,
+            @NonNull final File file) {
+        final int count = metadataRepo.getEmojiCount();
+        final long[] bits = new long[(count + 63) / 64];
+        for (int i = 0; i < count; i++) {
+            final int hasGlyph = metadataRepo.getEmoji(i).getHasGlyph();
+            if (hasGlyph == EmojiMetadata.HAS_GLYPH_UNKNOWN) {
+                // not all emojis were checked, do not persist partial results
+                return;
+            }
+            if (hasGlyph == EmojiMetadata.HAS_GLYPH_EXISTS) {
+                bits[i >> 6] |= 1L << i;
+            }
+        }
+
+        final File temp = new File(file.getPath() + ".tmp");
+        try {
+            try (DataOutputStream output = new DataOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(temp)))) {
+                output.writeInt(FORMAT_VERSION);
+                output.writeUTF(key);
+                output.writeInt(count);
+                for (long word : bits) {
+                    output.writeLong(word);
+                }
+            }
+            if (!temp.renameTo(file)) {
+                throw new IOException("Cannot rename " + temp + " to " + file);
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "Cannot write glyph cache", e);
+            //noinspection ResultOfMethodCallIgnored
+            temp.delete();
+        }
+    }
+
+    @RequiresApi(29)
+    private static class SystemFonts29Impl {
+        private SystemFonts29Impl() {
+            // Non-instantiable.
+        }
+
+        // Updated fonts are installed in a new directory of /data/fonts/files, which apps cannot
+        // read, but the paths of the installed files are visible through SystemFonts.
+        static int hashFontFilePaths() {
+            final List<String> paths = new ArrayList<>();
+            for (Font font : SystemFonts.getAvailableFonts()) {
+                final File file = font.getFile();
+                if (file != null) {
+                    paths.add(file.getPath());
+                }
+            }
+            Collections.sort(paths);
+            return paths.hashCode();
+        }
+    }
+}
@@ -17,7 +17,6 @@ package androidx.emoji2.text;
 
 import android.content.res.AssetManager;
 import android.graphics.Typeface;
-import android.util.SparseArray;
 
 import androidx.annotation.AnyThread;
 import androidx.annotation.NonNull;
@@ -26,6 +25,7 @@ import androidx.annotation.RestrictTo;
 import androidx.annotation.VisibleForTesting;
 import androidx.core.os.TraceCompat;
 import androidx.core.util.Preconditions;
+import androidx.emoji2.text.flatbuffer.MetadataItem;
 import androidx.emoji2.text.flatbuffer.MetadataList;
 
 import java.io.IOException;
@@ -38,10 +38,6 @@ import java.nio.ByteBuffer;
 @AnyThread
 @RequiresApi(19)
 public final class MetadataRepo {
-    /**
-     * The default children size of the root node.
-     */
-    private static final int DEFAULT_ROOT_SIZE = 1024;
     private static final String S_TRACE_CREATE_REPO = "EmojiCompat.MetadataRepo.create";
 
     /**
@@ -56,9 +52,15 @@ public final class MetadataRepo {
     private final @NonNull char[] mEmojiCharArray;
 
     /**
-     * Empty root node of the trie.
+     * EmojiMetadata for each item in the metadata list, followed by the ones added with
+     * {@link #put(EmojiMetadata)}.
+     */
+    private @NonNull EmojiMetadata[] mEmojis;
+
+    /**
+     * Trie that maps codepoint sequences to the EmojiMetadata's in {@link #mEmojis}.
      */
-    private final @NonNull Node mRootNode;
+    private volatile @NonNull MetadataTrie mTrie;
 
     /**
      * Typeface to be used to render emojis.
@@ -75,7 +77,6 @@ public final class MetadataRepo {
             @NonNull final MetadataList metadataList) {
         mTypeface = typeface;
         mMetadataList = metadataList;
-        mRootNode = new Node(DEFAULT_ROOT_SIZE);
         mEmojiCharArray = new char[mMetadataList.listLength() * 2];
         constructIndex(mMetadataList);
     }
@@ -157,15 +158,31 @@ public final class MetadataRepo {
      * Read emoji metadata list and construct the trie.
      */
     private void constructIndex(final MetadataList metadataList) {
-        int length = metadataList.listLength();
+        final int length = metadataList.listLength();
+        final MetadataItem item = new MetadataItem();
+        mEmojis = new EmojiMetadata[length];
+        // Read the codepoints straight from the flatbuffer instead of going through the thread
+        // local MetadataItem of EmojiMetadata for every codepoint.
+        final int[] offsets = new int[length + 1];
         for (int i = 0; i < length; i++) {
-            final EmojiMetadata metadata = new EmojiMetadata(this, i);
+            metadataList.list(item, i);
+            mEmojis[i] = new EmojiMetadata(this, i);
             //since all emojis are mapped to a single codepoint in Private Use Area A they are 2
             //chars wide
             //noinspection ResultOfMethodCallIgnored
-            Character.toChars(metadata.getId(), mEmojiCharArray, i * 2);
-            put(metadata);
+            Character.toChars(item.id(), mEmojiCharArray, i * 2);
+            offsets[i + 1] = offsets[i] + item.codepointsLength();
         }
+        final int[] codepoints = new int[offsets[length]];
+        for (int i = 0; i < length; i++) {
+            metadataList.list(item, i);
+            final int offset = offsets[i];
+            final int codepointsLength = offsets[i + 1] - offset;
+            for (int j = 0; j < codepointsLength; j++) {
+                codepoints[offset + j] = item.codepoints(j);
+            }
+        }
+        mTrie = MetadataTrie.create(mEmojis, length, offsets, codepoints);
     }
 
     /**
@@ -190,8 +207,8 @@ public final class MetadataRepo {
      */
     @NonNull
     @RestrictTo(RestrictTo.Scope.LIBRARY)
-    Node getRootNode() {
-        return mRootNode;
+    MetadataTrie getTrie() {
+        return mTrie;
     }
 
     /**
@@ -213,61 +230,55 @@ public final class MetadataRepo {
     }
 
     /**
-     * Add an EmojiMetadata to the index.
-     *
+     * @return the number of emojis in the repo
      * @hide
      */
     @RestrictTo(RestrictTo.Scope.LIBRARY)
-    @VisibleForTesting
-    void put(@NonNull final EmojiMetadata data) {
-        Preconditions.checkNotNull(data, "emoji metadata cannot be null");
-        Preconditions.checkArgument(data.getCodepointsLength() > 0,
-                "invalid metadata codepoint length");
+    int getEmojiCount() {
+        return mEmojis.length;
+    }
 
-        mRootNode.put(data, 0, data.getCodepointsLength() - 1);
+    /**
+     * @return the EmojiMetadata at {@code index}, which is the index of the emoji in the
+     * metadata list for emojis that were not added with {@link #put(EmojiMetadata)}
+     * @hide
+     */
+    @NonNull
+    @RestrictTo(RestrictTo.Scope.LIBRARY)
+    EmojiMetadata getEmoji(int index) {
+        return mEmojis[index];
     }
 
     /**
-     * Trie node that holds mapping from emoji codepoint(s) to EmojiMetadata. A single codepoint
-     * emoji is represented by a child of the root node.
+     * Add an EmojiMetadata to the index. The trie is rebuilt for every call, therefore this
+     * should only be used from tests.
      *
      * @hide
      */
     @RestrictTo(RestrictTo.Scope.LIBRARY)
-    static class Node {
-        private final SparseArray<Node> mChildren;
-        private EmojiMetadata mData;
-
-        private Node() {
-            this(1);
-        }
-
-        @SuppressWarnings("WeakerAccess") /* synthetic access */
-        Node(final int defaultChildrenSize) {
-            mChildren = new SparseArray<>(defaultChildrenSize);
-        }
+    @VisibleForTesting
+    void put(@NonNull final EmojiMetadata data) {
+        Preconditions.checkNotNull(data, "emoji metadata cannot be null");
+        Preconditions.checkArgument(data.getCodepointsLength() > 0,
+                "invalid metadata codepoint length");
 
-        Node get(final int key) {
-            return mChildren == null ? null : mChildren.get(key);
-        }
+        final int length = mEmojis.length + 1;
+        final EmojiMetadata[] emojis = new EmojiMetadata[length];
+        System.arraycopy(mEmojis, 0, emojis, 0, mEmojis.length);
+        emojis[length - 1] = data;
 
-        final EmojiMetadata getData() {
-            return mData;
+        final int[] offsets = new int[length + 1];
+        for (int i = 0; i < length; i++) {
+            offsets[i + 1] = offsets[i] + emojis[i].getCodepointsLength();
         }
-
-        @SuppressWarnings("WeakerAccess") /* synthetic access */
-        void put(@NonNull final EmojiMetadata data, final int start, final int end) {
-            Node node = get(data.getCodepointAt(start));
-            if (node == null) {
-                node = new Node();
-                mChildren.put(data.getCodepointAt(start), node);
-            }
-
-            if (end > start) {
-                node.put(data, start + 1, end);
-            } else {
-                node.mData = data;
+        final int[] codepoints = new int[offsets[length]];
+        for (int i = 0; i < length; i++) {
+            final int offset = offsets[i];
+            for (int j = 0; j < offsets[i + 1] - offset; j++) {
+                codepoints[offset + j] = emojis[i].getCodepointAt(j);
             }
         }
+        mEmojis = emojis;
+        mTrie = MetadataTrie.create(emojis, length, offsets, codepoints);
     }
 }
@@ -0,0 +1,273 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.emoji2.text;
+
+import static androidx.annotation.RestrictTo.Scope.LIBRARY;
+
+import androidx.annotation.AnyThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RequiresApi;
+import androidx.annotation.RestrictTo;
+
+/**
+ * Immutable trie that maps emoji codepoint sequences to {@link EmojiMetadata}, stored in flat
+ * arrays instead of one object per node.
+ * <p>
+ * Nodes are identified by an int, and {@link #ROOT} is the empty root node. Nodes are numbered in
+ * breadth first order, so the edges to the children of node {@code n} are the sorted range
+ * {@code [mChildStart[n], mChildStart[n + 1])} of {@link #mKeys}, and the edge at index {@code e}
+ * leads to node {@code e + 1}. The children of the root are additionally indexed by the high bits
+ * of their codepoint, so the first step of a lookup only searches a handful of keys.
+ *
+ * @hide
+ */
+@AnyThread
+@RestrictTo(LIBRARY)
+@RequiresApi(19)
+final class MetadataTrie {
+    /**
+     * Node id of the root of the trie.
+     */
+    static final int ROOT = 0;
+
+    /**
+     * Returned by {@link #getChild(int, int)} when there is no such child.
+     */
+    static final int NO_NODE = -1;
+
+    /**
+     * The root children are grouped into blocks of codepoints which share everything but the
+     * lowest {@code BLOCK_SHIFT} bits.
+     */
+    private static final int BLOCK_SHIFT = 8;
+    private static final int BLOCK_COUNT = (Character.MAX_CODE_POINT >> BLOCK_SHIFT) + 1;
+
+    /**
+     * For each node, the index of its first edge in {@link #mKeys}. Has an extra trailing entry
+     * so the last node's edges end at {@code mChildStart[nodeCount]}.
+     */
+    private final int[] mChildStart;
+
+    /**
+     * The codepoint of each edge.
+     */
+    private final int[] mKeys;
+
+    /**
+     * The metadata of each node, or {@code null} if the node is not the end of an emoji.
+     */
+    private final EmojiMetadata[] mData;
+
+    /**
+     * For each block of codepoints, the index of the first root edge in that block or after it.
+     */
+    private final int[] mRootBlockStart;
+
+    private MetadataTrie(int[] childStart, int[] keys, EmojiMetadata[] data) {
+        mChildStart = childStart;
+        mKeys = keys;
+        mData = data;
+        mRootBlockStart = new int[BLOCK_COUNT + 1];
+        final int rootEnd = childStart[ROOT + 1];
+        int edge = 0;
+        for (int block = 0; block <= BLOCK_COUNT; block++) {
+            while (edge < rootEnd && (keys[edge] >> BLOCK_SHIFT) < block) {
+                edge++;
+            }
+            mRootBlockStart[block] = edge;
+        }
+    }
+
+    /**
+     * @return the child of {@code node} for {@code codePoint}, or {@link #NO_NODE}
+     */
+    int getChild(final int node, final int codePoint) {
+        int low;
+        int high;
+        if (node == ROOT) {
+            if (codePoint < 0 || codePoint > Character.MAX_CODE_POINT) {
+                return NO_NODE;
+            }
+            final int block = codePoint >> BLOCK_SHIFT;
+            low = mRootBlockStart[block];
+            high = mRootBlockStart[block + 1] - 1;
+        } else {
+            low = mChildStart[node];
+            high = mChildStart[node + 1] - 1;
+        }
+
+        final int[] keys = mKeys;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            final int key = keys[mid];
+            if (key < codePoint) {
+                low = mid + 1;
+            } else if (key > codePoint) {
+                high = mid - 1;
+            } else {
+                return mid + 1;
+            }
+        }
+        return NO_NODE;
+    }
+
+    /**
+     * @return the metadata of the emoji that ends at {@code node}, or {@code null}
+     */
+    @Nullable
+    EmojiMetadata getData(final int node) {
+        return mData[node];
+    }
+
+    /**
+     * @return the number of nodes, including the root
+     */
+    int getNodeCount() {
+        return mData.length;
+    }
+
+    /**
+     * Builds a trie from the codepoints of {@code count} emojis.
+     *
+     * @param data the metadata of each emoji
+     * @param count the number of emojis
+     * @param offsets the start of the codepoints of each emoji in {@code codepoints}, followed by
+     *                the end of the codepoints of the last emoji
+     * @param codepoints the codepoints of all emojis
+     */
+    @NonNull
+    static MetadataTrie create(@NonNull final EmojiMetadata[] data, final int count,
+            @NonNull final int[] offsets, @NonNull final int[] codepoints) {
+        final int[] order = new int[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        sort(order, new int[count], 0, count, offsets, codepoints);
+
+        // Every codepoint adds at most one node, so the codepoint count bounds the node count.
+        final int capacity = offsets[count] + 1;
+        final int[] childStart = new int[capacity + 1];
+        final int[] keys = new int[capacity - 1];
+        final EmojiMetadata[] nodeData = new EmojiMetadata[capacity];
+        // The range of order that shares the path to each node, used while building.
+        final int[] nodeLow = new int[capacity];
+        final int[] nodeHigh = new int[capacity];
+        final int[] nodeDepth = new int[capacity];
+
+        nodeHigh[ROOT] = count;
+        int nodeCount = 1;
+        for (int node = 0; node < nodeCount; node++) {
+            final int depth = nodeDepth[node];
+            final int high = nodeHigh[node];
+            int low = nodeLow[node];
+            // Shorter sequences sort first, so the emojis ending at this node come before the
+            // ones passing through it. If there are several, the one added last wins.
+            while (low < high && length(order[low], offsets) == depth) {
+                nodeData[node] = data[order[low]];
+                low++;
+            }
+            // Since nodes are visited in the order they are added, the edges of this node start
+            // right after the edges of the previous node.
+            childStart[node] = nodeCount - 1;
+            while (low < high) {
+                final int key = codepoints[offsets[order[low]] + depth];
+                int end = low + 1;
+                while (end < high && codepoints[offsets[order[end]] + depth] == key) {
+                    end++;
+                }
+                keys[nodeCount - 1] = key;
+                nodeLow[nodeCount] = low;
+                nodeHigh[nodeCount] = end;
+                nodeDepth[nodeCount] = depth + 1;
+                nodeCount++;
+                low = end;
+            }
+        }
+        childStart[nodeCount] = nodeCount - 1;
+
+        return new MetadataTrie(
+                trim(childStart, nodeCount + 1),
+                trim(keys, nodeCount - 1),
+                trim(nodeData, nodeCount));
+    }
+
+    private static int length(final int emoji, final int[] offsets) {
+        return offsets[emoji + 1] - offsets[emoji];
+    }
+
+    /**
+     * Stable merge sort of {@code order[from, to)} by the codepoint sequences of the emojis.
+     */
+    private static void sort(final int[] order, final int[] buffer, final int from, final int to,
+            final int[] offsets, final int[] codepoints) {
+        if (to - from < 2) {
+            return;
+        }
+        final int mid = (from + to) >>> 1;
+        sort(order, buffer, from, mid, offsets, codepoints);
+        sort(order, buffer, mid, to, offsets, codepoints);
+        if (compare(order[mid - 1], order[mid], offsets, codepoints) <= 0) {
+            return;
+        }
+        System.arraycopy(order, from, buffer, from, to - from);
+        int left = from;
+        int right = mid;
+        for (int i = from; i < to; i++) {
+            if (right >= to || (left < mid
+                    && compare(buffer[left], buffer[right], offsets, codepoints) <= 0)) {
+                order[i] = buffer[left++];
+            } else {
+                order[i] = buffer[right++];
+            }
+        }
+    }
+
+    private static int compare(final int first, final int second, final int[] offsets,
+            final int[] codepoints) {
+        final int firstStart = offsets[first];
+        final int firstLength = offsets[first + 1] - firstStart;
+        final int secondStart = offsets[second];
+        final int secondLength = offsets[second + 1] - secondStart;
+        final int length = Math.min(firstLength, secondLength);
+        for (int i = 0; i < length; i++) {
+            final int difference = Integer.compare(
+                    codepoints[firstStart + i], codepoints[secondStart + i]);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return Integer.compare(firstLength, secondLength);
+    }
+
+    private static int[] trim(final int[] array, final int length) {
+        if (array.length == length) {
+            return array;
+        }
+        final int[] result = new int[length];
+        System.arraycopy(array, 0, result, 0, length);
+        return result;
+    }
+
+    private static EmojiMetadata[] trim(final EmojiMetadata[] array, final int length) {
+        if (array.length == length) {
+            return array;
+        }
+        final EmojiMetadata[] result = new EmojiMetadata[length];
+        System.arraycopy(array, 0, result, 0, length);
+        return result;
+    }
+}
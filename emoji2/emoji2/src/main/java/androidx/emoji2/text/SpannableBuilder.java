@@ -42,6 +42,10 @@ import java.util.concurrent.atomic.AtomicInteger;
  * ChangeWatcher only once at the end of the edit. Important point is, the block operation is
  * applied only for EmojiSpans. Therefore any other span change operation works the same way as in
  * the framework.
+ * <p>
+ * At the end of a batch edit, only the range of the EmojiSpans that were added or removed during
+ * the edit is reported to the ChangeWatcher, so that DynamicLayout reflows the lines around the
+ * edit instead of the whole text.
  *
  * @hide
  */
@@ -57,6 +61,22 @@ public final class SpannableBuilder extends SpannableStringBuilder {
      */
     private final @NonNull List<WatcherWrapper> mWatchers = new ArrayList<>();
 
+    /**
+     * Number of batch edits that have begun but not ended.
+     */
+    private int mBatchEditCount;
+
+    /**
+     * Start of the range of EmojiSpans changed during the current batch edit, or -1 if none were
+     * changed.
+     */
+    private int mChangedStart = -1;
+
+    /**
+     * End of the range of EmojiSpans changed during the current batch edit.
+     */
+    private int mChangedEnd = -1;
+
     /**
      * @hide
      */
@@ -135,6 +155,13 @@ public final class SpannableBuilder extends SpannableStringBuilder {
             final WatcherWrapper span = new WatcherWrapper(what);
             mWatchers.add(span);
             what = span;
+        } else if (isChangingEmojiSpanInBatchEdit(what)) {
+            // an EmojiSpan that is set again moves, so its previous range changes as well
+            final int oldStart = super.getSpanStart(what);
+            if (oldStart >= 0) {
+                addChangedRange(oldStart, super.getSpanEnd(what));
+            }
+            addChangedRange(start, end);
         }
         super.setSpan(what, start, end, flags);
     }
@@ -173,6 +200,12 @@ public final class SpannableBuilder extends SpannableStringBuilder {
             }
         } else {
             watcher = null;
+            if (isChangingEmojiSpanInBatchEdit(what)) {
+                final int start = super.getSpanStart(what);
+                if (start >= 0) {
+                    addChangedRange(start, super.getSpanEnd(what));
+                }
+            }
         }
 
         super.removeSpan(what);
@@ -258,6 +291,7 @@ public final class SpannableBuilder extends SpannableStringBuilder {
     @RestrictTo(RestrictTo.Scope.LIBRARY)
     public void beginBatchEdit() {
         blockWatchers();
+        mBatchEditCount++;
     }
 
     /**
@@ -266,7 +300,26 @@ public final class SpannableBuilder extends SpannableStringBuilder {
     @RestrictTo(RestrictTo.Scope.LIBRARY)
     public void endBatchEdit() {
         unblockwatchers();
-        fireWatchers();
+        if (mBatchEditCount > 0 && --mBatchEditCount == 0) {
+            fireWatchers();
+        }
+    }
+
+    private boolean isChangingEmojiSpanInBatchEdit(@Nullable Object what) {
+        return mBatchEditCount > 0 && what instanceof EmojiSpan;
+    }
+
+    /**
+     * Extend the range of the EmojiSpans changed during the current batch edit.
+     */
+    private void addChangedRange(int start, int end) {
+        if (mChangedStart < 0) {
+            mChangedStart = start;
+            mChangedEnd = end;
+        } else {
+            mChangedStart = Math.min(mChangedStart, start);
+            mChangedEnd = Math.max(mChangedEnd, end);
+        }
     }
 
     /**
@@ -288,12 +341,19 @@ public final class SpannableBuilder extends SpannableStringBuilder {
     }
 
     /**
-     * Unblock all watcher wrapper events. Called by editing operations, namely
-     * {@link SpannableStringBuilder#replace(int, int, CharSequence)}.
+     * Inform the watchers about the range of the EmojiSpans that were changed during the batch
+     * edit, if any.
      */
     private void fireWatchers() {
+        if (mChangedStart < 0) {
+            return;
+        }
+        final int start = Math.min(mChangedStart, length());
+        final int count = Math.min(mChangedEnd, length()) - start;
+        mChangedStart = -1;
+        mChangedEnd = -1;
         for (int i = 0; i < mWatchers.size(); i++) {
-            mWatchers.get(i).onTextChanged(this, 0, this.length(), this.length());
+            mWatchers.get(i).onTextChanged(this, start, count, count);
         }
     }
 
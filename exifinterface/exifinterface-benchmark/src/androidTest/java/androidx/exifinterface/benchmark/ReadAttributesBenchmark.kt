@@ -0,0 +1,131 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.exifinterface.benchmark
+
+import android.content.Context
+import android.graphics.Bitmap
+import android.graphics.Canvas
+import android.graphics.Color
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import androidx.exifinterface.media.ExifInterface
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.filters.LargeTest
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import java.io.File
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+
+/**
+ * Measures reading the orientation and date of a corpus of camera-like JPEG files, as a gallery
+ * scan does, eagerly, lazily, and lazily in parallel.
+ */
+@RunWith(AndroidJUnit4::class)
+@LargeTest
+class ReadAttributesBenchmark {
+
+    @get:Rule
+    val benchmarkRule = BenchmarkRule()
+
+    private lateinit var corpusDir: File
+    private lateinit var files: List<File>
+    private lateinit var executor: ExecutorService
+
+    @Before
+    fun setUp() {
+        val context = ApplicationProvider.getApplicationContext<Context>()
+        corpusDir = File(context.cacheDir, "read_attributes_benchmark")
+        corpusDir.mkdirs()
+        val bitmap = Bitmap.createBitmap(1024, 768, Bitmap.Config.ARGB_8888)
+        val canvas = Canvas(bitmap)
+        files = List(CORPUS_SIZE) { index ->
+            canvas.drawColor(Color.rgb(index * 4, 128, 255 - index * 4))
+            val file = File(corpusDir, "image_$index.jpg")
+            file.outputStream().buffered().use {
+                bitmap.compress(Bitmap.CompressFormat.JPEG, 90, it)
+            }
+            // Roughly the tags a camera writes.
+            val exif = ExifInterface(file.absolutePath)
+            exif.setAttribute(ExifInterface.TAG_MAKE, "ExifInterface")
+            exif.setAttribute(ExifInterface.TAG_MODEL, "Benchmark $index")
+            exif.setAttribute(ExifInterface.TAG_SOFTWARE, "ExifInterface Benchmark")
+            exif.setAttribute(ExifInterface.TAG_DATETIME, "2021:01:01 00:00:00")
+            exif.setAttribute(ExifInterface.TAG_DATETIME_ORIGINAL, "2021:01:01 00:00:00")
+            exif.setAttribute(ExifInterface.TAG_DATETIME_DIGITIZED, "2021:01:01 00:00:00")
+            exif.setAttribute(ExifInterface.TAG_ORIENTATION, (index % 8 + 1).toString())
+            exif.setAttribute(ExifInterface.TAG_EXPOSURE_TIME, "0.01")
+            exif.setAttribute(ExifInterface.TAG_F_NUMBER, "1.8")
+            exif.setAttribute(ExifInterface.TAG_PHOTOGRAPHIC_SENSITIVITY, "100")
+            exif.setAttribute(ExifInterface.TAG_FOCAL_LENGTH, "4500/1000")
+            exif.setAttribute(ExifInterface.TAG_IMAGE_DESCRIPTION, "x".repeat(1024))
+            exif.setLatLong(37.4, -122.1)
+            exif.setAltitude(30.0)
+            exif.saveAttributes()
+            file
+        }
+        bitmap.recycle()
+        executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors())
+    }
+
+    @After
+    fun tearDown() {
+        executor.shutdown()
+        corpusDir.deleteRecursively()
+    }
+
+    @Test
+    fun readEagerly() {
+        benchmarkRule.measureRepeated {
+            for (file in files) {
+                val exif = ExifInterface(file)
+                exif.getAttributeInt(ExifInterface.TAG_ORIENTATION, 0)
+                exif.getAttribute(ExifInterface.TAG_DATETIME)
+            }
+        }
+    }
+
+    @Test
+    fun readLazily() {
+        benchmarkRule.measureRepeated {
+            for (file in files) {
+                val exif = ExifInterface.createLazily(file)
+                exif.getAttributeInt(ExifInterface.TAG_ORIENTATION, 0)
+                exif.getAttribute(ExifInterface.TAG_DATETIME)
+            }
+        }
+    }
+
+    @Test
+    fun readAttributes_parallel() {
+        var results: List<Map<String, String>> = emptyList()
+        benchmarkRule.measureRepeated {
+            results = ExifInterface.readAttributes(files, TAGS, executor)
+        }
+        assertEquals(CORPUS_SIZE, results.size)
+    }
+
+    companion object {
+        private const val CORPUS_SIZE = 64
+        private val TAGS = listOf(ExifInterface.TAG_ORIENTATION, ExifInterface.TAG_DATETIME)
+    }
+}
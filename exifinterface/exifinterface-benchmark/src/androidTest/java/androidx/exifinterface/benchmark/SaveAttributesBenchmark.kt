@@ -0,0 +1,129 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.exifinterface.benchmark
+
+import android.content.Context
+import android.graphics.Bitmap
+import android.system.Os
+import android.system.OsConstants
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import androidx.exifinterface.media.ExifInterface
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.filters.LargeTest
+import androidx.test.filters.SdkSuppress
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import java.io.File
+import java.util.Random
+
+/**
+ * Measures changing the orientation of a large JPEG file, when the Exif data can be overwritten in
+ * place and when the whole file is copied and rewritten.
+ */
+@RunWith(AndroidJUnit4::class)
+@LargeTest
+class SaveAttributesBenchmark {
+
+    @get:Rule
+    val benchmarkRule = BenchmarkRule()
+
+    private lateinit var imageFile: File
+
+    @Before
+    fun setUp() {
+        val context = ApplicationProvider.getApplicationContext<Context>()
+        imageFile = File(context.cacheDir, "save_attributes_benchmark.jpg")
+        // Noise compresses poorly, which gives a file of several megabytes.
+        val random = Random(42)
+        val bitmap = Bitmap.createBitmap(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888)
+        val row = IntArray(WIDTH)
+        for (y in 0 until HEIGHT) {
+            for (x in 0 until WIDTH) {
+                row[x] = random.nextInt() or 0xFF000000.toInt()
+            }
+            bitmap.setPixels(row, 0, WIDTH, 0, y, WIDTH, 1)
+        }
+        imageFile.outputStream().buffered().use {
+            bitmap.compress(Bitmap.CompressFormat.JPEG, 95, it)
+        }
+        bitmap.recycle()
+
+        // Add the Exif segment, with room for later changes.
+        val exif = ExifInterface(imageFile.absolutePath)
+        exif.setExifPaddingSize(PADDING_SIZE)
+        exif.setAttribute(ExifInterface.TAG_MAKE, "ExifInterface Benchmark")
+        exif.saveAttributes()
+    }
+
+    @After
+    fun tearDown() {
+        imageFile.delete()
+    }
+
+    @Test
+    fun saveAttributes_inPlace() {
+        val length = imageFile.length()
+        val exif = ExifInterface(imageFile.absolutePath)
+        var rotate = false
+        benchmarkRule.measureRepeated {
+            rotate = !rotate
+            exif.setAttribute(ExifInterface.TAG_ORIENTATION, orientation(rotate))
+            exif.saveAttributes()
+        }
+        assertEquals(length, imageFile.length())
+    }
+
+    /**
+     * Files opened by a file descriptor are always copied and rewritten.
+     */
+    @Test
+    @SdkSuppress(minSdkVersion = 21)
+    fun saveAttributes_fullCopy() {
+        val fd = Os.open(imageFile.absolutePath, OsConstants.O_RDWR, 0)
+        try {
+            val exif = ExifInterface(fd)
+            var rotate = false
+            benchmarkRule.measureRepeated {
+                rotate = !rotate
+                exif.setAttribute(ExifInterface.TAG_ORIENTATION, orientation(rotate))
+                exif.saveAttributes()
+            }
+        } finally {
+            Os.close(fd)
+        }
+    }
+
+    private fun orientation(rotate: Boolean): String {
+        return if (rotate) {
+            ExifInterface.ORIENTATION_ROTATE_90.toString()
+        } else {
+            ExifInterface.ORIENTATION_NORMAL.toString()
+        }
+    }
+
+    companion object {
+        private const val WIDTH = 3000
+        private const val HEIGHT = 2000
+        private const val PADDING_SIZE = 4096
+    }
+}
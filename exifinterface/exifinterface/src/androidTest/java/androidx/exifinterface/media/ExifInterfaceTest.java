@@ -18,6 +18,7 @@ package androidx.exifinterface.media;
 
 import static androidx.test.core.app.ApplicationProvider.getApplicationContext;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
@@ -53,6 +54,7 @@ import org.junit.runner.RunWith;
 import java.io.BufferedInputStream;
 import java.io.ByteArrayInputStream;
 import java.io.Closeable;
+import java.io.DataInputStream;
 import java.io.EOFException;
 import java.io.File;
 import java.io.FileDescriptor;
@@ -61,10 +63,23 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
 import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -925,6 +940,239 @@ public class ExifInterfaceTest {
 
     }
 
+    @Test
+    @LargeTest
+    public void testSaveAttributesInPlaceWithPadding() throws IOException {
+        // Start from a file without Exif data, so that the first save rewrites it.
+        File imageFile = File.createTempFile(TEST_TEMP_FILE_NAME, ".jpg");
+        imageFile.deleteOnExit();
+        Bitmap bitmap = Bitmap.createBitmap(64, 64, Bitmap.Config.ARGB_8888);
+        FileOutputStream out = new FileOutputStream(imageFile);
+        try {
+            bitmap.compress(Bitmap.CompressFormat.JPEG, 90, out);
+        } finally {
+            closeQuietly(out);
+        }
+        ExifInterface exif = new ExifInterface(imageFile.getAbsolutePath());
+        final String make = "abc";
+        exif.setAttribute(ExifInterface.TAG_MAKE, make);
+
+        // The first save rewrites the file and reserves the padding.
+        exif.setExifPaddingSize(1024);
+        exif.saveAttributes();
+        final long length = imageFile.length();
+
+        // Later saves fit in the padding and do not change the size of the file.
+        exif = new ExifInterface(imageFile.getAbsolutePath());
+        exif.setAttribute(ExifInterface.TAG_MAKE, "a much longer make than the original one");
+        exif.setAttribute(ExifInterface.TAG_ORIENTATION,
+                Integer.toString(ExifInterface.ORIENTATION_ROTATE_90));
+        exif.saveAttributes();
+        assertEquals(length, imageFile.length());
+        exif = new ExifInterface(imageFile.getAbsolutePath());
+        assertEquals("a much longer make than the original one",
+                exif.getAttribute(ExifInterface.TAG_MAKE));
+        assertIntTag(exif, ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_ROTATE_90);
+
+        exif.setAttribute(ExifInterface.TAG_MAKE, make);
+        exif.saveAttributes();
+        assertEquals(length, imageFile.length());
+        exif = new ExifInterface(imageFile.getAbsolutePath());
+        assertEquals(make, exif.getAttribute(ExifInterface.TAG_MAKE));
+        assertIntTag(exif, ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_ROTATE_90);
+        assertNotNull(BitmapFactory.decodeFile(imageFile.getAbsolutePath()));
+    }
+
+    @Test
+    @LargeTest
+    public void testSaveAttributesGrowingExifData() throws IOException {
+        File imageFile = getFileFromExternalDir(JPEG_WITH_EXIF_BYTE_ORDER_II);
+        ExifInterface exif = new ExifInterface(imageFile.getAbsolutePath());
+        exif.saveAttributes();
+        final long length = imageFile.length();
+
+        // Without padding, the Exif data does not fit in the existing segment anymore.
+        exif = new ExifInterface(imageFile.getAbsolutePath());
+        final String description = new String(new char[512]).replace('\0', 'a');
+        exif.setAttribute(ExifInterface.TAG_IMAGE_DESCRIPTION, description);
+        exif.saveAttributes();
+        assertTrue(imageFile.length() > length);
+        exif = new ExifInterface(imageFile.getAbsolutePath());
+        assertEquals(description, exif.getAttribute(ExifInterface.TAG_IMAGE_DESCRIPTION));
+        assertNotNull(BitmapFactory.decodeFile(imageFile.getAbsolutePath()));
+    }
+
+    @Test
+    @SmallTest
+    public void testSetExifPaddingSize_withNegativeValue() throws IOException {
+        ExifInterface exif = createTestExifInterface();
+        try {
+            exif.setExifPaddingSize(-1);
+            fail("Negative padding should throw IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // Success
+        }
+    }
+
+    @Test
+    @LargeTest
+    public void testCreateLazily() throws Exception {
+        for (String fileName : IMAGE_FILENAMES) {
+            if (!fileName.endsWith(".jpg")) {
+                continue;
+            }
+            File imageFile = getFileFromExternalDir(fileName);
+            ExifInterface eager = new ExifInterface(imageFile);
+            ExifInterface lazy = ExifInterface.createLazily(imageFile);
+            for (String tag : getAllTags()) {
+                assertEquals(fileName + ": " + tag, eager.getAttribute(tag),
+                        lazy.getAttribute(tag));
+                assertArrayEquals(fileName + ": " + tag, eager.getAttributeRange(tag),
+                        lazy.getAttributeRange(tag));
+            }
+            assertEquals(eager.hasThumbnail(), lazy.hasThumbnail());
+        }
+    }
+
+    @Test
+    @LargeTest
+    public void testCreateLazily_withSegmentsPastMappedLength() throws Exception {
+        // Puts more than 1MB of APP2 segments in front of the Exif data, which is more than
+        // createLazily(File) maps, so it has to read the file eagerly to find the Exif data.
+        File original = getFileFromExternalDir(JPEG_WITH_EXIF_BYTE_ORDER_II);
+        byte[] bytes = new byte[(int) original.length()];
+        FileInputStream in = new FileInputStream(original);
+        try {
+            new DataInputStream(in).readFully(bytes);
+        } finally {
+            closeQuietly(in);
+        }
+        File imageFile = File.createTempFile(TEST_TEMP_FILE_NAME, ".jpg");
+        imageFile.deleteOnExit();
+        FileOutputStream out = new FileOutputStream(imageFile);
+        try {
+            out.write(bytes, 0, 2);
+            byte[] segment = new byte[0xffff + 2];
+            segment[0] = (byte) 0xff;
+            segment[1] = (byte) 0xe2;
+            segment[2] = (byte) 0xff;
+            segment[3] = (byte) 0xff;
+            for (int i = 0; i < 17; i++) {
+                out.write(segment);
+            }
+            out.write(bytes, 2, bytes.length - 2);
+        } finally {
+            closeQuietly(out);
+        }
+
+        ExifInterface eager = new ExifInterface(imageFile);
+        ExifInterface lazy = ExifInterface.createLazily(imageFile);
+        assertNotNull(eager.getAttribute(ExifInterface.TAG_MAKE));
+        for (String tag : getAllTags()) {
+            assertEquals(tag, eager.getAttribute(tag), lazy.getAttribute(tag));
+            assertArrayEquals(tag, eager.getAttributeRange(tag), lazy.getAttributeRange(tag));
+        }
+    }
+
+    @Test
+    @LargeTest
+    public void testCreateLazily_saveAttributes() throws IOException {
+        File imageFile = getFileFromExternalDir(JPEG_WITH_EXIF_WITH_XMP);
+        ExifInterface exif = ExifInterface.createLazily(imageFile);
+        final String xmp = exif.getAttribute(ExifInterface.TAG_XMP);
+        exif.setAttribute(ExifInterface.TAG_MAKE, "abc");
+        exif.saveAttributes();
+
+        exif = ExifInterface.createLazily(imageFile);
+        assertEquals("abc", exif.getAttribute(ExifInterface.TAG_MAKE));
+        assertEquals(xmp, exif.getAttribute(ExifInterface.TAG_XMP));
+    }
+
+    @Test
+    @LargeTest
+    public void testReadAttributes() throws Exception {
+        List<File> files = new ArrayList<>();
+        for (String fileName : IMAGE_FILENAMES) {
+            files.add(getFileFromExternalDir(fileName));
+        }
+        // Files that cannot be read have no attributes.
+        files.add(getFileFromExternalDir("does_not_exist.jpg"));
+        List<String> tags = Arrays.asList(ExifInterface.TAG_ORIENTATION,
+                ExifInterface.TAG_DATETIME, ExifInterface.TAG_MAKE, ExifInterface.TAG_XMP);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        List<Map<String, String>> results;
+        try {
+            results = ExifInterface.readAttributes(files, tags, executor);
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(files.size(), results.size());
+        for (int i = 0; i < IMAGE_FILENAMES.length; i++) {
+            ExifInterface exif = new ExifInterface(files.get(i));
+            for (String tag : tags) {
+                assertEquals(IMAGE_FILENAMES[i] + ": " + tag, exif.getAttribute(tag),
+                        results.get(i).get(tag));
+            }
+        }
+        assertTrue(results.get(files.size() - 1).isEmpty());
+    }
+
+    @Test
+    @LargeTest
+    public void testReadAttributes_fromExecutorThread() throws Exception {
+        final List<File> files = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            files.add(getFileFromExternalDir(JPEG_WITH_EXIF_BYTE_ORDER_II));
+        }
+        final List<String> tags = Collections.singletonList(ExifInterface.TAG_MAKE);
+        final String make = new ExifInterface(files.get(0)).getAttribute(ExifInterface.TAG_MAKE);
+
+        // The only thread of the executor is busy reading, so it has to read all the files.
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<List<Map<String, String>>> future = executor.submit(
+                    new Callable<List<Map<String, String>>>() {
+                        @Override
+                        public List<Map<String, String>> call() throws Exception {
+                            return ExifInterface.readAttributes(files, tags, executor);
+                        }
+                    });
+            List<Map<String, String>> results = future.get(30, TimeUnit.SECONDS);
+            assertEquals(files.size(), results.size());
+            for (Map<String, String> result : results) {
+                assertEquals(make, result.get(ExifInterface.TAG_MAKE));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    @LargeTest
+    public void testReadAttributes_withRejectingExecutor() throws Exception {
+        List<File> files = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            files.add(getFileFromExternalDir(JPEG_WITH_EXIF_BYTE_ORDER_II));
+        }
+        List<String> tags = Collections.singletonList(ExifInterface.TAG_MAKE);
+        String make = new ExifInterface(files.get(0)).getAttribute(ExifInterface.TAG_MAKE);
+
+        List<Map<String, String>> results = ExifInterface.readAttributes(files, tags,
+                new Executor() {
+                    @Override
+                    public void execute(Runnable command) {
+                        throw new RejectedExecutionException();
+                    }
+                });
+
+        assertEquals(files.size(), results.size());
+        for (Map<String, String> result : results) {
+            assertEquals(make, result.get(ExifInterface.TAG_MAKE));
+        }
+    }
+
     @SuppressWarnings("deprecation")
     @Test
     @SmallTest
@@ -1402,6 +1650,17 @@ public class ExifInterfaceTest {
         return (short) ((ch1 << 8) + (ch2));
     }
 
+    private List<String> getAllTags() throws IllegalAccessException {
+        List<String> tags = new ArrayList<>();
+        for (Field field : ExifInterface.class.getFields()) {
+            if (field.getName().startsWith("TAG_") && field.getType() == String.class
+                    && Modifier.isStatic(field.getModifiers())) {
+                tags.add((String) field.get(null));
+            }
+        }
+        return tags;
+    }
+
     private File getFileFromExternalDir(String fileName) {
         return new File(getApplicationContext().getExternalFilesDir(Environment.DIRECTORY_PICTURES),
                 fileName);
@@ -38,9 +38,11 @@ import android.util.Log;
 import android.util.Pair;
 
 import androidx.annotation.IntDef;
+import androidx.annotation.IntRange;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.RestrictTo;
+import androidx.annotation.WorkerThread;
 
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
@@ -58,10 +60,12 @@ import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.RandomAccessFile;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 import java.text.ParsePosition;
 import java.text.SimpleDateFormat;
@@ -74,7 +78,11 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.TimeZone;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.zip.CRC32;
@@ -3912,6 +3920,27 @@ public class ExifInterface {
     // XMP data can be contained as either part of the EXIF data (tag number 700), or as a
     // separate data marker (a separate MARKER_APP1).
     private boolean mXmpIsFromSeparateMarker;
+    // Number of zero bytes reserved at the end of the Exif APP1 segment when a JPEG file is
+    // rewritten, so that later changes can be saved in place.
+    private int mExifPaddingSize;
+    // Set while the attributes of a JPEG file are read lazily, see createLazily(File). Attributes
+    // are then decoded from the following memory-mapped data into mAttributes on demand.
+    private boolean mIsLazy;
+    // The Exif data, starting at the TIFF header, or null if there is none.
+    private ByteBuffer mLazyExifData;
+    // For each IFD type, the offsets of its entries in mLazyExifData, or null if there is none.
+    private int[][] mLazyIfdEntries;
+    // The data of the separate XMP and comment segments, or null if there are none.
+    private ByteBuffer mLazyXmpData;
+    private int mLazyXmpOffset;
+    private ByteBuffer mLazyCommentData;
+
+    // Number of files read by a single task in readAttributes(List, List, Executor).
+    private static final int BATCH_READ_CHUNK_SIZE = 16;
+    // Maximum number of bytes mapped by createLazily(File). The Exif APP1 segment is at most 64KB
+    // and usually comes first, so this leaves plenty of room for the segments preceding it. Files
+    // with more segments before their image data are read eagerly.
+    private static final long MAX_LAZY_JPEG_HEADER_LENGTH = 1024 * 1024;
 
     // Pattern to check non zero timestamp
     private static final Pattern NON_ZERO_TIME_PATTERN = Pattern.compile(".*[1-9].*");
@@ -4058,6 +4087,124 @@ public class ExifInterface {
         loadAttributes(inputStream);
     }
 
+    private ExifInterface(@NonNull String filename, boolean lazy) throws IOException {
+        if (!lazy) {
+            initForFilename(filename);
+            return;
+        }
+        mAssetInputStream = null;
+        mSeekableFileDescriptor = null;
+        mFilename = filename;
+        if (!loadJpegAttributesLazily()) {
+            initForFilename(filename);
+        }
+    }
+
+    /**
+     * Reads Exif tags from the specified JPEG file lazily.
+     * <p>
+     * Instead of decoding all the tags up front, the file is memory-mapped and only the positions
+     * of the tags are indexed. Each tag is decoded the first time it is requested through
+     * {@link #getAttribute(String)} or the related methods, which makes reading a few tags of
+     * many files, such as when scanning a gallery, much cheaper. All the tags are decoded as
+     * soon as the instance is used for anything else, such as {@link #setAttribute(String,
+     * String)} or {@link #getThumbnail()}.
+     * <p>
+     * Files of other formats are read as by {@link #ExifInterface(File)}. Since reading a tag of
+     * a lazily read file updates the instance, it should not be read from multiple threads at
+     * once.
+     *
+     * @param file the file of the image data
+     * @throws NullPointerException if file is null
+     * @throws IOException if an I/O error occurs while opening or mapping the file
+     * @see #readAttributes(List, List, Executor)
+     */
+    @NonNull
+    public static ExifInterface createLazily(@NonNull File file) throws IOException {
+        if (file == null) {
+            throw new NullPointerException("file cannot be null");
+        }
+        return new ExifInterface(file.getAbsolutePath(), /* lazy= */ true);
+    }
+
+    /**
+     * Reads the given tags of each of the given image files, which are read in parallel on the
+     * given executor. Each file is read as by {@link #createLazily(File)}, so only the given tags
+     * are decoded. The calling thread reads files too, and this method blocks until all the files
+     * are read. It may be called from a thread of the given executor, and the files are still all
+     * read if the executor rejects or never runs the tasks given to it.
+     *
+     * @param files the files of the image data
+     * @param tags the names of the tags to read
+     * @param executor the executor to read the files on
+     * @return for each file, in the same order, a map from the names of the tags to their values
+     *         as returned by {@link #getAttribute(String)}. Tags that do not exist, and all the
+     *         tags of files that cannot be read, are left out.
+     * @throws InterruptedException if interrupted while waiting for the files to be read
+     */
+    @WorkerThread
+    @NonNull
+    public static List<Map<String, String>> readAttributes(@NonNull final List<File> files,
+            @NonNull final List<String> tags, @NonNull Executor executor)
+            throws InterruptedException {
+        final int count = files.size();
+        @SuppressWarnings("unchecked")
+        final Map<String, String>[] results = new Map[count];
+        final int chunks = (count + BATCH_READ_CHUNK_SIZE - 1) / BATCH_READ_CHUNK_SIZE;
+        final AtomicInteger nextChunk = new AtomicInteger();
+        final CountDownLatch latch = new CountDownLatch(chunks);
+        // Each reader claims chunks until there are none left. The calling thread is one of the
+        // readers, so the files get read even if none of the tasks given to the executor can run,
+        // and the latch only waits for the chunks that are being read by the executor.
+        final Runnable reader = new Runnable() {
+            @Override
+            public void run() {
+                int chunk;
+                while ((chunk = nextChunk.getAndIncrement()) < chunks) {
+                    try {
+                        final int start = chunk * BATCH_READ_CHUNK_SIZE;
+                        final int end = Math.min(start + BATCH_READ_CHUNK_SIZE, count);
+                        for (int i = start; i < end; i++) {
+                            results[i] = readLazyAttributes(files.get(i), tags);
+                        }
+                    } finally {
+                        latch.countDown();
+                    }
+                }
+            }
+        };
+        try {
+            for (int i = 1; i < chunks; i++) {
+                executor.execute(reader);
+            }
+        } catch (RejectedExecutionException e) {
+            // The calling thread reads the chunks that the executor does not.
+        }
+        reader.run();
+        latch.await();
+        return Arrays.asList(results);
+    }
+
+    private static Map<String, String> readLazyAttributes(File file, List<String> tags) {
+        final Map<String, String> attributes = new HashMap<>();
+        try {
+            final ExifInterface exifInterface = createLazily(file);
+            for (String tag : tags) {
+                final String value = exifInterface.getAttribute(tag);
+                if (value != null) {
+                    attributes.put(tag, value);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // Malformed data may also make the tags fail to decode with a RuntimeException.
+            attributes.clear();
+            if (DEBUG) {
+                Log.d(TAG, "Failed to read attributes of " + file, e);
+            }
+        }
+        return attributes;
+    }
+
     /**
      * Returns whether ExifInterface currently supports reading data from the specified mime type
      * or not.
@@ -4115,10 +4262,16 @@ public class ExifInterface {
         // than the value from the thumbnail tag group if there are more than one candidates.
         for (int i = 0; i < EXIF_TAGS.length; ++i) {
             ExifAttribute value = mAttributes[i].get(tag);
+            if (value == null && mIsLazy) {
+                value = decodeLazyAttribute(i, tag);
+            }
             if (value != null) {
                 return value;
             }
         }
+        if (mIsLazy) {
+            return getLazyDefaultAttribute(tag);
+        }
         return null;
     }
 
@@ -4223,6 +4376,7 @@ public class ExifInterface {
         if (tag == null) {
             throw new NullPointerException("tag shouldn't be null");
         }
+        loadLazyAttributes();
         // Validate and convert if necessary.
         if (TAG_DATETIME.equals(tag) || TAG_DATETIME_ORIGINAL.equals(tag)
                 || TAG_DATETIME_DIGITIZED.equals(tag)) {
@@ -4663,12 +4817,36 @@ public class ExifInterface {
         }
     }
 
+    /**
+     * Sets the number of bytes to reserve at the end of the Exif data the next time
+     * {@link #saveAttributes()} rewrites a JPEG file.
+     * <p>
+     * When a JPEG file opened by its file path already has an Exif segment that is large enough
+     * for the new Exif data, {@link #saveAttributes()} overwrites just that segment instead of
+     * rewriting the whole file. Reserving some padding when the Exif data is first written lets
+     * later changes, which usually only change the size of the Exif data slightly, be saved in
+     * place as well. The padding is limited by the maximum size of a JPEG segment, and is ignored
+     * for other formats.
+     *
+     * @param paddingSize the number of bytes to reserve, {@code 0} by default
+     * @throws IllegalArgumentException if {@code paddingSize} is negative
+     */
+    public void setExifPaddingSize(@IntRange(from = 0) int paddingSize) {
+        if (paddingSize < 0) {
+            throw new IllegalArgumentException("paddingSize cannot be negative");
+        }
+        mExifPaddingSize = paddingSize;
+    }
+
     /**
      * Save the tag data into the original image file. This is expensive because it involves
      * copying all the data from one file to another and deleting the old file and renaming the
      * other. It's best to use {@link #setAttribute(String,String)} to set all attributes to write
      * and make a single call rather than multiple calls for each attribute.
      * <p>
+     * For JPEG files opened by their file path, if the new Exif data fits in the existing Exif
+     * segment, only that segment is overwritten instead. See {@link #setExifPaddingSize(int)}.
+     * <p>
      * This method is supported for JPEG, PNG and WebP files.
      * <p class="note">
      * Note: after calling this method, any attempts to obtain range information
@@ -4689,6 +4867,7 @@ public class ExifInterface {
             throw new IOException(
                     "ExifInterface does not support saving attributes for the current input.");
         }
+        loadLazyAttributes();
 
         // Remember the fact that we've changed the file on disk from what was
         // originally parsed, meaning we can't answer range questions
@@ -4697,6 +4876,12 @@ public class ExifInterface {
         // Keep the thumbnail in memory
         mThumbnailBytes = getThumbnail();
 
+        if (mMimeType == IMAGE_TYPE_JPEG && mFilename != null && saveJpegAttributesInPlace()) {
+            // Discard the thumbnail in memory
+            mThumbnailBytes = null;
+            return;
+        }
+
         FileInputStream in = null;
         FileOutputStream out = null;
         File tempFile = null;
@@ -4789,6 +4974,7 @@ public class ExifInterface {
      * Returns true if the image file has a thumbnail.
      */
     public boolean hasThumbnail() {
+        loadLazyAttributes();
         return mHasThumbnail;
     }
 
@@ -4809,6 +4995,7 @@ public class ExifInterface {
      */
     @Nullable
     public byte[] getThumbnail() {
+        loadLazyAttributes();
         if (mThumbnailCompression == DATA_JPEG || mThumbnailCompression == DATA_JPEG_COMPRESSED) {
             return getThumbnailBytes();
         }
@@ -4821,6 +5008,7 @@ public class ExifInterface {
      */
     @Nullable
     public byte[] getThumbnailBytes() {
+        loadLazyAttributes();
         if (!mHasThumbnail) {
             return null;
         }
@@ -4885,6 +5073,7 @@ public class ExifInterface {
      */
     @Nullable
     public Bitmap getThumbnailBitmap() {
+        loadLazyAttributes();
         if (!mHasThumbnail) {
             return null;
         } else if (mThumbnailBytes == null) {
@@ -4920,6 +5109,7 @@ public class ExifInterface {
      * not exist or thumbnail image is uncompressed.
      */
     public boolean isThumbnailCompressed() {
+        loadLazyAttributes();
         if (!mHasThumbnail) {
             return false;
         }
@@ -4947,6 +5137,7 @@ public class ExifInterface {
             throw new IllegalStateException(
                     "The underlying file has been modified since being parsed");
         }
+        loadLazyAttributes();
 
         if (mHasThumbnail) {
             if (mHasThumbnailStrips && !mAreThumbnailStripsConsecutive) {
@@ -5295,6 +5486,429 @@ public class ExifInterface {
         }
     }
 
+    // Memory-maps the segments of the file that precede its image data and indexes its Exif data,
+    // see createLazily(File). Returns false if the file is not a JPEG file, or if its segments do
+    // not fit in MAX_LAZY_JPEG_HEADER_LENGTH, and has to be read eagerly instead.
+    private boolean loadJpegAttributesLazily() throws IOException {
+        final ByteBuffer buffer;
+        FileInputStream in = null;
+        try {
+            in = new FileInputStream(mFilename);
+            final FileChannel channel = in.getChannel();
+            final long headerLength = getJpegHeaderLength(channel);
+            if (headerLength == 0) {
+                return false;
+            }
+            // The mapping stays valid after the channel is closed.
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, headerLength);
+        } finally {
+            closeQuietly(in);
+        }
+
+        mMimeType = IMAGE_TYPE_JPEG;
+        for (int i = 0; i < EXIF_TAGS.length; ++i) {
+            mAttributes[i] = new HashMap<>();
+        }
+        mIsLazy = true;
+        indexJpegSegments(buffer);
+        return true;
+    }
+
+    // Returns the length of the segments of the JPEG file up to the SOS or EOI marker, which are all
+    // that indexJpegSegments() reads, or 0 if the file is not a JPEG file or if the segments are
+    // longer than MAX_LAZY_JPEG_HEADER_LENGTH, so that large or malformed files are read eagerly
+    // instead of being mapped as a whole or losing the segments past the limit.
+    private static long getJpegHeaderLength(FileChannel channel) throws IOException {
+        final ByteBuffer header = ByteBuffer.allocate(4).order(ByteOrder.BIG_ENDIAN);
+        if (readFully(channel, header, 0) < JPEG_SIGNATURE.length) {
+            return 0;
+        }
+        for (int i = 0; i < JPEG_SIGNATURE.length; ++i) {
+            if (header.get(i) != JPEG_SIGNATURE[i]) {
+                return 0;
+            }
+        }
+        // Skip the SOI marker.
+        long position = 2;
+        while (readFully(channel, header, position) == 4 && header.get(0) == MARKER) {
+            final byte marker = header.get(1);
+            if (marker == MARKER_EOI || marker == MARKER_SOS) {
+                break;
+            }
+            position += 2 + (header.getShort(2) & 0xffff);
+            if (position > MAX_LAZY_JPEG_HEADER_LENGTH) {
+                return 0;
+            }
+        }
+        return Math.min(position, channel.size());
+    }
+
+    // Reads from the channel at the given position until the buffer is full or the end of the
+    // channel is reached, and returns the number of bytes read.
+    private static int readFully(FileChannel channel, ByteBuffer buffer, long position)
+            throws IOException {
+        buffer.clear();
+        while (buffer.hasRemaining()) {
+            final int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                break;
+            }
+        }
+        return buffer.position();
+    }
+
+    // Finds the segments of the JPEG file that getJpegAttributes() reads, without decoding them.
+    private void indexJpegSegments(ByteBuffer buffer) {
+        // See JPEG File Interchange Format Specification, "JFIF Specification"
+        buffer.order(ByteOrder.BIG_ENDIAN);
+        int imageLength = -1;
+        int imageWidth = -1;
+        // Skip the SOI marker.
+        int position = 2;
+        while (position + 4 <= buffer.limit() && buffer.get(position) == MARKER) {
+            final byte marker = buffer.get(position + 1);
+            // EOI indicates the end of an image and in case of SOS, JPEG image stream starts and
+            // the image data will terminate right after.
+            if (marker == MARKER_EOI || marker == MARKER_SOS) {
+                break;
+            }
+            final int start = position + 4;
+            final int length = (buffer.getShort(position + 2) & 0xffff) - 2;
+            if (length < 0 || start + length > buffer.limit()) {
+                break;
+            }
+            switch (marker) {
+                case MARKER_APP1: {
+                    if (mLazyExifData == null
+                            && bufferStartsWith(buffer, start, length, IDENTIFIER_EXIF_APP1)) {
+                        // Save offset to EXIF data for handling attribute offsets.
+                        mOffsetToExifData = start + IDENTIFIER_EXIF_APP1.length;
+                        mLazyExifData = slice(buffer, mOffsetToExifData,
+                                length - IDENTIFIER_EXIF_APP1.length);
+                    } else if (mLazyXmpData == null
+                            && bufferStartsWith(buffer, start, length, IDENTIFIER_XMP_APP1)) {
+                        mLazyXmpOffset = start + IDENTIFIER_XMP_APP1.length;
+                        mLazyXmpData = slice(buffer, mLazyXmpOffset,
+                                length - IDENTIFIER_XMP_APP1.length);
+                    }
+                    break;
+                }
+
+                case MARKER_COM: {
+                    if (mLazyCommentData == null) {
+                        mLazyCommentData = slice(buffer, start, length);
+                    }
+                    break;
+                }
+
+                case MARKER_SOF0:
+                case MARKER_SOF1:
+                case MARKER_SOF2:
+                case MARKER_SOF3:
+                case MARKER_SOF5:
+                case MARKER_SOF6:
+                case MARKER_SOF7:
+                case MARKER_SOF9:
+                case MARKER_SOF10:
+                case MARKER_SOF11:
+                case MARKER_SOF13:
+                case MARKER_SOF14:
+                case MARKER_SOF15: {
+                    if (length >= 5) {
+                        imageLength = buffer.getShort(start + 1) & 0xffff;
+                        imageWidth = buffer.getShort(start + 3) & 0xffff;
+                    }
+                    break;
+                }
+
+                default: {
+                    break;
+                }
+            }
+            position = start + length;
+        }
+
+        if (mLazyExifData != null) {
+            indexExifData();
+        }
+        // The image size in the SOF segment overrides the one in the Exif data.
+        if (imageLength >= 0) {
+            mAttributes[IFD_TYPE_PRIMARY].put(TAG_IMAGE_LENGTH,
+                    ExifAttribute.createULong(imageLength, mExifByteOrder));
+            mAttributes[IFD_TYPE_PRIMARY].put(TAG_IMAGE_WIDTH,
+                    ExifAttribute.createULong(imageWidth, mExifByteOrder));
+        }
+    }
+
+    // Parses the TIFF headers of mLazyExifData and indexes the entries of its IFDs.
+    private void indexExifData() {
+        final ByteBuffer data = mLazyExifData;
+        // See JEITA CP-3451C Section 4.5.2. Table 1.
+        if (data.limit() < 8) {
+            mLazyExifData = null;
+            return;
+        }
+        final short byteOrder = data.getShort(0);
+        if (byteOrder == BYTE_ALIGN_II) {
+            mExifByteOrder = ByteOrder.LITTLE_ENDIAN;
+        } else if (byteOrder == BYTE_ALIGN_MM) {
+            mExifByteOrder = ByteOrder.BIG_ENDIAN;
+        } else {
+            mLazyExifData = null;
+            return;
+        }
+        data.order(mExifByteOrder);
+        final int firstIfdOffset = data.getInt(4);
+        if (data.getShort(2) != START_CODE || firstIfdOffset < 8) {
+            mLazyExifData = null;
+            return;
+        }
+        mLazyIfdEntries = new int[EXIF_TAGS.length][];
+        indexImageFileDirectory(firstIfdOffset, IFD_TYPE_PRIMARY, new HashSet<Integer>());
+    }
+
+    // Records the offsets of the entries of the IFD at the given offset of mLazyExifData, and
+    // indexes the IFDs it points to, following the same rules as readImageFileDirectory().
+    private void indexImageFileDirectory(int offset, @IfdType int ifdType,
+            Set<Integer> indexedOffsets) {
+        indexedOffsets.add(offset);
+        final ByteBuffer data = mLazyExifData;
+        if (offset + 2 > data.limit()) {
+            return;
+        }
+        // See TIFF 6.0 Section 2: TIFF Structure, Figure 1.
+        final short numberOfDirectoryEntry = data.getShort(offset);
+        if (numberOfDirectoryEntry <= 0) {
+            return;
+        }
+        final int count = Math.min(numberOfDirectoryEntry, (data.limit() - offset - 2) / 12);
+
+        // Entries are appended to the ones of any earlier IFD of the same type, so that the later
+        // ones take precedence as they do in mAttributes.
+        final int[] previousEntries = mLazyIfdEntries[ifdType];
+        final int previousCount = previousEntries == null ? 0 : previousEntries.length;
+        final int[] entries = new int[previousCount + count];
+        if (previousEntries != null) {
+            System.arraycopy(previousEntries, 0, entries, 0, previousCount);
+        }
+        for (int i = 0; i < count; ++i) {
+            entries[previousCount + i] = offset + 2 + i * 12;
+        }
+        mLazyIfdEntries[ifdType] = entries;
+
+        // Recursively index IFDs that pointer tags point to.
+        for (int i = 0; i < count; ++i) {
+            final int entry = offset + 2 + i * 12;
+            final Integer nextIfdType = sExifPointerTagMap.get(data.getShort(entry) & 0xffff);
+            if (nextIfdType == null) {
+                continue;
+            }
+            final long nextIfdOffset = getLazyIfdPointer(entry, ifdType);
+            if (nextIfdOffset > 0L && nextIfdOffset <= Integer.MAX_VALUE
+                    && !indexedOffsets.contains((int) nextIfdOffset)) {
+                indexImageFileDirectory((int) nextIfdOffset, nextIfdType, indexedOffsets);
+            }
+        }
+
+        final int nextIfdPosition = offset + 2 + count * 12;
+        if (count != numberOfDirectoryEntry || nextIfdPosition + 4 > data.limit()) {
+            return;
+        }
+        final int nextIfdOffset = data.getInt(nextIfdPosition);
+        if (nextIfdOffset > 0 && !indexedOffsets.contains(nextIfdOffset)) {
+            if (mLazyIfdEntries[IFD_TYPE_THUMBNAIL] == null) {
+                // Do not overwrite thumbnail IFD data if it already exists.
+                indexImageFileDirectory(nextIfdOffset, IFD_TYPE_THUMBNAIL, indexedOffsets);
+            } else if (mLazyIfdEntries[IFD_TYPE_PREVIEW] == null) {
+                indexImageFileDirectory(nextIfdOffset, IFD_TYPE_PREVIEW, indexedOffsets);
+            }
+        }
+    }
+
+    // Returns the offset of the IFD that the pointer tag entry at the given offset of
+    // mLazyExifData points to, or -1 if the entry is invalid.
+    private long getLazyIfdPointer(int entry, @IfdType int ifdType) {
+        final ByteBuffer data = mLazyExifData;
+        final ExifTag tag = sExifTagMapsForReading[ifdType].get(data.getShort(entry) & 0xffff);
+        final int valueOffset = getLazyValueOffset(entry, tag);
+        if (valueOffset < 0 || valueOffset + 4 > data.limit()) {
+            return -1L;
+        }
+        switch (getLazyFormat(entry, tag)) {
+            case IFD_FORMAT_USHORT:
+                return data.getShort(valueOffset) & 0xffff;
+            case IFD_FORMAT_SSHORT:
+                return data.getShort(valueOffset);
+            case IFD_FORMAT_ULONG:
+                return data.getInt(valueOffset) & 0xffffffffL;
+            case IFD_FORMAT_SLONG:
+            case IFD_FORMAT_IFD:
+                return data.getInt(valueOffset);
+            default:
+                return -1L;
+        }
+    }
+
+    // Returns the format of the value of the entry at the given offset of mLazyExifData, or -1 if
+    // readImageFileDirectory() would skip the entry.
+    private int getLazyFormat(int entry, ExifTag tag) {
+        if (tag == null) {
+            return -1;
+        }
+        final ByteBuffer data = mLazyExifData;
+        int dataFormat = data.getShort(entry + 2) & 0xffff;
+        if (dataFormat <= 0 || dataFormat >= IFD_FORMAT_BYTES_PER_FORMAT.length
+                || !tag.isFormatCompatible(dataFormat)) {
+            return -1;
+        }
+        if (dataFormat == IFD_FORMAT_UNDEFINED) {
+            dataFormat = tag.primaryFormat;
+        }
+        final long byteCount =
+                (long) data.getInt(entry + 4) * IFD_FORMAT_BYTES_PER_FORMAT[dataFormat];
+        if (byteCount < 0 || byteCount > Integer.MAX_VALUE) {
+            return -1;
+        }
+        return dataFormat;
+    }
+
+    // Returns the offset in mLazyExifData of the value of the entry at the given offset, or -1 if
+    // the entry is invalid.
+    private int getLazyValueOffset(int entry, ExifTag tag) {
+        final int dataFormat = getLazyFormat(entry, tag);
+        if (dataFormat < 0) {
+            return -1;
+        }
+        final ByteBuffer data = mLazyExifData;
+        final long byteCount =
+                (long) data.getInt(entry + 4) * IFD_FORMAT_BYTES_PER_FORMAT[dataFormat];
+        // Values bigger than 4 bytes are stored at the offset stored in the entry.
+        final long valueOffset = byteCount > 4 ? data.getInt(entry + 8) : entry + 8;
+        if (valueOffset < 0 || valueOffset + byteCount > data.limit()) {
+            return -1;
+        }
+        return (int) valueOffset;
+    }
+
+    // Decodes the attribute with the given tag name from the IFD of the given type in
+    // mLazyExifData, and caches it in mAttributes.
+    private ExifAttribute decodeLazyAttribute(@IfdType int ifdType, String name) {
+        final int[] entries = mLazyIfdEntries == null ? null : mLazyIfdEntries[ifdType];
+        final ExifTag tag = sExifTagMapsForWriting[ifdType].get(name);
+        // readImageFileDirectory() stores attributes under the name of the tag it reads, and
+        // never stores pointer tags.
+        if (entries == null || tag == null
+                || sExifTagMapsForReading[ifdType].get(tag.number) != tag
+                || sExifPointerTagMap.containsKey(tag.number)) {
+            return null;
+        }
+        final ByteBuffer data = mLazyExifData;
+        // Later entries take precedence.
+        for (int i = entries.length - 1; i >= 0; --i) {
+            final int entry = entries[i];
+            if ((data.getShort(entry) & 0xffff) != tag.number) {
+                continue;
+            }
+            final int valueOffset = getLazyValueOffset(entry, tag);
+            if (valueOffset < 0) {
+                continue;
+            }
+            final int dataFormat = getLazyFormat(entry, tag);
+            final int numberOfComponents = data.getInt(entry + 4);
+            final byte[] bytes =
+                    new byte[numberOfComponents * IFD_FORMAT_BYTES_PER_FORMAT[dataFormat]];
+            final ByteBuffer value = data.duplicate();
+            value.position(valueOffset);
+            value.get(bytes);
+            final ExifAttribute attribute = new ExifAttribute(dataFormat, numberOfComponents,
+                    valueOffset + mOffsetToExifData, bytes);
+            mAttributes[ifdType].put(name, attribute);
+            return attribute;
+        }
+        return null;
+    }
+
+    // Returns the attributes that getJpegAttributes() and addDefaultValuesForCompatibility() add
+    // when there is no such tag in the Exif data, and caches them in mAttributes.
+    private ExifAttribute getLazyDefaultAttribute(String tag) {
+        int ifdType = IFD_TYPE_PRIMARY;
+        ExifAttribute attribute = null;
+        if (TAG_XMP.equals(tag) && mLazyXmpData != null) {
+            final byte[] bytes = toByteArray(mLazyXmpData);
+            attribute = new ExifAttribute(IFD_FORMAT_BYTE, bytes.length, mLazyXmpOffset, bytes);
+        } else if (TAG_USER_COMMENT.equals(tag) && mLazyCommentData != null) {
+            ifdType = IFD_TYPE_EXIF;
+            attribute = ExifAttribute.createString(
+                    new String(toByteArray(mLazyCommentData), ASCII));
+        } else if (TAG_DATETIME.equals(tag)) {
+            final String valueOfDateTimeOriginal = getAttribute(TAG_DATETIME_ORIGINAL);
+            if (valueOfDateTimeOriginal != null) {
+                attribute = ExifAttribute.createString(valueOfDateTimeOriginal);
+            }
+        } else if (TAG_IMAGE_WIDTH.equals(tag) || TAG_IMAGE_LENGTH.equals(tag)
+                || TAG_ORIENTATION.equals(tag)) {
+            attribute = ExifAttribute.createULong(0, mExifByteOrder);
+        } else if (TAG_LIGHT_SOURCE.equals(tag)) {
+            ifdType = IFD_TYPE_EXIF;
+            attribute = ExifAttribute.createULong(0, mExifByteOrder);
+        }
+        if (attribute != null) {
+            mAttributes[ifdType].put(tag, attribute);
+        }
+        return attribute;
+    }
+
+    // Decodes all the attributes of a file that is read lazily, so that the instance can be used
+    // as if it was read eagerly.
+    private void loadLazyAttributes() {
+        if (!mIsLazy) {
+            return;
+        }
+        mIsLazy = false;
+        mLazyExifData = null;
+        mLazyIfdEntries = null;
+        mLazyXmpData = null;
+        mLazyCommentData = null;
+        FileInputStream in = null;
+        try {
+            in = new FileInputStream(mFilename);
+            loadAttributes(in);
+        } catch (IOException e) {
+            // Keep the attributes that were decoded so far.
+            Log.w(TAG, "Failed to load attributes of " + mFilename, e);
+        } finally {
+            closeQuietly(in);
+        }
+    }
+
+    private static boolean bufferStartsWith(ByteBuffer buffer, int offset, int length,
+            byte[] prefix) {
+        if (length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; ++i) {
+            if (buffer.get(offset + i) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, int offset, int length) {
+        final ByteBuffer duplicate = buffer.duplicate();
+        duplicate.position(offset);
+        duplicate.limit(offset + length);
+        return duplicate.slice();
+    }
+
+    private static byte[] toByteArray(ByteBuffer buffer) {
+        final byte[] bytes = new byte[buffer.limit()];
+        final ByteBuffer duplicate = buffer.duplicate();
+        duplicate.position(0);
+        duplicate.get(bytes);
+        return bytes;
+    }
+
     private static double convertRationalLatLonToDouble(String rationalString, String ref) {
         try {
             String [] parts = rationalString.split(",", -1);
@@ -6269,6 +6883,101 @@ public class ExifInterface {
         }
     }
 
+    // Overwrites the EXIF APP1 segment of the JPEG file in place, if the new EXIF data fits in it.
+    // Returns false if the file has to be rewritten instead.
+    private boolean saveJpegAttributesInPlace() throws IOException {
+        RandomAccessFile file;
+        try {
+            file = new RandomAccessFile(mFilename, "rw");
+        } catch (FileNotFoundException e) {
+            // Let the full rewrite report the error.
+            return false;
+        }
+        try {
+            final long segmentOffset = findJpegExifSegment(file);
+            if (segmentOffset < 0) {
+                return false;
+            }
+            // The segment length includes the 2 bytes of the length itself, but not the marker.
+            file.seek(segmentOffset + 2);
+            final int segmentLength = file.readUnsignedShort();
+
+            // Remove XMP data if it is from a separate marker, which is left untouched.
+            ExifAttribute xmpAttribute = null;
+            if (getAttribute(TAG_XMP) != null && mXmpIsFromSeparateMarker) {
+                xmpAttribute = mAttributes[IFD_TYPE_PRIMARY].remove(TAG_XMP);
+            }
+            final ByteArrayOutputStream segment = new ByteArrayOutputStream(segmentLength);
+            try {
+                writeExifSegment(new ByteOrderedDataOutputStream(segment, ByteOrder.BIG_ENDIAN));
+            } finally {
+                // Re-add previously removed XMP data.
+                if (xmpAttribute != null) {
+                    mAttributes[IFD_TYPE_PRIMARY].put(TAG_XMP, xmpAttribute);
+                }
+            }
+            if (segment.size() > segmentLength) {
+                return false;
+            }
+
+            // Keep the length of the existing segment, and fill the rest of it with zeros.
+            final byte[] bytes = Arrays.copyOf(segment.toByteArray(), segmentLength);
+            bytes[0] = (byte) (segmentLength >> 8);
+            bytes[1] = (byte) segmentLength;
+            file.seek(segmentOffset + 2);
+            file.write(bytes);
+            return true;
+        } catch (EOFException e) {
+            // The file is corrupted, let the full rewrite handle it.
+            return false;
+        } finally {
+            closeQuietly(file);
+        }
+    }
+
+    // Returns the offset of the marker of the only EXIF APP1 segment in the given JPEG file, or -1
+    // if there is none or more than one.
+    private static long findJpegExifSegment(RandomAccessFile file) throws IOException {
+        // Each marker is read at once, and each segment starts with a seek, to keep the reads
+        // buffered enough.
+        final byte[] markerBytes = new byte[2];
+        file.readFully(markerBytes);
+        if (markerBytes[0] != MARKER || markerBytes[1] != MARKER_SOI) {
+            return -1;
+        }
+        final byte[] identifier = new byte[IDENTIFIER_EXIF_APP1.length];
+        long segmentOffset = -1;
+        long markerOffset = file.getFilePointer();
+        while (true) {
+            file.seek(markerOffset);
+            file.readFully(markerBytes);
+            if (markerBytes[0] != MARKER) {
+                return -1;
+            }
+            final byte marker = markerBytes[1];
+            // EOI indicates the end of an image and in case of SOS, JPEG image stream starts and
+            // the image data will terminate right after.
+            if (marker == MARKER_EOI || marker == MARKER_SOS) {
+                return segmentOffset;
+            }
+            final int length = file.readUnsignedShort();
+            if (length < 2) {
+                return -1;
+            }
+            if (marker == MARKER_APP1 && length - 2 >= identifier.length) {
+                file.readFully(identifier);
+                if (Arrays.equals(identifier, IDENTIFIER_EXIF_APP1)) {
+                    if (segmentOffset >= 0) {
+                        // A full rewrite replaces all EXIF APP1 segments with a single one.
+                        return -1;
+                    }
+                    segmentOffset = markerOffset;
+                }
+            }
+            markerOffset += 2 + length;
+        }
+    }
+
     // Stores a new JPEG image with EXIF attributes into a given output stream.
     private void saveJpegAttributes(InputStream inputStream, OutputStream outputStream)
             throws IOException {
@@ -6300,7 +7009,7 @@ public class ExifInterface {
         // Write EXIF APP1 segment
         dataOutputStream.writeByte(MARKER);
         dataOutputStream.writeByte(MARKER_APP1);
-        writeExifSegment(dataOutputStream);
+        writeExifSegment(dataOutputStream, mExifPaddingSize);
 
         // Re-add previously removed XMP data.
         if (xmpAttribute != null) {
@@ -7359,6 +8068,13 @@ public class ExifInterface {
 
     // Writes an Exif segment into the given output stream.
     private int writeExifSegment(ByteOrderedDataOutputStream dataOutputStream) throws IOException {
+        return writeExifSegment(dataOutputStream, 0);
+    }
+
+    // Writes an Exif segment into the given output stream, followed by the given number of zero
+    // bytes for JPEG files.
+    private int writeExifSegment(ByteOrderedDataOutputStream dataOutputStream, int paddingSize)
+            throws IOException {
         // The following variables are for calculating each IFD tag group size in bytes.
         int[] ifdOffsets = new int[EXIF_TAGS.length];
         int[] ifdDataSizes = new int[EXIF_TAGS.length];
@@ -7438,6 +8154,11 @@ public class ExifInterface {
         if (mMimeType == IMAGE_TYPE_JPEG) {
             // Add 8 bytes for APP1 size and identifier data
             totalSize += 8;
+            // The APP1 size is an unsigned short, so it limits the padding.
+            paddingSize = Math.max(0, Math.min(paddingSize, 0xFFFF - totalSize));
+            totalSize += paddingSize;
+        } else {
+            paddingSize = 0;
         }
         if (DEBUG) {
             for (int i = 0; i < EXIF_TAGS.length; ++i) {
@@ -7544,6 +8265,11 @@ public class ExifInterface {
             dataOutputStream.write(getThumbnailBytes());
         }
 
+        // Write padding reserved for later changes
+        if (paddingSize > 0) {
+            dataOutputStream.write(new byte[paddingSize]);
+        }
+
         // For WebP files, add a single padding byte at end if chunk size is odd
         if (mMimeType == IMAGE_TYPE_WEBP && totalSize % 2 == 1) {
             dataOutputStream.writeByte(0);
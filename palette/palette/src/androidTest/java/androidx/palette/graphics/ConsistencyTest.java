@@ -26,6 +26,12 @@ import androidx.test.filters.SmallTest;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 @RunWith(AndroidJUnit4.class)
 public class ConsistencyTest {
 
@@ -46,6 +52,74 @@ public class ConsistencyTest {
         }
     }
 
+    @Test
+    @SmallTest
+    public void testParallelConsistency() {
+        final Bitmap bitmap = TestUtils.loadSampleBitmap();
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            // Without resizing, both modes count exactly the same pixels
+            Palette palette = Palette.from(bitmap).resizeBitmapArea(0).generate();
+            Palette parallelPalette = Palette.from(bitmap).resizeBitmapArea(0)
+                    .setExecutor(executor).generate();
+            assertEquals(palette.getSwatches(), parallelPalette.getSwatches());
+
+            palette = Palette.from(bitmap).resizeBitmapArea(0)
+                    .setRegion(0, 0, bitmap.getWidth() / 2, bitmap.getHeight() / 3)
+                    .generate();
+            parallelPalette = Palette.from(bitmap).resizeBitmapArea(0)
+                    .setRegion(0, 0, bitmap.getWidth() / 2, bitmap.getHeight() / 3)
+                    .setExecutor(executor)
+                    .generate();
+            assertEquals(palette.getSwatches(), parallelPalette.getSwatches());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    @SmallTest
+    public void testGenerateAll() {
+        final Bitmap bitmap = TestUtils.loadSampleBitmap();
+        final List<Palette.Builder> builders = new ArrayList<>();
+        for (int i = 0; i < NUMBER_TRIALS; i++) {
+            builders.add(Palette.from(bitmap).maximumColorCount(8 + i));
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Palette> palettes = Palette.generateAll(builders, executor);
+            assertEquals(NUMBER_TRIALS, palettes.size());
+            for (int i = 0; i < NUMBER_TRIALS; i++) {
+                assetPalettesEqual(builders.get(i).generate(), palettes.get(i));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    @SmallTest
+    public void testGenerateAll_withBusyExecutor() {
+        final Bitmap bitmap = TestUtils.loadSampleBitmap();
+        final List<Palette.Builder> builders = new ArrayList<>();
+        for (int i = 0; i < NUMBER_TRIALS; i++) {
+            builders.add(Palette.from(bitmap));
+        }
+
+        // An executor which never runs its tasks, so the calling thread does all the work
+        final Executor executor = new Executor() {
+            @Override
+            public void execute(Runnable command) {
+            }
+        };
+        final List<Palette> palettes = Palette.generateAll(builders, executor);
+        final Palette palette = Palette.from(bitmap).generate();
+        for (Palette p : palettes) {
+            assetPalettesEqual(palette, p);
+        }
+    }
+
     private static void assetPalettesEqual(Palette p1, Palette p2) {
         assertEquals(p1.getVibrantSwatch(), p2.getVibrantSwatch());
         assertEquals(p1.getLightVibrantSwatch(), p2.getLightVibrantSwatch());
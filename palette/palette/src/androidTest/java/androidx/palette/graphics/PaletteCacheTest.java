@@ -0,0 +1,189 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.palette.graphics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import android.graphics.Bitmap;
+
+import androidx.annotation.NonNull;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+@RunWith(AndroidJUnit4.class)
+public class PaletteCacheTest {
+
+    private File mFile;
+
+    @Before
+    public void setUp() {
+        mFile = new File(ApplicationProvider.getApplicationContext().getCacheDir(),
+                "palette_cache_test");
+        mFile.delete();
+    }
+
+    @After
+    public void tearDown() {
+        mFile.delete();
+    }
+
+    @Test
+    @SmallTest
+    public void testMemoryCache() {
+        final Bitmap bitmap = TestUtils.loadSampleBitmap();
+        final PaletteCache cache = new PaletteCache(4);
+
+        final Palette palette = Palette.from(bitmap).setCache(cache).generate();
+        assertEquals(0, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+
+        final Palette cachedPalette = Palette.from(bitmap).setCache(cache).generate();
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(0.5f, cache.getHitRate(), 0f);
+        assertPalettesEqual(palette, cachedPalette);
+    }
+
+    @Test
+    @SmallTest
+    public void testFileCache() {
+        final Bitmap bitmap = TestUtils.loadSampleBitmap();
+        final Palette palette = Palette.from(bitmap).setCache(new PaletteCache(4, mFile))
+                .generate();
+
+        // A new cache reads the palette back from the file
+        final PaletteCache cache = new PaletteCache(4, mFile);
+        final Palette cachedPalette = Palette.from(bitmap).setCache(cache).generate();
+        assertEquals(1, cache.getHitCount());
+        assertEquals(0, cache.getMissCount());
+        assertPalettesEqual(palette, cachedPalette);
+
+        cache.clear();
+        assertFalse(mFile.exists());
+    }
+
+    @Test
+    @SmallTest
+    public void testFileCache_withInvalidRecordLength() throws IOException {
+        final Bitmap bitmap = TestUtils.loadSampleBitmap();
+        Palette.from(bitmap).setCache(new PaletteCache(4, mFile)).generate();
+        try (RandomAccessFile file = new RandomAccessFile(mFile, "rw")) {
+            // The length of the first record, after the file header and the key
+            file.seek(PaletteCache.HEADER_LENGTH + 8);
+            file.writeInt(Integer.MAX_VALUE);
+        }
+
+        // The corrupt record is a miss, and the palette is generated and cached again
+        final PaletteCache cache = new PaletteCache(4, mFile);
+        Palette.from(bitmap).setCache(cache).generate();
+        assertEquals(0, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+
+        final PaletteCache otherCache = new PaletteCache(4, mFile);
+        Palette.from(bitmap).setCache(otherCache).generate();
+        assertEquals(1, otherCache.getHitCount());
+    }
+
+    @Test
+    @SmallTest
+    public void testFileCache_withOtherGeneratorVersion() throws IOException {
+        final Bitmap bitmap = TestUtils.loadSampleBitmap();
+        Palette.from(bitmap).setCache(new PaletteCache(4, mFile)).generate();
+        try (RandomAccessFile file = new RandomAccessFile(mFile, "rw")) {
+            // The generator version follows the file version
+            file.seek(4);
+            file.writeInt(PaletteCache.GENERATOR_VERSION + 1);
+        }
+
+        // Palettes of another version may differ, so they are not reused
+        final PaletteCache cache = new PaletteCache(4, mFile);
+        Palette.from(bitmap).setCache(cache).generate();
+        assertEquals(0, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    @SmallTest
+    public void testCustomFilters_areOnlyCachedInMemory() {
+        final Bitmap bitmap = TestUtils.loadSampleBitmap();
+        final Palette.Filter filter = new LightnessFilter(0.5f);
+        final PaletteCache cache = new PaletteCache(4, mFile);
+        Palette.from(bitmap).addFilter(filter).setCache(cache).generate();
+        Palette.from(bitmap).addFilter(filter).setCache(cache).generate();
+        assertEquals(1, cache.getHitCount());
+
+        // Another filter of the same class may allow other colors
+        Palette.from(bitmap).addFilter(new LightnessFilter(0.2f)).setCache(cache).generate();
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+
+        // The filter cannot be identified in another process, so nothing was stored in the file
+        final PaletteCache otherCache = new PaletteCache(4, mFile);
+        Palette.from(bitmap).addFilter(filter).setCache(otherCache).generate();
+        assertEquals(0, otherCache.getHitCount());
+        assertFalse(mFile.exists());
+    }
+
+    @Test
+    @SmallTest
+    public void testDifferentOptionsAreNotShared() {
+        final Bitmap bitmap = TestUtils.loadSampleBitmap();
+        final PaletteCache cache = new PaletteCache(4);
+
+        Palette.from(bitmap).setCache(cache).generate();
+        Palette.from(bitmap).maximumColorCount(8).setCache(cache).generate();
+        Palette.from(bitmap).clearTargets().addTarget(Target.VIBRANT).setCache(cache).generate();
+        Palette.from(bitmap).setRegion(0, 0, bitmap.getWidth() / 2, bitmap.getHeight() / 2)
+                .setCache(cache).generate();
+        assertEquals(0, cache.getHitCount());
+        assertEquals(4, cache.getMissCount());
+    }
+
+    /**
+     * Allows the colors darker than a maximum lightness.
+     */
+    private static class LightnessFilter implements Palette.Filter {
+        private final float mMaxLightness;
+
+        LightnessFilter(float maxLightness) {
+            mMaxLightness = maxLightness;
+        }
+
+        @Override
+        public boolean isAllowed(int rgb, @NonNull float[] hsl) {
+            return hsl[2] <= mMaxLightness;
+        }
+    }
+
+    private static void assertPalettesEqual(Palette expected, Palette actual) {
+        assertEquals(expected.getSwatches(), actual.getSwatches());
+        for (Target target : expected.getTargets()) {
+            assertEquals(expected.getSwatchForTarget(target), actual.getSwatchForTarget(target));
+        }
+    }
+}
@@ -59,21 +59,14 @@ final class ColorCutQuantizer {
     /**
      * Constructor.
      *
-     * @param pixels histogram representing an image's pixel data
+     * @param hist histogram of an image's pixel data, as built by {@link #buildHistogram(int[])}.
+     *             Populations of filtered colors are cleared.
      * @param maxColors The maximum number of colors that should be in the result palette.
      * @param filters Set of filters to use in the quantization stage
      */
-    ColorCutQuantizer(int[] pixels, int maxColors, @Nullable Palette.Filter[] filters) {
+    ColorCutQuantizer(int[] hist, int maxColors, @Nullable Palette.Filter[] filters) {
         mFilters = filters;
-
-        final int[] hist = mHistogram = new int[1 << (QUANTIZE_WORD_WIDTH * 3)];
-        for (int i = 0; i < pixels.length; i++) {
-            final int quantizedColor = quantizeFromRgb888(pixels[i]);
-            // Now update the pixel value to the quantized value
-            pixels[i] = quantizedColor;
-            // And update the histogram
-            hist[quantizedColor]++;
-        }
+        mHistogram = hist;
 
         // Now let's count the number of distinct colors
         int distinctColorCount = 0;
@@ -109,6 +102,25 @@ final class ColorCutQuantizer {
         }
     }
 
+    /**
+     * @return a new histogram sized for quantized colors
+     */
+    static int[] createHistogram() {
+        return new int[1 << (QUANTIZE_WORD_WIDTH * 3)];
+    }
+
+    /**
+     * @param pixels an image's pixel data in RGB888
+     * @return the histogram of the quantized colors of {@code pixels}
+     */
+    static int[] buildHistogram(int[] pixels) {
+        final int[] hist = createHistogram();
+        for (int i = 0; i < pixels.length; i++) {
+            hist[quantizeFromRgb888(pixels[i])]++;
+        }
+        return hist;
+    }
+
     /**
      * @return the list of quantized colors
      */
@@ -426,7 +438,7 @@ final class ColorCutQuantizer {
     /**
      * Quantized a RGB888 value to have a word width of {@value #QUANTIZE_WORD_WIDTH}.
      */
-    private static int quantizeFromRgb888(int color) {
+    static int quantizeFromRgb888(int color) {
         int r = modifyWordWidth(Color.red(color), 8, QUANTIZE_WORD_WIDTH);
         int g = modifyWordWidth(Color.green(color), 8, QUANTIZE_WORD_WIDTH);
         int b = modifyWordWidth(Color.blue(color), 8, QUANTIZE_WORD_WIDTH);
@@ -26,6 +26,7 @@ import androidx.annotation.ColorInt;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.Px;
+import androidx.annotation.WorkerThread;
 import androidx.collection.SimpleArrayMap;
 import androidx.core.graphics.ColorUtils;
 import androidx.core.util.Preconditions;
@@ -34,6 +35,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 /**
  * A helper class to extract prominent colors from an image.
@@ -67,6 +69,9 @@ import java.util.List;
  *         // Use generated instance
  *     }
  * });
+ *
+ * // Many palettes, in parallel
+ * List&lt;Palette&gt; palettes = Palette.generateAll(builders, executor);
  * </pre>
  */
 public final class Palette {
@@ -87,6 +92,12 @@ public final class Palette {
     static final int DEFAULT_RESIZE_BITMAP_AREA = 112 * 112;
     static final int DEFAULT_CALCULATE_NUMBER_COLORS = 16;
 
+    /**
+     * The minimum number of sampled rows counted by each band when building the histogram in
+     * parallel, below which the cost of merging the histograms outweighs the gain.
+     */
+    static final int MIN_ROWS_PER_BAND = 32;
+
     static final float MIN_CONTRAST_TITLE_TEXT = 3.0f;
     static final float MIN_CONTRAST_BODY_TEXT = 4.5f;
 
@@ -111,6 +122,33 @@ public final class Palette {
         return new Builder(swatches).generate();
     }
 
+    /**
+     * Generate a {@link Palette} for each of the given {@link Builder} instances, in parallel on
+     * the given {@link Executor}. The calling thread generates palettes too, and this returns once
+     * all of them have been generated. This is useful for extracting the colors of many images at
+     * once, such as the thumbnails of a list.
+     * <p>
+     * If generating any of the palettes throws an exception, it is rethrown once the others
+     * have finished.
+     *
+     * @param builders the builders to generate palettes from.
+     * @param executor the executor to generate the palettes on.
+     * @return the generated palettes, in the same order as {@code builders}.
+     */
+    @WorkerThread
+    @NonNull
+    public static List<Palette> generateAll(@NonNull final List<Builder> builders,
+            @NonNull Executor executor) {
+        final Palette[] palettes = new Palette[builders.size()];
+        ParallelTasks.run(executor, palettes.length, new ParallelTasks.Task() {
+            @Override
+            public void run(int index) {
+                palettes[index] = builders.get(index).generate();
+            }
+        });
+        return Arrays.asList(palettes);
+    }
+
     /**
      * @deprecated Use {@link Builder} to generate the Palette.
      */
@@ -364,6 +402,18 @@ public final class Palette {
         mUsedColors.clear();
     }
 
+    /**
+     * Restore the swatch selected for each target, as previously generated for the same swatches
+     * and targets.
+     */
+    void restore(@NonNull Swatch[] selectedSwatches) {
+        for (int i = 0, count = mTargets.size(); i < count; i++) {
+            final Target target = mTargets.get(i);
+            target.normalizeWeights();
+            mSelectedSwatches.put(target, selectedSwatches[i]);
+        }
+    }
+
     @Nullable
     private Swatch generateScoredTarget(final Target target) {
         final Swatch maxScoreSwatch = getMaxScoredSwatchForTarget(target);
@@ -601,6 +651,8 @@ public final class Palette {
 
         private final List<Filter> mFilters = new ArrayList<>();
         @Nullable private Rect mRegion;
+        @Nullable private Executor mExecutor;
+        @Nullable private PaletteCache mCache;
 
         /**
          * Construct a new {@link Builder} using a source {@link Bitmap}
@@ -746,6 +798,38 @@ public final class Palette {
             return this;
         }
 
+        /**
+         * Set an {@link Executor} used to count the colors of the {@link Bitmap} in parallel when
+         * generating the palette. {@link #generate()} still returns the palette synchronously.
+         * <p>
+         * When an executor is set, the pixels are sampled at the resized dimensions straight from
+         * the source bitmap, in bands of rows which are counted on the executor, rather than
+         * first being copied into a resized bitmap. The sampled pixels may differ slightly from
+         * the resized bitmap, so the generated palette may differ slightly too.
+         *
+         * @param executor the executor to use, or {@code null} to count the colors on the calling
+         *                 thread only.
+         */
+        @NonNull
+        public Builder setExecutor(@Nullable Executor executor) {
+            mExecutor = executor;
+            return this;
+        }
+
+        /**
+         * Set a {@link PaletteCache} to reuse palettes from. When generating a palette from a
+         * {@link Bitmap}, its colors are still counted, but if a palette was already generated
+         * from the same colors with the same options, it is returned from the cache rather than
+         * quantized again.
+         *
+         * @param cache the cache to use, or {@code null} to always generate the palette.
+         */
+        @NonNull
+        public Builder setCache(@Nullable PaletteCache cache) {
+            mCache = cache;
+            return this;
+        }
+
         /**
          * Add a target profile to be generated in the palette.
          *
@@ -777,37 +861,32 @@ public final class Palette {
         @NonNull
         public Palette generate() {
             List<Swatch> swatches;
+            long cacheKey = 0;
+            boolean cacheInFile = false;
 
             if (mBitmap != null) {
                 // We have a Bitmap so we need to use quantization to reduce the number of colors
 
-                // First we'll scale down the bitmap if needed
-                final Bitmap bitmap = scaleBitmapDown(mBitmap);
-
-                final Rect region = mRegion;
-                if (bitmap != mBitmap && region != null) {
-                    // If we have a scaled bitmap and a selected region, we need to scale down the
-                    // region to match the new scale
-                    final double scale = bitmap.getWidth() / (double) mBitmap.getWidth();
-                    region.left = (int) Math.floor(region.left * scale);
-                    region.top = (int) Math.floor(region.top * scale);
-                    region.right = Math.min((int) Math.ceil(region.right * scale),
-                            bitmap.getWidth());
-                    region.bottom = Math.min((int) Math.ceil(region.bottom * scale),
-                            bitmap.getHeight());
-                }
-
-                // Now generate a quantizer from the Bitmap
-                final ColorCutQuantizer quantizer = new ColorCutQuantizer(
-                        getPixelsFromBitmap(bitmap),
-                        mMaxColors,
-                        mFilters.isEmpty() ? null : mFilters.toArray(new Filter[mFilters.size()]));
-
-                // If created a new bitmap, recycle it
-                if (bitmap != mBitmap) {
-                    bitmap.recycle();
+                // First we'll count the colors of the scaled down bitmap
+                final int[] histogram = mExecutor != null
+                        ? buildHistogramInBands(mBitmap, mExecutor)
+                        : buildHistogram(mBitmap);
+                final Filter[] filters =
+                        mFilters.isEmpty() ? null : mFilters.toArray(new Filter[mFilters.size()]);
+
+                if (mCache != null) {
+                    // The same colors and options always generate the same palette
+                    cacheKey = PaletteCache.computeKey(histogram, mMaxColors, filters, mTargets);
+                    cacheInFile = PaletteCache.isStable(filters);
+                    final Palette cachedPalette = mCache.get(cacheKey, mTargets, cacheInFile);
+                    if (cachedPalette != null) {
+                        return cachedPalette;
+                    }
                 }
 
+                // Now generate a quantizer from the colors
+                final ColorCutQuantizer quantizer =
+                        new ColorCutQuantizer(histogram, mMaxColors, filters);
                 swatches = quantizer.getQuantizedColors();
             } else if (mSwatches != null) {
                 // Else we're using the provided swatches
@@ -822,6 +901,9 @@ public final class Palette {
             // And make it generate itself
             p.generate();
 
+            if (mBitmap != null && mCache != null) {
+                mCache.put(cacheKey, p, cacheInFile);
+            }
             return p;
         }
 
@@ -832,7 +914,8 @@ public final class Palette {
          *
          * @deprecated Use the standard <code>java.util.concurrent</code> or
          * <a href="https://developer.android.com/topic/libraries/architecture/coroutines">
-         * Kotlin concurrency utilities</a> to call {@link #generate()} instead.
+         * Kotlin concurrency utilities</a> to call {@link #generate()} instead, or
+         * {@link Palette#generateAll(List, Executor)} to generate many palettes.
          */
         @NonNull
         @Deprecated
@@ -884,10 +967,136 @@ public final class Palette {
             }
         }
 
+        /**
+         * Build the color histogram of the region of the bitmap, scaled down as needed.
+         */
+        private int[] buildHistogram(final Bitmap sourceBitmap) {
+            // First we'll scale down the bitmap if needed
+            final Bitmap bitmap = scaleBitmapDown(sourceBitmap);
+
+            final Rect region = mRegion;
+            if (bitmap != sourceBitmap && region != null) {
+                // If we have a scaled bitmap and a selected region, we need to scale down the
+                // region to match the new scale
+                final double scale = bitmap.getWidth() / (double) sourceBitmap.getWidth();
+                region.left = (int) Math.floor(region.left * scale);
+                region.top = (int) Math.floor(region.top * scale);
+                region.right = Math.min((int) Math.ceil(region.right * scale),
+                        bitmap.getWidth());
+                region.bottom = Math.min((int) Math.ceil(region.bottom * scale),
+                        bitmap.getHeight());
+            }
+
+            final int[] histogram = ColorCutQuantizer.buildHistogram(getPixelsFromBitmap(bitmap));
+
+            // If created a new bitmap, recycle it
+            if (bitmap != sourceBitmap) {
+                bitmap.recycle();
+            }
+            return histogram;
+        }
+
+        /**
+         * Build the color histogram of the region of the bitmap, sampling the pixels of the scaled
+         * down bitmap from the source bitmap. Bands of rows are counted into their own histograms
+         * on {@code executor}, which are then merged.
+         */
+        private int[] buildHistogramInBands(final Bitmap bitmap, final Executor executor) {
+            final int width = bitmap.getWidth();
+            final int height = bitmap.getHeight();
+            final double scaleRatio = getScaleRatio(bitmap);
+            final int scaledWidth = scaleRatio > 0 ? (int) Math.ceil(width * scaleRatio) : width;
+            final int scaledHeight = scaleRatio > 0 ? (int) Math.ceil(height * scaleRatio) : height;
+
+            // Find the region in the scaled down dimensions, the same as generate() does
+            int left = 0;
+            int top = 0;
+            int right = scaledWidth;
+            int bottom = scaledHeight;
+            if (mRegion != null) {
+                final double scale = scaledWidth / (double) width;
+                left = (int) Math.floor(mRegion.left * scale);
+                top = (int) Math.floor(mRegion.top * scale);
+                right = Math.min((int) Math.ceil(mRegion.right * scale), scaledWidth);
+                bottom = Math.min((int) Math.ceil(mRegion.bottom * scale), scaledHeight);
+            }
+            if (right <= left || bottom <= top) {
+                return ColorCutQuantizer.createHistogram();
+            }
+
+            // Map each sampled column to the column of the source bitmap, so that each band only
+            // needs to read the span of source columns it samples from, one row at a time
+            final int[] columns = new int[right - left];
+            for (int i = 0; i < columns.length; i++) {
+                columns[i] = getSourceCoordinate(left + i, width, scaledWidth);
+            }
+            final int firstColumn = columns[0];
+            final int columnSpan = columns[columns.length - 1] - firstColumn + 1;
+
+            final int firstRow = top;
+            final int rowCount = bottom - top;
+            final int bandCount = Math.max(1, Math.min(
+                    Runtime.getRuntime().availableProcessors(), rowCount / MIN_ROWS_PER_BAND));
+            final int[][] histograms = new int[bandCount][];
+            ParallelTasks.run(executor, bandCount, new ParallelTasks.Task() {
+                @Override
+                public void run(int band) {
+                    final int[] hist = ColorCutQuantizer.createHistogram();
+                    final int[] row = new int[columnSpan];
+                    final int start = firstRow + (int) ((long) rowCount * band / bandCount);
+                    final int end = firstRow + (int) ((long) rowCount * (band + 1) / bandCount);
+                    for (int y = start; y < end; y++) {
+                        bitmap.getPixels(row, 0, columnSpan, firstColumn,
+                                getSourceCoordinate(y, height, scaledHeight), columnSpan, 1);
+                        for (int column : columns) {
+                            hist[ColorCutQuantizer.quantizeFromRgb888(row[column - firstColumn])]++;
+                        }
+                    }
+                    histograms[band] = hist;
+                }
+            });
+
+            // Now merge the histograms of the bands into the first one
+            final int[] hist = histograms[0];
+            for (int band = 1; band < bandCount; band++) {
+                final int[] bandHist = histograms[band];
+                for (int color = 0; color < hist.length; color++) {
+                    hist[color] += bandHist[color];
+                }
+            }
+            return hist;
+        }
+
+        /**
+         * @return the coordinate in a source dimension of {@code sourceSize} pixels which is
+         * sampled for {@code coordinate} in a scaled dimension of {@code scaledSize} pixels.
+         */
+        private static int getSourceCoordinate(int coordinate, int sourceSize, int scaledSize) {
+            return Math.min(sourceSize - 1,
+                    (int) ((coordinate + 0.5) * sourceSize / scaledSize));
+        }
+
         /**
          * Scale the bitmap down as needed.
          */
         private Bitmap scaleBitmapDown(final Bitmap bitmap) {
+            final double scaleRatio = getScaleRatio(bitmap);
+
+            if (scaleRatio <= 0) {
+                // Scaling has been disabled or not needed so just return the Bitmap
+                return bitmap;
+            }
+
+            return Bitmap.createScaledBitmap(bitmap,
+                    (int) Math.ceil(bitmap.getWidth() * scaleRatio),
+                    (int) Math.ceil(bitmap.getHeight() * scaleRatio),
+                    false);
+        }
+
+        /**
+         * @return the ratio to scale the bitmap down by, or -1 if it should be used as-is.
+         */
+        private double getScaleRatio(final Bitmap bitmap) {
             double scaleRatio = -1;
 
             if (mResizeArea > 0) {
@@ -901,16 +1110,7 @@ public final class Palette {
                     scaleRatio = mResizeMaxDimension / (double) maxDimension;
                 }
             }
-
-            if (scaleRatio <= 0) {
-                // Scaling has been disabled or not needed so just return the Bitmap
-                return bitmap;
-            }
-
-            return Bitmap.createScaledBitmap(bitmap,
-                    (int) Math.ceil(bitmap.getWidth() * scaleRatio),
-                    (int) Math.ceil(bitmap.getHeight() * scaleRatio),
-                    false);
+            return scaleRatio;
         }
     }
 
@@ -0,0 +1,445 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.palette.graphics;
+
+import android.util.Log;
+
+import androidx.annotation.FloatRange;
+import androidx.annotation.IntRange;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+import androidx.collection.LruCache;
+import androidx.palette.graphics.Palette.Swatch;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * A cache of generated {@link Palette} instances, so that the colors of the same image are only
+ * quantized once.
+ * <p>
+ * Palettes are cached in memory, up to a maximum number, and optionally in a file so that they
+ * survive process restarts. They are keyed by the colors counted from the resized bitmap and by
+ * the options of the {@link Palette.Builder} which affect the result: the maximum color count,
+ * the filters and the targets. Custom filters are identified by instance, so palettes generated
+ * with them are only reused with the same filter instances, and are only kept in memory. Only
+ * palettes generated with the default filter, or without filters, are stored in the file.
+ *
+ * <pre>
+ * PaletteCache cache = new PaletteCache(500, new File(context.getCacheDir(), "palettes"));
+ *
+ * Palette p = Palette.from(bitmap).setCache(cache).generate();
+ * </pre>
+ *
+ * @see Palette.Builder#setCache(PaletteCache)
+ */
+public final class PaletteCache {
+
+    /**
+     * The version of the file format, stored in the header of the file.
+     */
+    private static final int FILE_VERSION = 0x504C5402;
+
+    /**
+     * The version of the palette generation, stored in the header of the file after the file
+     * version. Increment it whenever {@link ColorCutQuantizer}, the default filter or the
+     * selection of swatches for targets change, so that palettes cached by an older version are
+     * dropped rather than returned.
+     */
+    static final int GENERATOR_VERSION = 1;
+
+    /**
+     * The length of the header of the file, which holds the file and generator versions.
+     */
+    static final int HEADER_LENGTH = 8;
+
+    /**
+     * The maximum number of palettes stored in the file. Once reached, the file is cleared.
+     */
+    static final int MAX_FILE_ENTRIES = 16 * 1024;
+
+    /**
+     * The maximum length of a palette record in the file. Longer records are not stored, and
+     * records claiming to be longer are treated as corrupt.
+     */
+    static final int MAX_RECORD_LENGTH = 64 * 1024;
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final LruCache<Long, Entry> mMemoryCache;
+    @Nullable private final File mFile;
+
+    // Maps the key of each palette in the file to the offset of its record, once loaded
+    @Nullable private HashMap<Long, Long> mFileIndex;
+    private long mFileLength;
+
+    private int mHitCount;
+    private int mMissCount;
+
+    /**
+     * Create a cache which keeps up to {@code maxSize} palettes in memory.
+     */
+    public PaletteCache(@IntRange(from = 1) int maxSize) {
+        this(maxSize, null);
+    }
+
+    /**
+     * Create a cache which keeps up to {@code maxSize} palettes in memory, and stores all
+     * palettes in {@code file} too so that later instances can reuse them.
+     *
+     * @param maxSize the maximum number of palettes kept in memory.
+     * @param file the file to store palettes in, which is created if needed, or {@code null} to
+     *             only keep palettes in memory. It is read the first time it is needed, which
+     *             should be on a background thread.
+     */
+    public PaletteCache(@IntRange(from = 1) int maxSize, @Nullable File file) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be positive");
+        }
+        mMemoryCache = new LruCache<>(maxSize);
+        mFile = file;
+    }
+
+    /**
+     * Returns the number of times a palette was found in this cache, in memory or in its file.
+     */
+    public synchronized int getHitCount() {
+        return mHitCount;
+    }
+
+    /**
+     * Returns the number of times a palette was not found in this cache and had to be
+     * generated.
+     */
+    public synchronized int getMissCount() {
+        return mMissCount;
+    }
+
+    /**
+     * Returns the ratio of palettes found in this cache to all the palettes requested from it,
+     * or 0 if none were requested yet.
+     */
+    @FloatRange(from = 0, to = 1)
+    public synchronized float getHitRate() {
+        final int requestCount = mHitCount + mMissCount;
+        return requestCount == 0 ? 0f : mHitCount / (float) requestCount;
+    }
+
+    /**
+     * Remove all palettes from this cache, including from its file.
+     */
+    @WorkerThread
+    public synchronized void clear() {
+        mMemoryCache.evictAll();
+        if (mFile != null) {
+            clearFile();
+        }
+    }
+
+    /**
+     * Returns the palette cached for {@code key}, or null if there is none.
+     *
+     * @param inFile whether the palette may be stored in the file, see {@link #isStable}.
+     */
+    @Nullable
+    synchronized Palette get(long key, @NonNull List<Target> targets, boolean inFile) {
+        Entry entry = mMemoryCache.get(key);
+        if (entry == null && inFile && mFile != null) {
+            entry = readEntry(key);
+            if (entry != null) {
+                mMemoryCache.put(key, entry);
+            }
+        }
+        if (entry == null || entry.mSelectedSwatches.length != targets.size()) {
+            mMissCount++;
+            return null;
+        }
+        mHitCount++;
+
+        final Palette palette = new Palette(entry.mSwatches, targets);
+        palette.restore(entry.mSelectedSwatches);
+        return palette;
+    }
+
+    /**
+     * Cache {@code palette}, which was generated for {@code key}.
+     *
+     * @param inFile whether to store the palette in the file too, see {@link #isStable}.
+     */
+    synchronized void put(long key, @NonNull Palette palette, boolean inFile) {
+        final List<Swatch> swatches = palette.getSwatches();
+        final List<Target> targets = palette.getTargets();
+        final Swatch[] selectedSwatches = new Swatch[targets.size()];
+        for (int i = 0; i < selectedSwatches.length; i++) {
+            selectedSwatches[i] = palette.getSwatchForTarget(targets.get(i));
+        }
+        final Entry entry = new Entry(new ArrayList<>(swatches), selectedSwatches);
+        mMemoryCache.put(key, entry);
+        if (inFile && mFile != null) {
+            writeEntry(key, entry);
+        }
+    }
+
+    /**
+     * Returns true if the keys computed for {@code filters} stay the same across processes, which
+     * is only the case for the default filter, or no filter at all.
+     */
+    static boolean isStable(@Nullable Palette.Filter[] filters) {
+        if (filters != null) {
+            for (Palette.Filter filter : filters) {
+                if (filter != Palette.DEFAULT_FILTER) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Compute the key of the palette generated from the given histogram and options.
+     */
+    static long computeKey(@NonNull int[] histogram, int maxColors,
+            @Nullable Palette.Filter[] filters, @NonNull List<Target> targets) {
+        long hash = FNV_OFFSET_BASIS;
+        for (int population : histogram) {
+            hash = (hash ^ population) * FNV_PRIME;
+        }
+        hash = (hash ^ maxColors) * FNV_PRIME;
+        if (filters != null) {
+            for (Palette.Filter filter : filters) {
+                // Filters of the same class may allow different colors, so only the default
+                // filter, which GENERATOR_VERSION covers, is known to be the same everywhere
+                final int filterHash = filter == Palette.DEFAULT_FILTER
+                        ? 1 : System.identityHashCode(filter);
+                hash = (hash ^ filterHash) * FNV_PRIME;
+            }
+        }
+        for (int i = 0, count = targets.size(); i < count; i++) {
+            final Target target = targets.get(i);
+            for (float value : target.mSaturationTargets) {
+                hash = (hash ^ Float.floatToIntBits(value)) * FNV_PRIME;
+            }
+            for (float value : target.mLightnessTargets) {
+                hash = (hash ^ Float.floatToIntBits(value)) * FNV_PRIME;
+            }
+            // Weights are normalized when generating, so only their ratios matter
+            float weightSum = 0;
+            for (float weight : target.mWeights) {
+                if (weight > 0) {
+                    weightSum += weight;
+                }
+            }
+            for (float weight : target.mWeights) {
+                final int normalized = weight > 0 && weightSum != 0
+                        ? Math.round(weight / weightSum * 10000) : 0;
+                hash = (hash ^ normalized) * FNV_PRIME;
+            }
+            hash = (hash ^ (target.isExclusive() ? 1 : 0)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    @Nullable
+    private Entry readEntry(long key) {
+        final HashMap<Long, Long> index = getFileIndex();
+        final Long offset = index.get(key);
+        if (offset == null) {
+            return null;
+        }
+        try (RandomAccessFile file = new RandomAccessFile(mFile, "r")) {
+            file.seek(offset);
+            if (file.readLong() != key) {
+                throw new IOException("Invalid record at " + offset);
+            }
+            final int recordLength = file.readInt();
+            if (recordLength < 8 || recordLength > MAX_RECORD_LENGTH
+                    || recordLength > file.length() - file.getFilePointer()) {
+                Log.w(Palette.LOG_TAG, "Invalid length of cached palette at " + offset);
+                index.remove(key);
+                return null;
+            }
+            final byte[] record = new byte[recordLength];
+            file.readFully(record);
+            final ByteBuffer buffer = ByteBuffer.wrap(record);
+
+            final int swatchCount = buffer.getInt();
+            if (swatchCount < 0 || swatchCount > buffer.remaining() / 8) {
+                throw new IOException("Invalid swatch count at " + offset);
+            }
+            final List<Swatch> swatches = new ArrayList<>(swatchCount);
+            for (int i = 0; i < swatchCount; i++) {
+                swatches.add(new Swatch(buffer.getInt(), buffer.getInt()));
+            }
+            final int selectedCount = buffer.getInt();
+            if (selectedCount < 0 || selectedCount > buffer.remaining() / 4) {
+                throw new IOException("Invalid target count at " + offset);
+            }
+            final Swatch[] selectedSwatches = new Swatch[selectedCount];
+            for (int i = 0; i < selectedSwatches.length; i++) {
+                final int swatchIndex = buffer.getInt();
+                selectedSwatches[i] = swatchIndex >= 0 ? swatches.get(swatchIndex) : null;
+            }
+            return new Entry(swatches, selectedSwatches);
+        } catch (IOException | RuntimeException e) {
+            Log.w(Palette.LOG_TAG, "Failed to read cached palette, clearing the cache file", e);
+            clearFile();
+            return null;
+        }
+    }
+
+    private void writeEntry(long key, @NonNull Entry entry) {
+        final HashMap<Long, Long> index = getFileIndex();
+        if (index.containsKey(key)) {
+            return;
+        }
+        if (index.size() >= MAX_FILE_ENTRIES) {
+            clearFile();
+        }
+
+        final List<Swatch> swatches = entry.mSwatches;
+        final Swatch[] selectedSwatches = entry.mSelectedSwatches;
+        final int recordLength = 8 + swatches.size() * 8 + selectedSwatches.length * 4;
+        if (recordLength > MAX_RECORD_LENGTH) {
+            return;
+        }
+        final boolean writeHeader = mFileLength == 0;
+        final ByteBuffer buffer = ByteBuffer.allocate(
+                (writeHeader ? HEADER_LENGTH : 0) + 12 + recordLength);
+        if (writeHeader) {
+            buffer.putInt(FILE_VERSION);
+            buffer.putInt(GENERATOR_VERSION);
+        }
+        buffer.putLong(key);
+        buffer.putInt(recordLength);
+        buffer.putInt(swatches.size());
+        for (Swatch swatch : swatches) {
+            buffer.putInt(swatch.getRgb());
+            buffer.putInt(swatch.getPopulation());
+        }
+        buffer.putInt(selectedSwatches.length);
+        for (Swatch swatch : selectedSwatches) {
+            buffer.putInt(swatch != null ? swatches.indexOf(swatch) : -1);
+        }
+
+        try (FileOutputStream out = new FileOutputStream(mFile, !writeHeader)) {
+            out.write(buffer.array());
+            index.put(key, mFileLength + (writeHeader ? HEADER_LENGTH : 0));
+            mFileLength += buffer.capacity();
+        } catch (IOException e) {
+            Log.w(Palette.LOG_TAG, "Failed to write cached palette", e);
+        }
+    }
+
+    /**
+     * Returns the index of the palettes in the file, reading it first if needed.
+     */
+    @NonNull
+    private HashMap<Long, Long> getFileIndex() {
+        if (mFileIndex != null) {
+            return mFileIndex;
+        }
+        final HashMap<Long, Long> index = mFileIndex = new HashMap<>();
+        mFileLength = 0;
+        if (!mFile.exists()) {
+            return index;
+        }
+
+        long offset = 0;
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(mFile)))) {
+            if (in.readInt() != FILE_VERSION || in.readInt() != GENERATOR_VERSION) {
+                // Palettes of other versions may not match the ones generated now
+                throw new IOException("Unknown file version");
+            }
+            offset = HEADER_LENGTH;
+            while (true) {
+                final long key;
+                try {
+                    key = in.readLong();
+                } catch (EOFException e) {
+                    // The end of the last record
+                    break;
+                }
+                final int recordLength = in.readInt();
+                if (recordLength < 8 || recordLength > MAX_RECORD_LENGTH) {
+                    throw new IOException("Invalid record at " + offset);
+                }
+                skipFully(in, recordLength);
+                index.put(key, offset);
+                offset += 12 + recordLength;
+            }
+        } catch (IOException e) {
+            // Keep the complete records, which is all of them if the last write was interrupted
+            if (offset == 0) {
+                Log.w(Palette.LOG_TAG, "Failed to read the cache file, clearing it", e);
+                clearFile();
+                return mFileIndex;
+            }
+            try (RandomAccessFile file = new RandomAccessFile(mFile, "rw")) {
+                file.setLength(offset);
+            } catch (IOException truncateException) {
+                Log.w(Palette.LOG_TAG, "Failed to repair the cache file, clearing it",
+                        truncateException);
+                clearFile();
+                return mFileIndex;
+            }
+        }
+        mFileLength = offset;
+        return index;
+    }
+
+    private void clearFile() {
+        mFile.delete();
+        mFileIndex = new HashMap<>();
+        mFileLength = 0;
+    }
+
+    private static void skipFully(DataInputStream in, int length) throws IOException {
+        while (length > 0) {
+            final int skipped = in.skipBytes(length);
+            if (skipped <= 0) {
+                throw new EOFException();
+            }
+            length -= skipped;
+        }
+    }
+
+    /**
+     * The swatches of a cached palette and the swatch selected for each of its targets.
+     */
+    private static final class Entry {
+        final List<Swatch> mSwatches;
+        final Swatch[] mSelectedSwatches;
+
+        Entry(List<Swatch> swatches, Swatch[] selectedSwatches) {
+            mSwatches = swatches;
+            mSelectedSwatches = selectedSwatches;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.palette.graphics;
+
+import androidx.annotation.NonNull;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs a number of indexed tasks on an {@link Executor}, with the calling thread helping.
+ */
+final class ParallelTasks {
+
+    /**
+     * A task which is run once for each index.
+     */
+    interface Task {
+        void run(int index);
+    }
+
+    private ParallelTasks() {
+    }
+
+    /**
+     * Runs {@code task} for each index in {@code [0, count)} and returns once all of them have
+     * finished.
+     * <p>
+     * Indexes are claimed one at a time by the calling thread and by the executor's threads, so
+     * this completes even when the executor's threads are busy, including when this is called
+     * from one of them. If a task throws, the first exception is rethrown once the other tasks
+     * have finished.
+     */
+    static void run(@NonNull Executor executor, final int count, @NonNull final Task task) {
+        final AtomicInteger nextIndex = new AtomicInteger();
+        final CountDownLatch done = new CountDownLatch(count);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final Runnable worker = new Runnable() {
+            @Override
+            public void run() {
+                int index;
+                while ((index = nextIndex.getAndIncrement()) < count) {
+                    try {
+                        task.run(index);
+                    } catch (RuntimeException | Error e) {
+                        failure.compareAndSet(null, e);
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }
+        };
+
+        final int helpers = Math.min(count - 1, Runtime.getRuntime().availableProcessors());
+        for (int i = 0; i < helpers; i++) {
+            try {
+                executor.execute(worker);
+            } catch (RejectedExecutionException e) {
+                // The calling thread runs the remaining tasks
+                break;
+            }
+        }
+        worker.run();
+
+        // Only tasks which have already started on other threads are left, so wait for them
+        // even if interrupted
+        boolean interrupted = false;
+        while (true) {
+            try {
+                done.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+
+        final Throwable throwable = failure.get();
+        if (throwable instanceof RuntimeException) {
+            throw (RuntimeException) throwable;
+        } else if (throwable instanceof Error) {
+            throw (Error) throwable;
+        }
+    }
+}
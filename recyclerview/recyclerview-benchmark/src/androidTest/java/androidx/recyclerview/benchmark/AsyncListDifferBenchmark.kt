@@ -0,0 +1,136 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.recyclerview.benchmark
+
+import android.annotation.SuppressLint
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import androidx.recyclerview.widget.AsyncDifferConfig
+import androidx.recyclerview.widget.AsyncListDiffer
+import androidx.recyclerview.widget.DiffUtil
+import androidx.recyclerview.widget.ListUpdateCallback
+import androidx.test.filters.LargeTest
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+import java.util.Random
+import java.util.concurrent.Executor
+
+/**
+ * Measures [AsyncListDiffer.submitList] on 100k-row lists, with and without item keys.
+ */
+@LargeTest
+@RunWith(Parameterized::class)
+class AsyncListDifferBenchmark(
+    private val changeCount: Int,
+    private val withKeys: Boolean
+) {
+
+    @get:Rule
+    val benchmarkRule = BenchmarkRule()
+
+    @Test
+    fun submitList() {
+        val differ = createDiffer()
+        val before = (0 until SIZE).map { Row(it, 0) }
+        val after = edit(before)
+        differ.submitList(before)
+        var submitBefore = false
+        benchmarkRule.measureRepeated {
+            differ.submitList(if (submitBefore) before else after)
+            submitBefore = !submitBefore
+        }
+    }
+
+    @SuppressLint("RestrictedApi")
+    private fun createDiffer(): AsyncListDiffer<Row> {
+        // Diff and dispatch synchronously, so that each submitList call is measured in full
+        val directExecutor = Executor { it.run() }
+        return AsyncListDiffer(
+            dummyUpdateCallback,
+            AsyncDifferConfig.Builder(if (withKeys) KEYED_ROW_CALLBACK else ROW_CALLBACK)
+                .setMainThreadExecutor(directExecutor)
+                .setBackgroundThreadExecutor(directExecutor)
+                .setDiffConfig(if (withKeys) DiffUtil.DiffConfig.Builder().build() else null)
+                .build()
+        )
+    }
+
+    /**
+     * Removes, inserts, moves or changes [changeCount] rows at random positions.
+     */
+    private fun edit(before: List<Row>): List<Row> {
+        val random = Random(changeCount.toLong())
+        val after = before.toMutableList()
+        repeat(changeCount) {
+            when (random.nextInt(4)) {
+                0 -> after.removeAt(random.nextInt(after.size))
+                1 -> after.add(random.nextInt(after.size + 1), Row(SIZE + it, 0))
+                2 -> after.add(
+                    random.nextInt(after.size),
+                    after.removeAt(random.nextInt(after.size))
+                )
+                3 -> {
+                    val index = random.nextInt(after.size)
+                    after[index] = after[index].copy(version = after[index].version + 1)
+                }
+            }
+        }
+        return after
+    }
+
+    data class Row(val id: Int, val version: Int)
+
+    companion object {
+        private const val SIZE = 100_000
+
+        private val ROW_CALLBACK = object : DiffUtil.ItemCallback<Row>() {
+            override fun areItemsTheSame(oldItem: Row, newItem: Row) = oldItem.id == newItem.id
+
+            override fun areContentsTheSame(oldItem: Row, newItem: Row) = oldItem == newItem
+        }
+
+        private val KEYED_ROW_CALLBACK = object : DiffUtil.ItemCallback<Row>() {
+            override fun areItemsTheSame(oldItem: Row, newItem: Row) = oldItem.id == newItem.id
+
+            override fun areContentsTheSame(oldItem: Row, newItem: Row) = oldItem == newItem
+
+            override fun getItemKey(item: Row) = item.id
+        }
+
+        private val dummyUpdateCallback = object : ListUpdateCallback {
+            override fun onChanged(position: Int, count: Int, payload: Any?) {
+            }
+
+            override fun onMoved(fromPosition: Int, toPosition: Int) {
+            }
+
+            override fun onInserted(position: Int, count: Int) {
+            }
+
+            override fun onRemoved(position: Int, count: Int) {
+            }
+        }
+
+        @JvmStatic
+        @Parameterized.Parameters(name = "changes_{0}_withKeys_{1}")
+        fun params() = listOf(10, 100, 1000).flatMap { changeCount ->
+            listOf(arrayOf<Any>(changeCount, false), arrayOf<Any>(changeCount, true))
+        }
+    }
+}
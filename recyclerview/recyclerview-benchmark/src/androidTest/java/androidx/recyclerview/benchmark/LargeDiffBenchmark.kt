@@ -0,0 +1,155 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.recyclerview.benchmark
+
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import androidx.recyclerview.widget.DiffUtil
+import androidx.test.filters.LargeTest
+import org.junit.AfterClass
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+import java.util.Random
+import java.util.concurrent.Executors
+
+/**
+ * Compares [DiffUtil.calculateDiff] with and without a [DiffUtil.DiffConfig] on large lists.
+ */
+@LargeTest
+@RunWith(Parameterized::class)
+class LargeDiffBenchmark(
+    val input: Input
+) {
+
+    @get:Rule
+    val benchmarkRule = BenchmarkRule()
+
+    @Test
+    fun calculateDiff() {
+        benchmarkRule.measureRepeated {
+            DiffUtil.calculateDiff(input.callback(withKeys = false), true)
+        }
+    }
+
+    @Test
+    fun calculateDiff_withConfig() {
+        val config = DiffUtil.DiffConfig.Builder().build()
+        benchmarkRule.measureRepeated {
+            DiffUtil.calculateDiff(input.callback(withKeys = false), config, null)
+        }
+    }
+
+    @Test
+    fun calculateDiff_withExecutor() {
+        val config = DiffUtil.DiffConfig.Builder().setExecutor(executor).build()
+        benchmarkRule.measureRepeated {
+            DiffUtil.calculateDiff(input.callback(withKeys = false), config, null)
+        }
+    }
+
+    @Test
+    fun calculateDiff_withKeys() {
+        val config = DiffUtil.DiffConfig.Builder().build()
+        benchmarkRule.measureRepeated {
+            DiffUtil.calculateDiff(input.callback(withKeys = true), config, null)
+        }
+    }
+
+    companion object {
+        private const val SIZE = 50_000
+
+        private val executor = Executors.newFixedThreadPool(
+            Runtime.getRuntime().availableProcessors()
+        )
+
+        @JvmStatic
+        @AfterClass
+        fun shutdownExecutor() {
+            executor.shutdown()
+        }
+
+        @JvmStatic
+        @Parameterized.Parameters(name = "input_{0}")
+        fun params(): List<Input> {
+            val before = (0 until SIZE).toList()
+            return listOf(
+                Input(
+                    name = "change_1_item",
+                    before = before,
+                    after = (0 until 25_000).toList() + -1 + (25_001 until SIZE).toList()
+                ),
+                Input(
+                    name = "random_100_changes",
+                    before = before,
+                    after = edit(before, 100)
+                ),
+                Input(
+                    name = "random_1000_changes",
+                    before = before,
+                    after = edit(before, 1000)
+                )
+            )
+        }
+
+        /**
+         * Removes, inserts or moves [count] items at random positions.
+         */
+        private fun edit(before: List<Int>, count: Int): List<Int> {
+            val random = Random(count.toLong())
+            val after = before.toMutableList()
+            repeat(count) {
+                when (random.nextInt(3)) {
+                    0 -> after.removeAt(random.nextInt(after.size))
+                    1 -> after.add(random.nextInt(after.size + 1), -1 - it)
+                    2 -> after.add(
+                        random.nextInt(after.size),
+                        after.removeAt(random.nextInt(after.size))
+                    )
+                }
+            }
+            return after
+        }
+    }
+
+    data class Input(
+        val name: String,
+        val before: List<Int>,
+        val after: List<Int>
+    ) {
+        fun callback(withKeys: Boolean) = object : DiffUtil.Callback() {
+            override fun areItemsTheSame(oldItemPosition: Int, newItemPosition: Int) =
+                before[oldItemPosition] == after[newItemPosition]
+
+            override fun getOldListSize() = before.size
+
+            override fun getNewListSize() = after.size
+
+            override fun areContentsTheSame(oldItemPosition: Int, newItemPosition: Int) =
+                before[oldItemPosition] == after[newItemPosition]
+
+            override fun getOldItemKey(oldItemPosition: Int) =
+                if (withKeys) before[oldItemPosition] else null
+
+            override fun getNewItemKey(newItemPosition: Int) =
+                if (withKeys) after[newItemPosition] else null
+        }
+
+        override fun toString() = name + "_size_[${before.size}_${after.size}]"
+    }
+}
@@ -39,13 +39,16 @@ class AsyncListDifferTest {
     private val mBackgroundThread = TestExecutor()
 
     private fun createDiffer(
-        listUpdateCallback: ListUpdateCallback = IGNORE_CALLBACK
+        listUpdateCallback: ListUpdateCallback = IGNORE_CALLBACK,
+        diffCallback: DiffUtil.ItemCallback<String> = STRING_DIFF_CALLBACK,
+        diffConfig: DiffUtil.DiffConfig? = null
     ): AsyncListDiffer<String> {
         return AsyncListDiffer(
             listUpdateCallback,
-            AsyncDifferConfig.Builder(STRING_DIFF_CALLBACK)
+            AsyncDifferConfig.Builder(diffCallback)
                 .setMainThreadExecutor(mMainThread)
                 .setBackgroundThreadExecutor(mBackgroundThread)
+                .setDiffConfig(diffConfig)
                 .build()
         )
     }
@@ -288,6 +291,80 @@ class AsyncListDifferTest {
         assertEquals(0, differ.currentList.size)
     }
 
+    @Test
+    fun submitListWithKeys() {
+        val callback = mock(ListUpdateCallback::class.java)
+        val differ = createDiffer(
+            callback,
+            KEYED_STRING_DIFF_CALLBACK,
+            DiffUtil.DiffConfig.Builder().build()
+        )
+
+        differ.submitList(listOf("a", "b", "c"))
+        verify(callback).onInserted(0, 3)
+        drain()
+        verifyNoMoreInteractions(callback)
+
+        differ.submitList(listOf("c", "a", "b2"))
+        drain()
+        verify(callback).onChanged(1, 1, "2")
+        verify(callback).onMoved(2, 0)
+        verifyNoMoreInteractions(callback)
+        assertEquals(listOf("c", "a", "b2"), differ.currentList)
+    }
+
+    @Test
+    fun submitListWithKeys_nulls() {
+        val callback = mock(ListUpdateCallback::class.java)
+        val differ = createDiffer(
+            callback,
+            KEYED_STRING_DIFF_CALLBACK,
+            DiffUtil.DiffConfig.Builder().build()
+        )
+
+        differ.submitList(listOf("a", null, "b"))
+        verify(callback).onInserted(0, 3)
+        drain()
+
+        differ.submitList(listOf(null, "b", null))
+        drain()
+        verify(callback).onInserted(3, 1)
+        verify(callback).onRemoved(0, 1)
+        verifyNoMoreInteractions(callback)
+    }
+
+    @Test
+    fun submitListCoalesced() {
+        val diffedLists = mutableSetOf<String>()
+        val diffCallback = object : DiffUtil.ItemCallback<String>() {
+            override fun areItemsTheSame(oldItem: String, newItem: String): Boolean {
+                diffedLists.add(newItem)
+                return STRING_DIFF_CALLBACK.areItemsTheSame(oldItem, newItem)
+            }
+
+            override fun areContentsTheSame(oldItem: String, newItem: String): Boolean {
+                return STRING_DIFF_CALLBACK.areContentsTheSame(oldItem, newItem)
+            }
+        }
+        val callback = mock(ListUpdateCallback::class.java)
+        val differ = createDiffer(callback, diffCallback)
+
+        differ.submitList(listOf("a", "b"))
+        verify(callback).onInserted(0, 2)
+        drain()
+
+        // submit two lists before the background thread runs, only the last one is diffed
+        val skippedCallback = mock(Runnable::class.java)
+        differ.submitList(listOf("x"), skippedCallback)
+        differ.submitList(listOf("a", "b", "c"))
+        drain()
+        assertEquals(setOf("a", "b", "c"), diffedLists)
+        verify(callback).onInserted(2, 1)
+        verifyNoMoreInteractions(callback)
+        verifyZeroInteractions(skippedCallback)
+        assertEquals(listOf("a", "b", "c"), differ.currentList)
+    }
+
     @Test
     fun listListener() {
         val differ = createDiffer()
@@ -374,6 +451,24 @@ class AsyncListDifferTest {
             }
         }
 
+        private val KEYED_STRING_DIFF_CALLBACK = object : DiffUtil.ItemCallback<String>() {
+            override fun areItemsTheSame(oldItem: String, newItem: String): Boolean {
+                return STRING_DIFF_CALLBACK.areItemsTheSame(oldItem, newItem)
+            }
+
+            override fun areContentsTheSame(oldItem: String, newItem: String): Boolean {
+                return STRING_DIFF_CALLBACK.areContentsTheSame(oldItem, newItem)
+            }
+
+            override fun getChangePayload(oldItem: String, newItem: String): Any? {
+                return STRING_DIFF_CALLBACK.getChangePayload(oldItem, newItem)
+            }
+
+            override fun getItemKey(item: String): Any {
+                return item[0]
+            }
+        }
+
         private val IGNORE_CALLBACK = object : ListUpdateCallback {
             override fun onInserted(position: Int, count: Int) {}
 
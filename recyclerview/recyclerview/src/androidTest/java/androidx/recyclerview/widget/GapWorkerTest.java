@@ -23,7 +23,10 @@ import static org.junit.Assert.assertTrue;
 
 import android.content.Context;
 import android.os.Build;
+import android.view.View;
+import android.view.ViewGroup;
 
+import androidx.annotation.NonNull;
 import androidx.test.core.app.ApplicationProvider;
 import androidx.test.ext.junit.runners.AndroidJUnit4;
 import androidx.test.filters.SdkSuppress;
@@ -34,6 +37,7 @@ import org.junit.runner.RunWith;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.concurrent.TimeUnit;
 
 @SmallTest
 @RunWith(AndroidJUnit4.class)
@@ -170,6 +174,167 @@ public class GapWorkerTest {
         assertEquals(900, list.get(3).distanceToItem);
     }
 
+    @Test
+    public void queueIdle_warmUpStopsByNextFrame() {
+        WarmUpRecyclerView recyclerView = new WarmUpRecyclerView(getContext());
+        GapWorker gapWorker = createWarmUpGapWorker(recyclerView);
+        // The last frame started at 100ms, so the next one starts at 116ms
+        recyclerView.mDrawingTimeMs = 100;
+        recyclerView.mNanoTime = TimeUnit.MILLISECONDS.toNanos(108);
+
+        assertFalse(gapWorker.queueIdle());
+
+        // The first ViewHolder ends at 112ms, a second one would end after 116ms
+        assertEquals(1, recyclerView.getRecycledViewPool().getRecycledViewCount(0));
+        assertEquals(1, recyclerView.mPosted.size());
+        assertEquals(0, recyclerView.mPostedDelayMs.size());
+    }
+
+    @Test
+    public void queueIdle_withoutRecentFrame_waitsForNextVsync() {
+        WarmUpRecyclerView recyclerView = new WarmUpRecyclerView(getContext());
+        GapWorker gapWorker = createWarmUpGapWorker(recyclerView);
+        recyclerView.getRecycledViewPool().factorInCreateTime(0, TimeUnit.MILLISECONDS.toNanos(4));
+        // No frame since 100ms, so the next one may start at the vsync at 132ms
+        recyclerView.mDrawingTimeMs = 100;
+        recyclerView.mNanoTime = TimeUnit.MILLISECONDS.toNanos(130);
+
+        assertFalse(gapWorker.queueIdle());
+
+        // Nothing fits before 132ms, but the warm up continues after that vsync
+        assertEquals(0, recyclerView.getRecycledViewPool().getRecycledViewCount(0));
+        assertEquals(0, recyclerView.mPosted.size());
+        assertEquals(Collections.singletonList(3L), recyclerView.mPostedDelayMs);
+    }
+
+    @Test
+    public void queueIdle_skippedWhileScrolling() {
+        WarmUpRecyclerView recyclerView = new WarmUpRecyclerView(getContext());
+        GapWorker gapWorker = createWarmUpGapWorker(recyclerView);
+        recyclerView.mDrawingTimeMs = 100;
+        recyclerView.mNanoTime = TimeUnit.MILLISECONDS.toNanos(100);
+        recyclerView.setScrollState(RecyclerView.SCROLL_STATE_DRAGGING);
+
+        assertFalse(gapWorker.queueIdle());
+
+        assertEquals(0, recyclerView.getRecycledViewPool().getRecycledViewCount(0));
+        assertEquals(0, recyclerView.mPosted.size());
+        assertEquals(0, recyclerView.mPostedDelayMs.size());
+    }
+
+    @Test
+    public void queueIdle_createSlowerThanFrame_stops() {
+        WarmUpRecyclerView recyclerView = new WarmUpRecyclerView(getContext());
+        GapWorker gapWorker = createWarmUpGapWorker(recyclerView);
+        recyclerView.getRecycledViewPool().factorInCreateTime(0, TimeUnit.MILLISECONDS.toNanos(20));
+        recyclerView.mDrawingTimeMs = 100;
+        recyclerView.mNanoTime = TimeUnit.MILLISECONDS.toNanos(100);
+
+        assertFalse(gapWorker.queueIdle());
+
+        // It would never fit in a frame, so it isn't retried
+        assertEquals(0, recyclerView.getRecycledViewPool().getRecycledViewCount(0));
+        assertEquals(0, recyclerView.mPosted.size());
+        assertEquals(0, recyclerView.mPostedDelayMs.size());
+    }
+
+    @Test
+    public void queueIdle_withoutAdapter_doesNotReschedule() {
+        WarmUpRecyclerView recyclerView = new WarmUpRecyclerView(getContext());
+        GapWorker gapWorker = createWarmUpGapWorker(recyclerView);
+        recyclerView.setAdapter(null);
+        recyclerView.mDrawingTimeMs = 100;
+        recyclerView.mNanoTime = TimeUnit.MILLISECONDS.toNanos(100);
+
+        assertFalse(gapWorker.poolsNeedWarmUp());
+        assertFalse(gapWorker.queueIdle());
+
+        // Nothing can create the ViewHolders, so it isn't retried every frame
+        assertEquals(0, recyclerView.getRecycledViewPool().getRecycledViewCount(0));
+        assertEquals(0, recyclerView.mPosted.size());
+        assertEquals(0, recyclerView.mPostedDelayMs.size());
+    }
+
+    private static GapWorker createWarmUpGapWorker(WarmUpRecyclerView recyclerView) {
+        RecyclerView.RecycledViewPool pool = new RecyclerView.RecycledViewPool();
+        recyclerView.setRecycledViewPool(pool);
+        recyclerView.setAdapter(new WarmUpAdapter(recyclerView));
+        pool.setWarmViewCount(0, 5);
+        GapWorker gapWorker = new GapWorker();
+        gapWorker.mFrameIntervalNs = TimeUnit.MILLISECONDS.toNanos(16);
+        gapWorker.add(recyclerView);
+        return gapWorker;
+    }
+
+    /**
+     * Reports a visible window and a controlled clock, and records posted runnables.
+     */
+    private static class WarmUpRecyclerView extends RecyclerView {
+        long mNanoTime;
+        long mDrawingTimeMs;
+        final ArrayList<Runnable> mPosted = new ArrayList<>();
+        final ArrayList<Long> mPostedDelayMs = new ArrayList<>();
+
+        WarmUpRecyclerView(Context context) {
+            super(context);
+        }
+
+        @Override
+        long getNanoTime() {
+            return mNanoTime;
+        }
+
+        @Override
+        public long getDrawingTime() {
+            return mDrawingTimeMs;
+        }
+
+        @Override
+        public int getWindowVisibility() {
+            return View.VISIBLE;
+        }
+
+        @Override
+        public boolean post(Runnable action) {
+            mPosted.add(action);
+            return true;
+        }
+
+        @Override
+        public boolean postDelayed(Runnable action, long delayMillis) {
+            mPostedDelayMs.add(delayMillis);
+            return true;
+        }
+    }
+
+    /**
+     * Takes 4ms of the RecyclerView's clock to create each ViewHolder.
+     */
+    private static class WarmUpAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
+        private final WarmUpRecyclerView mRecyclerView;
+
+        WarmUpAdapter(WarmUpRecyclerView recyclerView) {
+            mRecyclerView = recyclerView;
+        }
+
+        @NonNull
+        @Override
+        public RecyclerView.ViewHolder onCreateViewHolder(@NonNull ViewGroup parent,
+                int viewType) {
+            mRecyclerView.mNanoTime += TimeUnit.MILLISECONDS.toNanos(4);
+            return new RecyclerView.ViewHolder(new View(parent.getContext())) {};
+        }
+
+        @Override
+        public void onBindViewHolder(@NonNull RecyclerView.ViewHolder holder, int position) {
+        }
+
+        @Override
+        public int getItemCount() {
+            return 0;
+        }
+    }
+
     @SdkSuppress(minSdkVersion = Build.VERSION_CODES.LOLLIPOP)
     @Test
     public void gapWorkerWithoutLayout() {
@@ -19,9 +19,11 @@ package androidx.recyclerview.widget;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
 
 import android.content.Context;
 import android.view.View;
@@ -35,6 +37,8 @@ import androidx.test.filters.SmallTest;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.util.concurrent.TimeUnit;
+
 @SmallTest
 @RunWith(AndroidJUnit4.class)
 public class RecycledViewPoolTest {
@@ -138,12 +142,136 @@ public class RecycledViewPoolTest {
         assertThat(pool.getRecycledViewCount(1), is(equalTo(clears ? 0 : 1)));
     }
 
+    @Test
+    public void warmUp() {
+        RecyclerView.RecycledViewPool pool = new RecyclerView.RecycledViewPool();
+        RecyclerView recyclerView = makeRecyclerView(pool);
+        pool.setWarmViewCount(1, 3);
+        pool.setWarmViewCount(2, 7);
+        assertTrue(pool.needsWarmUp());
+
+        assertEquals(10, pool.warmUp(recyclerView, RecyclerView.FOREVER_NS));
+        assertEquals(3, pool.getRecycledViewCount(1));
+        assertEquals(7, pool.getRecycledViewCount(2));
+        assertFalse(pool.needsWarmUp());
+        assertEquals(0, pool.warmUp(recyclerView, RecyclerView.FOREVER_NS));
+    }
+
+    @Test
+    public void warmUp_deadline() {
+        RecyclerView.RecycledViewPool pool = new RecyclerView.RecycledViewPool();
+        RecyclerView recyclerView = makeRecyclerView(pool);
+        pool.setWarmViewCount(1, 3);
+        pool.factorInCreateTime(1, TimeUnit.SECONDS.toNanos(1));
+
+        assertEquals(0, pool.warmUp(recyclerView, recyclerView.getNanoTime()));
+        assertEquals(0, pool.getRecycledViewCount(1));
+        assertTrue(pool.needsWarmUp());
+    }
+
+    @Test
+    public void warmUp_deadline_continuesWithOtherTypes() {
+        RecyclerView.RecycledViewPool pool = new RecyclerView.RecycledViewPool();
+        RecyclerView recyclerView = makeRecyclerView(pool);
+        pool.setWarmViewCount(1, 3);
+        pool.setWarmViewCount(2, 2);
+        pool.factorInCreateTime(1, TimeUnit.SECONDS.toNanos(1));
+
+        assertEquals(2, pool.warmUp(recyclerView,
+                recyclerView.getNanoTime() + TimeUnit.SECONDS.toNanos(1)));
+        assertEquals(0, pool.getRecycledViewCount(1));
+        assertEquals(2, pool.getRecycledViewCount(2));
+        assertTrue(pool.needsWarmUp());
+    }
+
+    @Test
+    public void warmUp_maxRecycledViews() {
+        RecyclerView.RecycledViewPool pool = new RecyclerView.RecycledViewPool();
+        RecyclerView recyclerView = makeRecyclerView(pool);
+        pool.setWarmViewCount(1, 3);
+        pool.setMaxRecycledViews(1, 2);
+
+        assertEquals(2, pool.warmUp(recyclerView, RecyclerView.FOREVER_NS));
+        assertEquals(2, pool.getRecycledViewCount(1));
+        assertFalse(pool.needsWarmUp());
+    }
+
+    @Test
+    public void createMiss() {
+        RecyclerView.RecycledViewPool pool = new RecyclerView.RecycledViewPool();
+        RecyclerView recyclerView = makeRecyclerView(pool);
+        pool.setWarmViewCount(1, 2);
+        pool.factorInCreateTime(1, 1000);
+        pool.factorInBindTime(1, 100);
+
+        // misses before the pool is warm are expected, and don't grow the warm count
+        pool.factorInCreateMiss(1, true);
+        assertEquals(1, pool.getCreateMissCount(1));
+        assertEquals(2, pool.getWarmViewCount(1));
+
+        pool.warmUp(recyclerView, RecyclerView.FOREVER_NS);
+        pool.getRecycledView(1);
+        pool.getRecycledView(1);
+
+        // prefetch misses don't grow the warm count
+        pool.factorInCreateMiss(1, false);
+        assertEquals(2, pool.getWarmViewCount(1));
+
+        // the warm ViewHolders ran out, so keep one more
+        pool.factorInCreateMiss(1, true);
+        assertEquals(3, pool.getCreateMissCount(1));
+        assertEquals(3, pool.getWarmViewCount(1));
+
+        // until the pool is warm again, the count doesn't grow further
+        pool.factorInCreateMiss(1, true);
+        assertEquals(3, pool.getWarmViewCount(1));
+        assertEquals(0, pool.getCreateMissCount(2));
+    }
+
+    @Test
+    public void createMiss_bindSlowerThanCreate() {
+        RecyclerView.RecycledViewPool pool = new RecyclerView.RecycledViewPool();
+        RecyclerView recyclerView = makeRecyclerView(pool);
+        pool.setWarmViewCount(1, 2);
+        pool.warmUp(recyclerView, RecyclerView.FOREVER_NS);
+        pool.factorInBindTime(1, TimeUnit.SECONDS.toNanos(1));
+
+        pool.factorInCreateMiss(1, true);
+        assertEquals(1, pool.getCreateMissCount(1));
+        assertEquals(2, pool.getWarmViewCount(1));
+    }
+
+    private RecyclerView makeRecyclerView(RecyclerView.RecycledViewPool pool) {
+        RecyclerView recyclerView = new RecyclerView(ApplicationProvider.getApplicationContext());
+        recyclerView.setRecycledViewPool(pool);
+        recyclerView.setAdapter(new WarmUpAdapter());
+        return recyclerView;
+    }
+
     private static class MockViewHolder extends RecyclerView.ViewHolder {
         MockViewHolder(Context context) {
             super(new View(context));
         }
     }
 
+    private static class WarmUpAdapter extends RecyclerView.Adapter<MockViewHolder> {
+
+        @NonNull
+        @Override
+        public MockViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+            return new MockViewHolder(parent.getContext());
+        }
+
+        @Override
+        public void onBindViewHolder(@NonNull MockViewHolder holder, int position) {
+        }
+
+        @Override
+        public int getItemCount() {
+            return 0;
+        }
+    }
+
     private class TestAdapter extends RecyclerView.Adapter {
 
         @NonNull
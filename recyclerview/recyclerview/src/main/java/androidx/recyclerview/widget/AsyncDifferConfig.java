@@ -39,15 +39,19 @@ public final class AsyncDifferConfig<T> {
     private final Executor mBackgroundThreadExecutor;
     @NonNull
     private final DiffUtil.ItemCallback<T> mDiffCallback;
+    @Nullable
+    private final DiffUtil.DiffConfig mDiffConfig;
 
     @SuppressWarnings("WeakerAccess") /* synthetic access */
     AsyncDifferConfig(
             @Nullable Executor mainThreadExecutor,
             @NonNull Executor backgroundThreadExecutor,
-            @NonNull DiffUtil.ItemCallback<T> diffCallback) {
+            @NonNull DiffUtil.ItemCallback<T> diffCallback,
+            @Nullable DiffUtil.DiffConfig diffConfig) {
         mMainThreadExecutor = mainThreadExecutor;
         mBackgroundThreadExecutor = backgroundThreadExecutor;
         mDiffCallback = diffCallback;
+        mDiffConfig = diffConfig;
     }
 
     /** @hide */
@@ -70,6 +74,15 @@ public final class AsyncDifferConfig<T> {
         return mDiffCallback;
     }
 
+    /**
+     * Returns the options lists are diffed with, or {@code null} if they are diffed with
+     * {@link DiffUtil#calculateDiff(DiffUtil.Callback)}.
+     */
+    @Nullable
+    public DiffUtil.DiffConfig getDiffConfig() {
+        return mDiffConfig;
+    }
+
     /**
      * Builder class for {@link AsyncDifferConfig}.
      *
@@ -80,6 +93,8 @@ public final class AsyncDifferConfig<T> {
         private Executor mMainThreadExecutor;
         private Executor mBackgroundThreadExecutor;
         private final DiffUtil.ItemCallback<T> mDiffCallback;
+        @Nullable
+        private DiffUtil.DiffConfig mDiffConfig;
 
         public Builder(@NonNull DiffUtil.ItemCallback<T> diffCallback) {
             mDiffCallback = diffCallback;
@@ -119,6 +134,26 @@ public final class AsyncDifferConfig<T> {
             return this;
         }
 
+        /**
+         * If provided, lists are diffed with
+         * {@link DiffUtil#calculateDiff(DiffUtil.Callback, DiffUtil.DiffConfig,
+         * androidx.core.os.CancellationSignal)} and the given options.
+         * <p>
+         * Items are then matched by the keys returned by
+         * {@link DiffUtil.ItemCallback#getItemKey(Object)}, if they have unique keys, and a diff
+         * which is still running when a newer list is submitted is canceled.
+         * <p>
+         * If not provided, lists are diffed with {@link DiffUtil#calculateDiff(DiffUtil.Callback)}.
+         *
+         * @param diffConfig The options to diff lists with.
+         * @return this
+         */
+        @NonNull
+        public Builder<T> setDiffConfig(@Nullable DiffUtil.DiffConfig diffConfig) {
+            mDiffConfig = diffConfig;
+            return this;
+        }
+
         /**
          * Creates a {@link AsyncListDiffer} with the given parameters.
          *
@@ -137,7 +172,8 @@ public final class AsyncDifferConfig<T> {
             return new AsyncDifferConfig<>(
                     mMainThreadExecutor,
                     mBackgroundThreadExecutor,
-                    mDiffCallback);
+                    mDiffCallback,
+                    mDiffConfig);
         }
 
         // TODO: remove the below once supportlib has its own appropriate executors
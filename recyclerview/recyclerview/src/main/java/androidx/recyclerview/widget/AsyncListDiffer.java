@@ -21,6 +21,8 @@ import android.os.Looper;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.core.os.CancellationSignal;
+import androidx.core.os.OperationCanceledException;
 
 import java.util.Collections;
 import java.util.List;
@@ -130,6 +132,9 @@ public class AsyncListDiffer<T> {
     // TODO: use MainThreadExecutor from supportlib once one exists
     private static final Executor sMainThreadExecutor = new MainThreadExecutor();
 
+    @SuppressWarnings("WeakerAccess") /* synthetic access */
+    static final Object NULL_ITEM_KEY = new Object();
+
     /**
      * Listener for when the current List is updated.
      *
@@ -196,9 +201,14 @@ public class AsyncListDiffer<T> {
     @NonNull
     private List<T> mReadOnlyList = Collections.emptyList();
 
-    // Max generation of currently scheduled runnable
+    // Max generation of currently scheduled runnable, read by the background thread to skip diffs
+    // of lists which were replaced before their diff started
     @SuppressWarnings("WeakerAccess") /* synthetic access */
-    int mMaxScheduledGeneration;
+    volatile int mMaxScheduledGeneration;
+
+    // Signal to cancel the diff which is currently scheduled, if it can be canceled
+    @Nullable
+    private CancellationSignal mCancellationSignal;
 
     /**
      * Get the current List - any diffing to present this list has already been computed and
@@ -242,6 +252,10 @@ public class AsyncListDiffer<T> {
      * The commit callback can be used to know when the List is committed, but note that it
      * may not be executed. If List B is submitted immediately after List A, and is
      * committed directly, the callback associated with List A will not be run.
+     * <p>
+     * Submissions are coalesced: if several Lists are submitted before the background thread
+     * starts diffing, only the last one is diffed. If the {@link AsyncDifferConfig} has a
+     * {@link DiffUtil.DiffConfig}, a diff which is already running is canceled too.
      *
      * @param newList The new List.
      * @param commitCallback Optional runnable that is executed when the List is committed, if
@@ -252,6 +266,10 @@ public class AsyncListDiffer<T> {
             @Nullable final Runnable commitCallback) {
         // incrementing generation means any currently-running diffs are discarded when they finish
         final int runGeneration = ++mMaxScheduledGeneration;
+        if (mCancellationSignal != null) {
+            mCancellationSignal.cancel();
+            mCancellationSignal = null;
+        }
 
         if (newList == mList) {
             // nothing to do (Note - still had to inc generation, since may have ongoing work)
@@ -286,10 +304,18 @@ public class AsyncListDiffer<T> {
         }
 
         final List<T> oldList = mList;
+        final DiffUtil.DiffConfig diffConfig = mConfig.getDiffConfig();
+        final CancellationSignal cancellationSignal =
+                diffConfig != null ? new CancellationSignal() : null;
+        mCancellationSignal = cancellationSignal;
         mConfig.getBackgroundThreadExecutor().execute(new Runnable() {
             @Override
             public void run() {
-                final DiffUtil.DiffResult result = DiffUtil.calculateDiff(new DiffUtil.Callback() {
+                if (mMaxScheduledGeneration != runGeneration) {
+                    // a newer list was submitted before this diff started, only diff that one
+                    return;
+                }
+                final DiffUtil.Callback callback = new DiffUtil.Callback() {
                     @Override
                     public int getOldListSize() {
                         return oldList.size();
@@ -342,7 +368,38 @@ public class AsyncListDiffer<T> {
                         // non-null which is the only case handled above.
                         throw new AssertionError();
                     }
-                });
+
+                    @Nullable
+                    @Override
+                    public Object getOldItemKey(int oldItemPosition) {
+                        return getItemKey(oldList.get(oldItemPosition));
+                    }
+
+                    @Nullable
+                    @Override
+                    public Object getNewItemKey(int newItemPosition) {
+                        return getItemKey(newList.get(newItemPosition));
+                    }
+
+                    @Nullable
+                    private Object getItemKey(@Nullable T item) {
+                        // null items are the same as each other, so they share a key
+                        return item != null ? mConfig.getDiffCallback().getItemKey(item)
+                                : NULL_ITEM_KEY;
+                    }
+                };
+
+                final DiffUtil.DiffResult result;
+                if (diffConfig != null) {
+                    try {
+                        result = DiffUtil.calculateDiff(callback, diffConfig, cancellationSignal);
+                    } catch (OperationCanceledException e) {
+                        // a newer list was submitted, the result would be discarded anyway
+                        return;
+                    }
+                } else {
+                    result = DiffUtil.calculateDiff(callback);
+                }
 
                 mMainThreadExecutor.execute(new Runnable() {
                     @Override
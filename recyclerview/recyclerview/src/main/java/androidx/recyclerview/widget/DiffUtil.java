@@ -19,6 +19,8 @@ package androidx.recyclerview.widget;
 import androidx.annotation.IntRange;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.core.os.CancellationSignal;
+import androidx.core.os.OperationCanceledException;
 
 import java.util.ArrayDeque;
 import java.util.ArrayList;
@@ -26,8 +28,14 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * DiffUtil is a utility class that calculates the difference between two lists and outputs a
@@ -84,6 +92,11 @@ public class DiffUtil {
         // utility class, no instance.
     }
 
+    /**
+     * The minimum total size of a range for it to be split and solved in parallel.
+     */
+    private static final int MIN_PARALLEL_RANGE_SIZE = 2048;
+
     private static final Comparator<Diagonal> DIAGONAL_COMPARATOR = new Comparator<Diagonal>() {
         @Override
         public int compare(Diagonal o1, Diagonal o2) {
@@ -126,12 +139,6 @@ public class DiffUtil {
 
         final List<Diagonal> diagonals = new ArrayList<>();
 
-        // instead of a recursive implementation, we keep our own stack to avoid potential stack
-        // overflow exceptions
-        final List<Range> stack = new ArrayList<>();
-
-        stack.add(new Range(0, oldSize, 0, newSize));
-
         final int max = (oldSize + newSize + 1) / 2;
         // allocate forward and backward k-lines. K lines are diagonal lines in the matrix. (see the
         // paper for details)
@@ -139,11 +146,313 @@ public class DiffUtil {
         final CenteredArray forward = new CenteredArray(max * 2 + 1);
         final CenteredArray backward = new CenteredArray(max * 2 + 1);
 
+        diffRange(new Range(0, oldSize, 0, newSize), cb, forward, backward, diagonals, null);
+
+        // sort snakes
+        Collections.sort(diagonals, DIAGONAL_COMPARATOR);
+
+        return new DiffResult(cb, diagonals,
+                forward.backingData(), backward.backingData(),
+                detectMoves);
+    }
+
+    /**
+     * Calculates the list of update operations that can covert one list into the other one, with
+     * the given {@link DiffConfig}.
+     * <p>
+     * Items which are the same at the start or at the end of both lists are matched before
+     * running Myers' algorithm on the rest, so small changes in large lists are fast.
+     * <p>
+     * If the callback returns keys from {@link Callback#getOldItemKey(int)} and
+     * {@link Callback#getNewItemKey(int)}, and the keys are unique in each list, the items are
+     * matched by key in <code>O(N log N)</code> time instead, and moves are found by key too.
+     * Otherwise, move detection is limited by {@link DiffConfig.Builder#setMaxMoveComparisons(int)}
+     * and Myers' algorithm can run on {@link DiffConfig.Builder#setExecutor(Executor)}.
+     * <p>
+     * The result is a minimal edit script like {@link #calculateDiff(Callback, boolean)}, but when
+     * there are several, it may pick a different one.
+     *
+     * @param cb The callback that acts as a gateway to the backing list data
+     * @param config The options to calculate the diff with
+     * @param cancellationSignal A signal to cancel the calculation, or {@code null}
+     *
+     * @return A DiffResult that contains the information about the edit sequence to convert the
+     * old list into the new list.
+     * @throws OperationCanceledException if {@code cancellationSignal} is canceled before the
+     * calculation completes
+     */
+    @NonNull
+    public static DiffResult calculateDiff(@NonNull Callback cb, @NonNull DiffConfig config,
+            @Nullable CancellationSignal cancellationSignal) {
+        final int oldSize = cb.getOldListSize();
+        final int newSize = cb.getNewListSize();
+
+        final List<Diagonal> diagonals = new ArrayList<>();
+
+        // Items which are the same at the start or at the end of both lists are matched as is
+        final int minSize = Math.min(oldSize, newSize);
+        int prefixSize = 0;
+        while (prefixSize < minSize && cb.areItemsTheSame(prefixSize, prefixSize)) {
+            prefixSize++;
+        }
+        int suffixSize = 0;
+        while (suffixSize < minSize - prefixSize
+                && cb.areItemsTheSame(oldSize - suffixSize - 1, newSize - suffixSize - 1)) {
+            suffixSize++;
+        }
+        if (prefixSize > 0) {
+            diagonals.add(new Diagonal(0, 0, prefixSize));
+        }
+        if (suffixSize > 0) {
+            diagonals.add(new Diagonal(oldSize - suffixSize, newSize - suffixSize, suffixSize));
+        }
+
+        final Range range = new Range(prefixSize, oldSize - suffixSize,
+                prefixSize, newSize - suffixSize);
+        if (range.oldSize() > 0 && range.newSize() > 0
+                && !diffRangeByKeys(range, cb, diagonals, cancellationSignal)) {
+            final Executor executor = config.getExecutor();
+            if (executor != null && size(range) >= MIN_PARALLEL_RANGE_SIZE) {
+                diffRangeInParallel(range, cb, executor, diagonals, cancellationSignal);
+            } else {
+                final int max = (range.oldSize() + range.newSize() + 1) / 2;
+                diffRange(range, cb, new CenteredArray(max * 2 + 1),
+                        new CenteredArray(max * 2 + 1), diagonals, cancellationSignal);
+            }
+        }
+
+        // sort snakes
+        Collections.sort(diagonals, DIAGONAL_COMPARATOR);
+
+        return new DiffResult(cb, diagonals, new int[oldSize], new int[newSize],
+                config.isDetectMoves(), config.getMaxMoveComparisons(), cancellationSignal);
+    }
+
+    /**
+     * Matches the items of the given range by their keys, adding the diagonals of the longest
+     * sequence of matching items which are in the same order in both lists.
+     *
+     * @return false if some items have no key or share a key, in which case nothing is added
+     */
+    private static boolean diffRangeByKeys(
+            Range range,
+            Callback cb,
+            List<Diagonal> diagonals,
+            @Nullable CancellationSignal cancellationSignal) {
+        final HashMap<Object, Integer> newPositions = new HashMap<>();
+        for (int y = range.newListStart; y < range.newListEnd; y++) {
+            final Object key = cb.getNewItemKey(y);
+            if (key == null || newPositions.put(key, y) != null) {
+                return false;
+            }
+        }
+        if (cancellationSignal != null) {
+            cancellationSignal.throwIfCanceled();
+        }
+
+        // Map each old item to the position of its match in the new list
+        final int[] matches = new int[range.oldSize()];
+        final boolean[] matched = new boolean[range.newSize()];
+        int matchCount = 0;
+        for (int x = range.oldListStart; x < range.oldListEnd; x++) {
+            final Object key = cb.getOldItemKey(x);
+            if (key == null) {
+                return false;
+            }
+            final Integer y = newPositions.get(key);
+            if (y == null) {
+                matches[x - range.oldListStart] = -1;
+            } else if (matched[y - range.newListStart]) {
+                return false;
+            } else {
+                matched[y - range.newListStart] = true;
+                matches[x - range.oldListStart] = y;
+                matchCount++;
+            }
+        }
+        if (cancellationSignal != null) {
+            cancellationSignal.throwIfCanceled();
+        }
+
+        // With unique keys, the longest common subsequence of the lists is the longest increasing
+        // subsequence of the new positions of the old items. Find it with patience sorting, where
+        // tails[i] is the old item ending the best increasing subsequence of length i + 1.
+        final int[] tails = new int[matchCount];
+        final int[] previous = new int[matches.length];
+        int length = 0;
+        for (int i = 0; i < matches.length; i++) {
+            final int y = matches[i];
+            if (y < 0) {
+                continue;
+            }
+            int low = 0;
+            int high = length;
+            while (low < high) {
+                final int mid = (low + high) >>> 1;
+                if (matches[tails[mid]] < y) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            previous[i] = low > 0 ? tails[low - 1] : -1;
+            tails[low] = i;
+            if (low == length) {
+                length++;
+            }
+        }
+
+        // Walk the subsequence back, joining consecutive matches into diagonals
+        int end = length > 0 ? tails[length - 1] : -1;
+        while (end >= 0) {
+            int start = end;
+            while (start > 0 && previous[start] == start - 1
+                    && matches[start - 1] == matches[start] - 1) {
+                start--;
+            }
+            diagonals.add(new Diagonal(range.oldListStart + start, matches[start],
+                    end - start + 1));
+            end = previous[start];
+        }
+        return true;
+    }
+
+    /**
+     * Runs Myers' algorithm on the given range on {@code executor}. The range is split at middle
+     * snakes until there are enough independent ranges to solve in parallel.
+     */
+    private static void diffRangeInParallel(
+            Range initialRange,
+            final Callback cb,
+            Executor executor,
+            List<Diagonal> diagonals,
+            @Nullable final CancellationSignal cancellationSignal) {
+        final int maxRangeCount = Runtime.getRuntime().availableProcessors() * 2;
+        final List<Range> ranges = new ArrayList<>();
+        ranges.add(initialRange);
+        while (ranges.size() < maxRangeCount) {
+            // Split the largest range
+            int largest = 0;
+            for (int i = 1; i < ranges.size(); i++) {
+                if (size(ranges.get(i)) > size(ranges.get(largest))) {
+                    largest = i;
+                }
+            }
+            if (ranges.isEmpty() || size(ranges.get(largest)) < MIN_PARALLEL_RANGE_SIZE) {
+                break;
+            }
+            final Range range = ranges.remove(largest);
+            final int max = (range.oldSize() + range.newSize() + 1) / 2;
+            final Snake snake = midPoint(range, cb, new CenteredArray(max * 2 + 1),
+                    new CenteredArray(max * 2 + 1), cancellationSignal);
+            if (snake == null) {
+                continue;
+            }
+            if (snake.diagonalSize() > 0) {
+                diagonals.add(snake.toDiagonal());
+            }
+            final Range left = new Range(range.oldListStart, snake.startX,
+                    range.newListStart, snake.startY);
+            if (left.oldSize() > 0 && left.newSize() > 0) {
+                ranges.add(left);
+            }
+            final Range right = new Range(snake.endX, range.oldListEnd,
+                    snake.endY, range.newListEnd);
+            if (right.oldSize() > 0 && right.newSize() > 0) {
+                ranges.add(right);
+            }
+        }
+
+        // Now solve the ranges. The calling thread claims ranges too, so this completes even if
+        // the executor's threads are busy.
+        final int rangeCount = ranges.size();
+        final List<List<Diagonal>> rangeDiagonals = new ArrayList<>(rangeCount);
+        for (int i = 0; i < rangeCount; i++) {
+            rangeDiagonals.add(new ArrayList<Diagonal>());
+        }
+        final AtomicInteger nextRange = new AtomicInteger();
+        final CountDownLatch done = new CountDownLatch(rangeCount);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final Runnable worker = new Runnable() {
+            @Override
+            public void run() {
+                int index;
+                while ((index = nextRange.getAndIncrement()) < rangeCount) {
+                    try {
+                        final Range range = ranges.get(index);
+                        final int max = (range.oldSize() + range.newSize() + 1) / 2;
+                        diffRange(range, cb, new CenteredArray(max * 2 + 1),
+                                new CenteredArray(max * 2 + 1), rangeDiagonals.get(index),
+                                cancellationSignal);
+                    } catch (RuntimeException | Error e) {
+                        failure.compareAndSet(null, e);
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }
+        };
+        for (int i = 1; i < rangeCount; i++) {
+            try {
+                executor.execute(worker);
+            } catch (RejectedExecutionException e) {
+                // The calling thread solves the remaining ranges
+                break;
+            }
+        }
+        worker.run();
+
+        // Only ranges which other threads already started are left, so wait even if interrupted
+        boolean interrupted = false;
+        while (true) {
+            try {
+                done.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+
+        final Throwable throwable = failure.get();
+        if (throwable instanceof RuntimeException) {
+            throw (RuntimeException) throwable;
+        } else if (throwable instanceof Error) {
+            throw (Error) throwable;
+        }
+        for (List<Diagonal> list : rangeDiagonals) {
+            diagonals.addAll(list);
+        }
+    }
+
+    private static int size(Range range) {
+        return range.oldSize() + range.newSize();
+    }
+
+    /**
+     * Runs Myers' algorithm on the given range, adding the diagonals found to {@code diagonals}.
+     * The forward and backward arrays must be large enough for the range.
+     */
+    private static void diffRange(
+            Range initialRange,
+            Callback cb,
+            CenteredArray forward,
+            CenteredArray backward,
+            List<Diagonal> diagonals,
+            @Nullable CancellationSignal cancellationSignal) {
+        // instead of a recursive implementation, we keep our own stack to avoid potential stack
+        // overflow exceptions
+        final List<Range> stack = new ArrayList<>();
+
+        stack.add(initialRange);
+
         // We pool the ranges to avoid allocations for each recursive call.
         final List<Range> rangePool = new ArrayList<>();
         while (!stack.isEmpty()) {
             final Range range = stack.remove(stack.size() - 1);
-            final Snake snake = midPoint(range, cb, forward, backward);
+            final Snake snake = midPoint(range, cb, forward, backward, cancellationSignal);
             if (snake != null) {
                 // if it has a diagonal, save it
                 if (snake.diagonalSize() > 0) {
@@ -171,12 +480,6 @@ public class DiffUtil {
             }
 
         }
-        // sort snakes
-        Collections.sort(diagonals, DIAGONAL_COMPARATOR);
-
-        return new DiffResult(cb, diagonals,
-                forward.backingData(), backward.backingData(),
-                detectMoves);
     }
 
     /**
@@ -187,7 +490,8 @@ public class DiffUtil {
             Range range,
             Callback cb,
             CenteredArray forward,
-            CenteredArray backward) {
+            CenteredArray backward,
+            @Nullable CancellationSignal cancellationSignal) {
         if (range.oldSize() < 1 || range.newSize() < 1) {
             return null;
         }
@@ -195,6 +499,9 @@ public class DiffUtil {
         forward.set(1, range.oldListStart);
         backward.set(1, range.oldListEnd);
         for (int d = 0; d < max; d++) {
+            if (cancellationSignal != null) {
+                cancellationSignal.throwIfCanceled();
+            }
             Snake snake = forward(range, cb, forward, backward, d);
             if (snake != null) {
                 return snake;
@@ -395,6 +702,149 @@ public class DiffUtil {
         public Object getChangePayload(int oldItemPosition, int newItemPosition) {
             return null;
         }
+
+        /**
+         * Returns a key which identifies the item at the given position of the old list, used by
+         * {@link DiffUtil#calculateDiff(Callback, DiffConfig, CancellationSignal)} to match
+         * items by hashing rather than by comparing them.
+         * <p>
+         * Keys must be consistent with {@link #areItemsTheSame(int, int)}: an old and a new item
+         * have equal keys if and only if they are the same item. Keys are compared with
+         * {@link Object#equals(Object)} and {@link Object#hashCode()}.
+         * <p>
+         * Default implementation returns {@code null}, which means items are compared with
+         * {@link #areItemsTheSame(int, int)}.
+         *
+         * @param oldItemPosition The position of the item in the old list
+         * @return The key of the item, or {@code null} if it has none.
+         * @see #getNewItemKey(int)
+         */
+        @Nullable
+        public Object getOldItemKey(int oldItemPosition) {
+            return null;
+        }
+
+        /**
+         * Returns a key which identifies the item at the given position of the new list.
+         * <p>
+         * Default implementation returns {@code null}.
+         *
+         * @param newItemPosition The position of the item in the new list
+         * @return The key of the item, or {@code null} if it has none.
+         * @see #getOldItemKey(int)
+         */
+        @Nullable
+        public Object getNewItemKey(int newItemPosition) {
+            return null;
+        }
+    }
+
+    /**
+     * Options for calculating a diff with
+     * {@link DiffUtil#calculateDiff(Callback, DiffConfig, CancellationSignal)}.
+     */
+    public static final class DiffConfig {
+        private final boolean mDetectMoves;
+        private final int mMaxMoveComparisons;
+        @Nullable
+        private final Executor mExecutor;
+
+        DiffConfig(boolean detectMoves, int maxMoveComparisons, @Nullable Executor executor) {
+            mDetectMoves = detectMoves;
+            mMaxMoveComparisons = maxMoveComparisons;
+            mExecutor = executor;
+        }
+
+        /**
+         * Returns true if moved items are detected.
+         */
+        public boolean isDetectMoves() {
+            return mDetectMoves;
+        }
+
+        /**
+         * Returns the maximum number of item comparisons made to detect moved items.
+         */
+        public int getMaxMoveComparisons() {
+            return mMaxMoveComparisons;
+        }
+
+        /**
+         * Returns the executor Myers' algorithm runs on in parallel, or {@code null}.
+         */
+        @Nullable
+        public Executor getExecutor() {
+            return mExecutor;
+        }
+
+        /**
+         * Builder class for {@link DiffConfig}.
+         */
+        public static final class Builder {
+            private boolean mDetectMoves = true;
+            private int mMaxMoveComparisons = Integer.MAX_VALUE;
+            @Nullable
+            private Executor mExecutor;
+
+            /**
+             * Sets whether moved items are detected. Defaults to true.
+             *
+             * @param detectMoves True if moved items should be detected, false otherwise.
+             * @return this
+             */
+            @NonNull
+            public Builder setDetectMoves(boolean detectMoves) {
+                mDetectMoves = detectMoves;
+                return this;
+            }
+
+            /**
+             * Sets the maximum number of {@link Callback#areItemsTheSame(int, int)} calls made
+             * to detect moved items when items have no keys. Without keys, detecting moves takes
+             * <code>O(N^2)</code> time where N is the number of added and removed items. Once
+             * the limit is reached, the remaining items are dispatched as additions and removals
+             * rather than moves. Defaults to no limit.
+             *
+             * @param maxMoveComparisons The maximum number of comparisons.
+             * @return this
+             */
+            @NonNull
+            public Builder setMaxMoveComparisons(@IntRange(from = 0) int maxMoveComparisons) {
+                if (maxMoveComparisons < 0) {
+                    throw new IllegalArgumentException("maxMoveComparisons must not be negative");
+                }
+                mMaxMoveComparisons = maxMoveComparisons;
+                return this;
+            }
+
+            /**
+             * Sets an executor to run Myers' algorithm on in parallel, for large lists whose
+             * items have no keys. The list is split into independent ranges which are solved in
+             * parallel. The calling thread solves ranges too, and the diff is still calculated
+             * synchronously.
+             * <p>
+             * The {@link Callback} must support being called from several threads at once.
+             *
+             * @param executor The executor to use, or {@code null} to run on the calling thread
+             *                 only.
+             * @return this
+             */
+            @NonNull
+            public Builder setExecutor(@Nullable Executor executor) {
+                mExecutor = executor;
+                return this;
+            }
+
+            /**
+             * Creates a {@link DiffConfig} with the given parameters.
+             *
+             * @return A new DiffConfig.
+             */
+            @NonNull
+            public DiffConfig build() {
+                return new DiffConfig(mDetectMoves, mMaxMoveComparisons, mExecutor);
+            }
+        }
     }
 
     /**
@@ -467,6 +917,28 @@ public class DiffUtil {
         public Object getChangePayload(@NonNull T oldItem, @NonNull T newItem) {
             return null;
         }
+
+        /**
+         * Returns a key which identifies the item, such as its unique id.
+         * <p>
+         * If an {@link AsyncDifferConfig} has a {@link DiffConfig}, {@link AsyncListDiffer} and
+         * {@link ListAdapter} match items by key, which is much faster than comparing them for
+         * large lists. Keys must be consistent with {@link #areItemsTheSame(T, T)}: two items
+         * have equal keys if and only if they are the same item.
+         * <p>
+         * Default implementation returns {@code null}, which means items are compared with
+         * {@link #areItemsTheSame(T, T)}.
+         *
+         * @param item The item in the old or in the new list.
+         * @return The key of the item, or {@code null} if it has none.
+         * @see Callback#getOldItemKey(int)
+         * @see Callback#getNewItemKey(int)
+         */
+        @SuppressWarnings({"unused"})
+        @Nullable
+        public Object getItemKey(@NonNull T item) {
+            return null;
+        }
     }
 
     /**
@@ -653,6 +1125,12 @@ public class DiffUtil {
 
         private final boolean mDetectMoves;
 
+        // The number of areItemsTheSame calls left to spend on detecting moves without keys.
+        private int mMoveComparisonsLeft;
+
+        @Nullable
+        private final CancellationSignal mCancellationSignal;
+
         /**
          * @param callback        The callback that was used to calculate the diff
          * @param diagonals       Matches between the two lists
@@ -662,6 +1140,25 @@ public class DiffUtil {
          */
         DiffResult(Callback callback, List<Diagonal> diagonals, int[] oldItemStatuses,
                 int[] newItemStatuses, boolean detectMoves) {
+            this(callback, diagonals, oldItemStatuses, newItemStatuses, detectMoves,
+                    Integer.MAX_VALUE, null);
+        }
+
+        /**
+         * @param callback           The callback that was used to calculate the diff
+         * @param diagonals          Matches between the two lists
+         * @param oldItemStatuses    An int[] that can be re-purposed to keep metadata
+         * @param newItemStatuses    An int[] that can be re-purposed to keep metadata
+         * @param detectMoves        True if this DiffResult will try to detect moved items
+         * @param maxMoveComparisons The maximum number of comparisons to detect moved items
+         *                           without keys
+         * @param cancellationSignal A signal to cancel detecting moved items, or null
+         */
+        DiffResult(Callback callback, List<Diagonal> diagonals, int[] oldItemStatuses,
+                int[] newItemStatuses, boolean detectMoves, int maxMoveComparisons,
+                @Nullable CancellationSignal cancellationSignal) {
+            mMoveComparisonsLeft = maxMoveComparisons;
+            mCancellationSignal = cancellationSignal;
             mDiagonals = diagonals;
             mOldItemStatuses = oldItemStatuses;
             mNewItemStatuses = newItemStatuses;
@@ -714,13 +1211,38 @@ public class DiffUtil {
         }
 
         private void findMoveMatches() {
+            // if the items have keys, find the matching additions by key
+            final HashMap<Object, Integer> additionsByKey = indexAdditionsByKey();
+            final int[] nextAdditionsWithKey =
+                    additionsByKey != null ? new int[mNewListSize] : null;
+            if (additionsByKey != null) {
+                // chain additions with the same key, in order
+                for (int posY = mNewListSize - 1; posY >= 0; posY--) {
+                    if (mNewItemStatuses[posY] == 0) {
+                        final Integer next = additionsByKey.put(mCallback.getNewItemKey(posY),
+                                posY);
+                        nextAdditionsWithKey[posY] = next == null ? NO_POSITION : next;
+                    }
+                }
+            }
+
             // for each removal, find matching addition
             int posX = 0;
             for (Diagonal diagonal : mDiagonals) {
                 while (posX < diagonal.x) {
                     if (mOldItemStatuses[posX] == 0) {
+                        if (mCancellationSignal != null) {
+                            mCancellationSignal.throwIfCanceled();
+                        }
                         // there is a removal, find matching addition from the rest
-                        findMatchingAddition(posX);
+                        final Object key = additionsByKey != null
+                                ? mCallback.getOldItemKey(posX) : null;
+                        if (key != null) {
+                            findMatchingAdditionByKey(posX, additionsByKey.get(key),
+                                    nextAdditionsWithKey);
+                        } else if (mMoveComparisonsLeft > 0) {
+                            findMatchingAddition(posX);
+                        }
                     }
                     posX++;
                 }
@@ -729,6 +1251,48 @@ public class DiffUtil {
             }
         }
 
+        /**
+         * Returns a map to index additions by key if all of them have one, or null otherwise.
+         */
+        @Nullable
+        private HashMap<Object, Integer> indexAdditionsByKey() {
+            for (int posY = 0; posY < mNewListSize; posY++) {
+                if (mNewItemStatuses[posY] == 0 && mCallback.getNewItemKey(posY) == null) {
+                    return null;
+                }
+            }
+            return new HashMap<>();
+        }
+
+        /**
+         * Find the addition for the given removal of position posX among the additions with the
+         * same key.
+         *
+         * @param posX      position in the old list
+         * @param firstPosY position of the first addition with the same key, or null
+         * @param nextPosYs position of the next addition with the same key for each addition
+         */
+        private void findMatchingAdditionByKey(int posX, @Nullable Integer firstPosY,
+                int[] nextPosYs) {
+            int posY = firstPosY == null ? NO_POSITION : firstPosY;
+            while (posY != NO_POSITION) {
+                if (mNewItemStatuses[posY] == 0 && mCallback.areItemsTheSame(posX, posY)) {
+                    setMoveMatch(posX, posY);
+                    return;
+                }
+                posY = nextPosYs[posY];
+            }
+        }
+
+        private void setMoveMatch(int posX, int posY) {
+            boolean contentsMatching = mCallback.areContentsTheSame(posX, posY);
+            final int changeFlag = contentsMatching ? FLAG_MOVED_NOT_CHANGED
+                    : FLAG_MOVED_CHANGED;
+            // once we process one of these, it will mark the other one as ignored.
+            mOldItemStatuses[posX] = (posY << FLAG_OFFSET) | changeFlag;
+            mNewItemStatuses[posY] = (posX << FLAG_OFFSET) | changeFlag;
+        }
+
         /**
          * Search the whole list to find the addition for the given removal of position posX
          *
@@ -742,6 +1306,10 @@ public class DiffUtil {
                 while (posY < diagonal.y) {
                     // found some additions, evaluate
                     if (mNewItemStatuses[posY] == 0) { // not evaluated yet
+                        if (mMoveComparisonsLeft-- <= 0) {
+                            // out of comparisons, leave the rest as additions and removals
+                            return;
+                        }
                         boolean matching = mCallback.areItemsTheSame(posX, posY);
                         if (matching) {
                             // yay found it, set values
@@ -16,6 +16,8 @@
 package androidx.recyclerview.widget;
 
 import android.annotation.SuppressLint;
+import android.os.Looper;
+import android.os.MessageQueue;
 import android.view.View;
 
 import androidx.annotation.Nullable;
@@ -27,7 +29,7 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.concurrent.TimeUnit;
 
-final class GapWorker implements Runnable {
+final class GapWorker implements Runnable, MessageQueue.IdleHandler {
 
     static final ThreadLocal<GapWorker> sGapWorker = new ThreadLocal<>();
 
@@ -35,6 +37,16 @@ final class GapWorker implements Runnable {
     long mPostTimeNs;
     long mFrameIntervalNs;
 
+    // True while this is registered to warm up RecycledViewPools when the thread is idle
+    boolean mWarmUpScheduled;
+
+    private final Runnable mScheduleWarmUpRunnable = new Runnable() {
+        @Override
+        public void run() {
+            scheduleWarmUp();
+        }
+    };
+
     static class Task {
         public boolean immediate;
         public int viewVelocity;
@@ -368,6 +380,120 @@ final class GapWorker implements Runnable {
         flushTasksWithDeadline(deadlineNs);
     }
 
+    /**
+     * Schedules creating ViewHolders for the warm view counts of the RecycledViewPools of the
+     * RecyclerViews, the next time the thread is idle.
+     */
+    void scheduleWarmUp() {
+        if (!mWarmUpScheduled) {
+            mWarmUpScheduled = true;
+            Looper.myQueue().addIdleHandler(this);
+        }
+    }
+
+    /**
+     * Creates ViewHolders for the warm view counts of the RecycledViewPools of the visible
+     * RecyclerViews, until the deadline.
+     *
+     * @return The number of ViewHolders created
+     */
+    int warmUpPools(long deadlineNs) {
+        int created = 0;
+        for (int i = 0; i < mRecyclerViews.size(); i++) {
+            RecyclerView view = mRecyclerViews.get(i);
+            if (canWarmUp(view)) {
+                created += view.getRecycledViewPool().warmUp(view, deadlineNs);
+            }
+        }
+        return created;
+    }
+
+    /**
+     * Returns true if the RecycledViewPool of a visible RecyclerView with an Adapter still needs
+     * ViewHolders of a type that can be created within one frame.
+     */
+    boolean poolsNeedWarmUp() {
+        for (int i = 0; i < mRecyclerViews.size(); i++) {
+            RecyclerView view = mRecyclerViews.get(i);
+            if (canWarmUp(view)
+                    && view.getRecycledViewPool().needsWarmUp(mFrameIntervalNs)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns true if the RecyclerView is visible and has an Adapter to create ViewHolders with.
+     * RecyclerView schedules the warm up again once an Adapter is set.
+     */
+    private static boolean canWarmUp(RecyclerView view) {
+        return view.getWindowVisibility() == View.VISIBLE && view.mAdapter != null;
+    }
+
+    /**
+     * Returns the most recent vsync time of the visible RecyclerViews, in milliseconds, or 0 if
+     * none is visible or none has been drawn.
+     */
+    private long getLatestFrameVsyncMs() {
+        long latestFrameVsyncMs = 0;
+        for (int i = 0; i < mRecyclerViews.size(); i++) {
+            RecyclerView view = mRecyclerViews.get(i);
+            if (view.getWindowVisibility() == View.VISIBLE) {
+                latestFrameVsyncMs = Math.max(view.getDrawingTime(), latestFrameVsyncMs);
+            }
+        }
+        return latestFrameVsyncMs;
+    }
+
+    @Override
+    public boolean queueIdle() {
+        mWarmUpScheduled = false;
+        if (mRecyclerViews.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < mRecyclerViews.size(); i++) {
+            if (mRecyclerViews.get(i).getScrollState() != RecyclerView.SCROLL_STATE_IDLE) {
+                // Leave the spare time to prefetch, RecyclerView schedules the warm up again
+                // once it stops scrolling
+                return false;
+            }
+        }
+        final RecyclerView firstView = mRecyclerViews.get(0);
+        final long nowNs = firstView.getNanoTime();
+        final long latestFrameVsyncMs = getLatestFrameVsyncMs();
+        long deadlineNs;
+        if (latestFrameVsyncMs == 0) {
+            deadlineNs = nowNs + mFrameIntervalNs;
+        } else {
+            // Stop by the next frame, like prefetch does, so that it isn't delayed
+            deadlineNs = TimeUnit.MILLISECONDS.toNanos(latestFrameVsyncMs) + mFrameIntervalNs;
+            if (deadlineNs <= nowNs) {
+                // No frame was drawn since, the next one may start at the next vsync
+                deadlineNs += ((nowNs - deadlineNs) / mFrameIntervalNs + 1) * mFrameIntervalNs;
+            }
+        }
+        final int created;
+        try {
+            TraceCompat.beginSection(RecyclerView.TRACE_WARM_UP_TAG);
+            created = warmUpPools(deadlineNs);
+        } finally {
+            TraceCompat.endSection();
+        }
+        if (poolsNeedWarmUp()) {
+            if (created > 0) {
+                // Continue the next time the thread is idle, after pending messages are handled
+                firstView.post(mScheduleWarmUpRunnable);
+            } else {
+                // Nothing fit before the next frame, try again once it has started
+                firstView.postDelayed(mScheduleWarmUpRunnable,
+                        TimeUnit.NANOSECONDS.toMillis(deadlineNs - firstView.getNanoTime()) + 1);
+            }
+        }
+        // Idle handlers are one shot, scheduleWarmUp registers again when needed
+        return false;
+    }
+
     @Override
     public void run() {
         try {
@@ -380,14 +506,7 @@ final class GapWorker implements Runnable {
 
             // Query most recent vsync so we can predict next one. Note that drawing time not yet
             // valid in animation/input callbacks, so query it here to be safe.
-            final int size = mRecyclerViews.size();
-            long latestFrameVsyncMs = 0;
-            for (int i = 0; i < size; i++) {
-                RecyclerView view = mRecyclerViews.get(i);
-                if (view.getWindowVisibility() == View.VISIBLE) {
-                    latestFrameVsyncMs = Math.max(view.getDrawingTime(), latestFrameVsyncMs);
-                }
-            }
+            long latestFrameVsyncMs = getLatestFrameVsyncMs();
 
             if (latestFrameVsyncMs == 0) {
                 // abort - either no views visible, or couldn't get last vsync for estimating next
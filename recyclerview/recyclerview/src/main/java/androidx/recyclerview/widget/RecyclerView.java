@@ -62,6 +62,7 @@ import android.widget.OverScroller;
 
 import androidx.annotation.CallSuper;
 import androidx.annotation.IntDef;
+import androidx.annotation.IntRange;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.Px;
@@ -348,6 +349,12 @@ public class RecyclerView extends ViewGroup implements ScrollingView,
      */
     static final String TRACE_NESTED_PREFETCH_TAG = "RV Nested Prefetch";
 
+    /**
+     * RecyclerView is creating ViewHolders ahead of time for a RecycledViewPool, while the thread
+     * is idle.
+     */
+    static final String TRACE_WARM_UP_TAG = "RV Warm Up";
+
     /**
      * RecyclerView is creating a new View.
      * If too many of these present in Systrace:
@@ -1247,6 +1254,8 @@ public class RecyclerView extends ViewGroup implements ScrollingView,
         }
         mRecycler.onAdapterChanged(oldAdapter, mAdapter, compatibleWithPrevious);
         mState.mStructureChanged = true;
+        // The warm up is skipped without an adapter, and changing it may have cleared the pool
+        scheduleWarmUpIfNeeded();
     }
 
     /**
@@ -1566,6 +1575,7 @@ public class RecyclerView extends ViewGroup implements ScrollingView,
      */
     public void setRecycledViewPool(@Nullable RecycledViewPool pool) {
         mRecycler.setRecycledViewPool(pool);
+        scheduleWarmUpIfNeeded();
     }
 
     /**
@@ -1616,6 +1626,10 @@ public class RecyclerView extends ViewGroup implements ScrollingView,
             stopScrollersInternal();
         }
         dispatchOnScrollStateChanged(state);
+        if (state == SCROLL_STATE_IDLE) {
+            // The warm up is skipped while scrolling
+            scheduleWarmUpIfNeeded();
+        }
     }
 
     /**
@@ -3120,6 +3134,18 @@ public class RecyclerView extends ViewGroup implements ScrollingView,
                 GapWorker.sGapWorker.set(mGapWorker);
             }
             mGapWorker.add(this);
+            scheduleWarmUpIfNeeded();
+        }
+    }
+
+    /**
+     * Schedules the GapWorker to create ViewHolders for the RecycledViewPool's warm view counts,
+     * if the pool needs more of them.
+     */
+    void scheduleWarmUpIfNeeded() {
+        if (mGapWorker != null && mAdapter != null
+                && mRecycler.getRecycledViewPool().needsWarmUp()) {
+            mGapWorker.scheduleWarmUp();
         }
     }
 
@@ -5812,6 +5838,11 @@ public class RecyclerView extends ViewGroup implements ScrollingView,
      * and use {@link RecyclerView#setRecycledViewPool(RecycledViewPool)}.
      * <p>
      * RecyclerView automatically creates a pool for itself if you don't provide one.
+     * <p>
+     * The pool only fills up as ViewHolders are recycled, so the first time items of a type
+     * scroll into view, their ViewHolders are created while scrolling. Use
+     * {@link #setWarmViewCount(int, int)} to have the pool create ViewHolders of a type ahead of
+     * time instead, while the RecyclerViews using the pool are idle.
      */
     public static class RecycledViewPool {
         private static final int DEFAULT_MAX_SCRAP = 5;
@@ -5835,10 +5866,18 @@ public class RecyclerView extends ViewGroup implements ScrollingView,
             int mMaxScrap = DEFAULT_MAX_SCRAP;
             long mCreateRunningAverageNs = 0;
             long mBindRunningAverageNs = 0;
+            // Number of ViewHolders to create ahead of time, grown on create misses
+            int mWarmCount = 0;
+            // True once the pool held mWarmCount ViewHolders, until the count is grown
+            boolean mWarmedUp = false;
+            int mCreateMissCount = 0;
         }
 
         SparseArray<ScrapData> mScrap = new SparseArray<>();
 
+        // True if a warm view count was set for any type
+        private boolean mHasWarmCounts = false;
+
         private int mAttachCount = 0;
 
         /**
@@ -5866,6 +5905,53 @@ public class RecyclerView extends ViewGroup implements ScrollingView,
             }
         }
 
+        /**
+         * Sets the number of ViewHolders of the given type the pool creates ahead of time, so that
+         * items of the type don't have to be created while scrolling.
+         * <p>
+         * ViewHolders are created with the {@link Adapter} of a RecyclerView using this pool when
+         * its thread is idle, a few at a time so that no frame is delayed. If the pool is shared
+         * by RecyclerViews with different Adapters, all of them must support the view type.
+         * <p>
+         * If ViewHolders of the type still have to be created while scrolling once the pool held
+         * {@code count} of them, and creating them takes longer than binding them, the pool
+         * grows the count up to the maximum set with {@link #setMaxRecycledViews(int, int)}.
+         * The maximum is raised to {@code count} if it is lower.
+         *
+         * @param viewType ViewHolder type
+         * @param count    Number of ViewHolders to create ahead of time, or 0 to create none.
+         * @see #getWarmViewCount(int)
+         * @see #getCreateMissCount(int)
+         */
+        public void setWarmViewCount(int viewType, @IntRange(from = 0) int count) {
+            if (count < 0) {
+                throw new IllegalArgumentException("count must not be negative");
+            }
+            ScrapData scrapData = getScrapDataForType(viewType);
+            scrapData.mWarmCount = count;
+            scrapData.mWarmedUp = false;
+            if (scrapData.mMaxScrap < count) {
+                scrapData.mMaxScrap = count;
+            }
+            mHasWarmCounts |= count > 0;
+        }
+
+        /**
+         * Returns the number of ViewHolders of the given type the pool creates ahead of time,
+         * including any growth since {@link #setWarmViewCount(int, int)}.
+         */
+        public int getWarmViewCount(int viewType) {
+            return getScrapDataForType(viewType).mWarmCount;
+        }
+
+        /**
+         * Returns the number of times a ViewHolder of the given type had to be created by a
+         * RecyclerView using this pool, because the pool held none.
+         */
+        public int getCreateMissCount(int viewType) {
+            return getScrapDataForType(viewType).mCreateMissCount;
+        }
+
         /**
          * Returns the current number of Views held by the RecycledViewPool of the given view type.
          */
@@ -5950,6 +6036,97 @@ public class RecyclerView extends ViewGroup implements ScrollingView,
                     scrapData.mBindRunningAverageNs, bindTimeNs);
         }
 
+        /**
+         * Records that a ViewHolder of the given type has to be created because the pool holds
+         * none.
+         *
+         * @param viewType ViewHolder type
+         * @param onDemand True if the ViewHolder is needed right away, rather than prefetched
+         */
+        void factorInCreateMiss(int viewType, boolean onDemand) {
+            ScrapData scrapData = getScrapDataForType(viewType);
+            scrapData.mCreateMissCount++;
+            // Warm ViewHolders ran out: keep one more, if that saves more time than it costs
+            if (onDemand && scrapData.mWarmedUp
+                    && scrapData.mWarmCount < scrapData.mMaxScrap
+                    && scrapData.mCreateRunningAverageNs >= scrapData.mBindRunningAverageNs) {
+                scrapData.mWarmCount++;
+                scrapData.mWarmedUp = false;
+            }
+        }
+
+        /**
+         * Returns true if the pool holds fewer ViewHolders than the warm view count of a type.
+         */
+        boolean needsWarmUp() {
+            return needsWarmUp(FOREVER_NS);
+        }
+
+        /**
+         * Returns true if the pool holds fewer ViewHolders than the warm view count of a type
+         * whose ViewHolders are expected to be created in less than the given time.
+         */
+        boolean needsWarmUp(long maxCreateTimeNs) {
+            if (!mHasWarmCounts) {
+                return false;
+            }
+            for (int i = 0; i < mScrap.size(); i++) {
+                ScrapData scrapData = mScrap.valueAt(i);
+                if (scrapData.mScrapHeap.size() < getWarmTarget(scrapData)
+                        && scrapData.mCreateRunningAverageNs < maxCreateTimeNs) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Creates ViewHolders with the given RecyclerView's Adapter until the pool holds the warm
+         * view count of each type, or until creating the next one is not expected to finish
+         * before the deadline.
+         *
+         * @param view       RecyclerView whose Adapter creates the ViewHolders
+         * @param deadlineNs Time, relative to {@link RecyclerView#getNanoTime()}, by which
+         *                   creating ViewHolders should complete.
+         * @return The number of ViewHolders created.
+         */
+        int warmUp(@NonNull RecyclerView view, long deadlineNs) {
+            final Adapter adapter = view.mAdapter;
+            if (adapter == null || !mHasWarmCounts) {
+                return 0;
+            }
+            int created = 0;
+            for (int i = 0; i < mScrap.size(); i++) {
+                final int viewType = mScrap.keyAt(i);
+                final ScrapData scrapData = mScrap.valueAt(i);
+                final int target = getWarmTarget(scrapData);
+                while (scrapData.mScrapHeap.size() < target) {
+                    long start = view.getNanoTime();
+                    if (!willCreateInTime(viewType, start, deadlineNs)) {
+                        // A cheaper type may still fit
+                        break;
+                    }
+                    final ViewHolder holder = adapter.createViewHolder(view, viewType);
+                    RecyclerView innerView = findNestedRecyclerView(holder.itemView);
+                    if (innerView != null) {
+                        holder.mNestedRecyclerView = new WeakReference<>(innerView);
+                    }
+                    long end = view.getNanoTime();
+                    factorInCreateTime(viewType, end - start);
+                    putRecycledView(holder);
+                    created++;
+                }
+                if (target > 0 && scrapData.mScrapHeap.size() >= target) {
+                    scrapData.mWarmedUp = true;
+                }
+            }
+            return created;
+        }
+
+        private static int getWarmTarget(ScrapData scrapData) {
+            return Math.min(scrapData.mWarmCount, scrapData.mMaxScrap);
+        }
+
         boolean willCreateInTime(int viewType, long approxCurrentNs, long deadlineNs) {
             long expectedDurationNs = getScrapDataForType(viewType).mCreateRunningAverageNs;
             return expectedDurationNs == 0 || (approxCurrentNs + expectedDurationNs < deadlineNs);
@@ -6413,6 +6590,7 @@ public class RecyclerView extends ViewGroup implements ScrollingView,
                         // abort - we have a deadline we can't meet
                         return null;
                     }
+                    mRecyclerPool.factorInCreateMiss(type, deadlineNs == FOREVER_NS);
                     holder = mAdapter.createViewHolder(RecyclerView.this, type);
                     if (ALLOW_THREAD_GAP_WORK) {
                         // only bother finding nested RV if prefetching
@@ -6428,6 +6606,10 @@ public class RecyclerView extends ViewGroup implements ScrollingView,
                         Log.d(TAG, "tryGetViewHolderForPositionByDeadline created new ViewHolder");
                     }
                 }
+                if (!dryRun) {
+                    // the pool may be short of ViewHolders of this type now
+                    scheduleWarmUpIfNeeded();
+                }
             }
 
             // This is very ugly but the only place we can grab this information
@@ -0,0 +1,294 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.recyclerview.widget
+
+import androidx.core.os.CancellationSignal
+import androidx.core.os.OperationCanceledException
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Assert.fail
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.JUnit4
+import java.util.Random
+import java.util.concurrent.Executors
+import java.util.concurrent.atomic.AtomicInteger
+
+@RunWith(JUnit4::class)
+class DiffUtilConfigTest {
+    private val random = Random(System.nanoTime())
+    private val executor = Executors.newFixedThreadPool(4)
+
+    @After
+    fun tearDown() {
+        executor.shutdown()
+    }
+
+    @Test
+    fun trimmedPrefixAndSuffix() {
+        val before = items(0 until 100)
+        val after = before.toMutableList().apply {
+            add(50, Item(1000))
+            removeAt(10)
+        }
+        val callback = ItemListCallback(before, after)
+        check(before, after, calculate(callback, DiffUtil.DiffConfig.Builder().build()))
+        // the common prefix and suffix are matched without running Myers' algorithm on them
+        assertTrue(callback.itemComparisons.get() < 2 * before.size)
+    }
+
+    @Test
+    fun random() {
+        repeat(100) {
+            testRandom(DiffUtil.DiffConfig.Builder().build(), withKeys = false)
+        }
+    }
+
+    @Test
+    fun random_withKeys() {
+        repeat(100) {
+            testRandom(DiffUtil.DiffConfig.Builder().build(), withKeys = true)
+        }
+    }
+
+    @Test
+    fun random_withExecutor() {
+        repeat(10) {
+            testRandom(
+                DiffUtil.DiffConfig.Builder().setExecutor(executor).build(),
+                withKeys = false,
+                size = 5000
+            )
+        }
+    }
+
+    @Test
+    fun sameEditCountAsCalculateDiff() {
+        repeat(20) {
+            val before = items(0 until 3000)
+            val after = edit(before, 200)
+            val expected = countEdits(
+                DiffUtil.calculateDiff(ItemListCallback(before, after), false)
+            )
+            listOf(
+                DiffUtil.DiffConfig.Builder().setDetectMoves(false).build() to false,
+                DiffUtil.DiffConfig.Builder().setDetectMoves(false).build() to true,
+                DiffUtil.DiffConfig.Builder().setDetectMoves(false).setExecutor(executor)
+                    .build() to false
+            ).forEach { (config, withKeys) ->
+                val callback = ItemListCallback(before, after, withKeys)
+                assertEquals(expected, countEdits(calculate(callback, config)))
+            }
+        }
+    }
+
+    @Test
+    fun duplicateKeys() {
+        val before = items(0 until 10)
+        val after = before.toMutableList().apply {
+            add(3, before[7])
+            add(0, before[1])
+            add(Item(1000))
+        }
+        check(before, after, calculate(ItemListCallback(before, after, withKeys = true)))
+    }
+
+    @Test
+    fun maxMoveComparisons() {
+        val before = items(0 until 100)
+        val after = items(100 until 200)
+        val comparisons = ItemListCallback(before, after).let { callback ->
+            calculate(callback, DiffUtil.DiffConfig.Builder().setMaxMoveComparisons(0).build())
+            callback.itemComparisons.get()
+        }
+        val callback = ItemListCallback(before, after)
+        calculate(callback, DiffUtil.DiffConfig.Builder().setMaxMoveComparisons(50).build())
+        assertEquals(comparisons + 50, callback.itemComparisons.get())
+    }
+
+    @Test
+    fun maxMoveComparisons_stillMatchesByKey() {
+        val before = items(0 until 100)
+        val after = before.reversed()
+        val result = calculate(
+            ItemListCallback(before, after, withKeys = true),
+            DiffUtil.DiffConfig.Builder().setMaxMoveComparisons(0).build()
+        )
+        check(before, after, result)
+        before.indices.forEach {
+            assertEquals(99 - it, result.convertOldPositionToNew(it))
+        }
+    }
+
+    @Test
+    fun canceled() {
+        val before = items(0 until 1000)
+        val after = items(500 until 1500)
+        val cancellationSignal = CancellationSignal()
+        val callback = object : ItemListCallback(before, after) {
+            override fun areItemsTheSame(oldItemIndex: Int, newItemIndex: Int): Boolean {
+                if (itemComparisons.get() == 100) {
+                    cancellationSignal.cancel()
+                }
+                return super.areItemsTheSame(oldItemIndex, newItemIndex)
+            }
+        }
+        try {
+            DiffUtil.calculateDiff(callback, DiffUtil.DiffConfig.Builder().build(),
+                cancellationSignal)
+            fail("calculation should be canceled")
+        } catch (e: OperationCanceledException) { // expected
+        }
+    }
+
+    private fun testRandom(config: DiffUtil.DiffConfig, withKeys: Boolean, size: Int = 50) {
+        val before = items(0 until random.nextInt(size))
+        val after = edit(before, random.nextInt(size / 2 + 1))
+        check(before, after, calculate(ItemListCallback(before, after, withKeys), config))
+    }
+
+    private fun calculate(
+        callback: DiffUtil.Callback,
+        config: DiffUtil.DiffConfig = DiffUtil.DiffConfig.Builder().build()
+    ) = DiffUtil.calculateDiff(callback, config, null)
+
+    private fun items(ids: IntRange) = ids.map { Item(it) }
+
+    private fun edit(before: List<Item>, operationCount: Int): List<Item> {
+        val after = before.toMutableList()
+        var nextId = 100000
+        repeat(operationCount) {
+            when (random.nextInt(4)) {
+                0 -> after.add(random.nextInt(after.size + 1), Item(nextId++))
+                1 -> if (after.isNotEmpty()) {
+                    after.removeAt(random.nextInt(after.size))
+                }
+                2 -> if (after.isNotEmpty()) {
+                    val item = after.removeAt(random.nextInt(after.size))
+                    after.add(random.nextInt(after.size + 1), item)
+                }
+                3 -> if (after.isNotEmpty()) {
+                    val index = random.nextInt(after.size)
+                    after[index] = after[index].copy(version = after[index].version + 1)
+                }
+            }
+        }
+        return after
+    }
+
+    /**
+     * Applies the updates to the old list and checks that it turns into the new one, with every
+     * item which is in both lists moved rather than removed and added.
+     */
+    private fun check(before: List<Item>, after: List<Item>, result: DiffUtil.DiffResult) {
+        val applied = before.toMutableList()
+        result.dispatchUpdatesTo(object : ListUpdateCallback {
+            override fun onInserted(position: Int, count: Int) {
+                repeat(count) {
+                    applied.add(position + it, Item(NEW_ITEM))
+                }
+            }
+
+            override fun onRemoved(position: Int, count: Int) {
+                repeat(count) {
+                    applied.removeAt(position)
+                }
+            }
+
+            override fun onMoved(fromPosition: Int, toPosition: Int) {
+                applied.add(toPosition, applied.removeAt(fromPosition))
+            }
+
+            override fun onChanged(position: Int, count: Int, payload: Any?) {
+                repeat(count) {
+                    applied[position + it] = applied[position + it].copy(version = CHANGED)
+                }
+            }
+        })
+        assertEquals(after.size, applied.size)
+        val remaining = before.groupingBy { it.id }.eachCount().toMutableMap()
+        after.forEach { remaining[it.id]?.let { count -> remaining[it.id] = count - 1 } }
+        after.indices.forEach {
+            val expected = after[it]
+            val actual = applied[it]
+            if (actual.id == NEW_ITEM) {
+                // an item in both lists can only be added if it is in the new list more often
+                assertTrue("item $expected was not moved", (remaining[expected.id] ?: -1) < 0)
+            } else {
+                assertEquals(expected.id, actual.id)
+                val oldPosition = result.convertNewPositionToOld(it)
+                assertEquals(expected.id, before[oldPosition].id)
+                if (before[oldPosition].version != expected.version) {
+                    assertEquals(CHANGED, actual.version)
+                }
+            }
+        }
+    }
+
+    private fun countEdits(result: DiffUtil.DiffResult): Int {
+        var edits = 0
+        result.dispatchUpdatesTo(object : ListUpdateCallback {
+            override fun onInserted(position: Int, count: Int) {
+                edits += count
+            }
+
+            override fun onRemoved(position: Int, count: Int) {
+                edits += count
+            }
+
+            override fun onMoved(fromPosition: Int, toPosition: Int) {
+            }
+
+            override fun onChanged(position: Int, count: Int, payload: Any?) {
+            }
+        })
+        return edits
+    }
+
+    private data class Item(val id: Int, val version: Int = 0)
+
+    private open class ItemListCallback(
+        private val oldList: List<Item>,
+        private val newList: List<Item>,
+        private val withKeys: Boolean = false
+    ) : DiffUtil.Callback() {
+        val itemComparisons = AtomicInteger()
+
+        override fun getOldListSize() = oldList.size
+
+        override fun getNewListSize() = newList.size
+
+        override fun areItemsTheSame(oldItemIndex: Int, newItemIndex: Int): Boolean {
+            itemComparisons.incrementAndGet()
+            return oldList[oldItemIndex].id == newList[newItemIndex].id
+        }
+
+        override fun areContentsTheSame(oldItemIndex: Int, newItemIndex: Int) =
+            oldList[oldItemIndex].version == newList[newItemIndex].version
+
+        override fun getOldItemKey(oldItemPosition: Int) =
+            if (withKeys) oldList[oldItemPosition].id else null
+
+        override fun getNewItemKey(newItemPosition: Int) =
+            if (withKeys) newList[newItemPosition].id else null
+    }
+
+    companion object {
+        private const val NEW_ITEM = -1
+        private const val CHANGED = -1
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room.benchmark
+
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import androidx.room.Dao
+import androidx.room.Database
+import androidx.room.Entity
+import androidx.room.Insert
+import androidx.room.PrimaryKey
+import androidx.room.Query
+import androidx.room.Room
+import androidx.room.RoomDatabase
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.filters.LargeTest
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+
+/**
+ * Compares inserting a list of entities, which uses multi-row INSERT statements, with inserting
+ * the same entities one statement at a time.
+ */
+@LargeTest
+@RunWith(Parameterized::class)
+class BatchInsertBenchmark(private val sampleSize: Int, private val mode: Mode) {
+
+    @get:Rule
+    val benchmarkRule = BenchmarkRule()
+
+    private lateinit var db: TestDatabase
+
+    @Before
+    fun setup() {
+        db = Room.inMemoryDatabaseBuilder(
+            ApplicationProvider.getApplicationContext(),
+            TestDatabase::class.java
+        ).build()
+    }
+
+    @After
+    fun tearDown() {
+        db.close()
+    }
+
+    @Test
+    fun insert() {
+        val dao = db.getItemDao()
+        val items = List(sampleSize) { Item(it, "name$it", it * 2L) }
+        benchmarkRule.measureRepeated {
+            when (mode) {
+                Mode.PER_ROW -> db.runInTransaction {
+                    for (item in items) {
+                        dao.insert(item)
+                    }
+                }
+                Mode.BATCHED -> dao.insertAll(items)
+            }
+            runWithTimingDisabled {
+                assertEquals(sampleSize, dao.deleteAll())
+            }
+        }
+    }
+
+    companion object {
+        @JvmStatic
+        @Parameterized.Parameters(name = "sampleSize={0}, mode={1}")
+        fun data(): List<Array<Any>> {
+            return mutableListOf<Array<Any>>().apply {
+                Mode.values().forEach { mode ->
+                    arrayOf(100, 1000, 10000, 100000).forEach { sampleSize ->
+                        add(arrayOf(sampleSize, mode))
+                    }
+                }
+            }
+        }
+    }
+
+    @Database(entities = [Item::class], version = 1, exportSchema = false)
+    abstract class TestDatabase : RoomDatabase() {
+        abstract fun getItemDao(): ItemDao
+    }
+
+    @Entity
+    data class Item(@PrimaryKey val id: Int, val name: String, val value: Long)
+
+    @Dao
+    interface ItemDao {
+        @Insert
+        fun insert(item: Item)
+
+        @Insert
+        fun insertAll(items: List<Item>)
+
+        @Query("DELETE FROM Item")
+        fun deleteAll(): Int
+    }
+
+    enum class Mode {
+        PER_ROW,
+        BATCHED
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room.benchmark
+
+import android.database.Cursor
+import android.database.MatrixCursor
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import androidx.room.Dao
+import androidx.room.Database
+import androidx.room.Entity
+import androidx.room.Insert
+import androidx.room.PrimaryKey
+import androidx.room.Room
+import androidx.room.RoomDatabase
+import androidx.room.util.CursorUtil
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.filters.LargeTest
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+
+/**
+ * Compares copying a query result into memory, as Room does for cursors whose window cannot hold
+ * the whole result, with the previous boxing [MatrixCursor] copy and with [CursorUtil.copyAndClose].
+ */
+@LargeTest
+@RunWith(Parameterized::class)
+class CursorCopyBenchmark(private val rowCount: Int, private val mode: Mode) {
+
+    @get:Rule
+    val benchmarkRule = BenchmarkRule()
+
+    private lateinit var db: TestDatabase
+
+    @Before
+    fun setup() {
+        db = Room.inMemoryDatabaseBuilder(
+            ApplicationProvider.getApplicationContext(),
+            TestDatabase::class.java
+        ).build()
+        db.getItemDao().insert(
+            List(rowCount) { Item(it.toLong(), "item name $it", it * 0.25, ByteArray(16)) }
+        )
+    }
+
+    @After
+    fun tearDown() {
+        db.close()
+    }
+
+    @Test
+    fun copyAndRead() {
+        val sqliteDb = db.openHelper.readableDatabase
+        benchmarkRule.measureRepeated {
+            val source = sqliteDb.query("SELECT * FROM Item")
+            val copy = when (mode) {
+                Mode.MATRIX_CURSOR -> matrixCopyAndClose(source)
+                Mode.COLUMNAR_CURSOR -> CursorUtil.copyAndClose(source)
+            }
+            var rows = 0
+            copy.use {
+                while (it.moveToNext()) {
+                    it.getLong(0)
+                    it.getString(1)
+                    it.getDouble(2)
+                    rows++
+                }
+            }
+            assertEquals(rowCount, rows)
+        }
+    }
+
+    // The copy CursorUtil.copyAndClose made before it switched to ColumnarCursor.
+    private fun matrixCopyAndClose(c: Cursor): Cursor {
+        c.use {
+            val matrixCursor = MatrixCursor(c.columnNames, c.count)
+            while (c.moveToNext()) {
+                val row = arrayOfNulls<Any>(c.columnCount)
+                for (i in 0 until c.columnCount) {
+                    row[i] = when (c.getType(i)) {
+                        Cursor.FIELD_TYPE_NULL -> null
+                        Cursor.FIELD_TYPE_INTEGER -> c.getLong(i)
+                        Cursor.FIELD_TYPE_FLOAT -> c.getDouble(i)
+                        Cursor.FIELD_TYPE_STRING -> c.getString(i)
+                        Cursor.FIELD_TYPE_BLOB -> c.getBlob(i)
+                        else -> throw IllegalStateException()
+                    }
+                }
+                matrixCursor.addRow(row)
+            }
+            return matrixCursor
+        }
+    }
+
+    companion object {
+        @JvmStatic
+        @Parameterized.Parameters(name = "rowCount={0}, mode={1}")
+        fun data(): List<Array<Any>> {
+            return mutableListOf<Array<Any>>().apply {
+                Mode.values().forEach { mode ->
+                    arrayOf(1000, 5000, 20000).forEach { rowCount ->
+                        add(arrayOf(rowCount, mode))
+                    }
+                }
+            }
+        }
+    }
+
+    @Database(entities = [Item::class], version = 1, exportSchema = false)
+    abstract class TestDatabase : RoomDatabase() {
+        abstract fun getItemDao(): ItemDao
+    }
+
+    @Entity
+    class Item(
+        @PrimaryKey val id: Long,
+        val name: String,
+        val score: Double,
+        val data: ByteArray
+    )
+
+    @Dao
+    interface ItemDao {
+        @Insert
+        fun insert(items: List<Item>)
+    }
+
+    enum class Mode {
+        MATRIX_CURSOR,
+        COLUMNAR_CURSOR
+    }
+}
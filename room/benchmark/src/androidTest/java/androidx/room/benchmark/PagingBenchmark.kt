@@ -0,0 +1,159 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room.benchmark
+
+import android.database.Cursor
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import androidx.paging.DataSource
+import androidx.room.Dao
+import androidx.room.Database
+import androidx.room.Entity
+import androidx.room.Index
+import androidx.room.Insert
+import androidx.room.PrimaryKey
+import androidx.room.Query
+import androidx.room.Room
+import androidx.room.RoomDatabase
+import androidx.room.RoomSQLiteQuery
+import androidx.room.paging.KeysetDataSource
+import androidx.room.paging.LimitOffsetDataSource
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.filters.LargeTest
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+
+/**
+ * Pages through a whole table ordered by an indexed column, comparing LIMIT / OFFSET paging with
+ * the keyset seeks of [KeysetDataSource].
+ */
+@LargeTest
+@RunWith(Parameterized::class)
+class PagingBenchmark(private val rowCount: Int, private val mode: Mode) {
+
+    @get:Rule
+    val benchmarkRule = BenchmarkRule()
+
+    private lateinit var db: TestDatabase
+
+    @Before
+    fun setup() {
+        db = Room.inMemoryDatabaseBuilder(
+            ApplicationProvider.getApplicationContext(),
+            TestDatabase::class.java
+        ).build()
+        // Scores repeat, so pages regularly start in the middle of a run of equal values.
+        db.getItemDao().insert(List(rowCount) { Item(it.toLong(), (it * 7919L) % (rowCount / 4)) })
+        assertTrue(db.getItemDao().itemsByScore().create() is KeysetDataSource<*>)
+    }
+
+    @After
+    fun tearDown() {
+        db.close()
+    }
+
+    @Test
+    fun loadAllPages() {
+        benchmarkRule.measureRepeated {
+            val dataSource = runWithTimingDisabled { createDataSource() }
+            var loaded = 0
+            var previousScore = Long.MIN_VALUE
+            while (true) {
+                val page = dataSource.loadRange(loaded, PAGE_SIZE)
+                if (page.isEmpty()) {
+                    break
+                }
+                assertTrue(page.first() >= previousScore)
+                previousScore = page.last()
+                loaded += page.size
+            }
+            assertEquals(rowCount, loaded)
+        }
+    }
+
+    private fun createDataSource(): LimitOffsetDataSource<Long> {
+        val query = RoomSQLiteQuery.acquire("SELECT * FROM Item ORDER BY score", 0)
+        return when (mode) {
+            Mode.LIMIT_OFFSET -> object : LimitOffsetDataSource<Long>(
+                db, query, false, true, "Item"
+            ) {
+                override fun convertRows(cursor: Cursor) = readScores(cursor)
+            }
+            Mode.KEYSET -> object : KeysetDataSource<Long>(
+                db, query, false, true, arrayOf("score"), booleanArrayOf(false), "Item"
+            ) {
+                override fun convertRows(cursor: Cursor) = readScores(cursor)
+            }
+        }
+    }
+
+    private fun readScores(cursor: Cursor): List<Long> {
+        val scoreIndex = cursor.getColumnIndexOrThrow("score")
+        val scores = ArrayList<Long>(cursor.count)
+        while (cursor.moveToNext()) {
+            scores.add(cursor.getLong(scoreIndex))
+        }
+        return scores
+    }
+
+    companion object {
+        private const val PAGE_SIZE = 100
+
+        @JvmStatic
+        @Parameterized.Parameters(name = "rowCount={0}, mode={1}")
+        fun data(): List<Array<Any>> {
+            return mutableListOf<Array<Any>>().apply {
+                Mode.values().forEach { mode ->
+                    arrayOf(1000, 10000, 50000).forEach { rowCount ->
+                        add(arrayOf(rowCount, mode))
+                    }
+                }
+            }
+        }
+    }
+
+    @Database(entities = [Item::class], version = 1, exportSchema = false)
+    abstract class TestDatabase : RoomDatabase() {
+        abstract fun getItemDao(): ItemDao
+    }
+
+    @Entity(indices = [Index("score")])
+    class Item(
+        @PrimaryKey val id: Long,
+        val score: Long
+    )
+
+    @Dao
+    interface ItemDao {
+        @Insert
+        fun insert(items: List<Item>)
+
+        @Query("SELECT * FROM Item ORDER BY score")
+        fun itemsByScore(): DataSource.Factory<Int, Item>
+    }
+
+    enum class Mode {
+        LIMIT_OFFSET,
+        KEYSET
+    }
+}
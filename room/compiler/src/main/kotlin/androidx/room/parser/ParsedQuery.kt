@@ -50,12 +50,22 @@ sealed class Section {
 }
 
 data class Table(val name: String, val alias: String)
+
+/**
+ * A term of the ORDER BY clause of a query.
+ *
+ * [columnName] is null unless the term is a plain column reference without a COLLATE clause.
+ */
+data class OrderingTerm(val columnName: String?, val isDescending: Boolean)
+
 data class ParsedQuery(
     val original: String,
     val type: QueryType,
     val inputs: List<BindParameterNode>,
     val tables: Set<Table>, // pairs of table name and alias
-    val syntaxErrors: List<String>
+    val syntaxErrors: List<String>,
+    // ORDER BY terms of a top level SELECT without LIMIT or compound operators, empty otherwise
+    val orderingTerms: List<OrderingTerm> = emptyList()
 ) {
     companion object {
         val STARTS_WITH_NUMBER = "^\\?[0-9]".toRegex()
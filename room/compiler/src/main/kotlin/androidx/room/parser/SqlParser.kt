@@ -38,14 +38,35 @@ class QueryVisitor(
     private val tableNames = mutableSetOf<Table>()
     private val withClauseNames = mutableSetOf<String>()
     private val queryType: QueryType
+    private val orderingTerms: List<OrderingTerm>
 
     init {
         queryType = (0 until statement.childCount).map {
             findQueryType(statement.getChild(it))
         }.filterNot { it == QueryType.UNKNOWN }.firstOrNull() ?: QueryType.UNKNOWN
+        orderingTerms = findOrderingTerms(statement)
         statement.accept(this)
     }
 
+    private fun findOrderingTerms(statement: ParseTree): List<OrderingTerm> {
+        val select = (0 until statement.childCount)
+            .map { statement.getChild(it) }
+            .filterIsInstance<SQLiteParser.Select_stmtContext>()
+            .firstOrNull() ?: return emptyList()
+        if (select.limit_clause() != null || select.select_or_values().size != 1) {
+            return emptyList()
+        }
+        val orderClause = select.order_clause() ?: return emptyList()
+        return orderClause.ordering_term().map { term ->
+            val columnName = if (term.K_COLLATE() == null) {
+                term.expr().column_name()?.let { unescapeIdentifier(it.text) }
+            } else {
+                null
+            }
+            OrderingTerm(columnName = columnName, isDescending = term.K_DESC() != null)
+        }
+    }
+
     private fun findQueryType(statement: ParseTree): QueryType {
         return when (statement) {
             is SQLiteParser.Select_stmtContext ->
@@ -108,6 +129,7 @@ class QueryVisitor(
             inputs = bindingExpressions.sortedBy { it.sourceInterval.a },
             tables = tableNames,
             syntaxErrors = syntaxErrors,
+            orderingTerms = orderingTerms,
         )
     }
 
@@ -24,6 +24,7 @@ import androidx.room.processor.Context
 import androidx.room.processor.ProcessorErrors
 import androidx.room.solver.QueryResultBinderProvider
 import androidx.room.solver.query.result.DataSourceFactoryQueryResultBinder
+import androidx.room.solver.query.result.KeysetOrdering
 import androidx.room.solver.query.result.ListQueryResultAdapter
 import androidx.room.solver.query.result.PositionalDataSourceQueryResultBinder
 import androidx.room.solver.query.result.QueryResultBinder
@@ -49,7 +50,8 @@ class DataSourceFactoryQueryResultBinderProvider(val context: Context) : QueryRe
         val countedBinder = PositionalDataSourceQueryResultBinder(
             listAdapter = adapter,
             tableNames = tableNames,
-            forPaging3 = false
+            forPaging3 = false,
+            keysetOrdering = KeysetOrdering.create(context, query)
         )
         return DataSourceFactoryQueryResultBinder(countedBinder)
     }
@@ -23,6 +23,7 @@ import androidx.room.compiler.processing.XType
 import androidx.room.processor.Context
 import androidx.room.processor.ProcessorErrors
 import androidx.room.solver.QueryResultBinderProvider
+import androidx.room.solver.query.result.KeysetOrdering
 import androidx.room.solver.query.result.ListQueryResultAdapter
 import androidx.room.solver.query.result.PositionalDataSourceQueryResultBinder
 import androidx.room.solver.query.result.QueryResultBinder
@@ -51,7 +52,8 @@ class DataSourceQueryResultBinderProvider(val context: Context) : QueryResultBin
         return PositionalDataSourceQueryResultBinder(
             listAdapter = listAdapter,
             tableNames = tableNames,
-            forPaging3 = false
+            forPaging3 = false,
+            keysetOrdering = KeysetOrdering.create(context, query)
         )
     }
 
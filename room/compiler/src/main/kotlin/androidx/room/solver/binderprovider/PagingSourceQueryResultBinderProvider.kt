@@ -23,6 +23,7 @@ import androidx.room.parser.ParsedQuery
 import androidx.room.processor.Context
 import androidx.room.processor.ProcessorErrors
 import androidx.room.solver.QueryResultBinderProvider
+import androidx.room.solver.query.result.KeysetOrdering
 import androidx.room.solver.query.result.ListQueryResultAdapter
 import androidx.room.solver.query.result.PagingSourceQueryResultBinder
 import androidx.room.solver.query.result.PositionalDataSourceQueryResultBinder
@@ -50,7 +51,8 @@ class PagingSourceQueryResultBinderProvider(val context: Context) : QueryResultB
             PositionalDataSourceQueryResultBinder(
                 listAdapter = listAdapter,
                 tableNames = tableNames,
-                forPaging3 = true
+                forPaging3 = true,
+                keysetOrdering = KeysetOrdering.create(context, query)
             )
         )
     }
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room.solver.query.result
+
+import androidx.room.parser.ParsedQuery
+import androidx.room.processor.Context
+
+/**
+ * The ORDER BY columns of a paged query that can be loaded with keyset seeks by
+ * KeysetDataSource instead of LIMIT / OFFSET.
+ */
+data class KeysetOrdering(val columns: List<String>, val descending: List<Boolean>) {
+    companion object {
+        /**
+         * Returns the ordering of [query] if every ORDER BY term is a plain result column and
+         * the database verifier confirms that the seek query is answered by walking an index,
+         * null otherwise.
+         *
+         * The key columns must also be declared NOT NULL and be compared with the BINARY
+         * collation: the seek comparisons never match NULL keys, and KeysetDataSource detects
+         * ties by comparing the key values in Java.
+         */
+        fun create(context: Context, query: ParsedQuery): KeysetOrdering? {
+            val terms = query.orderingTerms
+            if (terms.isEmpty() || terms.any { it.columnName == null }) {
+                return null
+            }
+            val resultInfo = query.resultInfo ?: return null
+            if (resultInfo.error != null) {
+                return null
+            }
+            val columns = terms.map { term ->
+                resultInfo.columns.firstOrNull {
+                    it.name.equals(term.columnName, ignoreCase = true)
+                }?.name ?: return null
+            }
+            val ordering = KeysetOrdering(columns, terms.map { it.isDescending })
+            val verifier = context.databaseVerifier ?: return null
+            if (!verifier.areNotNull(query.original, columns)) {
+                return null
+            }
+            val seekQuery = ordering.createSeekQuery(query.original)
+            return if (verifier.isOrderedByIndex(seekQuery) &&
+                verifier.usesBinaryCollation(seekQuery)
+            ) {
+                ordering
+            } else {
+                null
+            }
+        }
+    }
+
+    /**
+     * Builds the same seek query KeysetDataSource runs, so that its query plan can be checked.
+     */
+    fun createSeekQuery(sourceSql: String): String {
+        fun comparison(index: Int, inclusive: Boolean): String {
+            val operator = if (descending[index]) "<" else ">"
+            return "`${columns[index]}` $operator${if (inclusive) "=" else ""} ?"
+        }
+        val where = StringBuilder(comparison(0, true))
+        if (columns.size > 1) {
+            where.append(" AND (")
+            for (i in 0 until columns.size - 1) {
+                where.append(comparison(i, false))
+                where.append(" OR (`${columns[i]}` = ? AND (")
+            }
+            where.append(comparison(columns.size - 1, true))
+            repeat(columns.size - 1) { where.append("))") }
+            where.append(")")
+        }
+        val orderBy = columns.indices.joinToString(", ") { index ->
+            "`${columns[index]}`${if (descending[index]) " DESC" else ""}"
+        }
+        return "SELECT * FROM ( $sourceSql ) WHERE $where ORDER BY $orderBy LIMIT ? OFFSET ?"
+    }
+}
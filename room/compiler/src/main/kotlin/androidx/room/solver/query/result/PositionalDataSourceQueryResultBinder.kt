@@ -43,15 +43,24 @@ import javax.lang.model.element.Modifier
  * As a result, we change behavior based on whether we create the data source for paging 3 or 2.
  * In practice, [forPaging3] parameter controls whether LimitOffsetDataSource registers its observer
  * immediately (paging2) or not (paging3).
+ *
+ * When [keysetOrdering] is set, the generated data source is a KeysetDataSource, which seeks to
+ * pages by the values of the ordering columns instead of using OFFSET.
  */
 class PositionalDataSourceQueryResultBinder(
     val listAdapter: ListQueryResultAdapter?,
     val tableNames: Set<String>,
     val forPaging3: Boolean,
+    val keysetOrdering: KeysetOrdering? = null,
 ) : QueryResultBinder(listAdapter) {
     val itemTypeName: TypeName = listAdapter?.rowAdapter?.out?.typeName ?: TypeName.OBJECT
     val typeName: ParameterizedTypeName = ParameterizedTypeName.get(
-        RoomTypeNames.LIMIT_OFFSET_DATA_SOURCE, itemTypeName
+        if (keysetOrdering != null) {
+            RoomTypeNames.KEYSET_DATA_SOURCE
+        } else {
+            RoomTypeNames.LIMIT_OFFSET_DATA_SOURCE
+        },
+        itemTypeName
     )
     override fun convertAndReturn(
         roomSQLiteQueryVar: String,
@@ -64,9 +73,14 @@ class PositionalDataSourceQueryResultBinder(
         // we don't need a comma. If list is empty, this prevents generating bad code (it is still
         // an error to have empty list but that is already reported while item is processed)
         val tableNamesList = tableNames.joinToString("") { ", \"$it\"" }
+        val keysetArgs = keysetOrdering?.let { ordering ->
+            val columns = ordering.columns.joinToString(", ") { "\"$it\"" }
+            val descending = ordering.descending.joinToString(", ")
+            ", new String[] {$columns}, new boolean[] {$descending}"
+        } ?: ""
         val spec = TypeSpec.anonymousClassBuilder(
-            "$N, $L, $L, $L $L",
-            dbField, roomSQLiteQueryVar, inTransaction, !forPaging3, tableNamesList
+            "$N, $L, $L, $L$L $L",
+            dbField, roomSQLiteQueryVar, inTransaction, !forPaging3, keysetArgs, tableNamesList
         ).apply {
             superclass(typeName)
             addMethod(createConvertRowsMethod(scope))
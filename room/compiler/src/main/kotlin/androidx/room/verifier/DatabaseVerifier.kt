@@ -29,6 +29,7 @@ import org.sqlite.JDBC
 import org.sqlite.SQLiteJDBCLoader
 import java.io.File
 import java.sql.Connection
+import java.sql.ResultSetMetaData
 import java.sql.SQLException
 import java.util.regex.Pattern
 
@@ -60,6 +61,15 @@ class DatabaseVerifier private constructor(
             "\\s+COLLATE\\s+(LOCALIZED|UNICODE)", Pattern.CASE_INSENSITIVE
         )
 
+        /**
+         * Matches the built-in collations other than BINARY in the P4 operand of an EXPLAIN
+         * program, e.g. "NOCASE-8", "(NOCASE)" or the "k(2,NOCASE,)" of a key info. LOCALIZED and
+         * UNICODE are verified as NOCASE, so they are caught as well.
+         */
+        private val NON_BINARY_COLLATION_PATTERN = Pattern.compile(
+            "\\b(NOCASE|RTRIM)\\b", Pattern.CASE_INSENSITIVE
+        )
+
         init {
             verifyTempDir()
             // Synchronize on a bootstrap loaded class so that parallel runs of Room in the same JVM
@@ -156,6 +166,76 @@ class DatabaseVerifier private constructor(
         }
     }
 
+    /**
+     * Returns true if SQLite can produce the rows of [sql] in their ORDER BY order by walking an
+     * index, without sorting them in a temporary b-tree.
+     */
+    fun isOrderedByIndex(sql: String): Boolean {
+        return try {
+            connection.createStatement().use { stmt ->
+                stmt.executeQuery("EXPLAIN QUERY PLAN ${stripLocalizeCollations(sql)}").use {
+                    var hasPlan = false
+                    while (it.next()) {
+                        hasPlan = true
+                        val detail = it.getString("detail") ?: continue
+                        if (detail.contains("TEMP B-TREE") && detail.contains("ORDER BY")) {
+                            return false
+                        }
+                    }
+                    hasPlan
+                }
+            }
+        } catch (ex: SQLException) {
+            false
+        }
+    }
+
+    /**
+     * Returns true if each of the [columns] in the result of [sql] is a table column declared
+     * NOT NULL. Columns that are computed, or that are missing from the result, are reported as
+     * nullable.
+     */
+    fun areNotNull(sql: String, columns: List<String>): Boolean {
+        return try {
+            connection.prepareStatement(stripLocalizeCollations(sql)).use { stmt ->
+                val metaData = stmt.metaData
+                val columnCount = metaData.columnCount
+                columns.all { column ->
+                    val index = (1..columnCount).firstOrNull {
+                        metaData.getColumnName(it).equals(column, ignoreCase = true)
+                    }
+                    index != null && metaData.isNullable(index) == ResultSetMetaData.columnNoNulls
+                }
+            }
+        } catch (ex: SQLException) {
+            false
+        }
+    }
+
+    /**
+     * Returns true if every comparison and sort that SQLite compiles for [sql] uses the BINARY
+     * collation, so its results agree with comparing the column values in Java.
+     */
+    fun usesBinaryCollation(sql: String): Boolean {
+        return try {
+            connection.createStatement().use { stmt ->
+                stmt.executeQuery("EXPLAIN ${stripLocalizeCollations(sql)}").use {
+                    var hasProgram = false
+                    while (it.next()) {
+                        hasProgram = true
+                        val operand = it.getString("p4") ?: continue
+                        if (NON_BINARY_COLLATION_PATTERN.matcher(operand).find()) {
+                            return false
+                        }
+                    }
+                    hasProgram
+                }
+            }
+        } catch (ex: SQLException) {
+            false
+        }
+    }
+
     private fun stripLocalizeCollations(sql: String) =
         COLLATE_LOCALIZED_UNICODE_PATTERN.matcher(sql).replaceAll(" COLLATE NOCASE")
 
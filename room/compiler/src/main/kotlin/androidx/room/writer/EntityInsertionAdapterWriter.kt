@@ -70,27 +70,46 @@ class EntityInsertionAdapterWriter private constructor(
         @Suppress("RemoveSingleExpressionStringTemplate")
         return TypeSpec.anonymousClassBuilder("$L", dbParam).apply {
             superclass(ParameterizedTypeName.get(RoomTypeNames.INSERTION_ADAPTER, pojo.typeName))
+            val queryPrefix = buildString {
+                append("INSERT OR $onConflict INTO `$tableName`")
+                append(" (${pojo.columnNames.joinToString(",") { "`$it`" }})")
+                append(" VALUES ")
+            }
+            val queryRow = buildString {
+                append("(")
+                append(
+                    pojo.fields.joinToString(",") {
+                        if (it.columnName == primitiveAutoGenerateColumn) {
+                            "nullif(?, 0)"
+                        } else {
+                            "?"
+                        }
+                    }
+                )
+                append(")")
+            }
             addMethod(
                 MethodSpec.methodBuilder("createQuery").apply {
                     addAnnotation(Override::class.java)
                     addModifiers(PUBLIC)
                     returns(ClassName.get("java.lang", "String"))
-                    val query = buildString {
-                        append("INSERT OR $onConflict INTO `$tableName`")
-                        append(" (${pojo.columnNames.joinToString(",") { "`$it`" }})")
-                        append(" VALUES (")
-                        append(
-                            pojo.fields.joinToString(",") {
-                                if (it.columnName == primitiveAutoGenerateColumn) {
-                                    "nullif(?, 0)"
-                                } else {
-                                    "?"
-                                }
-                            }
-                        )
-                        append(")")
-                    }
-                    addStatement("return $S", query)
+                    addStatement("return $S", queryPrefix + queryRow)
+                }.build()
+            )
+            addMethod(
+                MethodSpec.methodBuilder("createBatchQueryPrefix").apply {
+                    addAnnotation(Override::class.java)
+                    addModifiers(PUBLIC)
+                    returns(ClassName.get("java.lang", "String"))
+                    addStatement("return $S", queryPrefix)
+                }.build()
+            )
+            addMethod(
+                MethodSpec.methodBuilder("createBatchQueryRow").apply {
+                    addAnnotation(Override::class.java)
+                    addModifiers(PUBLIC)
+                    returns(ClassName.get("java.lang", "String"))
+                    addStatement("return $S", queryRow)
                 }.build()
             )
             addMethod(
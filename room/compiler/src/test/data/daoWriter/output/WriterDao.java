@@ -30,6 +30,16 @@ public final class WriterDao_Impl implements WriterDao {
                 return "INSERT OR ABORT INTO `User` (`uid`,`name`,`lastName`,`ageColumn`) VALUES (?,?,?,?)";
             }
 
+            @Override
+            public String createBatchQueryPrefix() {
+                return "INSERT OR ABORT INTO `User` (`uid`,`name`,`lastName`,`ageColumn`) VALUES ";
+            }
+
+            @Override
+            public String createBatchQueryRow() {
+                return "(?,?,?,?)";
+            }
+
             @Override
             public void bind(SupportSQLiteStatement stmt, User value) {
                 stmt.bindLong(1, value.uid);
@@ -52,6 +62,16 @@ public final class WriterDao_Impl implements WriterDao {
                 return "INSERT OR REPLACE INTO `User` (`uid`,`name`,`lastName`,`ageColumn`) VALUES (?,?,?,?)";
             }
 
+            @Override
+            public String createBatchQueryPrefix() {
+                return "INSERT OR REPLACE INTO `User` (`uid`,`name`,`lastName`,`ageColumn`) VALUES ";
+            }
+
+            @Override
+            public String createBatchQueryRow() {
+                return "(?,?,?,?)";
+            }
+
             @Override
             public void bind(SupportSQLiteStatement stmt, User value) {
                 stmt.bindLong(1, value.uid);
@@ -74,6 +94,16 @@ public final class WriterDao_Impl implements WriterDao {
                 return "INSERT OR ABORT INTO `Book` (`bookId`,`uid`) VALUES (?,?)";
             }
 
+            @Override
+            public String createBatchQueryPrefix() {
+                return "INSERT OR ABORT INTO `Book` (`bookId`,`uid`) VALUES ";
+            }
+
+            @Override
+            public String createBatchQueryRow() {
+                return "(?,?)";
+            }
+
             @Override
             public void bind(SupportSQLiteStatement stmt, Book value) {
                 stmt.bindLong(1, value.bookId);
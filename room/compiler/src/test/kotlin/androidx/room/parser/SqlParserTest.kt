@@ -141,6 +141,34 @@ class SqlParserTest {
         )
     }
 
+    @Test
+    fun extractOrderingTerms() {
+        assertThat(
+            SqlParser.parse("select * from users order by age desc, `id`").orderingTerms,
+            `is`(listOf(OrderingTerm("age", true), OrderingTerm("id", false)))
+        )
+        assertThat(
+            SqlParser.parse("select * from users order by users.name asc").orderingTerms,
+            `is`(listOf(OrderingTerm("name", false)))
+        )
+        assertThat(
+            SqlParser.parse("select * from users order by name collate nocase").orderingTerms,
+            `is`(listOf(OrderingTerm(null, false)))
+        )
+        assertThat(
+            SqlParser.parse("select * from users order by age + 1").orderingTerms,
+            `is`(listOf(OrderingTerm(null, false)))
+        )
+        assertThat(
+            SqlParser.parse("select * from users order by age limit 10").orderingTerms,
+            `is`(emptyList())
+        )
+        assertThat(
+            SqlParser.parse("select * from users").orderingTerms,
+            `is`(emptyList())
+        )
+    }
+
     @Test
     fun tablePrefixInInsert_set() {
         // this is an invalid query, b/64539805
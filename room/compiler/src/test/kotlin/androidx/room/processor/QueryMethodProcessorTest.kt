@@ -28,11 +28,13 @@ import androidx.room.ext.CommonTypeNames
 import androidx.room.ext.KotlinTypeNames
 import androidx.room.ext.LifecyclesTypeNames
 import androidx.room.ext.PagingTypeNames
+import androidx.room.ext.RoomTypeNames
 import androidx.room.ext.typeName
 import androidx.room.parser.QueryType
 import androidx.room.parser.Table
 import androidx.room.processor.ProcessorErrors.cannotFindQueryResultAdapter
 import androidx.room.solver.query.result.DataSourceFactoryQueryResultBinder
+import androidx.room.solver.query.result.KeysetOrdering
 import androidx.room.solver.query.result.ListQueryResultAdapter
 import androidx.room.solver.query.result.LiveDataQueryResultBinder
 import androidx.room.solver.query.result.PojoRowAdapter
@@ -46,16 +48,19 @@ import androidx.room.vo.WriteQueryMethod
 import com.google.common.truth.Truth.assertThat
 import com.squareup.javapoet.ArrayTypeName
 import com.squareup.javapoet.ClassName
+import com.squareup.javapoet.FieldSpec
 import com.squareup.javapoet.ParameterizedTypeName
 import com.squareup.javapoet.TypeName
 import com.squareup.javapoet.TypeVariableName
 import createVerifierFromEntitiesAndViews
 import mockElementAndType
 import org.hamcrest.CoreMatchers.`is`
+import org.hamcrest.CoreMatchers.containsString
 import org.hamcrest.CoreMatchers.hasItem
 import org.hamcrest.CoreMatchers.instanceOf
 import org.hamcrest.CoreMatchers.not
 import org.hamcrest.CoreMatchers.notNullValue
+import org.hamcrest.CoreMatchers.nullValue
 import org.hamcrest.MatcherAssert.assertThat
 import org.junit.Assert.assertEquals
 import org.junit.AssumptionViolatedException
@@ -63,6 +68,7 @@ import org.junit.Test
 import org.junit.runner.RunWith
 import org.junit.runners.Parameterized
 import org.mockito.Mockito
+import testCodeGenScope
 
 @Suppress("PLATFORM_CLASS_MAPPED_TO_KOTLIN")
 @RunWith(Parameterized::class)
@@ -81,6 +87,29 @@ class QueryMethodProcessorTest(private val enableVerification: Boolean) {
         @JvmStatic
         fun getParams() = arrayOf(true, false)
 
+        val KEYSET_ITEM = Source.java(
+            "foo.bar.Item",
+            """
+                package foo.bar;
+                import androidx.annotation.NonNull;
+                import androidx.room.*;
+                @Entity(indices = {
+                        @Index({"tag", "id"}),
+                        @Index({"label", "id"}),
+                        @Index({"title", "id"})})
+                public class Item {
+                    @PrimaryKey
+                    public int id;
+                    @NonNull
+                    public String tag;
+                    public String label;
+                    @NonNull
+                    @ColumnInfo(collate = ColumnInfo.NOCASE)
+                    public String title;
+                }
+                """
+        )
+
         fun createField(name: String, columnName: String? = null): Field {
             val (element, type) = mockElementAndType()
             return Field(
@@ -676,6 +705,133 @@ class QueryMethodProcessorTest(private val enableVerification: Boolean) {
         }
     }
 
+    @Test
+    fun keysetDataSource_notNullIndexedColumn() {
+        singleQueryMethod<ReadQueryMethod>(
+            """
+                @Query("select uid from user order by uid")
+                abstract ${PagingTypeNames.DATA_SOURCE_FACTORY}<Integer, Integer> uids();
+                """
+        ) { parsedQuery, _ ->
+            val binder = (parsedQuery.queryResultBinder as DataSourceFactoryQueryResultBinder)
+                .positionalDataSourceQueryResultBinder
+            if (enableVerification) {
+                assertThat(
+                    binder.keysetOrdering,
+                    `is`(KeysetOrdering(listOf("uid"), listOf(false)))
+                )
+                assertThat(binder.typeName.rawType, `is`(RoomTypeNames.KEYSET_DATA_SOURCE))
+            } else {
+                assertThat(binder.keysetOrdering, `is`(nullValue()))
+                assertThat(binder.typeName.rawType, `is`(RoomTypeNames.LIMIT_OFFSET_DATA_SOURCE))
+            }
+        }
+    }
+
+    @Test
+    fun keysetDataSource_descending() {
+        if (!enableVerification) {
+            throw AssumptionViolatedException("Keyset paging requires the database verifier")
+        }
+        singleQueryMethod<ReadQueryMethod>(
+            """
+                @Query("select uid from user order by uid desc")
+                abstract ${PagingTypeNames.DATA_SOURCE_FACTORY}<Integer, Integer> uids();
+                """
+        ) { parsedQuery, _ ->
+            val binder = (parsedQuery.queryResultBinder as DataSourceFactoryQueryResultBinder)
+                .positionalDataSourceQueryResultBinder
+            val ordering = checkNotNull(binder.keysetOrdering)
+            assertThat(ordering, `is`(KeysetOrdering(listOf("uid"), listOf(true))))
+            assertThat(
+                ordering.createSeekQuery("select uid from user order by uid desc"),
+                `is`(
+                    "SELECT * FROM ( select uid from user order by uid desc ) " +
+                        "WHERE `uid` <= ? ORDER BY `uid` DESC LIMIT ? OFFSET ?"
+                )
+            )
+            val scope = testCodeGenScope()
+            binder.convertAndReturn(
+                roomSQLiteQueryVar = "_statement",
+                canReleaseQuery = true,
+                dbField = FieldSpec.builder(RoomTypeNames.ROOM_DB, "__db").build(),
+                inTransaction = false,
+                scope = scope
+            )
+            val code = scope.generate().toString()
+            assertThat(code, containsString(RoomTypeNames.KEYSET_DATA_SOURCE.toString()))
+            assertThat(
+                code,
+                containsString(
+                    "__db, _statement, false, true, new String[] {\"uid\"}, " +
+                        "new boolean[] {true} , \"user\""
+                )
+            )
+        }
+    }
+
+    @Test
+    fun keysetDataSource_compositeKey() {
+        if (!enableVerification) {
+            throw AssumptionViolatedException("Keyset paging requires the database verifier")
+        }
+        singleQueryMethod<ReadQueryMethod>(
+            """
+                @Query("select * from Item order by tag desc, id desc")
+                abstract ${PagingTypeNames.DATA_SOURCE_FACTORY}<Integer, Item> items();
+                """,
+            additionalSources = listOf(KEYSET_ITEM)
+        ) { parsedQuery, _ ->
+            val binder = (parsedQuery.queryResultBinder as DataSourceFactoryQueryResultBinder)
+                .positionalDataSourceQueryResultBinder
+            val ordering = checkNotNull(binder.keysetOrdering)
+            assertThat(ordering, `is`(KeysetOrdering(listOf("tag", "id"), listOf(true, true))))
+            assertThat(
+                ordering.createSeekQuery("select * from Item order by tag desc, id desc"),
+                `is`(
+                    "SELECT * FROM ( select * from Item order by tag desc, id desc ) " +
+                        "WHERE `tag` <= ? AND (`tag` < ? OR (`tag` = ? AND (`id` <= ?))) " +
+                        "ORDER BY `tag` DESC, `id` DESC LIMIT ? OFFSET ?"
+                )
+            )
+        }
+    }
+
+    @Test
+    fun keysetDataSource_nullableColumn() {
+        // NULL keys are never matched by the seek comparisons, so LIMIT / OFFSET is used even
+        // though the (label, id) index provides the ordering.
+        singleQueryMethod<ReadQueryMethod>(
+            """
+                @Query("select * from Item order by label, id")
+                abstract ${PagingTypeNames.DATA_SOURCE_FACTORY}<Integer, Item> items();
+                """,
+            additionalSources = listOf(KEYSET_ITEM)
+        ) { parsedQuery, _ ->
+            val binder = (parsedQuery.queryResultBinder as DataSourceFactoryQueryResultBinder)
+                .positionalDataSourceQueryResultBinder
+            assertThat(binder.keysetOrdering, `is`(nullValue()))
+            assertThat(binder.typeName.rawType, `is`(RoomTypeNames.LIMIT_OFFSET_DATA_SOURCE))
+        }
+    }
+
+    @Test
+    fun keysetDataSource_nocaseColumn() {
+        // Ties are detected in Java, which does not agree with a NOCASE comparison.
+        singleQueryMethod<ReadQueryMethod>(
+            """
+                @Query("select * from Item order by title, id")
+                abstract ${PagingTypeNames.DATA_SOURCE_FACTORY}<Integer, Item> items();
+                """,
+            additionalSources = listOf(KEYSET_ITEM)
+        ) { parsedQuery, _ ->
+            val binder = (parsedQuery.queryResultBinder as DataSourceFactoryQueryResultBinder)
+                .positionalDataSourceQueryResultBinder
+            assertThat(binder.keysetOrdering, `is`(nullValue()))
+            assertThat(binder.typeName.rawType, `is`(RoomTypeNames.LIMIT_OFFSET_DATA_SOURCE))
+        }
+    }
+
     @Test
     fun testBadChannelReturnForQuery() {
         singleQueryMethod<QueryMethod>(
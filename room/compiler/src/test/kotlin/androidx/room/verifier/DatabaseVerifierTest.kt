@@ -236,6 +236,41 @@ class DatabaseVerifierTest(private val useLocalizedCollation: Boolean) {
         }
     }
 
+    @Test
+    fun testNotNullColumns() {
+        runProcessorTest { invocation ->
+            val verifier = createVerifier(invocation)
+            assertThat(verifier.areNotNull("SELECT * FROM User", listOf("id", "ratio")), `is`(true))
+            assertThat(verifier.areNotNull("SELECT * FROM User", listOf("id", "name")), `is`(false))
+            assertThat(verifier.areNotNull("SELECT * FROM UserSummary", listOf("id")), `is`(true))
+            assertThat(
+                verifier.areNotNull("SELECT id + 1 AS id FROM User", listOf("id")),
+                `is`(false)
+            )
+            assertThat(verifier.areNotNull("SELECT id FROM User", listOf("ratio")), `is`(false))
+        }
+    }
+
+    @Test
+    fun testBinaryCollation() {
+        runProcessorTest { invocation ->
+            val verifier = createVerifier(invocation)
+            assertThat(
+                verifier.usesBinaryCollation("SELECT * FROM User WHERE id > ? ORDER BY id"),
+                `is`(true)
+            )
+            assertThat(
+                verifier.usesBinaryCollation("SELECT * FROM User WHERE name > ? ORDER BY name"),
+                `is`(!useLocalizedCollation)
+            )
+            assertThat(
+                verifier.usesBinaryCollation("SELECT * FROM User ORDER BY lastName COLLATE NOCASE"),
+                `is`(false)
+            )
+            assertThat(verifier.usesBinaryCollation("SELECT foo FROM User"), `is`(false))
+        }
+    }
+
     @Test
     fun testFullViewQuery() {
         validQueryTest("select * from UserSummary") {
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room.integration.testapp.paging;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import android.database.Cursor;
+
+import androidx.annotation.NonNull;
+import androidx.room.integration.testapp.test.TestDatabaseTest;
+import androidx.room.integration.testapp.test.TestUtil;
+import androidx.room.integration.testapp.vo.User;
+import androidx.room.paging.KeysetDataSource;
+import androidx.sqlite.db.SimpleSQLiteQuery;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.MediumTest;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@MediumTest
+@RunWith(AndroidJUnit4.class)
+public class KeysetDataSourceTest extends TestDatabaseTest {
+
+    @After
+    public void teardown() {
+        mUserDao.deleteEverything();
+    }
+
+    @Test
+    public void ascending() {
+        createUsers(20, 1);
+        String sql = "SELECT * FROM User ORDER BY mId";
+        KeysetDataSource<Integer> dataSource = createDataSource(sql,
+                new String[]{"mId"}, new boolean[]{false});
+        assertPages(dataSource, loadIds(sql), 3);
+    }
+
+    @Test
+    public void descending() {
+        createUsers(20, 1);
+        String sql = "SELECT * FROM User ORDER BY mId DESC";
+        KeysetDataSource<Integer> dataSource = createDataSource(sql,
+                new String[]{"mId"}, new boolean[]{true});
+        assertPages(dataSource, loadIds(sql), 3);
+    }
+
+    @Test
+    public void descendingWithTies() {
+        // Every age is shared by several users, so pages start and end inside runs of ties.
+        createUsers(25, 4);
+        String sql = "SELECT * FROM User ORDER BY mAge DESC, mId";
+        KeysetDataSource<Integer> dataSource = createDataSource(sql,
+                new String[]{"mAge", "mId"}, new boolean[]{true, false});
+        assertPages(dataSource, loadIds(sql), 3);
+    }
+
+    @Test
+    public void nullKeys() {
+        // NULL names sort first; anchors holding them fall back to LIMIT / OFFSET.
+        for (int i = 0; i < 20; i++) {
+            User user = TestUtil.createUser(i);
+            user.setName(i % 3 == 0 ? null : "name" + (i % 4));
+            mUserDao.insert(user);
+        }
+        String sql = "SELECT * FROM User ORDER BY mName, mId";
+        KeysetDataSource<Integer> dataSource = createDataSource(sql,
+                new String[]{"mName", "mId"}, new boolean[]{false, false});
+        assertPages(dataSource, loadIds(sql), 3);
+    }
+
+    @Test
+    public void rangeAfterAnchor() {
+        createUsers(20, 3);
+        String sql = "SELECT * FROM User ORDER BY mAge DESC, mId";
+        KeysetDataSource<Integer> dataSource = createDataSource(sql,
+                new String[]{"mAge", "mId"}, new boolean[]{true, false});
+        List<Integer> expected = loadIds(sql);
+        assertThat(dataSource.loadRange(0, 4), is(expected.subList(0, 4)));
+        // Starts two rows past the anchor left by the first page.
+        assertThat(dataSource.loadRange(6, 5), is(expected.subList(6, 11)));
+        assertThat(dataSource.loadRange(15, 10), is(expected.subList(15, 20)));
+    }
+
+    private static void assertPages(KeysetDataSource<Integer> dataSource,
+            List<Integer> expected, int pageSize) {
+        List<Integer> loaded = new ArrayList<>();
+        for (int start = 0; start < expected.size() + pageSize; start += pageSize) {
+            loaded.addAll(dataSource.loadRange(start, pageSize));
+        }
+        assertThat(loaded, is(expected));
+        // Reloading from a row past an anchor must return the same rows.
+        assertThat(dataSource.loadRange(pageSize + 1, pageSize),
+                is(expected.subList(pageSize + 1, 2 * pageSize + 1)));
+    }
+
+    private KeysetDataSource<Integer> createDataSource(String sql, String[] keyColumns,
+            boolean[] descending) {
+        return new KeysetDataSource<Integer>(mDatabase, new SimpleSQLiteQuery(sql), false, true,
+                keyColumns, descending, "User") {
+            @Override
+            protected List<Integer> convertRows(@NonNull Cursor cursor) {
+                return readIds(cursor);
+            }
+        };
+    }
+
+    private List<Integer> loadIds(String sql) {
+        Cursor cursor = mDatabase.query(new SimpleSQLiteQuery(sql));
+        try {
+            return readIds(cursor);
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private static List<Integer> readIds(Cursor cursor) {
+        int idIndex = cursor.getColumnIndexOrThrow("mId");
+        List<Integer> ids = new ArrayList<>(cursor.getCount());
+        while (cursor.moveToNext()) {
+            ids.add(cursor.getInt(idIndex));
+        }
+        return ids;
+    }
+
+    private void createUsers(int count, int ageGroupSize) {
+        for (int i = 0; i < count; i++) {
+            User user = TestUtil.createUser(i);
+            user.setAge(i / ageGroupSize);
+            mUserDao.insert(user);
+        }
+    }
+}
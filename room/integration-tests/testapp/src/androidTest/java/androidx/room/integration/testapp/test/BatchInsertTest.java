@@ -0,0 +1,134 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room.integration.testapp.test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import android.content.Context;
+
+import androidx.room.Dao;
+import androidx.room.Database;
+import androidx.room.Entity;
+import androidx.room.Insert;
+import androidx.room.PrimaryKey;
+import androidx.room.Query;
+import androidx.room.Room;
+import androidx.room.RoomDatabase;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.MediumTest;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@MediumTest
+@RunWith(AndroidJUnit4.class)
+public class BatchInsertTest {
+
+    @Entity
+    public static class Tag {
+        @PrimaryKey
+        public long id;
+
+        public Tag(long id) {
+            this.id = id;
+        }
+    }
+
+    @Dao
+    public interface TagDao {
+        @Insert
+        void insertList(List<Tag> tags);
+
+        @Insert
+        void insertArray(Tag... tags);
+
+        @Query("SELECT COUNT(*) FROM Tag")
+        int count();
+
+        @Query("SELECT id FROM Tag ORDER BY id")
+        List<Long> loadIds();
+    }
+
+    @Database(entities = {Tag.class}, version = 1, exportSchema = false)
+    public abstract static class TagDatabase extends RoomDatabase {
+        public abstract TagDao dao();
+    }
+
+    private TagDatabase mDatabase;
+
+    @Before
+    public void openDatabase() {
+        final Context context = ApplicationProvider.getApplicationContext();
+        mDatabase = Room.inMemoryDatabaseBuilder(context, TagDatabase.class).build();
+    }
+
+    @After
+    public void closeDatabase() {
+        mDatabase.close();
+    }
+
+    @Test
+    public void insertListOfSingleColumnRows() {
+        // One argument per row, so more than 500 rows would fit in the bind argument limit.
+        final List<Tag> tags = createTags(0, 1234);
+        mDatabase.dao().insertList(tags);
+        assertThat(mDatabase.dao().count(), is(1234));
+        assertThat(mDatabase.dao().loadIds(), is(idsOf(tags)));
+    }
+
+    @Test
+    public void insertArrayOfSingleColumnRows() {
+        final List<Tag> tags = createTags(0, 1001);
+        mDatabase.dao().insertArray(tags.toArray(new Tag[0]));
+        assertThat(mDatabase.dao().count(), is(1001));
+        assertThat(mDatabase.dao().loadIds(), is(idsOf(tags)));
+    }
+
+    @Test
+    public void insertRepeatedly() {
+        // The second insert reuses the statements compiled by the first one.
+        final List<Tag> tags = createTags(0, 700);
+        mDatabase.dao().insertList(tags);
+        final List<Tag> more = createTags(700, 700);
+        mDatabase.dao().insertList(more);
+        tags.addAll(more);
+        assertThat(mDatabase.dao().loadIds(), is(idsOf(tags)));
+    }
+
+    private static List<Tag> createTags(long firstId, int count) {
+        final List<Tag> tags = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            tags.add(new Tag(firstId + i));
+        }
+        return tags;
+    }
+
+    private static List<Long> idsOf(List<Tag> tags) {
+        final List<Long> ids = new ArrayList<>(tags.size());
+        for (Tag tag : tags) {
+            ids.add(tag.id);
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import android.database.CharArrayBuffer;
+import android.database.Cursor;
+import android.database.CursorIndexOutOfBoundsException;
+
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteOpenHelper;
+import androidx.sqlite.db.framework.FrameworkSQLiteOpenHelperFactory;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+@SmallTest
+@RunWith(AndroidJUnit4.class)
+public class ColumnarCursorTest {
+    private static final int ROW_COUNT = 2_000;
+
+    private SupportSQLiteDatabase mDb;
+
+    @Before
+    public void setup() {
+        mDb = createDatabase("CREATE TABLE foo (id INTEGER PRIMARY KEY, name TEXT, "
+                + "score REAL, data BLOB)");
+        mDb.beginTransaction();
+        try {
+            for (int i = 0; i < ROW_COUNT; i++) {
+                mDb.execSQL("INSERT INTO foo VALUES (?, ?, ?, ?)", new Object[]{
+                        i,
+                        i % 10 == 0 ? null : "name " + i,
+                        i * 0.5,
+                        new byte[]{(byte) i, (byte) (i >> 8)}
+                });
+            }
+            mDb.setTransactionSuccessful();
+        } finally {
+            mDb.endTransaction();
+        }
+    }
+
+    @After
+    public void tearDown() {
+        mDb.close();
+    }
+
+    @Test
+    public void copyMatchesSource() {
+        Cursor copy = CursorUtil.copyAndClose(mDb.query("SELECT * FROM foo ORDER BY id"));
+        try {
+            assertTrue(copy instanceof ColumnarCursor);
+            assertEquals(ROW_COUNT, copy.getCount());
+            assertArrayEquals(new String[]{"id", "name", "score", "data"},
+                    copy.getColumnNames());
+            int i = 0;
+            while (copy.moveToNext()) {
+                assertEquals(Cursor.FIELD_TYPE_INTEGER, copy.getType(0));
+                assertEquals(i, copy.getInt(0));
+                if (i % 10 == 0) {
+                    assertTrue(copy.isNull(1));
+                    assertNull(copy.getString(1));
+                } else {
+                    assertFalse(copy.isNull(1));
+                    assertEquals("name " + i, copy.getString(1));
+                }
+                assertEquals(i * 0.5, copy.getDouble(2), 0.0);
+                assertArrayEquals(new byte[]{(byte) i, (byte) (i >> 8)}, copy.getBlob(3));
+                i++;
+            }
+            assertEquals(ROW_COUNT, i);
+        } finally {
+            copy.close();
+        }
+    }
+
+    @Test
+    public void copyCanBeIteratedMoreThanOnce() {
+        Cursor copy = CursorUtil.copyAndClose(mDb.query("SELECT id FROM foo ORDER BY id"));
+        try {
+            long sum = 0;
+            while (copy.moveToNext()) {
+                sum += copy.getLong(0);
+            }
+            assertTrue(copy.moveToFirst());
+            long secondSum = 0;
+            do {
+                secondSum += copy.getLong(0);
+            } while (copy.moveToNext());
+            assertEquals(sum, secondSum);
+        } finally {
+            copy.close();
+        }
+    }
+
+    @Test
+    public void copyStringToBufferReusesBuffer() {
+        Cursor copy = CursorUtil.copyAndClose(mDb.query("SELECT name FROM foo WHERE id = 1"));
+        try {
+            assertTrue(copy.moveToFirst());
+            CharArrayBuffer buffer = new CharArrayBuffer(64);
+            char[] data = buffer.data;
+            copy.copyStringToBuffer(0, buffer);
+            assertTrue(data == buffer.data);
+            assertEquals("name 1", new String(buffer.data, 0, buffer.sizeCopied));
+        } finally {
+            copy.close();
+        }
+    }
+
+    @Test
+    public void numericConversions() {
+        Cursor copy = CursorUtil.copyAndClose(
+                mDb.query("SELECT '42', 7, 2.5, NULL"));
+        try {
+            assertTrue(copy.moveToFirst());
+            assertEquals(42L, copy.getLong(0));
+            assertEquals("7", copy.getString(1));
+            assertEquals(2L, copy.getLong(2));
+            assertEquals(0, copy.getInt(3));
+            assertEquals(Cursor.FIELD_TYPE_NULL, copy.getType(3));
+        } finally {
+            copy.close();
+        }
+    }
+
+    @Test(expected = CursorIndexOutOfBoundsException.class)
+    public void readBeforeFirstRowThrows() {
+        Cursor copy = CursorUtil.copyAndClose(mDb.query("SELECT id FROM foo"));
+        try {
+            copy.getLong(0);
+        } finally {
+            copy.close();
+        }
+    }
+
+    @Test
+    public void emptyResult() {
+        Cursor copy = CursorUtil.copyAndClose(mDb.query("SELECT * FROM foo WHERE id < 0"));
+        try {
+            assertEquals(0, copy.getCount());
+            assertFalse(copy.moveToNext());
+        } finally {
+            copy.close();
+        }
+    }
+
+    private static SupportSQLiteDatabase createDatabase(final String... queries) {
+        return new FrameworkSQLiteOpenHelperFactory().create(
+                SupportSQLiteOpenHelper.Configuration
+                        .builder(ApplicationProvider.getApplicationContext())
+                        .name(null)
+                        .callback(new SupportSQLiteOpenHelper.Callback(1) {
+                            @Override
+                            public void onCreate(SupportSQLiteDatabase db) {
+                                for (String query : queries) {
+                                    db.execSQL(query);
+                                }
+                            }
+
+                            @Override
+                            public void onUpgrade(SupportSQLiteDatabase db, int oldVersion,
+                                    int newVersion) {
+                                throw new IllegalStateException("should not be upgrading");
+                            }
+                        }).build()
+        ).getWritableDatabase();
+    }
+}
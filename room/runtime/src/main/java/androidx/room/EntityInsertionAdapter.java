@@ -16,17 +16,35 @@
 
 package androidx.room;
 
+import android.os.Build;
+
+import androidx.annotation.Nullable;
 import androidx.annotation.RestrictTo;
+import androidx.annotation.VisibleForTesting;
 import androidx.sqlite.db.SupportSQLiteStatement;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
 
 /**
  * Implementations of this class knows how to insert a particular entity.
  * <p>
  * This is an internal library class and all of its implementations are auto-generated.
+ * <p>
+ * When the implementation provides {@link #createBatchQueryPrefix()} and
+ * {@link #createBatchQueryRow()}, the {@code insert} methods that do not return row ids insert
+ * several entities per statement using a multi-row {@code INSERT ... VALUES (...),(...)}, with as
+ * many rows as fit in {@link RoomDatabase#MAX_BIND_PARAMETER_CNT} bind arguments and at most 500
+ * rows, the compound SELECT limit that SQLite applies to multi-row VALUES before 3.8.8. Multi-row
+ * VALUES needs SQLite 3.7.11, so entities are inserted one per statement before API 16. A multi-row
+ * statement only reports the row id of its last row, so the methods returning row ids always
+ * insert one entity per statement.
  *
  * @param <T> The type parameter of the entity to be inserted
  * @hide
@@ -34,6 +52,17 @@ import java.util.List;
 @SuppressWarnings({"WeakerAccess", "unused"})
 @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP_PREFIX)
 public abstract class EntityInsertionAdapter<T> extends SharedSQLiteStatement {
+    // SQLITE_MAX_COMPOUND_SELECT, which also limits multi-row VALUES before SQLite 3.8.8.
+    private static final int MAX_BATCH_ROWS = 500;
+
+    private final RoomDatabase mDatabase;
+    // Idle multi-row statements keyed by their row count. Only the largest batch size and powers
+    // of two below it are used, so at most a handful of statements are kept.
+    private final Map<Integer, SupportSQLiteStatement> mBatchStatements = new HashMap<>();
+    // 0 until computed, -1 if multi-row statements are not supported.
+    private volatile int mMaxBatchRows;
+    private int mBatchArgCount;
+
     /**
      * Creates an InsertionAdapter that can insert the entity type T into the given database.
      *
@@ -41,6 +70,7 @@ public abstract class EntityInsertionAdapter<T> extends SharedSQLiteStatement {
      */
     public EntityInsertionAdapter(RoomDatabase database) {
         super(database);
+        mDatabase = database;
     }
 
     /**
@@ -52,6 +82,28 @@ public abstract class EntityInsertionAdapter<T> extends SharedSQLiteStatement {
      */
     protected abstract void bind(SupportSQLiteStatement statement, T entity);
 
+    /**
+     * Returns the beginning of a multi-row insert query, up to and including {@code VALUES}, or
+     * null if this adapter only inserts one row per statement.
+     *
+     * @return The query prefix shared by all multi-row statements.
+     */
+    @Nullable
+    protected String createBatchQueryPrefix() {
+        return null;
+    }
+
+    /**
+     * Returns the bind argument placeholders of a single row of a multi-row insert query, such
+     * as {@code (?,?)}, or null if this adapter only inserts one row per statement.
+     *
+     * @return The placeholders of one row, which are bound by {@link #bind}.
+     */
+    @Nullable
+    protected String createBatchQueryRow() {
+        return null;
+    }
+
     /**
      * Inserts the entity into the database.
      *
@@ -73,6 +125,10 @@ public abstract class EntityInsertionAdapter<T> extends SharedSQLiteStatement {
      * @param entities Entities to insert
      */
     public final void insert(T[] entities) {
+        if (entities.length > 1 && getMaxBatchRows() > 1) {
+            insertBatched(Arrays.asList(entities));
+            return;
+        }
         final SupportSQLiteStatement stmt = acquire();
         try {
             for (T entity : entities) {
@@ -90,6 +146,23 @@ public abstract class EntityInsertionAdapter<T> extends SharedSQLiteStatement {
      * @param entities Entities to insert
      */
     public final void insert(Iterable<? extends T> entities) {
+        if (getMaxBatchRows() > 1) {
+            final List<? extends T> list;
+            if (entities instanceof List && entities instanceof RandomAccess) {
+                list = (List<? extends T>) entities;
+            } else {
+                // Rows are read by index, which is linear in lists like LinkedList
+                final ArrayList<T> copy = new ArrayList<>();
+                for (T entity : entities) {
+                    copy.add(entity);
+                }
+                list = copy;
+            }
+            if (list.size() > 1) {
+                insertBatched(list);
+                return;
+            }
+        }
         final SupportSQLiteStatement stmt = acquire();
         try {
             for (T entity : entities) {
@@ -248,4 +321,110 @@ public abstract class EntityInsertionAdapter<T> extends SharedSQLiteStatement {
             release(stmt);
         }
     }
+
+    private int getMaxBatchRows() {
+        int maxRows = mMaxBatchRows;
+        if (maxRows == 0) {
+            final String row = createBatchQueryRow();
+            int argCount = 0;
+            if (row != null && createBatchQueryPrefix() != null) {
+                for (int i = 0; i < row.length(); i++) {
+                    if (row.charAt(i) == '?') {
+                        argCount++;
+                    }
+                }
+            }
+            maxRows = argCount == 0 || !isMultiRowInsertSupported()
+                    ? -1 : Math.min(RoomDatabase.MAX_BIND_PARAMETER_CNT / argCount, MAX_BATCH_ROWS);
+            mBatchArgCount = argCount;
+            mMaxBatchRows = maxRows;
+        }
+        return maxRows;
+    }
+
+    /**
+     * Returns true if the SQLite version of the device accepts multi-row {@code VALUES}, which
+     * were added in SQLite 3.7.11 and ship with API 16.
+     */
+    @VisibleForTesting
+    boolean isMultiRowInsertSupported() {
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN;
+    }
+
+    private void insertBatched(List<? extends T> entities) {
+        final int maxRows = mMaxBatchRows;
+        final int size = entities.size();
+        int index = 0;
+        while (size - index >= maxRows) {
+            insertRows(entities, index, maxRows);
+            index += maxRows;
+        }
+        // Split the remainder into powers of two so that only a few statements are ever cached.
+        int remaining = size - index;
+        while (remaining > 0) {
+            final int rows = Integer.highestOneBit(remaining);
+            insertRows(entities, index, rows);
+            index += rows;
+            remaining -= rows;
+        }
+    }
+
+    private void insertRows(List<? extends T> entities, int from, int rowCount) {
+        if (rowCount == 1) {
+            final SupportSQLiteStatement stmt = acquire();
+            try {
+                bind(stmt, entities.get(from));
+                stmt.executeInsert();
+            } finally {
+                release(stmt);
+            }
+            return;
+        }
+        final SupportSQLiteStatement stmt = acquireBatch(rowCount);
+        try {
+            final RowBindingStatement rowStmt = new RowBindingStatement(stmt, mBatchArgCount);
+            for (int row = 0; row < rowCount; row++) {
+                rowStmt.setRow(row);
+                bind(rowStmt, entities.get(from + row));
+            }
+            stmt.executeInsert();
+        } finally {
+            releaseBatch(rowCount, stmt);
+        }
+    }
+
+    private SupportSQLiteStatement acquireBatch(int rowCount) {
+        assertNotMainThread();
+        final SupportSQLiteStatement stmt;
+        synchronized (mBatchStatements) {
+            stmt = mBatchStatements.remove(rowCount);
+        }
+        if (stmt != null) {
+            return stmt;
+        }
+        final String row = createBatchQueryRow();
+        final StringBuilder query = new StringBuilder(createBatchQueryPrefix());
+        for (int i = 0; i < rowCount; i++) {
+            if (i > 0) {
+                query.append(',');
+            }
+            query.append(row);
+        }
+        return mDatabase.compileStatement(query.toString());
+    }
+
+    private void releaseBatch(int rowCount, SupportSQLiteStatement stmt) {
+        synchronized (mBatchStatements) {
+            if (!mBatchStatements.containsKey(rowCount)) {
+                mBatchStatements.put(rowCount, stmt);
+                return;
+            }
+        }
+        // Another thread released a statement of the same size first, this one was a one off.
+        try {
+            stmt.close();
+        } catch (IOException ignored) {
+            // Closing a compiled statement does not throw.
+        }
+    }
 }
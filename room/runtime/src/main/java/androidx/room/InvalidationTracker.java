@@ -43,6 +43,10 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.Lock;
 
@@ -61,6 +65,10 @@ import java.util.concurrent.locks.Lock;
 // memory table table, flipping the invalidated flag ON.
 // * When multi-instance invalidation is turned on, MultiInstanceInvalidationClient will be created.
 // It works as an Observer, and notifies other instances of table invalidation.
+// * When coalesced refresh is turned on, commits made while no table is observed do not schedule a
+// refresh at all, and a refresh scheduled by one commit is delayed so that commits in the
+// following interval are picked up by the same refresh. Refreshes still read the modification
+// log, so writes made through other connections are not missed.
 public class InvalidationTracker {
 
     private static final String[] TRIGGERS = new String[]{"UPDATE", "DELETE", "INSERT"};
@@ -98,6 +106,15 @@ public class InvalidationTracker {
 
     AtomicBoolean mPendingRefresh = new AtomicBoolean(false);
 
+    // Whether refreshes are skipped while nothing is observed and delayed by mRefreshDelayMillis.
+    private volatile boolean mCoalescedRefresh = false;
+
+    private volatile long mRefreshDelayMillis = 0;
+
+    // Hands delayed refreshes to the query executor, created on first use.
+    @Nullable
+    private ScheduledExecutorService mRefreshScheduler;
+
     private volatile boolean mInitialized = false;
 
     @SuppressWarnings("WeakerAccess") /* synthetic access */
@@ -210,6 +227,21 @@ public class InvalidationTracker {
         }
     }
 
+    /**
+     * Turns on coalesced refresh: commits made while no table is observed do not refresh, and
+     * the refresh following a commit waits for {@code delayMillis} so that it also covers the
+     * commits made in the meantime.
+     * <p>
+     * This must be called before the database is used.
+     *
+     * @param delayMillis how long a refresh waits after the commit that scheduled it, 0 to
+     *                    refresh as soon as possible.
+     */
+    void setCoalescedRefresh(long delayMillis) {
+        mRefreshDelayMillis = delayMillis;
+        mCoalescedRefresh = true;
+    }
+
     void startMultiInstanceInvalidation(Context context, String name) {
         mMultiInstanceInvalidationClient = new MultiInstanceInvalidationClient(context, name, this,
                 mDatabase.getQueryExecutor());
@@ -480,6 +512,10 @@ public class InvalidationTracker {
      */
     @SuppressWarnings("WeakerAccess")
     public void refreshVersionsAsync() {
+        if (mCoalescedRefresh && !mObservedTableTracker.hasObservedTables()) {
+            // No triggers are installed, so there is nothing to refresh.
+            return;
+        }
         // TODO we should consider doing this sync instead of async.
         if (mPendingRefresh.compareAndSet(false, true)) {
             if (mAutoCloser != null) {
@@ -489,8 +525,42 @@ public class InvalidationTracker {
                 // matched with a corresponding call in mRefreshRunnable.
                 mAutoCloser.incrementCountAndEnsureDbIsOpen();
             }
+            final long delayMillis = mRefreshDelayMillis;
+            if (delayMillis > 0) {
+                // mPendingRefresh stays set until the refresh runs, so commits made during the
+                // delay do not schedule another one.
+                getRefreshScheduler().schedule(mExecuteRefreshRunnable, delayMillis,
+                        TimeUnit.MILLISECONDS);
+            } else {
+                mDatabase.getQueryExecutor().execute(mRefreshRunnable);
+            }
+        }
+    }
+
+    private final Runnable mExecuteRefreshRunnable = new Runnable() {
+        @Override
+        public void run() {
             mDatabase.getQueryExecutor().execute(mRefreshRunnable);
         }
+    };
+
+    private synchronized ScheduledExecutorService getRefreshScheduler() {
+        if (mRefreshScheduler == null) {
+            // The thread only waits for the delay, so it is not kept once no refresh is pending.
+            ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1,
+                    new ThreadFactory() {
+                        @Override
+                        public Thread newThread(@NonNull Runnable runnable) {
+                            Thread thread = new Thread(runnable, "Room-InvalidationTracker");
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+            scheduler.setKeepAliveTime(1, TimeUnit.SECONDS);
+            scheduler.allowCoreThreadTimeOut(true);
+            mRefreshScheduler = scheduler;
+        }
+        return mRefreshScheduler;
     }
 
     /**
@@ -780,6 +850,8 @@ public class InvalidationTracker {
 
         // number of observers per table
         final long[] mTableObservers;
+        // number of tables with at least one observer
+        int mObservedTableCount;
         // trigger state for each table at last sync
         // this field is updated when syncAndGet is called.
         final boolean[] mTriggerStates;
@@ -813,6 +885,7 @@ public class InvalidationTracker {
                     final long prevObserverCount = mTableObservers[tableId];
                     mTableObservers[tableId] = prevObserverCount + 1;
                     if (prevObserverCount == 0) {
+                        mObservedTableCount++;
                         mNeedsSync = true;
                         needTriggerSync = true;
                     }
@@ -831,6 +904,7 @@ public class InvalidationTracker {
                     final long prevObserverCount = mTableObservers[tableId];
                     mTableObservers[tableId] = prevObserverCount - 1;
                     if (prevObserverCount == 1) {
+                        mObservedTableCount--;
                         mNeedsSync = true;
                         needTriggerSync = true;
                     }
@@ -839,6 +913,15 @@ public class InvalidationTracker {
             return needTriggerSync;
         }
 
+        /**
+         * @return true if at least one table has an observer.
+         */
+        boolean hasObservedTables() {
+            synchronized (this) {
+                return mObservedTableCount > 0;
+            }
+        }
+
         /**
          * If we are re-opening the db we'll need to add all the triggers that we need so change
          * the current state to false for all.
@@ -815,6 +815,9 @@ public abstract class RoomDatabase {
         private long mAutoCloseTimeout = -1L;
         private TimeUnit mAutoCloseTimeUnit;
 
+        private long mInvalidationCoalescingInterval = -1L;
+        private TimeUnit mInvalidationCoalescingTimeUnit;
+
         /**
          * Migrations, mapped by from-to pairs.
          */
@@ -1372,6 +1375,38 @@ public abstract class RoomDatabase {
             return this;
         }
 
+        /**
+         * Makes the {@link InvalidationTracker} refresh less often after write transactions.
+         * <p>
+         * By default, every write transaction is followed by a refresh that reads which tables
+         * were modified, even if no {@link InvalidationTracker.Observer} observes them. Once this
+         * is called, transactions that end while no table is observed do not refresh at all,
+         * and the refresh scheduled by a transaction waits for {@code interval} so that it also
+         * covers the transactions that end in the meantime. Observers are therefore notified up
+         * to {@code interval} later, but at most once per interval during bursts of writes.
+         * <p>
+         * An interval of about one frame (16 milliseconds) is usually enough to coalesce the
+         * invalidations caused by a burst of writes without a visible delay. An interval of 0
+         * only skips the refreshes when nothing is observed.
+         *
+         * @param interval the time to wait after a transaction before refreshing. Must be greater
+         *                 or equal to zero.
+         * @param timeUnit the time unit of {@code interval}.
+         * @return This {@link Builder} instance
+         */
+        @NonNull
+        @SuppressWarnings("MissingGetterMatchingBuilder")
+        @ExperimentalRoomApi
+        public Builder<T> setInvalidationCoalescingInterval(
+                @IntRange(from = 0) long interval, @NonNull TimeUnit timeUnit) {
+            if (interval < 0) {
+                throw new IllegalArgumentException("interval must be >= 0");
+            }
+            mInvalidationCoalescingInterval = interval;
+            mInvalidationCoalescingTimeUnit = timeUnit;
+            return this;
+        }
+
         /**
          * Creates the databases and initializes it.
          * <p>
@@ -1485,6 +1520,10 @@ public abstract class RoomDatabase {
                             mAutoMigrationSpecs);
             T db = Room.getGeneratedImplementation(mDatabaseClass, DB_IMPL_SUFFIX);
             db.init(configuration);
+            if (mInvalidationCoalescingInterval >= 0) {
+                db.getInvalidationTracker().setCoalescedRefresh(
+                        mInvalidationCoalescingTimeUnit.toMillis(mInvalidationCoalescingInterval));
+            }
             return db;
         }
     }
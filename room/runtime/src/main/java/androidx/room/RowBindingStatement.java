@@ -0,0 +1,105 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room;
+
+import androidx.annotation.NonNull;
+import androidx.sqlite.db.SupportSQLiteStatement;
+
+/**
+ * Binds the arguments of a single row of a multi-row insert statement. Bind indices are relative
+ * to the current row, so code written to bind a single-row statement can bind any row of the
+ * multi-row one.
+ * <p>
+ * Only binding is supported; the statement must be executed through the delegate.
+ */
+final class RowBindingStatement implements SupportSQLiteStatement {
+    private final SupportSQLiteStatement mDelegate;
+    private final int mArgCountPerRow;
+    private int mOffset;
+
+    RowBindingStatement(@NonNull SupportSQLiteStatement delegate, int argCountPerRow) {
+        mDelegate = delegate;
+        mArgCountPerRow = argCountPerRow;
+    }
+
+    /**
+     * Sets the zero based row that subsequent bind calls apply to.
+     */
+    void setRow(int row) {
+        mOffset = row * mArgCountPerRow;
+    }
+
+    @Override
+    public void bindNull(int index) {
+        mDelegate.bindNull(mOffset + index);
+    }
+
+    @Override
+    public void bindLong(int index, long value) {
+        mDelegate.bindLong(mOffset + index, value);
+    }
+
+    @Override
+    public void bindDouble(int index, double value) {
+        mDelegate.bindDouble(mOffset + index, value);
+    }
+
+    @Override
+    public void bindString(int index, String value) {
+        mDelegate.bindString(mOffset + index, value);
+    }
+
+    @Override
+    public void bindBlob(int index, byte[] value) {
+        mDelegate.bindBlob(mOffset + index, value);
+    }
+
+    @Override
+    public void clearBindings() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void execute() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int executeUpdateDelete() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public long executeInsert() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public long simpleQueryForLong() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public String simpleQueryForString() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void close() {
+        throw new UnsupportedOperationException();
+    }
+}
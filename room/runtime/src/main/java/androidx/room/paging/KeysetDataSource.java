@@ -0,0 +1,274 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room.paging;
+
+import android.database.Cursor;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RestrictTo;
+import androidx.room.RoomDatabase;
+import androidx.room.RoomSQLiteQuery;
+import androidx.sqlite.db.SupportSQLiteQuery;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A data source that pages a query ordered by indexed columns with the seek method instead of
+ * {@code OFFSET}.
+ * <p>
+ * Whenever a range is loaded, the values of the ordering columns of its last row are remembered
+ * as an anchor. A range starting at or after an anchor is then loaded with
+ * {@code WHERE (key) >= (anchor) ORDER BY key LIMIT ?}, which SQLite answers by seeking the index
+ * instead of stepping over every preceding row, so loading the next page costs the same at any
+ * depth. Rows sharing the anchor's values are skipped with a small {@code OFFSET}, so the ordering
+ * does not need to be unique. Ranges before the first anchor, or after an anchor holding a
+ * {@code NULL} value, are loaded with {@code LIMIT} and {@code OFFSET} like
+ * {@link LimitOffsetDataSource}.
+ * <p>
+ * When placeholders are disabled, the initial load does not count the rows of the query.
+ * <p>
+ * The ordering columns must be result columns of the query that are declared {@code NOT NULL}
+ * and use the {@code BINARY} collation. SQLite orders {@code NULL} below every value, but the
+ * seek comparisons never match it, so the {@code NULL} rows past an anchor would be skipped; and
+ * rows sharing the anchor's values are recognized by comparing them in Java, which only agrees
+ * with a {@code BINARY} comparison. Room only generates this data source when both hold.
+ *
+ * @param <T> Data type returned by the data source.
+ *
+ * @hide
+ */
+@SuppressWarnings("deprecation")
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP_PREFIX)
+public abstract class KeysetDataSource<T> extends LimitOffsetDataSource<T> {
+    private final int mKeyCount;
+    private final String[] mKeyColumns;
+    private final String mSeekQuery;
+    private final int mSeekArgCount;
+    // Position of the first row following the anchor row -> anchor. Guarded by itself.
+    private final TreeMap<Integer, Anchor> mAnchors = new TreeMap<>();
+
+    protected KeysetDataSource(
+            @NonNull RoomDatabase db,
+            @NonNull SupportSQLiteQuery query,
+            boolean inTransaction,
+            boolean registerObserverImmediately,
+            @NonNull String[] keyColumns,
+            @NonNull boolean[] descending,
+            @NonNull String... tables) {
+        this(db, RoomSQLiteQuery.copyFrom(query), inTransaction, registerObserverImmediately,
+                keyColumns, descending, tables);
+    }
+
+    protected KeysetDataSource(
+            @NonNull RoomDatabase db,
+            @NonNull RoomSQLiteQuery query,
+            boolean inTransaction,
+            boolean registerObserverImmediately,
+            @NonNull String[] keyColumns,
+            @NonNull boolean[] descending,
+            @NonNull String... tables) {
+        super(db, query, inTransaction, registerObserverImmediately, tables);
+        if (keyColumns.length == 0 || keyColumns.length != descending.length) {
+            throw new IllegalArgumentException("Each key column needs a direction");
+        }
+        mKeyCount = keyColumns.length;
+        mKeyColumns = keyColumns;
+        mSeekArgCount = mKeyCount == 1 ? 1 : 2 * mKeyCount;
+        mSeekQuery = createSeekQuery(query.getSql(), keyColumns, descending);
+    }
+
+    @Override
+    public void loadInitial(@NonNull LoadInitialParams params,
+            @NonNull LoadInitialCallback<T> callback) {
+        if (params.placeholdersEnabled) {
+            super.loadInitial(params, callback);
+            return;
+        }
+        registerObserverIfNecessary();
+        int position = params.requestedStartPosition;
+        List<T> list = loadRange(position, params.requestedLoadSize);
+        if (list.isEmpty() && position != 0) {
+            // The requested position is past the end, start from the beginning instead.
+            position = 0;
+            list = loadRange(position, params.requestedLoadSize);
+        }
+        callback.onResult(list, position);
+    }
+
+    @Override
+    RoomSQLiteQuery getSQLiteQuery(int startPosition, int loadCount) {
+        final Map.Entry<Integer, Anchor> entry;
+        synchronized (mAnchors) {
+            entry = mAnchors.floorEntry(startPosition);
+        }
+        if (entry == null) {
+            return super.getSQLiteQuery(startPosition, loadCount);
+        }
+        final Anchor anchor = entry.getValue();
+        final int sourceArgCount = mSourceQuery.getArgCount();
+        final RoomSQLiteQuery sqLiteQuery = RoomSQLiteQuery.acquire(mSeekQuery,
+                sourceArgCount + mSeekArgCount + 2);
+        sqLiteQuery.copyArgumentsFrom(mSourceQuery);
+        int argIndex = sourceArgCount + 1;
+        // The leading column bounds the index range, the rest compare lexicographically.
+        bindValue(sqLiteQuery, argIndex++, anchor.mKeys[0]);
+        if (mKeyCount > 1) {
+            for (int i = 0; i < mKeyCount - 1; i++) {
+                bindValue(sqLiteQuery, argIndex++, anchor.mKeys[i]);
+                bindValue(sqLiteQuery, argIndex++, anchor.mKeys[i]);
+            }
+            bindValue(sqLiteQuery, argIndex++, anchor.mKeys[mKeyCount - 1]);
+        }
+        sqLiteQuery.bindLong(argIndex++, loadCount);
+        sqLiteQuery.bindLong(argIndex, anchor.mTies + (startPosition - entry.getKey()));
+        return sqLiteQuery;
+    }
+
+    @Override
+    void onRangeLoaded(@NonNull Cursor cursor, int startPosition, int rowCount) {
+        if (rowCount == 0 || !cursor.moveToPosition(rowCount - 1)) {
+            return;
+        }
+        final int[] columnIndices = new int[mKeyCount];
+        for (int i = 0; i < mKeyCount; i++) {
+            columnIndices[i] = cursor.getColumnIndex(mKeyColumns[i]);
+            if (columnIndices[i] < 0) {
+                return;
+            }
+        }
+        final Object[] keys = readKeys(cursor, columnIndices);
+        if (keys == null) {
+            return;
+        }
+        // Count the rows at the end of the range sharing the last row's values; a seek to these
+        // values has to skip them.
+        int ties = 1;
+        while (ties < rowCount && cursor.moveToPosition(rowCount - 1 - ties)
+                && Arrays.deepEquals(keys, readKeys(cursor, columnIndices))) {
+            ties++;
+        }
+        final int end = startPosition + rowCount;
+        synchronized (mAnchors) {
+            if (ties == rowCount) {
+                // The whole range shares these values, the ones before it are only known if an
+                // earlier anchor has the same values. Rows between that anchor and this range
+                // must share them too since the query is ordered by them.
+                final Map.Entry<Integer, Anchor> previous = mAnchors.floorEntry(startPosition);
+                if (previous == null || !Arrays.deepEquals(previous.getValue().mKeys, keys)) {
+                    return;
+                }
+                ties += previous.getValue().mTies + (startPosition - previous.getKey());
+            }
+            mAnchors.put(end, new Anchor(keys, ties));
+        }
+    }
+
+    @Nullable
+    private Object[] readKeys(Cursor cursor, int[] columnIndices) {
+        final Object[] keys = new Object[mKeyCount];
+        for (int i = 0; i < mKeyCount; i++) {
+            final int column = columnIndices[i];
+            switch (cursor.getType(column)) {
+                case Cursor.FIELD_TYPE_INTEGER:
+                    keys[i] = cursor.getLong(column);
+                    break;
+                case Cursor.FIELD_TYPE_FLOAT:
+                    keys[i] = cursor.getDouble(column);
+                    break;
+                case Cursor.FIELD_TYPE_STRING:
+                    keys[i] = cursor.getString(column);
+                    break;
+                case Cursor.FIELD_TYPE_BLOB:
+                    keys[i] = cursor.getBlob(column);
+                    break;
+                default:
+                    // NULL does not compare, this row cannot be used as an anchor.
+                    return null;
+            }
+        }
+        return keys;
+    }
+
+    private static void bindValue(RoomSQLiteQuery query, int index, Object value) {
+        if (value instanceof Long) {
+            query.bindLong(index, (Long) value);
+        } else if (value instanceof Double) {
+            query.bindDouble(index, (Double) value);
+        } else if (value instanceof String) {
+            query.bindString(index, (String) value);
+        } else {
+            query.bindBlob(index, (byte[]) value);
+        }
+    }
+
+    private static String createSeekQuery(String sourceSql, String[] keyColumns,
+            boolean[] descending) {
+        final int keyCount = keyColumns.length;
+        final StringBuilder sb = new StringBuilder();
+        sb.append("SELECT * FROM ( ").append(sourceSql).append(" ) WHERE ");
+        appendComparison(sb, keyColumns[0], descending[0], true);
+        if (keyCount > 1) {
+            sb.append(" AND (");
+            for (int i = 0; i < keyCount - 1; i++) {
+                appendComparison(sb, keyColumns[i], descending[i], false);
+                sb.append(" OR (`").append(keyColumns[i]).append("` = ? AND (");
+            }
+            appendComparison(sb, keyColumns[keyCount - 1], descending[keyCount - 1], true);
+            for (int i = 0; i < keyCount - 1; i++) {
+                sb.append("))");
+            }
+            sb.append(")");
+        }
+        sb.append(" ORDER BY ");
+        for (int i = 0; i < keyCount; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append('`').append(keyColumns[i]).append('`');
+            if (descending[i]) {
+                sb.append(" DESC");
+            }
+        }
+        sb.append(" LIMIT ? OFFSET ?");
+        return sb.toString();
+    }
+
+    private static void appendComparison(StringBuilder sb, String column, boolean descending,
+            boolean inclusive) {
+        sb.append('`').append(column).append("` ").append(descending ? '<' : '>');
+        if (inclusive) {
+            sb.append('=');
+        }
+        sb.append(" ?");
+    }
+
+    private static final class Anchor {
+        // Values of the ordering columns of the row preceding the anchor position.
+        final Object[] mKeys;
+        // Number of rows before the anchor position that have exactly these values.
+        final int mTies;
+
+        Anchor(Object[] keys, int ties) {
+            mKeys = keys;
+            mTies = ties;
+        }
+    }
+}
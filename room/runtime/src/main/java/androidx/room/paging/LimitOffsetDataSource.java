@@ -51,10 +51,10 @@ import java.util.concurrent.atomic.AtomicBoolean;
 @SuppressWarnings("deprecation")
 @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP_PREFIX)
 public abstract class LimitOffsetDataSource<T> extends androidx.paging.PositionalDataSource<T> {
-    private final RoomSQLiteQuery mSourceQuery;
+    final RoomSQLiteQuery mSourceQuery;
     private final String mCountQuery;
     private final String mLimitOffsetQuery;
-    private final RoomDatabase mDb;
+    final RoomDatabase mDb;
     @SuppressWarnings("FieldCanBeLocal")
     private final InvalidationTracker.Observer mObserver;
     private final boolean mInTransaction;
@@ -108,7 +108,7 @@ public abstract class LimitOffsetDataSource<T> extends androidx.paging.Positiona
         }
     }
 
-    private void registerObserverIfNecessary() {
+    void registerObserverIfNecessary() {
         if (mRegisteredObserver.compareAndSet(false, true)) {
             mDb.getInvalidationTracker().addWeakObserver(mObserver);
         }
@@ -169,6 +169,7 @@ public abstract class LimitOffsetDataSource<T> extends androidx.paging.Positiona
                 sqLiteQuery = getSQLiteQuery(firstLoadPosition, firstLoadSize);
                 cursor = mDb.query(sqLiteQuery);
                 List<T> rows = convertRows(cursor);
+                onRangeLoaded(cursor, firstLoadPosition, rows.size());
                 mDb.setTransactionSuccessful();
                 list = rows;
             }
@@ -207,6 +208,7 @@ public abstract class LimitOffsetDataSource<T> extends androidx.paging.Positiona
             try {
                 cursor = mDb.query(sqLiteQuery);
                 List<T> rows = convertRows(cursor);
+                onRangeLoaded(cursor, startPosition, rows.size());
                 mDb.setTransactionSuccessful();
                 return rows;
             } finally {
@@ -220,7 +222,9 @@ public abstract class LimitOffsetDataSource<T> extends androidx.paging.Positiona
             Cursor cursor = mDb.query(sqLiteQuery);
             //noinspection TryFinallyCanBeTryWithResources
             try {
-                return convertRows(cursor);
+                List<T> rows = convertRows(cursor);
+                onRangeLoaded(cursor, startPosition, rows.size());
+                return rows;
             } finally {
                 cursor.close();
                 sqLiteQuery.release();
@@ -228,7 +232,17 @@ public abstract class LimitOffsetDataSource<T> extends androidx.paging.Positiona
         }
     }
 
-    private RoomSQLiteQuery getSQLiteQuery(int startPosition, int loadCount) {
+    /**
+     * Called with the cursor of every loaded range, after the rows were converted, so that
+     * subclasses can remember where the range ended.
+     */
+    void onRangeLoaded(@NonNull Cursor cursor, int startPosition, int rowCount) {
+    }
+
+    /**
+     * Returns the query loading {@code loadCount} rows starting at {@code startPosition}.
+     */
+    RoomSQLiteQuery getSQLiteQuery(int startPosition, int loadCount) {
         final RoomSQLiteQuery sqLiteQuery = RoomSQLiteQuery.acquire(mLimitOffsetQuery,
                 mSourceQuery.getArgCount() + 2);
         sqLiteQuery.copyArgumentsFrom(mSourceQuery);
@@ -0,0 +1,313 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room.util;
+
+import android.database.AbstractCursor;
+import android.database.CharArrayBuffer;
+import android.database.Cursor;
+import android.database.CursorIndexOutOfBoundsException;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RestrictTo;
+
+import java.util.Arrays;
+
+/**
+ * An in-memory, read-only cursor that stores a copied result set in a handful of flat arrays
+ * instead of one boxed {@code Object[]} per row.
+ * <p>
+ * Every cell has a type byte and a {@code long} slot. Integers are stored in the slot directly,
+ * floats as their raw bits, and strings and blobs as an offset and length into a single shared
+ * {@code char[]} or {@code byte[]} buffer. Strings are copied out of the source cursor's window
+ * through a reused {@link CharArrayBuffer}, so filling the cursor does not allocate per cell and
+ * {@code String} objects are only created when {@link #getString(int)} is called.
+ *
+ * @hide
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP_PREFIX)
+public final class ColumnarCursor extends AbstractCursor {
+    private static final int INITIAL_BUFFER_SIZE = 256;
+
+    private final String[] mColumnNames;
+    private final int mColumnCount;
+    private final int mRowCount;
+    // Cells are stored column by column: the cell of (row, column) is at column * mRowCount + row.
+    private final byte[] mTypes;
+    private final long[] mValues;
+    private final char[] mChars;
+    private final byte[] mBytes;
+
+    private ColumnarCursor(String[] columnNames, int rowCount, byte[] types, long[] values,
+            char[] chars, byte[] bytes) {
+        mColumnNames = columnNames;
+        mColumnCount = columnNames.length;
+        mRowCount = rowCount;
+        mTypes = types;
+        mValues = values;
+        mChars = chars;
+        mBytes = bytes;
+    }
+
+    /**
+     * Copies all remaining rows of {@code source}, starting from its current position, into a new
+     * cursor in a single pass. The source cursor is not closed.
+     *
+     * @param source the cursor to copy.
+     * @return a new cursor containing the same data as the given cursor.
+     */
+    @NonNull
+    public static ColumnarCursor copyOf(@NonNull Cursor source) {
+        final String[] columnNames = source.getColumnNames();
+        final int columnCount = columnNames.length;
+        final int rowCount = Math.max(0, source.getCount() - (source.getPosition() + 1));
+        final byte[] types = new byte[rowCount * columnCount];
+        final long[] values = new long[rowCount * columnCount];
+        final CharArrayBuffer stringBuffer = new CharArrayBuffer(INITIAL_BUFFER_SIZE);
+        char[] chars = new char[0];
+        int charCount = 0;
+        byte[] bytes = new byte[0];
+        int byteCount = 0;
+
+        int row = 0;
+        while (row < rowCount && source.moveToNext()) {
+            for (int column = 0; column < columnCount; column++) {
+                final int cell = column * rowCount + row;
+                final int type = source.getType(column);
+                types[cell] = (byte) type;
+                switch (type) {
+                    case Cursor.FIELD_TYPE_NULL:
+                        break;
+                    case Cursor.FIELD_TYPE_INTEGER:
+                        values[cell] = source.getLong(column);
+                        break;
+                    case Cursor.FIELD_TYPE_FLOAT:
+                        values[cell] = Double.doubleToRawLongBits(source.getDouble(column));
+                        break;
+                    case Cursor.FIELD_TYPE_STRING: {
+                        source.copyStringToBuffer(column, stringBuffer);
+                        final int length = stringBuffer.sizeCopied;
+                        if (charCount + length > chars.length) {
+                            chars = Arrays.copyOf(chars, grow(chars.length, charCount + length));
+                        }
+                        System.arraycopy(stringBuffer.data, 0, chars, charCount, length);
+                        values[cell] = pack(charCount, length);
+                        charCount += length;
+                        break;
+                    }
+                    case Cursor.FIELD_TYPE_BLOB: {
+                        final byte[] blob = source.getBlob(column);
+                        final int length = blob.length;
+                        if (byteCount + length > bytes.length) {
+                            bytes = Arrays.copyOf(bytes, grow(bytes.length, byteCount + length));
+                        }
+                        System.arraycopy(blob, 0, bytes, byteCount, length);
+                        values[cell] = pack(byteCount, length);
+                        byteCount += length;
+                        break;
+                    }
+                    default:
+                        throw new IllegalStateException();
+                }
+            }
+            row++;
+        }
+        return new ColumnarCursor(columnNames, row, compact(types, row, rowCount, columnCount),
+                compact(values, row, rowCount, columnCount),
+                chars.length == charCount ? chars : Arrays.copyOf(chars, charCount),
+                bytes.length == byteCount ? bytes : Arrays.copyOf(bytes, byteCount));
+    }
+
+    @Override
+    public int getCount() {
+        return mRowCount;
+    }
+
+    @Override
+    @NonNull
+    public String[] getColumnNames() {
+        return mColumnNames;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return mColumnCount;
+    }
+
+    @Override
+    public int getType(int column) {
+        return mTypes[cell(column)];
+    }
+
+    @Override
+    public boolean isNull(int column) {
+        return mTypes[cell(column)] == Cursor.FIELD_TYPE_NULL;
+    }
+
+    @Override
+    @Nullable
+    public String getString(int column) {
+        final int cell = cell(column);
+        switch (mTypes[cell]) {
+            case Cursor.FIELD_TYPE_NULL:
+                return null;
+            case Cursor.FIELD_TYPE_INTEGER:
+                return Long.toString(mValues[cell]);
+            case Cursor.FIELD_TYPE_FLOAT:
+                return Double.toString(Double.longBitsToDouble(mValues[cell]));
+            case Cursor.FIELD_TYPE_STRING:
+                return new String(mChars, offset(mValues[cell]), length(mValues[cell]));
+            default:
+                throw new IllegalStateException("Unable to convert BLOB to string");
+        }
+    }
+
+    @Override
+    public void copyStringToBuffer(int column, CharArrayBuffer buffer) {
+        final int cell = cell(column);
+        if (mTypes[cell] != Cursor.FIELD_TYPE_STRING) {
+            super.copyStringToBuffer(column, buffer);
+            return;
+        }
+        final int length = length(mValues[cell]);
+        if (buffer.data == null || buffer.data.length < length) {
+            buffer.data = new char[length];
+        }
+        System.arraycopy(mChars, offset(mValues[cell]), buffer.data, 0, length);
+        buffer.sizeCopied = length;
+    }
+
+    @Override
+    @Nullable
+    public byte[] getBlob(int column) {
+        final int cell = cell(column);
+        switch (mTypes[cell]) {
+            case Cursor.FIELD_TYPE_NULL:
+                return null;
+            case Cursor.FIELD_TYPE_BLOB: {
+                final int offset = offset(mValues[cell]);
+                return Arrays.copyOfRange(mBytes, offset, offset + length(mValues[cell]));
+            }
+            default:
+                throw new IllegalStateException("Unable to convert column " + column
+                        + " to a blob");
+        }
+    }
+
+    @Override
+    public long getLong(int column) {
+        final int cell = cell(column);
+        switch (mTypes[cell]) {
+            case Cursor.FIELD_TYPE_NULL:
+                return 0L;
+            case Cursor.FIELD_TYPE_INTEGER:
+                return mValues[cell];
+            case Cursor.FIELD_TYPE_FLOAT:
+                return (long) Double.longBitsToDouble(mValues[cell]);
+            case Cursor.FIELD_TYPE_STRING:
+                return Long.parseLong(getString(column));
+            default:
+                throw new IllegalStateException("Unable to convert BLOB to long");
+        }
+    }
+
+    @Override
+    public double getDouble(int column) {
+        final int cell = cell(column);
+        switch (mTypes[cell]) {
+            case Cursor.FIELD_TYPE_NULL:
+                return 0.0;
+            case Cursor.FIELD_TYPE_INTEGER:
+                return (double) mValues[cell];
+            case Cursor.FIELD_TYPE_FLOAT:
+                return Double.longBitsToDouble(mValues[cell]);
+            case Cursor.FIELD_TYPE_STRING:
+                return Double.parseDouble(getString(column));
+            default:
+                throw new IllegalStateException("Unable to convert BLOB to double");
+        }
+    }
+
+    @Override
+    public short getShort(int column) {
+        return (short) getLong(column);
+    }
+
+    @Override
+    public int getInt(int column) {
+        return (int) getLong(column);
+    }
+
+    @Override
+    public float getFloat(int column) {
+        return (float) getDouble(column);
+    }
+
+    private int cell(int column) {
+        if (column < 0 || column >= mColumnCount) {
+            throw new CursorIndexOutOfBoundsException("Requested column: " + column
+                    + ", # of columns: " + mColumnCount);
+        }
+        final int position = getPosition();
+        if (position < 0) {
+            throw new CursorIndexOutOfBoundsException("Before first row.");
+        }
+        if (position >= mRowCount) {
+            throw new CursorIndexOutOfBoundsException("After last row.");
+        }
+        return column * mRowCount + position;
+    }
+
+    private static long pack(int offset, int length) {
+        return ((long) offset << 32) | (length & 0xFFFFFFFFL);
+    }
+
+    private static int offset(long packed) {
+        return (int) (packed >>> 32);
+    }
+
+    private static int length(long packed) {
+        return (int) packed;
+    }
+
+    private static int grow(int current, int required) {
+        return Math.max(required, Math.max(INITIAL_BUFFER_SIZE, current + (current >> 1)));
+    }
+
+    // Re-lays out column-major cells if fewer rows than expected were copied.
+    private static byte[] compact(byte[] cells, int rows, int expectedRows, int columnCount) {
+        if (rows == expectedRows) {
+            return cells;
+        }
+        final byte[] result = new byte[rows * columnCount];
+        for (int column = 0; column < columnCount; column++) {
+            System.arraycopy(cells, column * expectedRows, result, column * rows, rows);
+        }
+        return result;
+    }
+
+    private static long[] compact(long[] cells, int rows, int expectedRows, int columnCount) {
+        if (rows == expectedRows) {
+            return cells;
+        }
+        final long[] result = new long[rows * columnCount];
+        for (int column = 0; column < columnCount; column++) {
+            System.arraycopy(cells, column * expectedRows, result, column * rows, rows);
+        }
+        return result;
+    }
+}
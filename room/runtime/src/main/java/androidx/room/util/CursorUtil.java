@@ -17,7 +17,6 @@
 package androidx.room.util;
 
 import android.database.Cursor;
-import android.database.MatrixCursor;
 import android.os.Build;
 import android.util.Log;
 
@@ -40,44 +39,20 @@ public class CursorUtil {
      * <p>
      * This is useful for iterating over a cursor multiple times without the cost of JNI while
      * reading or IO while filling the window at the expense of memory consumption.
+     * <p>
+     * The copy is a {@link ColumnarCursor}, which keeps values in primitive arrays and shared
+     * buffers rather than boxing every cell.
      *
      * @param c the cursor to copy.
      * @return a new cursor containing the same data as the given cursor.
      */
     @NonNull
     public static Cursor copyAndClose(@NonNull Cursor c) {
-        final MatrixCursor matrixCursor;
         try {
-            matrixCursor = new MatrixCursor(c.getColumnNames(), c.getCount());
-            while (c.moveToNext()) {
-                final Object[] row = new Object[c.getColumnCount()];
-                for (int i = 0; i < c.getColumnCount(); i++) {
-                    switch (c.getType(i)) {
-                        case Cursor.FIELD_TYPE_NULL:
-                            row[i] = null;
-                            break;
-                        case Cursor.FIELD_TYPE_INTEGER:
-                            row[i] = c.getLong(i);
-                            break;
-                        case Cursor.FIELD_TYPE_FLOAT:
-                            row[i] = c.getDouble(i);
-                            break;
-                        case Cursor.FIELD_TYPE_STRING:
-                            row[i] = c.getString(i);
-                            break;
-                        case Cursor.FIELD_TYPE_BLOB:
-                            row[i] = c.getBlob(i);
-                            break;
-                        default:
-                            throw new IllegalStateException();
-                    }
-                }
-                matrixCursor.addRow(row);
-            }
+            return ColumnarCursor.copyOf(c);
         } finally {
             c.close();
         }
-        return matrixCursor;
     }
 
     /**
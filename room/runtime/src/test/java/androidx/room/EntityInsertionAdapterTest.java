@@ -0,0 +1,253 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import androidx.sqlite.db.SupportSQLiteStatement;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+@RunWith(JUnit4.class)
+public class EntityInsertionAdapterTest {
+    private static final String PREFIX = "INSERT OR ABORT INTO `Foo` (`id`,`name`) VALUES ";
+    private static final String ROW = "(?,?)";
+    private static final String SINGLE_COLUMN_PREFIX = "INSERT OR ABORT INTO `Bar` (`id`) VALUES ";
+
+    private RoomDatabase mDb;
+    private final Map<String, List<SupportSQLiteStatement>> mCompiled = new LinkedHashMap<>();
+
+    @Before
+    public void init() {
+        mDb = mock(RoomDatabase.class);
+        when(mDb.compileStatement(anyString())).thenAnswer(invocation -> {
+            String query = invocation.getArgument(0);
+            SupportSQLiteStatement stmt = mock(SupportSQLiteStatement.class);
+            List<SupportSQLiteStatement> statements = mCompiled.get(query);
+            if (statements == null) {
+                statements = new ArrayList<>();
+                mCompiled.put(query, statements);
+            }
+            statements.add(stmt);
+            return stmt;
+        });
+        when(mDb.getInvalidationTracker()).thenReturn(mock(InvalidationTracker.class));
+    }
+
+    @Test
+    public void insertWithoutBatchSupport() {
+        EntityInsertionAdapter<Long> adapter = new FooAdapter(mDb, false);
+        adapter.insert(Arrays.asList(1L, 2L, 3L));
+        assertThat(mCompiled.keySet(), is(new HashSet<>(Arrays.asList(PREFIX + ROW))));
+        SupportSQLiteStatement stmt = mCompiled.get(PREFIX + ROW).get(0);
+        verify(stmt, times(3)).executeInsert();
+        verify(stmt).bindLong(1, 3L);
+    }
+
+    @Test
+    public void insertSplitsIntoMaxSizeAndPowerOfTwoBatches() {
+        EntityInsertionAdapter<Long> adapter = new FooAdapter(mDb, true);
+        // 499 rows fit in 999 arguments: 1010 = 499 + 499 + 8 + 4
+        List<Long> entities = new ArrayList<>();
+        for (long i = 0; i < 1010; i++) {
+            entities.add(i);
+        }
+        adapter.insert(entities);
+        assertThat(mCompiled.keySet(), is(new HashSet<>(Arrays.asList(
+                query(499), query(8), query(4)))));
+        SupportSQLiteStatement full = mCompiled.get(query(499)).get(0);
+        verify(full, times(2)).executeInsert();
+        // the second row of the second batch
+        verify(full).bindLong(3, 500L);
+        verify(full).bindString(4, "name500");
+        verify(full).bindLong(997, 997L);
+        SupportSQLiteStatement eight = mCompiled.get(query(8)).get(0);
+        verify(eight).bindLong(1, 998L);
+        verify(eight).bindLong(15, 1005L);
+        SupportSQLiteStatement four = mCompiled.get(query(4)).get(0);
+        verify(four).bindLong(7, 1009L);
+        verify(four).executeInsert();
+    }
+
+    @Test
+    public void insertCapsBatchesAt500Rows() {
+        EntityInsertionAdapter<Long> adapter = new SingleColumnAdapter(mDb, true);
+        // 999 single argument rows would fit, but older SQLite versions reject more than 500.
+        List<Long> entities = new ArrayList<>();
+        for (long i = 0; i < 1010; i++) {
+            entities.add(i);
+        }
+        adapter.insert(entities);
+        assertThat(mCompiled.keySet(), is(new HashSet<>(Arrays.asList(
+                singleColumnQuery(500), singleColumnQuery(8), singleColumnQuery(2)))));
+        SupportSQLiteStatement full = mCompiled.get(singleColumnQuery(500)).get(0);
+        verify(full, times(2)).executeInsert();
+        verify(full).bindLong(500, 999L);
+        verify(mCompiled.get(singleColumnQuery(2)).get(0)).bindLong(2, 1009L);
+    }
+
+    @Test
+    public void insertWithoutMultiRowSupport() {
+        EntityInsertionAdapter<Long> adapter = new SingleColumnAdapter(mDb, false);
+        adapter.insert(new Long[]{1L, 2L, 3L});
+        assertThat(mCompiled.keySet(),
+                is(new HashSet<>(Arrays.asList(singleColumnQuery(1)))));
+        verify(mCompiled.get(singleColumnQuery(1)).get(0), times(3)).executeInsert();
+    }
+
+    @Test
+    public void insertReusesBatchStatements() {
+        EntityInsertionAdapter<Long> adapter = new FooAdapter(mDb, true);
+        adapter.insert(new Long[]{1L, 2L, 3L});
+        adapter.insert(new Long[]{4L, 5L, 6L});
+        assertThat(mCompiled.get(query(2)).size(), is(1));
+        assertThat(mCompiled.get(query(1)).size(), is(1));
+        verify(mCompiled.get(query(2)).get(0), times(2)).executeInsert();
+    }
+
+    @Test
+    public void insertDoesNotIndexIntoSequentialLists() {
+        EntityInsertionAdapter<Long> adapter = new FooAdapter(mDb, true);
+        List<Long> entities = new LinkedList<Long>() {
+            @Override
+            public Long get(int index) {
+                throw new AssertionError("rows of a LinkedList should not be read by index");
+            }
+        };
+        entities.addAll(Arrays.asList(1L, 2L, 3L));
+        adapter.insert(entities);
+        verify(mCompiled.get(query(2)).get(0)).bindLong(3, 2L);
+        verify(mCompiled.get(query(1)).get(0)).bindLong(1, 3L);
+    }
+
+    @Test
+    public void insertAndReturnIdsUsesSingleRowStatements() {
+        EntityInsertionAdapter<Long> adapter = new FooAdapter(mDb, true);
+        long[] ids = adapter.insertAndReturnIdsArray(Arrays.asList(1L, 2L, 3L));
+        assertThat(ids.length, is(3));
+        assertThat(mCompiled.keySet(), is(new HashSet<>(Arrays.asList(query(1)))));
+        verify(mCompiled.get(query(1)).get(0), times(3)).executeInsert();
+    }
+
+    private static String query(int rowCount) {
+        StringBuilder sb = new StringBuilder(PREFIX);
+        for (int i = 0; i < rowCount; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(ROW);
+        }
+        return sb.toString();
+    }
+
+    private static String singleColumnQuery(int rowCount) {
+        StringBuilder sb = new StringBuilder(SINGLE_COLUMN_PREFIX);
+        for (int i = 0; i < rowCount; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append("(?)");
+        }
+        return sb.toString();
+    }
+
+    private static class FooAdapter extends EntityInsertionAdapter<Long> {
+        private final boolean mBatched;
+
+        FooAdapter(RoomDatabase database, boolean batched) {
+            super(database);
+            mBatched = batched;
+        }
+
+        @Override
+        protected String createQuery() {
+            return PREFIX + ROW;
+        }
+
+        @Override
+        protected String createBatchQueryPrefix() {
+            return mBatched ? PREFIX : null;
+        }
+
+        @Override
+        protected String createBatchQueryRow() {
+            return mBatched ? ROW : null;
+        }
+
+        @Override
+        boolean isMultiRowInsertSupported() {
+            return true;
+        }
+
+        @Override
+        protected void bind(SupportSQLiteStatement statement, Long entity) {
+            statement.bindLong(1, entity);
+            statement.bindString(2, "name" + entity);
+        }
+    }
+
+    private static class SingleColumnAdapter extends EntityInsertionAdapter<Long> {
+        private final boolean mMultiRowInsertSupported;
+
+        SingleColumnAdapter(RoomDatabase database, boolean multiRowInsertSupported) {
+            super(database);
+            mMultiRowInsertSupported = multiRowInsertSupported;
+        }
+
+        @Override
+        protected String createQuery() {
+            return SINGLE_COLUMN_PREFIX + "(?)";
+        }
+
+        @Override
+        protected String createBatchQueryPrefix() {
+            return SINGLE_COLUMN_PREFIX;
+        }
+
+        @Override
+        protected String createBatchQueryRow() {
+            return "(?)";
+        }
+
+        @Override
+        boolean isMultiRowInsertSupported() {
+            return mMultiRowInsertSupported;
+        }
+
+        @Override
+        protected void bind(SupportSQLiteStatement statement, Long entity) {
+            statement.bindLong(1, entity);
+        }
+    }
+}
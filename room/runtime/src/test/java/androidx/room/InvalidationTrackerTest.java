@@ -206,6 +206,61 @@ public class InvalidationTrackerTest {
         verify(mTaskExecutorRule.getTaskExecutor()).executeOnDiskIO(mTracker.mRefreshRunnable);
     }
 
+    @Test
+    public void coalescedRefresh_skipsWithoutObservers() throws Exception {
+        mTracker.setCoalescedRefresh(0);
+        mTracker.refreshVersionsAsync();
+        verify(mTaskExecutorRule.getTaskExecutor(), times(0))
+                .executeOnDiskIO(mTracker.mRefreshRunnable);
+
+        LatchObserver observer = new LatchObserver(1, "a");
+        mTracker.addObserver(observer);
+        setInvalidatedTables(0);
+        refreshSync();
+        assertThat(observer.await(), is(true));
+        assertThat(observer.getInvalidatedTables(), hasItem("a"));
+
+        mTracker.removeObserver(observer);
+        reset(mTaskExecutorRule.getTaskExecutor());
+        mTracker.refreshVersionsAsync();
+        verify(mTaskExecutorRule.getTaskExecutor(), times(0))
+                .executeOnDiskIO(mTracker.mRefreshRunnable);
+    }
+
+    @Test
+    public void coalescedRefresh_singleRefreshPerInterval() throws Exception {
+        LatchObserver observer = new LatchObserver(1, "a");
+        mTracker.addObserver(observer);
+        drainTasks();
+        mTracker.setCoalescedRefresh(200);
+        reset(mTaskExecutorRule.getTaskExecutor());
+
+        for (int i = 0; i < 5; i++) {
+            mTracker.refreshVersionsAsync();
+        }
+        verify(mTaskExecutorRule.getTaskExecutor(), times(0))
+                .executeOnDiskIO(mTracker.mRefreshRunnable);
+        verify(mTaskExecutorRule.getTaskExecutor(), Mockito.timeout(5000))
+                .executeOnDiskIO(mTracker.mRefreshRunnable);
+        drainTasks();
+        verify(mTaskExecutorRule.getTaskExecutor(), times(1))
+                .executeOnDiskIO(mTracker.mRefreshRunnable);
+    }
+
+    @Test
+    public void coalescedRefresh_observedTableCount() {
+        InvalidationTracker.ObservedTableTracker tracker =
+                new InvalidationTracker.ObservedTableTracker(3);
+        assertThat(tracker.hasObservedTables(), is(false));
+        tracker.onAdded(0, 1);
+        tracker.onAdded(1);
+        assertThat(tracker.hasObservedTables(), is(true));
+        tracker.onRemoved(0, 1);
+        assertThat(tracker.hasObservedTables(), is(true));
+        tracker.onRemoved(1);
+        assertThat(tracker.hasObservedTables(), is(false));
+    }
+
     @Test
     public void observe1Table() throws Exception {
         LatchObserver observer = new LatchObserver(1, "a");
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.work.benchmark
+
+import android.content.Context
+import android.util.Log
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.filters.LargeTest
+import androidx.work.Configuration
+import androidx.work.OneTimeWorkRequest
+import androidx.work.OneTimeWorkRequestBuilder
+import androidx.work.impl.Processor
+import androidx.work.impl.Scheduler
+import androidx.work.impl.WorkDatabase
+import androidx.work.impl.WorkManagerImpl
+import androidx.work.impl.model.WorkSpec
+import androidx.work.impl.utils.SerialExecutor
+import androidx.work.impl.utils.taskexecutor.TaskExecutor
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+import java.util.concurrent.Executor
+
+/**
+ * Measures enqueuing many independent [OneTimeWorkRequest]s one by one, as a single list and as a
+ * batch of separate continuations with [WorkManagerImpl.enqueueBatch].
+ */
+@LargeTest
+@RunWith(Parameterized::class)
+class EnqueueBenchmark(private val requestCount: Int, private val mode: Mode) {
+
+    @get:Rule
+    val benchmarkRule = BenchmarkRule()
+
+    private lateinit var database: WorkDatabase
+    private lateinit var workManager: WorkManagerImpl
+    private val scheduler = CountingScheduler()
+
+    @Before
+    fun setUp() {
+        val context = ApplicationProvider.getApplicationContext<Context>()
+        // Run everything on the calling thread so that each enqueue is done when it returns.
+        val executor = Executor { it.run() }
+        val serialExecutor = SerialExecutor(executor)
+        val taskExecutor = object : TaskExecutor {
+            override fun postToMainThread(runnable: Runnable) {
+                runnable.run()
+            }
+
+            override fun getMainThreadExecutor(): Executor {
+                return executor
+            }
+
+            override fun executeOnBackgroundThread(runnable: Runnable) {
+                runnable.run()
+            }
+
+            override fun getBackgroundExecutor(): SerialExecutor {
+                return serialExecutor
+            }
+        }
+        val configuration = Configuration.Builder()
+            .setExecutor(executor)
+            .setTaskExecutor(executor)
+            .setMinimumLoggingLevel(Log.ERROR)
+            .build()
+        database = WorkDatabase.create(context, executor, true)
+        val schedulers = listOf<Scheduler>(scheduler)
+        workManager = WorkManagerImpl(
+            context,
+            configuration,
+            taskExecutor,
+            database,
+            schedulers,
+            Processor(context, configuration, taskExecutor, database, schedulers)
+        )
+    }
+
+    @After
+    fun tearDown() {
+        database.close()
+    }
+
+    @Test
+    fun enqueue() {
+        benchmarkRule.measureRepeated {
+            val requests = runWithTimingDisabled {
+                database.clearAllTables()
+                scheduler.scheduleCount = 0
+                List(requestCount) {
+                    OneTimeWorkRequestBuilder<NoOpWorker>().addTag("sync").build()
+                }
+            }
+            when (mode) {
+                Mode.ONE_BY_ONE -> requests.forEach { workManager.enqueue(it) }
+                Mode.LIST -> workManager.enqueue(requests)
+                Mode.BATCH -> workManager.enqueueBatch(requests.map { workManager.beginWith(it) })
+            }
+            runWithTimingDisabled {
+                assertEquals(requestCount, database.workSpecDao().allWorkSpecIds.size)
+                assertEquals(if (mode == Mode.ONE_BY_ONE) requestCount else 1,
+                    scheduler.scheduleCount)
+            }
+        }
+    }
+
+    companion object {
+        @JvmStatic
+        @Parameterized.Parameters(name = "requestCount={0}, mode={1}")
+        fun data(): List<Array<Any>> {
+            return mutableListOf<Array<Any>>().apply {
+                Mode.values().forEach { mode ->
+                    arrayOf(100, 1000, 5000).forEach { requestCount ->
+                        add(arrayOf(requestCount, mode))
+                    }
+                }
+            }
+        }
+    }
+
+    enum class Mode {
+        ONE_BY_ONE,
+        LIST,
+        BATCH
+    }
+
+    /**
+     * Counts scheduling passes without scheduling anything.
+     */
+    class CountingScheduler : Scheduler {
+        var scheduleCount = 0
+
+        override fun schedule(vararg workSpecs: WorkSpec) {
+            scheduleCount++
+        }
+
+        override fun cancel(workSpecId: String) {
+        }
+
+        override fun hasLimitedSchedulingSlots(): Boolean {
+            return false
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.work.benchmark
+
+import android.content.Context
+import android.util.Log
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.filters.LargeTest
+import androidx.work.Configuration
+import androidx.work.impl.ExecutionListener
+import androidx.work.impl.Processor
+import androidx.work.impl.WorkDatabase
+import androidx.work.impl.utils.SerialExecutor
+import androidx.work.impl.utils.taskexecutor.TaskExecutor
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+import java.util.concurrent.CyclicBarrier
+import java.util.concurrent.Executor
+import java.util.concurrent.atomic.AtomicInteger
+import kotlin.concurrent.thread
+
+/**
+ * Measures how the bookkeeping of [Processor] scales when many threads start, query and complete
+ * work at the same time. Each thread works on its own ids, so with no shared lock the time per
+ * iteration should stay roughly flat as threads are added, up to the number of cores.
+ */
+@LargeTest
+@RunWith(Parameterized::class)
+class ProcessorBenchmark(private val threadCount: Int) {
+
+    @get:Rule
+    val benchmarkRule = BenchmarkRule()
+
+    private lateinit var database: WorkDatabase
+    private lateinit var processor: Processor
+    private val notifications = AtomicInteger()
+
+    @Before
+    fun setUp() {
+        val context = ApplicationProvider.getApplicationContext<Context>()
+        val executor = Executor { it.run() }
+        // Workers are never run: only the Processor's own bookkeeping is measured.
+        val backgroundExecutor = SerialExecutor { }
+        val taskExecutor = object : TaskExecutor {
+            override fun postToMainThread(runnable: Runnable) {
+                runnable.run()
+            }
+
+            override fun getMainThreadExecutor(): Executor {
+                return executor
+            }
+
+            override fun executeOnBackgroundThread(runnable: Runnable) {
+                runnable.run()
+            }
+
+            override fun getBackgroundExecutor(): SerialExecutor {
+                return backgroundExecutor
+            }
+        }
+        val configuration = Configuration.Builder()
+            .setExecutor(executor)
+            .setTaskExecutor(executor)
+            .setMinimumLoggingLevel(Log.ERROR)
+            .build()
+        database = WorkDatabase.create(context, executor, true)
+        processor = Processor(context, configuration, taskExecutor, database, emptyList())
+        processor.addExecutionListener(object : ExecutionListener {
+            override fun onExecuted(workSpecId: String, needsReschedule: Boolean) {
+                notifications.incrementAndGet()
+            }
+        })
+    }
+
+    @After
+    fun tearDown() {
+        database.close()
+    }
+
+    @Test
+    fun startAndComplete() {
+        val ids = List(threadCount) { thread -> List(OPERATIONS_PER_THREAD) { "work-$thread-$it" } }
+        benchmarkRule.measureRepeated {
+            runWithTimingDisabled { notifications.set(0) }
+            val barrier = CyclicBarrier(threadCount)
+            val threads = List(threadCount) { index ->
+                thread {
+                    barrier.await()
+                    for (id in ids[index]) {
+                        processor.startWork(id)
+                        processor.isEnqueued(id)
+                        processor.onExecuted(id, false)
+                    }
+                }
+            }
+            threads.forEach { it.join() }
+            runWithTimingDisabled {
+                assertEquals(threadCount * OPERATIONS_PER_THREAD, notifications.get())
+            }
+        }
+    }
+
+    companion object {
+        private const val OPERATIONS_PER_THREAD = 1000
+
+        @JvmStatic
+        @Parameterized.Parameters(name = "threadCount={0}")
+        fun data(): List<Array<Any>> {
+            return listOf(1, 2, 4, 8).map { arrayOf<Any>(it) }
+        }
+    }
+}
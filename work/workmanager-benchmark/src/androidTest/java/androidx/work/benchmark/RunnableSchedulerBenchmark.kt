@@ -0,0 +1,107 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.work.benchmark
+
+import android.os.Handler
+import android.os.HandlerThread
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import androidx.test.filters.LargeTest
+import androidx.work.RunnableScheduler
+import androidx.work.TimingWheelRunnableScheduler
+import androidx.work.impl.DefaultRunnableScheduler
+import org.junit.After
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+import java.util.Random
+import java.util.concurrent.Executors
+import java.util.concurrent.ScheduledExecutorService
+
+/**
+ * Measures scheduling and then cancelling 100k delayed runnables, as done for delayed work by the
+ * in-process scheduler, with the [android.os.Handler] based [DefaultRunnableScheduler] and with a
+ * [TimingWheelRunnableScheduler].
+ */
+@LargeTest
+@RunWith(Parameterized::class)
+class RunnableSchedulerBenchmark(private val mode: Mode) {
+
+    @get:Rule
+    val benchmarkRule = BenchmarkRule()
+
+    private lateinit var handlerThread: HandlerThread
+    private lateinit var executorService: ScheduledExecutorService
+    private lateinit var scheduler: RunnableScheduler
+
+    // Delays are far enough in the future that nothing runs while measuring.
+    private val delays = Random(42).let { random ->
+        LongArray(TIMER_COUNT) { MIN_DELAY_MILLIS + random.nextInt(MAX_EXTRA_DELAY_MILLIS) }
+    }
+    private val runnables = List(TIMER_COUNT) { Runnable { } }
+
+    @Before
+    fun setUp() {
+        handlerThread = HandlerThread("RunnableSchedulerBenchmark").apply { start() }
+        executorService = Executors.newSingleThreadScheduledExecutor()
+        scheduler = when (mode) {
+            Mode.HANDLER -> DefaultRunnableScheduler(Handler(handlerThread.looper))
+            Mode.TIMING_WHEEL -> TimingWheelRunnableScheduler(executorService, 10L)
+        }
+    }
+
+    @After
+    fun tearDown() {
+        handlerThread.quit()
+        executorService.shutdownNow()
+    }
+
+    @Test
+    fun scheduleAndCancel() {
+        benchmarkRule.measureRepeated {
+            for (i in 0 until TIMER_COUNT) {
+                scheduler.scheduleWithDelay(delays[i], runnables[i])
+            }
+            // Cancel in a different order than scheduling, like work finishing at random.
+            for (i in TIMER_COUNT - 1 downTo 0 step 2) {
+                scheduler.cancel(runnables[i])
+            }
+            for (i in 0 until TIMER_COUNT step 2) {
+                scheduler.cancel(runnables[i])
+            }
+        }
+    }
+
+    companion object {
+        private const val TIMER_COUNT = 100_000
+        private const val MIN_DELAY_MILLIS = 60_000L
+        private const val MAX_EXTRA_DELAY_MILLIS = 15 * 60_000
+
+        @JvmStatic
+        @Parameterized.Parameters(name = "mode={0}")
+        fun data(): List<Array<Any>> {
+            return Mode.values().map { arrayOf<Any>(it) }
+        }
+    }
+
+    enum class Mode {
+        HANDLER,
+        TIMING_WHEEL
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.work.benchmark
+
+import android.content.Context
+import android.util.Log
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.filters.LargeTest
+import androidx.work.Configuration
+import androidx.work.OneTimeWorkRequestBuilder
+import androidx.work.impl.Processor
+import androidx.work.impl.Scheduler
+import androidx.work.impl.WorkDatabase
+import androidx.work.impl.WorkManagerImpl
+import androidx.work.impl.utils.StatusRunnable
+import androidx.work.impl.utils.taskexecutor.WorkManagerTaskExecutor
+import org.junit.After
+import org.junit.Assert.assertNotNull
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+
+/**
+ * Measures the latency of [WorkManagerImpl.getWorkInfoById] while the background executor is busy
+ * enqueuing other work.
+ *
+ * In [Mode.SERIAL] the status query is queued behind every pending enqueue, like it used to be.
+ * In [Mode.READ_LANE] it runs in the read lane of the [androidx.work.impl.utils.SerialExecutor],
+ * where it only waits for the writes to the work it reads.  None of the pending enqueues touch
+ * that work, so the query runs as soon as a thread is free.
+ */
+@LargeTest
+@RunWith(Parameterized::class)
+class StatusQueryBenchmark(private val enqueueLoad: Int, private val mode: Mode) {
+
+    @get:Rule
+    val benchmarkRule = BenchmarkRule()
+
+    private lateinit var executorService: ExecutorService
+    private lateinit var taskExecutor: WorkManagerTaskExecutor
+    private lateinit var database: WorkDatabase
+    private lateinit var workManager: WorkManagerImpl
+
+    @Before
+    fun setUp() {
+        val context = ApplicationProvider.getApplicationContext<Context>()
+        executorService = Executors.newFixedThreadPool(4)
+        taskExecutor = WorkManagerTaskExecutor(executorService)
+        val configuration = Configuration.Builder()
+            .setExecutor(executorService)
+            .setTaskExecutor(executorService)
+            .setMinimumLoggingLevel(Log.ERROR)
+            .build()
+        database = WorkDatabase.create(context, executorService, true)
+        val schedulers = listOf<Scheduler>(EnqueueBenchmark.CountingScheduler())
+        workManager = WorkManagerImpl(
+            context,
+            configuration,
+            taskExecutor,
+            database,
+            schedulers,
+            Processor(context, configuration, taskExecutor, database, schedulers)
+        )
+    }
+
+    @After
+    fun tearDown() {
+        executorService.shutdownNow()
+        database.close()
+    }
+
+    @Test
+    fun getWorkInfoByIdUnderEnqueueLoad() {
+        val request = OneTimeWorkRequestBuilder<NoOpWorker>().build()
+        workManager.enqueue(request).result.get()
+        benchmarkRule.measureRepeated {
+            runWithTimingDisabled {
+                repeat(enqueueLoad) {
+                    workManager.enqueue(OneTimeWorkRequestBuilder<NoOpWorker>().build())
+                }
+            }
+            val workInfo = when (mode) {
+                Mode.SERIAL -> {
+                    // Queued as a write, so it waits for all the enqueues submitted before it.
+                    val runnable = StatusRunnable.forUUID(workManager, request.id)
+                    taskExecutor.backgroundExecutor.execute(runnable)
+                    runnable.future.get()
+                }
+                Mode.READ_LANE -> workManager.getWorkInfoById(request.id).get()
+            }
+            runWithTimingDisabled {
+                assertNotNull(workInfo)
+                awaitBackgroundTasks()
+                database.clearAllTables()
+                database.workSpecDao().insertWorkSpec(request.workSpec)
+            }
+        }
+    }
+
+    private fun awaitBackgroundTasks() {
+        val latch = CountDownLatch(1)
+        taskExecutor.executeOnBackgroundThread { latch.countDown() }
+        latch.await()
+    }
+
+    companion object {
+        @JvmStatic
+        @Parameterized.Parameters(name = "enqueueLoad={0}, mode={1}")
+        fun data(): List<Array<Any>> {
+            return mutableListOf<Array<Any>>().apply {
+                Mode.values().forEach { mode ->
+                    arrayOf(10, 100, 500).forEach { enqueueLoad ->
+                        add(arrayOf(enqueueLoad, mode))
+                    }
+                }
+            }
+        }
+    }
+
+    enum class Mode {
+        SERIAL,
+        READ_LANE
+    }
+}
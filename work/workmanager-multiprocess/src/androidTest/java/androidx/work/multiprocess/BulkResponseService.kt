@@ -0,0 +1,94 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.work.multiprocess
+
+import android.app.Service
+import android.content.Intent
+import android.os.IBinder
+import android.os.ParcelFileDescriptor
+import android.os.Process
+import androidx.work.Data
+import androidx.work.WorkInfo
+import androidx.work.multiprocess.ListenableCallback.ListenableCallbackRunnable.reportFailure
+import androidx.work.multiprocess.ListenableCallback.ListenableCallbackRunnable.reportSuccess
+import androidx.work.multiprocess.parcelable.ParcelConverters
+import androidx.work.multiprocess.parcelable.ParcelableWorkInfos
+import java.util.UUID
+
+/**
+ * A service running in its own process, which answers every [IWorkManagerImpl.queryWorkInfo]
+ * with [WORK_INFO_COUNT] [WorkInfo]s, too many to fit in a single Binder transaction. Each
+ * [WorkInfo] is tagged with the id of the process of the service.
+ */
+public class BulkResponseService : Service() {
+
+    private val mBinder = object : IWorkManagerImpl.Stub() {
+        override fun queryWorkInfo(request: ByteArray, callback: IWorkManagerImplCallback) {
+            val tags = listOf(processTag(Process.myPid()))
+            val infos = List(WORK_INFO_COUNT) {
+                WorkInfo(
+                    UUID.randomUUID(), WorkInfo.State.ENQUEUED, Data.EMPTY, tags, Data.EMPTY, 0
+                )
+            }
+            reportSuccess(callback, ParcelConverters.marshall(ParcelableWorkInfos(infos)))
+        }
+
+        override fun enqueueWorkRequests(request: ByteArray, callback: IWorkManagerImplCallback) =
+            unsupported(callback)
+
+        override fun enqueueWorkRequestsBulk(
+            request: ParcelFileDescriptor,
+            callback: IWorkManagerImplCallback
+        ) = unsupported(callback)
+
+        override fun enqueueContinuation(request: ByteArray, callback: IWorkManagerImplCallback) =
+            unsupported(callback)
+
+        override fun enqueueContinuationBulk(
+            request: ParcelFileDescriptor,
+            callback: IWorkManagerImplCallback
+        ) = unsupported(callback)
+
+        override fun cancelWorkById(id: String, callback: IWorkManagerImplCallback) =
+            unsupported(callback)
+
+        override fun cancelAllWorkByTag(tag: String, callback: IWorkManagerImplCallback) =
+            unsupported(callback)
+
+        override fun cancelUniqueWork(name: String, callback: IWorkManagerImplCallback) =
+            unsupported(callback)
+
+        override fun cancelAllWork(callback: IWorkManagerImplCallback) = unsupported(callback)
+
+        override fun setProgress(request: ByteArray, callback: IWorkManagerImplCallback) =
+            unsupported(callback)
+
+        private fun unsupported(callback: IWorkManagerImplCallback) {
+            reportFailure(callback, UnsupportedOperationException())
+        }
+    }
+
+    override fun onBind(intent: Intent): IBinder {
+        return mBinder
+    }
+
+    public companion object {
+        public const val WORK_INFO_COUNT: Int = 5_000
+
+        public fun processTag(pid: Int): String = "process-$pid"
+    }
+}
@@ -0,0 +1,274 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.work.multiprocess
+
+import android.content.ComponentName
+import android.content.Context
+import android.content.Intent
+import android.content.ServiceConnection
+import android.os.Build
+import android.os.IBinder
+import android.os.ParcelFileDescriptor
+import android.os.Process
+import android.os.SystemClock
+import android.util.Log
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.filters.LargeTest
+import androidx.test.filters.SmallTest
+import androidx.work.OneTimeWorkRequest
+import androidx.work.WorkQuery
+import androidx.work.WorkRequest
+import androidx.work.impl.WorkManagerImpl
+import androidx.work.impl.utils.SerialExecutor
+import androidx.work.impl.utils.futures.SettableFuture
+import androidx.work.impl.utils.taskexecutor.TaskExecutor
+import androidx.work.multiprocess.parcelable.ParcelConverters
+import androidx.work.multiprocess.parcelable.ParcelableWorkInfos
+import androidx.work.multiprocess.parcelable.ParcelableWorkRequests
+import org.junit.Assert.assertArrayEquals
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNotEquals
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.mockito.Mockito.`when`
+import org.mockito.Mockito.doReturn
+import org.mockito.Mockito.mock
+import org.mockito.Mockito.spy
+import java.io.DataOutputStream
+import java.io.File
+import java.io.FileOutputStream
+import java.io.IOException
+import java.util.Random
+import java.util.concurrent.Executor
+import java.util.concurrent.TimeUnit
+import java.util.zip.DeflaterOutputStream
+
+@RunWith(AndroidJUnit4::class)
+public class BulkTransferTest {
+
+    private lateinit var mContext: Context
+    private lateinit var mWorkManager: WorkManagerImpl
+    private lateinit var mClient: RemoteWorkManagerClient
+    private lateinit var mService: StandInService
+
+    @Before
+    public fun setUp() {
+        if (Build.VERSION.SDK_INT <= 27) {
+            // Exclude <= API 27, from tests because it causes a SIGSEGV.
+            return
+        }
+
+        mContext = mock(Context::class.java)
+        mWorkManager = mock(WorkManagerImpl::class.java)
+        `when`(mContext.applicationContext).thenReturn(mContext)
+        val executor = Executor {
+            it.run()
+        }
+        val taskExecutor = mock(TaskExecutor::class.java)
+        `when`(taskExecutor.backgroundExecutor).thenReturn(SerialExecutor(executor))
+        `when`(mWorkManager.workTaskExecutor).thenReturn(taskExecutor)
+        mService = StandInService()
+        val session = SettableFuture.create<IWorkManagerImpl>()
+        session.set(mService)
+        mClient = spy(RemoteWorkManagerClient(mContext, mWorkManager))
+        doReturn(session).`when`(mClient).session
+    }
+
+    @Test
+    @SmallTest
+    public fun writeAndRead_returnsPayload() {
+        val random = Random(42)
+        // Larger than a chunk, and not a multiple of its size.
+        val payload = ByteArray(BulkTransfer.CHUNK_SIZE * 3 + 17) {
+            // Compressible, like marshalled parcels.
+            if (it % 4 == 0) random.nextInt(8).toByte() else 0
+        }
+        val descriptor = BulkTransfer.write(payload)
+        assertArrayEquals(payload, BulkTransfer.read(descriptor))
+    }
+
+    @Test(expected = IOException::class)
+    @SmallTest
+    public fun read_negativeLength_throws() {
+        BulkTransfer.read(writeLength(-1))
+    }
+
+    @Test(expected = IOException::class)
+    @SmallTest
+    public fun read_lengthAboveMaximum_throws() {
+        BulkTransfer.read(writeLength(BulkTransfer.MAX_BULK_BYTES + 1))
+    }
+
+    @Test
+    @SmallTest
+    public fun smallRequests_areSentInline() {
+        if (Build.VERSION.SDK_INT <= 27) {
+            // Exclude <= API 27, from tests because it causes a SIGSEGV.
+            return
+        }
+
+        mClient.enqueue(requests(1)).get()
+        assertEquals(1, mService.requestCount)
+        assertEquals(0, mService.bulkTransactionCount)
+    }
+
+    @Test
+    @LargeTest
+    public fun largeRequests_throughput() {
+        if (Build.VERSION.SDK_INT <= 27) {
+            // Exclude <= API 27, from tests because it causes a SIGSEGV.
+            return
+        }
+
+        val requestCount = 10_000
+        val requests = requests(requestCount)
+        val size = ParcelConverters.marshall(ParcelableWorkRequests(requests)).size
+        assertTrue(BulkTransfer.isBulk(size))
+
+        val start = SystemClock.elapsedRealtime()
+        mClient.enqueue(requests).get()
+        val elapsed = SystemClock.elapsedRealtime() - start
+
+        assertEquals(requestCount, mService.requestCount)
+        assertEquals(1, mService.bulkTransactionCount)
+        Log.i(
+            "BulkTransferTest",
+            "Sent $requestCount requests ($size bytes) in $elapsed ms"
+        )
+    }
+
+    @Test
+    @LargeTest
+    public fun largeResponse_fromAnotherProcess() {
+        if (Build.VERSION.SDK_INT <= 27) {
+            // Exclude <= API 27, from tests because it causes a SIGSEGV.
+            return
+        }
+
+        val context = ApplicationProvider.getApplicationContext<Context>()
+        val session = SettableFuture.create<IWorkManagerImpl>()
+        val connection = object : ServiceConnection {
+            override fun onServiceConnected(name: ComponentName, service: IBinder) {
+                session.set(IWorkManagerImpl.Stub.asInterface(service))
+            }
+
+            override fun onServiceDisconnected(name: ComponentName) {
+            }
+        }
+        val intent = Intent(context, BulkResponseService::class.java)
+        assertTrue(context.bindService(intent, connection, Context.BIND_AUTO_CREATE))
+        try {
+            val client = spy(RemoteWorkManagerClient(context, mWorkManager))
+            doReturn(session).`when`(client).session
+
+            val infos = client.getWorkInfos(WorkQuery.Builder.fromTags(listOf("tag")).build())
+                .get(30, TimeUnit.SECONDS)
+
+            assertEquals(BulkResponseService.WORK_INFO_COUNT, infos.size)
+            val size = ParcelConverters.marshall(ParcelableWorkInfos(infos)).size
+            assertTrue(BulkTransfer.isBulk(size))
+            val tag = infos[0].tags.single()
+            // The response was sent by the service in its own process.
+            assertNotEquals(BulkResponseService.processTag(Process.myPid()), tag)
+        } finally {
+            context.unbindService(connection)
+        }
+    }
+
+    /**
+     * Writes a payload header which only claims [length] bytes, like a misbehaving peer could.
+     */
+    private fun writeLength(length: Int): ParcelFileDescriptor {
+        val file = File.createTempFile("work-bulk-test", null)
+        try {
+            DataOutputStream(DeflaterOutputStream(FileOutputStream(file))).use {
+                it.writeInt(length)
+            }
+            return ParcelFileDescriptor.open(file, ParcelFileDescriptor.MODE_READ_ONLY)
+        } finally {
+            file.delete()
+        }
+    }
+
+    private fun requests(count: Int): List<WorkRequest> {
+        return List(count) {
+            OneTimeWorkRequest.Builder(TestWorker::class.java)
+                .addTag("tag")
+                .build()
+        }
+    }
+
+    /**
+     * A local stand-in for [RemoteWorkManagerService], which only counts the [WorkRequest]s it
+     * receives.
+     */
+    private class StandInService : IWorkManagerImpl.Stub() {
+        var requestCount = 0
+        var bulkTransactionCount = 0
+
+        override fun enqueueWorkRequests(
+            request: ByteArray,
+            callback: IWorkManagerImplCallback
+        ) {
+            val parcelled = ParcelConverters.unmarshall(request, ParcelableWorkRequests.CREATOR)
+            requestCount += parcelled.requests.size
+            callback.onSuccess(ByteArray(0))
+        }
+
+        override fun enqueueWorkRequestsBulk(
+            request: ParcelFileDescriptor,
+            callback: IWorkManagerImplCallback
+        ) {
+            bulkTransactionCount++
+            enqueueWorkRequests(BulkTransfer.read(request), callback)
+        }
+
+        override fun enqueueContinuation(
+            request: ByteArray,
+            callback: IWorkManagerImplCallback
+        ) = unsupported(callback)
+
+        override fun enqueueContinuationBulk(
+            request: ParcelFileDescriptor,
+            callback: IWorkManagerImplCallback
+        ) = unsupported(callback)
+
+        override fun cancelWorkById(id: String, callback: IWorkManagerImplCallback) =
+            unsupported(callback)
+
+        override fun cancelAllWorkByTag(tag: String, callback: IWorkManagerImplCallback) =
+            unsupported(callback)
+
+        override fun cancelUniqueWork(name: String, callback: IWorkManagerImplCallback) =
+            unsupported(callback)
+
+        override fun cancelAllWork(callback: IWorkManagerImplCallback) = unsupported(callback)
+
+        override fun queryWorkInfo(request: ByteArray, callback: IWorkManagerImplCallback) =
+            unsupported(callback)
+
+        override fun setProgress(request: ByteArray, callback: IWorkManagerImplCallback) =
+            unsupported(callback)
+
+        private fun unsupported(callback: IWorkManagerImplCallback) {
+            callback.onFailure("Unsupported")
+        }
+    }
+}
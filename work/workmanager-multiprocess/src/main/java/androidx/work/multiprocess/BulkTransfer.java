@@ -0,0 +1,138 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.work.multiprocess;
+
+import android.os.ParcelFileDescriptor;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.RestrictTo;
+import androidx.annotation.VisibleForTesting;
+import androidx.annotation.WorkerThread;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Transfers payloads which are too large for a single Binder transaction through a
+ * {@link ParcelFileDescriptor} instead of a {@code byte[]}.
+ * <p>
+ * The payload is deflated and written in chunks to an unlinked temporary file, so only the file
+ * descriptor is sent over Binder, and the receiving process streams it back in chunks.
+ *
+ * @hide
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+public final class BulkTransfer {
+
+    /**
+     * Payloads larger than this are sent through a {@link ParcelFileDescriptor}.  Binder
+     * transactions share a 1MB buffer per process, so a single transaction needs to stay well
+     * below that.
+     */
+    public static final int MAX_INLINE_BYTES = 128 * 1024;
+
+    /**
+     * The largest payload {@link #read} accepts.  The length comes from another process, so it is
+     * checked before allocating the payload.
+     */
+    public static final int MAX_BULK_BYTES = 64 * 1024 * 1024;
+
+    @VisibleForTesting
+    static final int CHUNK_SIZE = 64 * 1024;
+
+    private BulkTransfer() {
+        // Does nothing
+    }
+
+    /**
+     * @return {@code true} if a payload of {@code size} bytes should be sent with
+     * {@link #write(byte[])}
+     */
+    public static boolean isBulk(int size) {
+        return size > MAX_INLINE_BYTES;
+    }
+
+    /**
+     * Writes a payload to a {@link ParcelFileDescriptor} which can be sent to another process.
+     *
+     * @param payload The payload
+     * @return A {@link ParcelFileDescriptor} to read the payload back with {@link #read}
+     * @throws IOException if the payload cannot be written
+     */
+    @NonNull
+    @WorkerThread
+    public static ParcelFileDescriptor write(@NonNull byte[] payload) throws IOException {
+        File file = File.createTempFile("work-bulk", null);
+        try {
+            Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+            DataOutputStream output = new DataOutputStream(new DeflaterOutputStream(
+                    new FileOutputStream(file), deflater, CHUNK_SIZE));
+            try {
+                output.writeInt(payload.length);
+                for (int offset = 0; offset < payload.length; offset += CHUNK_SIZE) {
+                    output.write(payload, offset, Math.min(CHUNK_SIZE, payload.length - offset));
+                }
+            } finally {
+                output.close();
+                deflater.end();
+            }
+            return ParcelFileDescriptor.open(file, ParcelFileDescriptor.MODE_READ_ONLY);
+        } finally {
+            // The open descriptor keeps the contents around until it is closed.
+            //noinspection ResultOfMethodCallIgnored
+            file.delete();
+        }
+    }
+
+    /**
+     * Reads a payload written with {@link #write(byte[])}, and closes the
+     * {@link ParcelFileDescriptor}.
+     *
+     * @param descriptor The {@link ParcelFileDescriptor}
+     * @return The payload
+     * @throws IOException if the payload cannot be read, or its length is negative or larger than
+     *                     {@link #MAX_BULK_BYTES}
+     */
+    @NonNull
+    @WorkerThread
+    public static byte[] read(@NonNull ParcelFileDescriptor descriptor) throws IOException {
+        Inflater inflater = new Inflater();
+        InputStream stream = new ParcelFileDescriptor.AutoCloseInputStream(descriptor);
+        DataInputStream input = new DataInputStream(
+                new InflaterInputStream(stream, inflater, CHUNK_SIZE));
+        try {
+            int length = input.readInt();
+            if (length < 0 || length > MAX_BULK_BYTES) {
+                throw new IOException("Invalid payload length " + length);
+            }
+            byte[] payload = new byte[length];
+            input.readFully(payload);
+            return payload;
+        } finally {
+            input.close();
+            inflater.end();
+        }
+    }
+}
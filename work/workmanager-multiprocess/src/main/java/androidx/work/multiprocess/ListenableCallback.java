@@ -16,6 +16,7 @@
 
 package androidx.work.multiprocess;
 
+import android.os.ParcelFileDescriptor;
 import android.os.RemoteException;
 
 import androidx.annotation.NonNull;
@@ -24,6 +25,7 @@ import androidx.work.Logger;
 
 import com.google.common.util.concurrent.ListenableFuture;
 
+import java.io.IOException;
 import java.util.concurrent.Executor;
 
 /**
@@ -88,15 +90,28 @@ public abstract class ListenableCallback<I> {
         }
 
         /**
-         * Dispatches successful callbacks safely.
+         * Dispatches successful callbacks safely, using {@link BulkTransfer} for large responses.
          */
         public static void reportSuccess(
                 @NonNull IWorkManagerImplCallback callback,
                 @NonNull byte[] response) {
             try {
-                callback.onSuccess(response);
+                if (BulkTransfer.isBulk(response.length)) {
+                    // Binder duplicates the descriptor, so this copy can be closed right away.
+                    ParcelFileDescriptor descriptor = BulkTransfer.write(response);
+                    try {
+                        callback.onSuccessBulk(descriptor);
+                    } finally {
+                        descriptor.close();
+                    }
+                } else {
+                    callback.onSuccess(response);
+                }
             } catch (RemoteException exception) {
                 Logger.get().error(TAG, "Unable to notify successful operation", exception);
+            } catch (IOException exception) {
+                Logger.get().error(TAG, "Unable to write the response", exception);
+                reportFailure(callback, exception);
             }
         }
 
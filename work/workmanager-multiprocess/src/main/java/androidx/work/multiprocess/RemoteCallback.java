@@ -17,6 +17,7 @@
 package androidx.work.multiprocess;
 
 import android.os.IBinder;
+import android.os.ParcelFileDescriptor;
 import android.os.RemoteException;
 
 import androidx.annotation.NonNull;
@@ -71,6 +72,17 @@ public class RemoteCallback extends IWorkManagerImplCallback.Stub {
         unlinkToDeath();
     }
 
+    @Override
+    public void onSuccessBulk(@NonNull ParcelFileDescriptor response) {
+        try {
+            mFuture.set(BulkTransfer.read(response));
+            unlinkToDeath();
+        } catch (Throwable throwable) {
+            // Also covers running out of memory for the payload.
+            onFailure(throwable);
+        }
+    }
+
     @Override
     public void onFailure(@NonNull String error) {
         onFailure(new RuntimeException(error));
@@ -28,7 +28,7 @@ import android.content.Context;
 import android.content.Intent;
 import android.content.ServiceConnection;
 import android.os.IBinder;
-import android.os.RemoteException;
+import android.os.ParcelFileDescriptor;
 
 import androidx.annotation.Keep;
 import androidx.annotation.NonNull;
@@ -104,9 +104,19 @@ public class RemoteWorkManagerClient extends RemoteWorkManager {
             @Override
             public void execute(
                     @NonNull IWorkManagerImpl iWorkManagerImpl,
-                    @NonNull IWorkManagerImplCallback callback) throws RemoteException {
+                    @NonNull IWorkManagerImplCallback callback) throws Throwable {
                 byte[] request = ParcelConverters.marshall(new ParcelableWorkRequests(requests));
-                iWorkManagerImpl.enqueueWorkRequests(request, callback);
+                if (BulkTransfer.isBulk(request.length)) {
+                    // Binder duplicates the descriptor, so this copy can be closed right away.
+                    ParcelFileDescriptor descriptor = BulkTransfer.write(request);
+                    try {
+                        iWorkManagerImpl.enqueueWorkRequestsBulk(descriptor, callback);
+                    } finally {
+                        descriptor.close();
+                    }
+                } else {
+                    iWorkManagerImpl.enqueueWorkRequests(request, callback);
+                }
             }
         });
         return map(result, sVoidMapper, mExecutor);
@@ -162,7 +172,17 @@ public class RemoteWorkManagerClient extends RemoteWorkManager {
                 WorkContinuationImpl workContinuation = (WorkContinuationImpl) continuation;
                 byte[] request = ParcelConverters.marshall(
                         new ParcelableWorkContinuationImpl(workContinuation));
-                iWorkManagerImpl.enqueueContinuation(request, callback);
+                if (BulkTransfer.isBulk(request.length)) {
+                    // Binder duplicates the descriptor, so this copy can be closed right away.
+                    ParcelFileDescriptor descriptor = BulkTransfer.write(request);
+                    try {
+                        iWorkManagerImpl.enqueueContinuationBulk(descriptor, callback);
+                    } finally {
+                        descriptor.close();
+                    }
+                } else {
+                    iWorkManagerImpl.enqueueContinuation(request, callback);
+                }
             }
         });
         return map(result, sVoidMapper, mExecutor);
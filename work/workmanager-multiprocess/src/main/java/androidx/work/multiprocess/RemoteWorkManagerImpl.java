@@ -20,6 +20,7 @@ package androidx.work.multiprocess;
 import static androidx.work.multiprocess.ListenableCallback.ListenableCallbackRunnable.reportFailure;
 
 import android.content.Context;
+import android.os.ParcelFileDescriptor;
 
 import androidx.annotation.MainThread;
 import androidx.annotation.NonNull;
@@ -115,6 +116,34 @@ public class RemoteWorkManagerImpl extends IWorkManagerImpl.Stub {
         }
     }
 
+    @Override
+    public void enqueueWorkRequestsBulk(
+            final @NonNull ParcelFileDescriptor request,
+            final @NonNull IWorkManagerImplCallback callback) {
+        byte[] bytes;
+        try {
+            bytes = BulkTransfer.read(request);
+        } catch (Throwable throwable) {
+            reportFailure(callback, throwable);
+            return;
+        }
+        enqueueWorkRequests(bytes, callback);
+    }
+
+    @Override
+    public void enqueueContinuationBulk(
+            final @NonNull ParcelFileDescriptor request,
+            final @NonNull IWorkManagerImplCallback callback) {
+        byte[] bytes;
+        try {
+            bytes = BulkTransfer.read(request);
+        } catch (Throwable throwable) {
+            reportFailure(callback, throwable);
+            return;
+        }
+        enqueueContinuation(bytes, callback);
+    }
+
     @Override
     public void cancelWorkById(@NonNull String id, @NonNull IWorkManagerImplCallback callback) {
         try {
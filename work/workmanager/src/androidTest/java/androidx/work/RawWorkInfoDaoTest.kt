@@ -18,6 +18,7 @@ package androidx.work
 
 import androidx.test.ext.junit.runners.AndroidJUnit4
 import androidx.test.filters.SmallTest
+import androidx.work.impl.model.WorkProgress
 import androidx.work.impl.utils.RawQueries
 import androidx.work.worker.RetryWorker
 import androidx.work.worker.TestWorker
@@ -433,6 +434,69 @@ class RawWorkInfoDaoTest : DatabaseTest() {
         assertThat(pojos[0].id, `is`(test1.stringId))
     }
 
+    @Test
+    @SmallTest
+    fun pagedStatesTest() {
+        val enqueued = List(5) { OneTimeWorkRequest.from(TestWorker::class.java) }
+        val running = OneTimeWorkRequest.Builder(TestWorker::class.java)
+            .setInitialState(WorkInfo.State.RUNNING)
+            .build()
+        (enqueued + running).forEach {
+            insertWork(it)
+            insertTags(it)
+        }
+
+        val querySpec = WorkQuery.Builder
+            .fromStates(listOf(WorkInfo.State.ENQUEUED))
+            .build()
+
+        val ids = mutableListOf<String>()
+        var afterId: String? = null
+        do {
+            val pojos = mDatabase.rawWorkInfoDao().getLazyWorkInfoPojos(
+                RawQueries.workQueryToPagedRawQuery(querySpec, afterId, 2)
+            )
+            pojos.forEach {
+                assertThat(it.state, `is`(WorkInfo.State.ENQUEUED))
+                assertThat(it.tags, `is`(listOf(TestWorker::class.java.name)))
+            }
+            ids += pojos.map { it.id }
+            afterId = pojos.lastOrNull()?.id
+        } while (pojos.size == 2)
+
+        assertThat(ids, `is`(enqueued.map { it.stringId }.sorted()))
+    }
+
+    @Test
+    @SmallTest
+    fun pagedLazyData() {
+        val output = Data.Builder().putString("key", "output").build()
+        val progress = Data.Builder().putInt("progress", 42).build()
+        val succeeded = OneTimeWorkRequest.Builder(TestWorker::class.java)
+            .setInitialState(WorkInfo.State.SUCCEEDED)
+            .build()
+        succeeded.workSpec.output = output
+        val running = OneTimeWorkRequest.Builder(TestWorker::class.java)
+            .setInitialState(WorkInfo.State.RUNNING)
+            .build()
+        insertWork(succeeded)
+        insertWork(running)
+        mDatabase.workProgressDao().insert(WorkProgress(running.stringId, progress))
+
+        val querySpec = WorkQuery.Builder
+            .fromIds(listOf(succeeded.id, running.id))
+            .build()
+
+        val workInfos = mDatabase.rawWorkInfoDao().getLazyWorkInfoPojos(
+            RawQueries.workQueryToPagedRawQuery(querySpec, null, 10)
+        ).associate { it.id to it.toWorkInfo() }
+        assertThat(workInfos.size, `is`(2))
+        assertThat(workInfos.getValue(succeeded.stringId).outputData, `is`(output))
+        assertThat(workInfos.getValue(succeeded.stringId).progress, `is`(Data.EMPTY))
+        assertThat(workInfos.getValue(running.stringId).outputData, `is`(Data.EMPTY))
+        assertThat(workInfos.getValue(running.stringId).progress, `is`(progress))
+    }
+
     @Test(expected = IllegalArgumentException::class)
     @SmallTest
     fun invalidWorkQuery() {
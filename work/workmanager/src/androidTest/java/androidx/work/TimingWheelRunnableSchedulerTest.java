@@ -0,0 +1,147 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.work;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+
+import android.os.SystemClock;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.MediumTest;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@RunWith(AndroidJUnit4.class)
+public class TimingWheelRunnableSchedulerTest {
+
+    private ScheduledExecutorService mExecutorService;
+    private TimingWheelRunnableScheduler mScheduler;
+
+    @Before
+    public void setUp() {
+        mExecutorService = Executors.newSingleThreadScheduledExecutor();
+        mScheduler = new TimingWheelRunnableScheduler(mExecutorService, 10L);
+    }
+
+    @After
+    public void tearDown() {
+        mExecutorService.shutdownNow();
+    }
+
+    @Test
+    @MediumTest
+    public void testScheduleWithDelay_runsAfterDelay() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final long start = SystemClock.uptimeMillis();
+        final long[] ranAt = new long[1];
+        mScheduler.scheduleWithDelay(100L, new Runnable() {
+            @Override
+            public void run() {
+                ranAt[0] = SystemClock.uptimeMillis();
+                latch.countDown();
+            }
+        });
+        assertThat(mScheduler.getPendingCount(), is(1));
+        assertThat(latch.await(5, TimeUnit.SECONDS), is(true));
+        assertThat(ranAt[0] - start, greaterThanOrEqualTo(100L));
+        assertThat(mScheduler.getPendingCount(), is(0));
+    }
+
+    @Test
+    @MediumTest
+    public void testScheduleWithDelay_runsInOrderOfDelay() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(3);
+        final List<Integer> order = Collections.synchronizedList(new ArrayList<Integer>());
+        long[] delays = {120L, 40L, 80L};
+        for (int i = 0; i < delays.length; i++) {
+            final int index = i;
+            mScheduler.scheduleWithDelay(delays[i], new Runnable() {
+                @Override
+                public void run() {
+                    order.add(index);
+                    latch.countDown();
+                }
+            });
+        }
+        assertThat(latch.await(5, TimeUnit.SECONDS), is(true));
+        assertThat(order.get(0), is(1));
+        assertThat(order.get(1), is(2));
+        assertThat(order.get(2), is(0));
+    }
+
+    @Test
+    @MediumTest
+    public void testCancel_removesEveryScheduledInstance() throws InterruptedException {
+        final AtomicInteger runs = new AtomicInteger();
+        Runnable runnable = new Runnable() {
+            @Override
+            public void run() {
+                runs.incrementAndGet();
+            }
+        };
+        mScheduler.scheduleWithDelay(50L, runnable);
+        mScheduler.scheduleWithDelay(60L, runnable);
+        assertThat(mScheduler.getPendingCount(), is(2));
+        mScheduler.cancel(runnable);
+        assertThat(mScheduler.getPendingCount(), is(0));
+        Thread.sleep(150L);
+        assertThat(runs.get(), is(0));
+    }
+
+    @Test
+    @MediumTest
+    public void testScheduleWithDelay_longerThanOneTurnOfTheWheel() throws InterruptedException {
+        // 512 ticks of 1ms make up one turn of the wheel.
+        TimingWheelRunnableScheduler scheduler =
+                new TimingWheelRunnableScheduler(mExecutorService, 1L);
+        final CountDownLatch early = new CountDownLatch(1);
+        final CountDownLatch late = new CountDownLatch(1);
+        final long start = SystemClock.uptimeMillis();
+        final long[] ranAt = new long[1];
+        scheduler.scheduleWithDelay(1200L, new Runnable() {
+            @Override
+            public void run() {
+                ranAt[0] = SystemClock.uptimeMillis();
+                late.countDown();
+            }
+        });
+        scheduler.scheduleWithDelay(10L, new Runnable() {
+            @Override
+            public void run() {
+                early.countDown();
+            }
+        });
+        assertThat(early.await(5, TimeUnit.SECONDS), is(true));
+        assertThat(scheduler.getPendingCount(), is(1));
+        assertThat(late.await(5, TimeUnit.SECONDS), is(true));
+        assertThat(ranAt[0] - start, greaterThanOrEqualTo(1200L));
+    }
+}
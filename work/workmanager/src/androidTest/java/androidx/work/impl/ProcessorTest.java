@@ -24,13 +24,19 @@ import static org.mockito.Mockito.verify;
 
 import android.content.Context;
 
+import androidx.annotation.NonNull;
+
 import androidx.test.core.app.ApplicationProvider;
 import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.MediumTest;
 import androidx.test.filters.SmallTest;
 import androidx.work.Configuration;
 import androidx.work.DatabaseTest;
 import androidx.work.OneTimeWorkRequest;
+import androidx.work.impl.utils.SerialExecutor;
+import androidx.work.impl.utils.SynchronousExecutor;
 import androidx.work.impl.utils.taskexecutor.InstantWorkTaskExecutor;
+import androidx.work.impl.utils.taskexecutor.TaskExecutor;
 import androidx.work.worker.InfiniteTestWorker;
 
 import org.junit.Before;
@@ -38,10 +44,20 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 
 import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @RunWith(AndroidJUnit4.class)
 public class ProcessorTest extends DatabaseTest {
 
+    private static final int THREAD_COUNT = 8;
+    private static final int ID_COUNT = 16;
+    private static final int ITERATIONS = 2000;
+
+    private Context mAppContext;
+    private Configuration mConfiguration;
     private Scheduler mMockScheduler;
     private Processor mProcessor;
 
@@ -49,6 +65,8 @@ public class ProcessorTest extends DatabaseTest {
     public void setUp() {
         Context appContext = ApplicationProvider.getApplicationContext().getApplicationContext();
         Configuration configuration = new Configuration.Builder().build();
+        mAppContext = appContext;
+        mConfiguration = configuration;
         mMockScheduler = mock(Scheduler.class);
         mProcessor = new Processor(
                 appContext,
@@ -93,4 +111,141 @@ public class ProcessorTest extends DatabaseTest {
         mProcessor.onExecuted("dummy", true);
         verify(mMockScheduler, never()).cancel("dummy");
     }
+
+    @Test
+    @MediumTest
+    public void testConcurrentStartAndStop_startsAndStopsEachWorkOnce()
+            throws InterruptedException {
+        final Processor processor = createProcessorWithoutExecution();
+        final AtomicInteger starts = new AtomicInteger();
+        runConcurrently(new Task() {
+            @Override
+            public void run(int thread, int iteration) {
+                String id = "work-" + (iteration % ID_COUNT);
+                if (processor.startWork(id)) {
+                    starts.incrementAndGet();
+                }
+                assertThat(processor.isEnqueued(id), is(true));
+            }
+        });
+        assertThat(starts.get(), is(ID_COUNT));
+
+        final AtomicInteger stops = new AtomicInteger();
+        runConcurrently(new Task() {
+            @Override
+            public void run(int thread, int iteration) {
+                String id = "work-" + (iteration % ID_COUNT);
+                if (processor.stopWork(id)) {
+                    stops.incrementAndGet();
+                }
+            }
+        });
+        assertThat(stops.get(), is(ID_COUNT));
+        assertThat(processor.hasWork(), is(false));
+    }
+
+    @Test
+    @MediumTest
+    public void testConcurrentOnExecuted_notifiesListenersOutsideOfLock()
+            throws InterruptedException {
+        final Processor processor = createProcessorWithoutExecution();
+        final AtomicInteger notifications = new AtomicInteger();
+        processor.addExecutionListener(new ExecutionListener() {
+            @Override
+            public void onExecuted(@NonNull String workSpecId, boolean needsReschedule) {
+                // A listener calling back into the processor must not deadlock other threads.
+                processor.isEnqueued(workSpecId);
+                notifications.incrementAndGet();
+            }
+        });
+        runConcurrently(new Task() {
+            @Override
+            public void run(int thread, int iteration) {
+                String id = "work-" + thread + "-" + iteration;
+                processor.startWork(id);
+                ExecutionListener transientListener = new ExecutionListener() {
+                    @Override
+                    public void onExecuted(@NonNull String workSpecId, boolean needsReschedule) {
+                    }
+                };
+                processor.addExecutionListener(transientListener);
+                processor.onExecuted(id, false);
+                processor.removeExecutionListener(transientListener);
+            }
+        });
+
+        assertThat(notifications.get(), is(THREAD_COUNT * ITERATIONS));
+        assertThat(processor.hasWork(), is(false));
+    }
+
+    /**
+     * Creates a {@link Processor} whose {@link WorkerWrapper}s are never run, so work stays
+     * enqueued until it is stopped or reported as executed.
+     */
+    private Processor createProcessorWithoutExecution() {
+        final Executor synchronousExecutor = new SynchronousExecutor();
+        final SerialExecutor droppingExecutor = new SerialExecutor(new Executor() {
+            @Override
+            public void execute(@NonNull Runnable command) {
+            }
+        });
+        TaskExecutor taskExecutor = new TaskExecutor() {
+            @Override
+            public void postToMainThread(Runnable runnable) {
+                runnable.run();
+            }
+
+            @Override
+            public Executor getMainThreadExecutor() {
+                return synchronousExecutor;
+            }
+
+            @Override
+            public void executeOnBackgroundThread(Runnable runnable) {
+                runnable.run();
+            }
+
+            @Override
+            public SerialExecutor getBackgroundExecutor() {
+                return droppingExecutor;
+            }
+        };
+        return new Processor(
+                mAppContext,
+                mConfiguration,
+                taskExecutor,
+                mDatabase,
+                Collections.singletonList(mMockScheduler));
+    }
+
+    private static void runConcurrently(final Task task) throws InterruptedException {
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(THREAD_COUNT);
+        final AtomicInteger failures = new AtomicInteger();
+        for (int i = 0; i < THREAD_COUNT; i++) {
+            final int thread = i;
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        for (int iteration = 0; iteration < ITERATIONS; iteration++) {
+                            task.run(thread, iteration);
+                        }
+                    } catch (Throwable throwable) {
+                        failures.incrementAndGet();
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }).start();
+        }
+        start.countDown();
+        assertThat(done.await(30, TimeUnit.SECONDS), is(true));
+        assertThat(failures.get(), is(0));
+    }
+
+    private interface Task {
+        void run(int thread, int iteration);
+    }
 }
@@ -42,6 +42,7 @@ import androidx.test.filters.MediumTest;
 import androidx.test.filters.SmallTest;
 import androidx.work.Configuration;
 import androidx.work.Data;
+import androidx.work.ExistingWorkPolicy;
 import androidx.work.OneTimeWorkRequest;
 import androidx.work.WorkContinuation;
 import androidx.work.WorkInfo;
@@ -50,6 +51,7 @@ import androidx.work.impl.foreground.ForegroundProcessor;
 import androidx.work.impl.model.WorkSpec;
 import androidx.work.impl.model.WorkSpecDao;
 import androidx.work.impl.utils.SynchronousExecutor;
+import androidx.work.impl.utils.WorkScopes;
 import androidx.work.impl.utils.taskexecutor.InstantWorkTaskExecutor;
 import androidx.work.worker.TestWorker;
 
@@ -152,6 +154,36 @@ public class WorkContinuationImplTest extends WorkManagerTest {
                 containsInAnyOrder(dependentWork.getStringId(), testWork.getStringId()));
     }
 
+    @Test
+    @SmallTest
+    public void testGetWriteScopes_coversTheWorkOfTheChain() {
+        OneTimeWorkRequest testWork = new OneTimeWorkRequest.Builder(TestWorker.class)
+                .addTag("tag")
+                .build();
+        OneTimeWorkRequest dependentWork = createTestWorker();
+        WorkContinuationImpl dependent = (WorkContinuationImpl) new WorkContinuationImpl(
+                mWorkManagerImpl, "name", ExistingWorkPolicy.APPEND,
+                Collections.singletonList(testWork)).then(dependentWork);
+
+        assertThat(dependent.getWriteScopes(), containsInAnyOrder(
+                WorkScopes.forName("name"),
+                WorkScopes.forId(testWork.getStringId()),
+                WorkScopes.forTag("tag"),
+                WorkScopes.forTag(TestWorker.class.getName()),
+                WorkScopes.forId(dependentWork.getStringId())));
+    }
+
+    @Test
+    @SmallTest
+    public void testGetWriteScopes_replacingUniqueWork_coversEverything() {
+        WorkContinuationImpl continuation = (WorkContinuationImpl) new WorkContinuationImpl(
+                mWorkManagerImpl, "name", ExistingWorkPolicy.REPLACE,
+                createTestWorkerList()).then(createTestWorker());
+
+        // Replacing cancels the existing unique work and the work depending on it.
+        assertThat(continuation.getWriteScopes(), is(nullValue()));
+    }
+
     @Test
     public void testContinuation_enqueue() throws ExecutionException, InterruptedException {
         WorkContinuationImpl continuation = new WorkContinuationImpl(mWorkManagerImpl,
@@ -69,8 +69,6 @@ import androidx.arch.core.executor.TaskExecutor;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.Observer;
 import androidx.lifecycle.testing.TestLifecycleOwner;
-import androidx.sqlite.db.SupportSQLiteDatabase;
-import androidx.sqlite.db.SupportSQLiteOpenHelper;
 import androidx.test.core.app.ApplicationProvider;
 import androidx.test.ext.junit.runners.AndroidJUnit4;
 import androidx.test.filters.LargeTest;
@@ -84,10 +82,14 @@ import androidx.work.Constraints;
 import androidx.work.ContentUriTriggers;
 import androidx.work.Data;
 import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.ExistingWorkPolicy;
 import androidx.work.OneTimeWorkRequest;
+import androidx.work.Operation;
 import androidx.work.PeriodicWorkRequest;
 import androidx.work.WorkContinuation;
 import androidx.work.WorkInfo;
+import androidx.work.WorkInfoPage;
+import androidx.work.WorkQuery;
 import androidx.work.WorkRequest;
 import androidx.work.impl.background.greedy.GreedyScheduler;
 import androidx.work.impl.background.systemalarm.RescheduleReceiver;
@@ -101,7 +103,9 @@ import androidx.work.impl.model.WorkTagDao;
 import androidx.work.impl.utils.CancelWorkRunnable;
 import androidx.work.impl.utils.ForceStopRunnable;
 import androidx.work.impl.utils.PreferenceUtils;
+import androidx.work.impl.utils.PruneWorkRunnable;
 import androidx.work.impl.utils.taskexecutor.InstantWorkTaskExecutor;
+import androidx.work.impl.utils.taskexecutor.WorkManagerTaskExecutor;
 import androidx.work.impl.workers.ConstraintTrackingWorker;
 import androidx.work.worker.InfiniteTestWorker;
 import androidx.work.worker.StopAwareWorker;
@@ -114,11 +118,13 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.ArgumentCaptor;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
@@ -290,6 +296,77 @@ public class WorkManagerImplTest {
         assertThat(prerequisites, containsInAnyOrder(work2.getStringId()));
     }
 
+    @Test
+    @MediumTest
+    public void testEnqueueBatch_insertsAllContinuations()
+            throws ExecutionException, InterruptedException {
+
+        OneTimeWorkRequest work1 = new OneTimeWorkRequest.Builder(TestWorker.class)
+                .addTag("batch")
+                .build();
+        OneTimeWorkRequest work2a = new OneTimeWorkRequest.Builder(TestWorker.class).build();
+        OneTimeWorkRequest work2b = new OneTimeWorkRequest.Builder(TestWorker.class).build();
+        OneTimeWorkRequest work3 = new OneTimeWorkRequest.Builder(TestWorker.class).build();
+
+        mWorkManagerImpl.enqueueBatch(Arrays.asList(
+                mWorkManagerImpl.beginWith(work1),
+                mWorkManagerImpl.beginWith(work2a).then(work2b),
+                mWorkManagerImpl.beginUniqueWork("name", KEEP, work3)))
+                .getResult()
+                .get();
+
+        WorkSpecDao workSpecDao = mDatabase.workSpecDao();
+        assertThat(workSpecDao.getState(work1.getStringId()), is(ENQUEUED));
+        assertThat(workSpecDao.getState(work2a.getStringId()), is(ENQUEUED));
+        assertThat(workSpecDao.getState(work2b.getStringId()), is(BLOCKED));
+        assertThat(workSpecDao.getState(work3.getStringId()), is(ENQUEUED));
+        assertThat(mDatabase.workTagDao().getWorkSpecIdsWithTag("batch"),
+                containsInAnyOrder(work1.getStringId()));
+        assertThat(mDatabase.dependencyDao().getPrerequisites(work2b.getStringId()),
+                containsInAnyOrder(work2a.getStringId()));
+        assertThat(mDatabase.workNameDao().getWorkSpecIdsWithName("name"),
+                containsInAnyOrder(work3.getStringId()));
+    }
+
+    @Test
+    @MediumTest
+    public void testEnqueueBatch_appendsToUniqueWorkEnqueuedInSameBatch()
+            throws ExecutionException, InterruptedException {
+
+        OneTimeWorkRequest work1 = new OneTimeWorkRequest.Builder(TestWorker.class).build();
+        OneTimeWorkRequest work2 = new OneTimeWorkRequest.Builder(TestWorker.class).build();
+
+        mWorkManagerImpl.enqueueBatch(Arrays.asList(
+                mWorkManagerImpl.beginUniqueWork("name", APPEND, work1),
+                mWorkManagerImpl.beginUniqueWork("name", APPEND, work2)))
+                .getResult()
+                .get();
+
+        assertThat(mDatabase.workNameDao().getWorkSpecIdsWithName("name"),
+                containsInAnyOrder(work1.getStringId(), work2.getStringId()));
+        assertThat(mDatabase.workSpecDao().getState(work2.getStringId()), is(BLOCKED));
+        assertThat(mDatabase.dependencyDao().getPrerequisites(work2.getStringId()),
+                containsInAnyOrder(work1.getStringId()));
+    }
+
+    @Test
+    @MediumTest
+    public void testEnqueueBatch_skipsEnqueuedContinuations()
+            throws ExecutionException, InterruptedException {
+
+        OneTimeWorkRequest work1 = new OneTimeWorkRequest.Builder(TestWorker.class).build();
+        OneTimeWorkRequest work2 = new OneTimeWorkRequest.Builder(TestWorker.class).build();
+        WorkContinuation enqueued = mWorkManagerImpl.beginWith(work1);
+        enqueued.enqueue().getResult().get();
+        WorkContinuation notEnqueued = mWorkManagerImpl.beginWith(work2);
+
+        Operation operation = mWorkManagerImpl.enqueueBatch(Arrays.asList(enqueued, notEnqueued));
+        operation.getResult().get();
+
+        assertThat(mDatabase.workSpecDao().getWorkSpec(work2.getStringId()), is(notNullValue()));
+        assertThat(notEnqueued.enqueue(), is(operation));
+    }
+
     @Test
     @MediumTest
     public void testEnqueue_insertWithCompletedDependencies_isNotStatusBlocked()
@@ -1044,6 +1121,41 @@ public class WorkManagerImplTest {
         assertThat(workInfo.getState(), is(SUCCEEDED));
     }
 
+    @Test
+    @MediumTest
+    public void testGetWorkInfo_rightAfterEnqueue_seesEnqueuedWork()
+            throws ExecutionException, InterruptedException {
+        // Runs on a real thread pool, where a status query that skipped the queue could overtake
+        // the enqueue submitted right before it.
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            WorkManagerTaskExecutor taskExecutor = new WorkManagerTaskExecutor(executor);
+            List<Scheduler> schedulers = Collections.emptyList();
+            WorkManagerImpl workManager = new WorkManagerImpl(mContext, mConfiguration,
+                    taskExecutor, mDatabase, schedulers,
+                    new Processor(mContext, mConfiguration, taskExecutor, mDatabase, schedulers));
+            for (int i = 0; i < 20; i++) {
+                OneTimeWorkRequest work = new OneTimeWorkRequest.Builder(TestWorker.class)
+                        .addTag("tag" + i)
+                        .build();
+                workManager.enqueue(work);
+                WorkInfo workInfo = workManager.getWorkInfoById(work.getId()).get();
+                assertThat(workInfo, is(notNullValue()));
+                assertThat(workInfo.getState(), is(ENQUEUED));
+                assertThat(workManager.getWorkInfosByTag("tag" + i).get().size(), is(1));
+
+                OneTimeWorkRequest uniqueWork =
+                        new OneTimeWorkRequest.Builder(TestWorker.class).build();
+                workManager.enqueueUniqueWork("name" + i, ExistingWorkPolicy.KEEP, uniqueWork);
+                List<WorkInfo> workInfos = workManager.getWorkInfosForUniqueWork("name" + i).get();
+                assertThat(workInfos.size(), is(1));
+                assertThat(workInfos.get(0).getId(), is(uniqueWork.getId()));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
     @Test
     @MediumTest
     public void testGetWorkInfoByIdSync_returnsNullIfNotInDatabase()
@@ -1180,6 +1292,42 @@ public class WorkManagerImplTest {
         assertThat(workInfos.size(), is(0));
     }
 
+    @Test
+    @MediumTest
+    public void testGetWorkInfosPaged() throws ExecutionException, InterruptedException {
+        final String tag = "paged_tag";
+        List<String> expectedIds = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            OneTimeWorkRequest work = new OneTimeWorkRequest.Builder(TestWorker.class)
+                    .addTag(tag)
+                    .setInitialState(SUCCEEDED)
+                    .build();
+            insertWorkSpecAndTags(work);
+            expectedIds.add(work.getStringId());
+        }
+        insertWorkSpecAndTags(new OneTimeWorkRequest.Builder(TestWorker.class).build());
+        Collections.sort(expectedIds);
+
+        WorkQuery workQuery = WorkQuery.Builder.fromTags(Collections.singletonList(tag)).build();
+        List<String> ids = new ArrayList<>();
+        int pages = 0;
+        WorkInfoPage page = mWorkManagerImpl.getWorkInfosPaged(workQuery, 2).get();
+        while (true) {
+            pages++;
+            for (WorkInfo workInfo : page.getWorkInfos()) {
+                assertThat(workInfo.getState(), is(SUCCEEDED));
+                assertThat(workInfo.getOutputData(), is(Data.EMPTY));
+                ids.add(workInfo.getId().toString());
+            }
+            if (!page.hasNextPage()) {
+                break;
+            }
+            page = page.loadNextPage().get();
+        }
+        assertThat(pages, is(3));
+        assertThat(ids, is(expectedIds));
+    }
+
     @Test
     @MediumTest
     public void getWorkInfosByNameSync() throws ExecutionException, InterruptedException {
@@ -1610,7 +1758,7 @@ public class WorkManagerImplTest {
 
     @Test
     @MediumTest
-    public void testGenerateCleanupCallback_deletesOldFinishedWork() {
+    public void testPruneExpiredWork_deletesOldFinishedWork() {
         OneTimeWorkRequest work1 = new OneTimeWorkRequest.Builder(TestWorker.class)
                 .setInitialState(SUCCEEDED)
                 .setPeriodStartTime(WorkDatabase.getPruneDate() - 1L, TimeUnit.MILLISECONDS)
@@ -1622,9 +1770,7 @@ public class WorkManagerImplTest {
         insertWorkSpecAndTags(work1);
         insertWorkSpecAndTags(work2);
 
-        SupportSQLiteOpenHelper openHelper = mDatabase.getOpenHelper();
-        SupportSQLiteDatabase db = openHelper.getWritableDatabase();
-        WorkDatabase.generateCleanupCallback().onOpen(db);
+        mWorkManagerImpl.pruneExpiredWork();
 
         WorkSpecDao workSpecDao = mDatabase.workSpecDao();
         assertThat(workSpecDao.getWorkSpec(work1.getStringId()), is(nullValue()));
@@ -1633,7 +1779,7 @@ public class WorkManagerImplTest {
 
     @Test
     @MediumTest
-    public void testGenerateCleanupCallback_doesNotDeleteOldFinishedWorkWithActiveDependents() {
+    public void testPruneExpiredWork_doesNotDeleteOldFinishedWorkWithActiveDependents() {
         OneTimeWorkRequest work0 = new OneTimeWorkRequest.Builder(TestWorker.class)
                 .setInitialState(SUCCEEDED)
                 .setPeriodStartTime(WorkDatabase.getPruneDate() - 1L, TimeUnit.MILLISECONDS)
@@ -1655,9 +1801,7 @@ public class WorkManagerImplTest {
         insertDependency(work1, work0);
         insertDependency(work2, work1);
 
-        SupportSQLiteOpenHelper openHelper = mDatabase.getOpenHelper();
-        SupportSQLiteDatabase db = openHelper.getWritableDatabase();
-        WorkDatabase.generateCleanupCallback().onOpen(db);
+        mWorkManagerImpl.pruneExpiredWork();
 
         WorkSpecDao workSpecDao = mDatabase.workSpecDao();
         assertThat(workSpecDao.getWorkSpec(work0.getStringId()), is(nullValue()));
@@ -1665,6 +1809,86 @@ public class WorkManagerImplTest {
         assertThat(workSpecDao.getWorkSpec(work2.getStringId()), is(not(nullValue())));
     }
 
+    @Test
+    @MediumTest
+    public void testPruneExpiredWork_doesNotDeleteWorkWithUnexpiredRetention() {
+        OneTimeWorkRequest work = new OneTimeWorkRequest.Builder(TestWorker.class)
+                .setInitialState(SUCCEEDED)
+                .setPeriodStartTime(WorkDatabase.getPruneDate() - 1L, TimeUnit.MILLISECONDS)
+                .keepResultsForAtLeast(999, TimeUnit.DAYS)
+                .build();
+        insertWorkSpecAndTags(work);
+
+        mWorkManagerImpl.pruneExpiredWork();
+
+        WorkSpecDao workSpecDao = mDatabase.workSpecDao();
+        assertThat(workSpecDao.getWorkSpec(work.getStringId()), is(not(nullValue())));
+    }
+
+    @Test
+    @MediumTest
+    public void testPruneExpiredWork_prunesInBatches()
+            throws ExecutionException, InterruptedException {
+        int count = 1200;
+        for (int i = 0; i < count; i++) {
+            insertWorkSpecAndTags(new OneTimeWorkRequest.Builder(TestWorker.class)
+                    .setInitialState(SUCCEEDED)
+                    .setPeriodStartTime(WorkDatabase.getPruneDate() - i - 1L,
+                            TimeUnit.MILLISECONDS)
+                    .build());
+        }
+        OneTimeWorkRequest enqueuedWork = new OneTimeWorkRequest.Builder(TestWorker.class).build();
+        insertWorkSpecAndTags(enqueuedWork);
+
+        PruneWorkRunnable runnable = PruneWorkRunnable.forExpiredWork(mWorkManagerImpl);
+        runnable.run();
+        runnable.getOperation().getResult().get();
+
+        WorkSpecDao workSpecDao = mDatabase.workSpecDao();
+        assertThat(workSpecDao.getWorkSpecCount(), is(1));
+        assertThat(workSpecDao.getWorkSpec(enqueuedWork.getStringId()), is(not(nullValue())));
+        assertThat(runnable.getPrunedCount(), is(count));
+        assertThat(runnable.getBatchCount(), is(greaterThan(1)));
+    }
+
+    @Test
+    @MediumTest
+    public void testPruneExpiredWork_prunesOldestFinishedWorkAboveMaxRetainedWorkCount()
+            throws ExecutionException, InterruptedException {
+        Configuration configuration = new Configuration.Builder(mConfiguration)
+                .setMaxRetainedWorkCount(3)
+                .build();
+        when(mWorkManagerImpl.getConfiguration()).thenReturn(configuration);
+
+        long now = System.currentTimeMillis();
+        OneTimeWorkRequest[] finishedWork = new OneTimeWorkRequest[4];
+        for (int i = 0; i < finishedWork.length; i++) {
+            finishedWork[i] = new OneTimeWorkRequest.Builder(TestWorker.class)
+                    .setInitialState(SUCCEEDED)
+                    .setPeriodStartTime(now - finishedWork.length + i, TimeUnit.MILLISECONDS)
+                    .keepResultsForAtLeast(999, TimeUnit.DAYS)
+                    .build();
+            insertWorkSpecAndTags(finishedWork[i]);
+        }
+        // The oldest work has an unfinished dependent, so it has to be kept.
+        OneTimeWorkRequest enqueuedWork = new OneTimeWorkRequest.Builder(TestWorker.class).build();
+        insertWorkSpecAndTags(enqueuedWork);
+        insertDependency(enqueuedWork, finishedWork[0]);
+
+        PruneWorkRunnable runnable = PruneWorkRunnable.forExpiredWork(mWorkManagerImpl);
+        runnable.run();
+        runnable.getOperation().getResult().get();
+
+        WorkSpecDao workSpecDao = mDatabase.workSpecDao();
+        assertThat(workSpecDao.getWorkSpecCount(), is(3));
+        assertThat(workSpecDao.getWorkSpec(finishedWork[0].getStringId()), is(not(nullValue())));
+        assertThat(workSpecDao.getWorkSpec(finishedWork[1].getStringId()), is(nullValue()));
+        assertThat(workSpecDao.getWorkSpec(finishedWork[2].getStringId()), is(nullValue()));
+        assertThat(workSpecDao.getWorkSpec(finishedWork[3].getStringId()), is(not(nullValue())));
+        assertThat(workSpecDao.getWorkSpec(enqueuedWork.getStringId()), is(not(nullValue())));
+        assertThat(runnable.getPrunedCount(), is(2));
+    }
+
     @Test
     @LargeTest
     public void testEnableDisableRescheduleReceiver()
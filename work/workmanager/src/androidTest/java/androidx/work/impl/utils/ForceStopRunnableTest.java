@@ -124,6 +124,15 @@ public class ForceStopRunnableTest {
         verify(mWorkManager, times(1)).onForceStopRunnableCompleted();
     }
 
+    @Test
+    public void test_prunesExpiredWork() {
+        ForceStopRunnable runnable = spy(mRunnable);
+        when(runnable.shouldRescheduleWorkers()).thenReturn(false);
+        when(runnable.isForceStopped()).thenReturn(false);
+        runnable.run();
+        verify(mWorkManager, times(1)).pruneExpiredWork();
+    }
+
     @Test
     public void test_rescheduleWorkers_updatesSharedPreferences() {
         ForceStopRunnable runnable = spy(mRunnable);
@@ -0,0 +1,305 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.work.impl.utils;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.MediumTest;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+@RunWith(AndroidJUnit4.class)
+public class SerialExecutorTest {
+
+    private ExecutorService mExecutorService;
+    private SerialExecutor mSerialExecutor;
+
+    @Before
+    public void setUp() {
+        mExecutorService = Executors.newFixedThreadPool(4);
+        mSerialExecutor = new SerialExecutor(mExecutorService);
+    }
+
+    @After
+    public void tearDown() {
+        mExecutorService.shutdownNow();
+    }
+
+    @Test
+    @MediumTest
+    public void testExecute_withDifferentKeys_runsConcurrently() throws InterruptedException {
+        final CountDownLatch bothStarted = new CountDownLatch(2);
+        final CountDownLatch done = new CountDownLatch(2);
+        Runnable runnable = new Runnable() {
+            @Override
+            public void run() {
+                bothStarted.countDown();
+                try {
+                    // Only completes if the other task runs at the same time.
+                    if (bothStarted.await(5, TimeUnit.SECONDS)) {
+                        done.countDown();
+                    }
+                } catch (InterruptedException ignored) {
+                    // Fails the test below.
+                }
+            }
+        };
+        mSerialExecutor.execute("a", runnable);
+        mSerialExecutor.execute("b", runnable);
+        assertThat(done.await(10, TimeUnit.SECONDS), is(true));
+    }
+
+    @Test
+    @MediumTest
+    public void testExecute_keepsOrderOfSameKeyAndOfTasksWithoutKey()
+            throws InterruptedException {
+        final List<String> order = Collections.synchronizedList(new ArrayList<String>());
+        final CountDownLatch latch = new CountDownLatch(5);
+        mSerialExecutor.execute("a", record(order, latch, "a1"));
+        mSerialExecutor.execute("a", record(order, latch, "a2"));
+        mSerialExecutor.execute(record(order, latch, "global"));
+        mSerialExecutor.execute("b", record(order, latch, "b1"));
+        mSerialExecutor.execute("a", record(order, latch, "a3"));
+        assertThat(latch.await(5, TimeUnit.SECONDS), is(true));
+
+        assertThat(order.subList(0, 3), is(Arrays.asList("a1", "a2", "global")));
+        assertThat(order.indexOf("a3") > order.indexOf("global"), is(true));
+        assertThat(order.indexOf("b1") > order.indexOf("global"), is(true));
+    }
+
+    @Test
+    @MediumTest
+    public void testExecuteRead_withoutQueuedTasks_runsRightAway() throws InterruptedException {
+        final CountDownLatch read = new CountDownLatch(1);
+        mSerialExecutor.executeRead(new Runnable() {
+            @Override
+            public void run() {
+                read.countDown();
+            }
+        });
+        assertThat(mSerialExecutor.hasPendingTasks(), is(false));
+        assertThat(read.await(2, TimeUnit.SECONDS), is(true));
+    }
+
+    @Test
+    @MediumTest
+    public void testExecuteRead_waitsForTasksSubmittedBefore() throws InterruptedException {
+        final List<String> order = Collections.synchronizedList(new ArrayList<String>());
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch latch = new CountDownLatch(3);
+        mSerialExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException ignored) {
+                    // Nothing to do.
+                }
+                order.add("write");
+                latch.countDown();
+            }
+        });
+        mSerialExecutor.execute("a", record(order, latch, "keyed"));
+        mSerialExecutor.executeRead(record(order, latch, "read"));
+        // The read must observe both writes, so it cannot run before they complete.
+        assertThat(latch.await(500, TimeUnit.MILLISECONDS), is(false));
+        assertThat(order.isEmpty(), is(true));
+        release.countDown();
+        assertThat(latch.await(5, TimeUnit.SECONDS), is(true));
+        assertThat(order, is(Arrays.asList("write", "keyed", "read")));
+    }
+
+    @Test
+    @MediumTest
+    public void testExecuteRead_doesNotHoldBackTasksSubmittedAfter() throws InterruptedException {
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch readStarted = new CountDownLatch(1);
+        final CountDownLatch releaseRead = new CountDownLatch(1);
+        final CountDownLatch write = new CountDownLatch(1);
+        mSerialExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException ignored) {
+                    // Nothing to do.
+                }
+            }
+        });
+        mSerialExecutor.executeRead(new Runnable() {
+            @Override
+            public void run() {
+                readStarted.countDown();
+                try {
+                    releaseRead.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException ignored) {
+                    // Nothing to do.
+                }
+            }
+        });
+        mSerialExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                write.countDown();
+            }
+        });
+        release.countDown();
+        assertThat(readStarted.await(5, TimeUnit.SECONDS), is(true));
+        // The read is still running, which must not delay the write submitted after it.
+        assertThat(write.await(5, TimeUnit.SECONDS), is(true));
+        releaseRead.countDown();
+    }
+
+    @Test
+    @MediumTest
+    public void testExecuteRead_doesNotWaitForWritesWithOtherScopes()
+            throws InterruptedException {
+        final List<String> order = Collections.synchronizedList(new ArrayList<String>());
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch latch = new CountDownLatch(4);
+        mSerialExecutor.execute(null, Collections.singleton("a"), new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException ignored) {
+                    // Nothing to do.
+                }
+                order.add("write a");
+                latch.countDown();
+            }
+        });
+        mSerialExecutor.execute(null, Collections.singleton("b"), record(order, latch, "write b"));
+        mSerialExecutor.executeRead(Collections.singleton("a"), SerialExecutor.PRIORITY_DEFAULT,
+                record(order, latch, "read a"));
+        final CountDownLatch readC = new CountDownLatch(1);
+        mSerialExecutor.executeRead(Collections.singleton("c"), SerialExecutor.PRIORITY_DEFAULT,
+                new Runnable() {
+                    @Override
+                    public void run() {
+                        order.add("read c");
+                        readC.countDown();
+                        latch.countDown();
+                    }
+                });
+        // Nothing queued before the read of "c" writes "c", so it does not wait for the writes.
+        assertThat(readC.await(5, TimeUnit.SECONDS), is(true));
+        assertThat(order, is(Collections.singletonList("read c")));
+        release.countDown();
+        assertThat(latch.await(5, TimeUnit.SECONDS), is(true));
+        assertThat(order.indexOf("read a") > order.indexOf("write a"), is(true));
+    }
+
+    @Test
+    @MediumTest
+    public void testExecuteRead_withoutScopes_waitsForEveryWrite() throws InterruptedException {
+        final List<String> order = Collections.synchronizedList(new ArrayList<String>());
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch latch = new CountDownLatch(2);
+        mSerialExecutor.execute(null, Collections.singleton("a"), new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException ignored) {
+                    // Nothing to do.
+                }
+                order.add("write a");
+                latch.countDown();
+            }
+        });
+        mSerialExecutor.executeRead(record(order, latch, "read"));
+        assertThat(latch.await(500, TimeUnit.MILLISECONDS), is(false));
+        release.countDown();
+        assertThat(latch.await(5, TimeUnit.SECONDS), is(true));
+        assertThat(order, is(Arrays.asList("write a", "read")));
+    }
+
+    @Test
+    @MediumTest
+    public void testExecuteRead_runsUserFacingReadsFirst() throws InterruptedException {
+        final List<String> order = Collections.synchronizedList(new ArrayList<String>());
+        final CountDownLatch blocking = new CountDownLatch(SerialExecutor.MAX_ACTIVE_READS);
+        List<CountDownLatch> releases = new ArrayList<>();
+        for (int i = 0; i < SerialExecutor.MAX_ACTIVE_READS; i++) {
+            final CountDownLatch release = new CountDownLatch(1);
+            releases.add(release);
+            mSerialExecutor.executeRead(new Runnable() {
+                @Override
+                public void run() {
+                    blocking.countDown();
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException ignored) {
+                        // Nothing to do.
+                    }
+                }
+            });
+        }
+        assertThat(blocking.await(5, TimeUnit.SECONDS), is(true));
+        final CountDownLatch userFacing = new CountDownLatch(1);
+        final CountDownLatch latch = new CountDownLatch(2);
+        // Both reads wait for a free slot in the read lane.
+        mSerialExecutor.executeRead(null, SerialExecutor.PRIORITY_DEFAULT,
+                record(order, latch, "default"));
+        mSerialExecutor.executeRead(null, SerialExecutor.PRIORITY_USER_FACING,
+                new Runnable() {
+                    @Override
+                    public void run() {
+                        order.add("user facing");
+                        userFacing.countDown();
+                        latch.countDown();
+                    }
+                });
+        assertThat(mSerialExecutor.hasPendingTasks(), is(true));
+        // Frees a single slot, which goes to the user facing read although it came second.
+        releases.get(0).countDown();
+        assertThat(userFacing.await(5, TimeUnit.SECONDS), is(true));
+        for (CountDownLatch release : releases) {
+            release.countDown();
+        }
+        assertThat(latch.await(5, TimeUnit.SECONDS), is(true));
+        assertThat(order, is(Arrays.asList("user facing", "default")));
+    }
+
+    private static Runnable record(
+            final List<String> order,
+            final CountDownLatch latch,
+            final String name) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                order.add(name);
+                latch.countDown();
+            }
+        };
+    }
+}
@@ -0,0 +1,442 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.work;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+
+/**
+ * The binary format {@link Data} is serialized with.
+ * <p>
+ * A payload starts with a two byte magic number and a version byte, which never match the header
+ * of the {@link java.io.ObjectOutputStream} format used before, so both can be told apart. It is
+ * followed by the number of entries and, for each entry, its key, a type tag and the value.
+ * Primitives are written unboxed in big-endian order, arrays as their length followed by their
+ * unboxed elements, and strings as their length in bytes followed by their modified UTF-8
+ * encoding (as in {@link java.io.DataOutput#writeUTF(String)}, so every string round-trips
+ * exactly). Counts and lengths are unsigned varints.
+ * <p>
+ * Arrays of boxed numbers or booleans containing {@code null} elements and values of any other
+ * type cannot be represented; {@link #encode(Map, int)} returns {@code null} for those and the caller
+ * falls back to the legacy format.
+ */
+final class CompactDataFormat {
+    private static final byte MAGIC_0 = (byte) 0xDA;
+    private static final byte MAGIC_1 = (byte) 0x7A;
+    private static final byte VERSION = 1;
+    private static final int HEADER_SIZE = 3;
+
+    private static final byte TYPE_NULL = 0;
+    private static final byte TYPE_BOOLEAN = 1;
+    private static final byte TYPE_BYTE = 2;
+    private static final byte TYPE_INT = 3;
+    private static final byte TYPE_LONG = 4;
+    private static final byte TYPE_FLOAT = 5;
+    private static final byte TYPE_DOUBLE = 6;
+    private static final byte TYPE_STRING = 7;
+    private static final byte TYPE_ARRAY = 0x10;
+    private static final byte TYPE_UNSUPPORTED = -1;
+
+    private CompactDataFormat() {
+    }
+
+    /**
+     * @return {@code true} if {@code bytes} were written by {@link #encode(Map, int)}.
+     */
+    static boolean isCompact(@NonNull byte[] bytes) {
+        return bytes.length >= HEADER_SIZE && bytes[0] == MAGIC_0 && bytes[1] == MAGIC_1;
+    }
+
+    /**
+     * Encodes {@code values}, or returns {@code null} if one of them cannot be represented.
+     *
+     * @throws IllegalStateException if the encoded payload is bigger than {@code maxBytes}
+     */
+    @Nullable
+    static byte[] encode(@NonNull Map<String, Object> values, int maxBytes) {
+        // Size the output exactly first so it is written with a single allocation.
+        int size = HEADER_SIZE + varIntSize(values.size());
+        for (Map.Entry<String, Object> entry : values.entrySet()) {
+            final Object value = entry.getValue();
+            final byte type = typeOf(value);
+            if (type == TYPE_UNSUPPORTED) {
+                return null;
+            }
+            size += stringSize(entry.getKey()) + 1 + valueSize(type, value);
+        }
+        if (size > maxBytes) {
+            throw new IllegalStateException(
+                    "Data cannot occupy more than " + maxBytes + " bytes when serialized");
+        }
+
+        final ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.put(MAGIC_0).put(MAGIC_1).put(VERSION);
+        putVarInt(buffer, values.size());
+        for (Map.Entry<String, Object> entry : values.entrySet()) {
+            final Object value = entry.getValue();
+            final byte type = typeOf(value);
+            putString(buffer, entry.getKey());
+            buffer.put(type);
+            putValue(buffer, type, value);
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Decodes a payload written by {@link #encode(Map, int)} into {@code values}.
+     *
+     * @throws IllegalArgumentException if the payload is malformed or of an unknown version
+     */
+    static void decode(@NonNull byte[] bytes, @NonNull Map<String, Object> values) {
+        final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        buffer.position(2);
+        final byte version = buffer.get();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unknown Data format version " + version);
+        }
+        char[] chars = new char[32];
+        for (int i = getVarInt(buffer); i > 0; i--) {
+            final String key = getString(buffer, chars);
+            final byte type = buffer.get();
+            final Object value;
+            if ((type & TYPE_ARRAY) == 0) {
+                value = getValue(buffer, type, chars);
+            } else {
+                final byte elementType = (byte) (type & ~TYPE_ARRAY);
+                final int length = getVarInt(buffer);
+                if (length > buffer.remaining()) {
+                    // Every element takes at least one byte.
+                    throw new IllegalArgumentException("Malformed Data array");
+                }
+                final Object[] array = newArray(elementType, length);
+                for (int j = 0; j < length; j++) {
+                    if (elementType == TYPE_STRING) {
+                        array[j] = getNullableString(buffer, chars);
+                    } else {
+                        array[j] = getValue(buffer, elementType, chars);
+                    }
+                }
+                value = array;
+            }
+            values.put(key, value);
+        }
+    }
+
+    private static byte typeOf(@Nullable Object value) {
+        if (value == null) {
+            return TYPE_NULL;
+        }
+        final Class<?> valueType = value.getClass();
+        if (valueType == String.class) {
+            return TYPE_STRING;
+        } else if (valueType == Integer.class) {
+            return TYPE_INT;
+        } else if (valueType == Long.class) {
+            return TYPE_LONG;
+        } else if (valueType == Boolean.class) {
+            return TYPE_BOOLEAN;
+        } else if (valueType == Byte.class) {
+            return TYPE_BYTE;
+        } else if (valueType == Float.class) {
+            return TYPE_FLOAT;
+        } else if (valueType == Double.class) {
+            return TYPE_DOUBLE;
+        } else if (valueType == String[].class) {
+            return TYPE_ARRAY | TYPE_STRING;
+        }
+        final byte elementType;
+        if (valueType == Integer[].class) {
+            elementType = TYPE_INT;
+        } else if (valueType == Long[].class) {
+            elementType = TYPE_LONG;
+        } else if (valueType == Boolean[].class) {
+            elementType = TYPE_BOOLEAN;
+        } else if (valueType == Byte[].class) {
+            elementType = TYPE_BYTE;
+        } else if (valueType == Float[].class) {
+            elementType = TYPE_FLOAT;
+        } else if (valueType == Double[].class) {
+            elementType = TYPE_DOUBLE;
+        } else {
+            return TYPE_UNSUPPORTED;
+        }
+        for (Object element : (Object[]) value) {
+            if (element == null) {
+                return TYPE_UNSUPPORTED;
+            }
+        }
+        return (byte) (TYPE_ARRAY | elementType);
+    }
+
+    private static int valueSize(byte type, Object value) {
+        if ((type & TYPE_ARRAY) == 0) {
+            return scalarSize(type, value);
+        }
+        final byte elementType = (byte) (type & ~TYPE_ARRAY);
+        final Object[] array = (Object[]) value;
+        int size = varIntSize(array.length);
+        if (elementType == TYPE_STRING) {
+            for (Object element : array) {
+                size += nullableStringSize((String) element);
+            }
+        } else {
+            size += array.length * scalarSize(elementType, null);
+        }
+        return size;
+    }
+
+    private static int scalarSize(byte type, Object value) {
+        switch (type) {
+            case TYPE_NULL:
+                return 0;
+            case TYPE_BOOLEAN:
+            case TYPE_BYTE:
+                return 1;
+            case TYPE_INT:
+            case TYPE_FLOAT:
+                return 4;
+            case TYPE_LONG:
+            case TYPE_DOUBLE:
+                return 8;
+            default:
+                return stringSize((String) value);
+        }
+    }
+
+    private static void putValue(ByteBuffer buffer, byte type, Object value) {
+        if ((type & TYPE_ARRAY) == 0) {
+            putScalar(buffer, type, value);
+            return;
+        }
+        final byte elementType = (byte) (type & ~TYPE_ARRAY);
+        final Object[] array = (Object[]) value;
+        putVarInt(buffer, array.length);
+        for (Object element : array) {
+            if (elementType == TYPE_STRING) {
+                putNullableString(buffer, (String) element);
+            } else {
+                putScalar(buffer, elementType, element);
+            }
+        }
+    }
+
+    private static void putScalar(ByteBuffer buffer, byte type, Object value) {
+        switch (type) {
+            case TYPE_NULL:
+                break;
+            case TYPE_BOOLEAN:
+                buffer.put((Boolean) value ? (byte) 1 : (byte) 0);
+                break;
+            case TYPE_BYTE:
+                buffer.put((Byte) value);
+                break;
+            case TYPE_INT:
+                buffer.putInt((Integer) value);
+                break;
+            case TYPE_LONG:
+                buffer.putLong((Long) value);
+                break;
+            case TYPE_FLOAT:
+                buffer.putFloat((Float) value);
+                break;
+            case TYPE_DOUBLE:
+                buffer.putDouble((Double) value);
+                break;
+            default:
+                putString(buffer, (String) value);
+        }
+    }
+
+    private static Object getValue(ByteBuffer buffer, byte type, char[] chars) {
+        switch (type) {
+            case TYPE_NULL:
+                return null;
+            case TYPE_BOOLEAN:
+                return buffer.get() != 0;
+            case TYPE_BYTE:
+                return buffer.get();
+            case TYPE_INT:
+                return buffer.getInt();
+            case TYPE_LONG:
+                return buffer.getLong();
+            case TYPE_FLOAT:
+                return buffer.getFloat();
+            case TYPE_DOUBLE:
+                return buffer.getDouble();
+            case TYPE_STRING:
+                return getString(buffer, chars);
+            default:
+                throw new IllegalArgumentException("Unknown Data value type " + type);
+        }
+    }
+
+    private static Object[] newArray(byte elementType, int length) {
+        switch (elementType) {
+            case TYPE_BOOLEAN:
+                return new Boolean[length];
+            case TYPE_BYTE:
+                return new Byte[length];
+            case TYPE_INT:
+                return new Integer[length];
+            case TYPE_LONG:
+                return new Long[length];
+            case TYPE_FLOAT:
+                return new Float[length];
+            case TYPE_DOUBLE:
+                return new Double[length];
+            case TYPE_STRING:
+                return new String[length];
+            default:
+                throw new IllegalArgumentException("Unknown Data array type " + elementType);
+        }
+    }
+
+    // Strings in arrays may be null; their length is stored plus one and 0 stands for null.
+
+    private static int nullableStringSize(@Nullable String value) {
+        if (value == null) {
+            return 1;
+        }
+        final int length = utfLength(value);
+        return varIntSize(length + 1) + length;
+    }
+
+    private static void putNullableString(ByteBuffer buffer, @Nullable String value) {
+        if (value == null) {
+            putVarInt(buffer, 0);
+            return;
+        }
+        putVarInt(buffer, utfLength(value) + 1);
+        putUtf(buffer, value);
+    }
+
+    @Nullable
+    private static String getNullableString(ByteBuffer buffer, char[] chars) {
+        final int length = getVarInt(buffer);
+        return length == 0 ? null : getUtf(buffer, length - 1, chars);
+    }
+
+    private static int stringSize(String value) {
+        final int length = utfLength(value);
+        return varIntSize(length) + length;
+    }
+
+    private static void putString(ByteBuffer buffer, String value) {
+        putVarInt(buffer, utfLength(value));
+        putUtf(buffer, value);
+    }
+
+    private static String getString(ByteBuffer buffer, char[] chars) {
+        return getUtf(buffer, getVarInt(buffer), chars);
+    }
+
+    private static int utfLength(String value) {
+        final int length = value.length();
+        int utfLength = length;
+        for (int i = 0; i < length; i++) {
+            final char c = value.charAt(i);
+            if (c == 0 || c > 0x7F) {
+                utfLength += c > 0x7FF ? 2 : 1;
+            }
+        }
+        return utfLength;
+    }
+
+    private static void putUtf(ByteBuffer buffer, String value) {
+        for (int i = 0, length = value.length(); i < length; i++) {
+            final char c = value.charAt(i);
+            if (c != 0 && c <= 0x7F) {
+                buffer.put((byte) c);
+            } else if (c <= 0x7FF) {
+                buffer.put((byte) (0xC0 | (c >> 6)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            } else {
+                buffer.put((byte) (0xE0 | (c >> 12)));
+                buffer.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+    }
+
+    private static String getUtf(ByteBuffer buffer, int utfLength, char[] chars) {
+        if (utfLength > buffer.remaining()) {
+            throw new IllegalArgumentException("Malformed Data string");
+        }
+        if (chars.length < utfLength) {
+            // Never more chars than bytes; the caller's array is only a scratch buffer.
+            chars = new char[utfLength];
+        }
+        final byte[] bytes = buffer.array();
+        final int start = buffer.arrayOffset() + buffer.position();
+        final int end = start + utfLength;
+        int count = 0;
+        int i = start;
+        while (i < end) {
+            final int b = bytes[i] & 0xFF;
+            if (b < 0x80) {
+                chars[count++] = (char) b;
+                i++;
+            } else if ((b & 0xE0) == 0xC0 && i + 1 < end) {
+                chars[count++] = (char) (((b & 0x1F) << 6) | (bytes[i + 1] & 0x3F));
+                i += 2;
+            } else if ((b & 0xF0) == 0xE0 && i + 2 < end) {
+                chars[count++] = (char) (((b & 0x0F) << 12) | ((bytes[i + 1] & 0x3F) << 6)
+                        | (bytes[i + 2] & 0x3F));
+                i += 3;
+            } else {
+                throw new IllegalArgumentException("Malformed Data string");
+            }
+        }
+        buffer.position(buffer.position() + utfLength);
+        return new String(chars, 0, count);
+    }
+
+    private static int varIntSize(int value) {
+        int size = 1;
+        while ((value & ~0x7F) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    private static void putVarInt(ByteBuffer buffer, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private static int getVarInt(ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            final byte b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                if (value < 0) {
+                    break;
+                }
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed Data length");
+    }
+}
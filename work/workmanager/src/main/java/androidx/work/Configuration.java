@@ -75,6 +75,8 @@ public final class Configuration {
     final int mMaxJobSchedulerId;
     @SuppressWarnings("WeakerAccess")
     final int mMaxSchedulerLimit;
+    @SuppressWarnings("WeakerAccess")
+    final int mMaxRetainedWorkCount;
     private final boolean mIsUsingDefaultTaskExecutor;
 
     Configuration(@NonNull Configuration.Builder builder) {
@@ -117,6 +119,7 @@ public final class Configuration {
         mMinJobSchedulerId = builder.mMinJobSchedulerId;
         mMaxJobSchedulerId = builder.mMaxJobSchedulerId;
         mMaxSchedulerLimit = builder.mMaxSchedulerLimit;
+        mMaxRetainedWorkCount = builder.mMaxRetainedWorkCount;
         mExceptionHandler = builder.mExceptionHandler;
         mDefaultProcessName = builder.mDefaultProcessName;
     }
@@ -208,6 +211,17 @@ public final class Configuration {
         return mMaxJobSchedulerId;
     }
 
+    /**
+     * Gets the maximum number of {@link WorkRequest}s that {@link WorkManager} keeps in its
+     * database before pruning the oldest finished ones.
+     *
+     * @return The maximum number of retained {@link WorkRequest}s, or {@link Integer#MAX_VALUE}
+     *         if there is no limit
+     */
+    public int getMaxRetainedWorkCount() {
+        return mMaxRetainedWorkCount;
+    }
+
     /**
      * @return The {@link String} name of the process where work should be scheduled.
      */
@@ -278,6 +292,7 @@ public final class Configuration {
         int mMinJobSchedulerId;
         int mMaxJobSchedulerId;
         int mMaxSchedulerLimit;
+        int mMaxRetainedWorkCount;
 
         /**
          * Creates a new {@link Configuration.Builder}.
@@ -287,6 +302,7 @@ public final class Configuration {
             mMinJobSchedulerId = IdGenerator.INITIAL_ID;
             mMaxJobSchedulerId = Integer.MAX_VALUE;
             mMaxSchedulerLimit = MIN_SCHEDULER_LIMIT;
+            mMaxRetainedWorkCount = Integer.MAX_VALUE;
         }
 
         /**
@@ -308,6 +324,7 @@ public final class Configuration {
             mMinJobSchedulerId = configuration.mMinJobSchedulerId;
             mMaxJobSchedulerId = configuration.mMaxJobSchedulerId;
             mMaxSchedulerLimit = configuration.mMaxSchedulerLimit;
+            mMaxRetainedWorkCount = configuration.mMaxRetainedWorkCount;
             mRunnableScheduler = configuration.mRunnableScheduler;
             mExceptionHandler = configuration.mExceptionHandler;
             mDefaultProcessName = configuration.mDefaultProcessName;
@@ -426,6 +443,33 @@ public final class Configuration {
             return this;
         }
 
+        /**
+         * Specifies the maximum number of {@link WorkRequest}s that {@link WorkManager} keeps in
+         * its database.
+         * <p>
+         * Finished work is normally pruned once its results have been kept for at least the
+         * duration given to
+         * {@link WorkRequest.Builder#keepResultsForAtLeast(long, java.util.concurrent.TimeUnit)}.
+         * When {@link WorkManager} is initialized and finds more {@link WorkRequest}s than this
+         * limit, it also prunes the oldest finished work, regardless of how long its results should be
+         * kept, until the limit is met. Work that is not finished, or that unfinished work depends
+         * on, is never pruned, so the limit can still be exceeded by such work.
+         * <p>
+         * By default there is no limit.
+         *
+         * @param maxRetainedWorkCount The maximum number of {@link WorkRequest}s to keep
+         * @return This {@link Builder} instance
+         * @throws IllegalArgumentException if {@code maxRetainedWorkCount} is not positive
+         */
+        @NonNull
+        public Builder setMaxRetainedWorkCount(@IntRange(from = 1) int maxRetainedWorkCount) {
+            if (maxRetainedWorkCount < 1) {
+                throw new IllegalArgumentException("maxRetainedWorkCount must be positive");
+            }
+            mMaxRetainedWorkCount = maxRetainedWorkCount;
+            return this;
+        }
+
         /**
          * Specifies the minimum logging level, corresponding to the constants found in
          * {@link android.util.Log}.  For example, specifying {@link android.util.Log#VERBOSE} will
@@ -444,7 +488,8 @@ public final class Configuration {
         /**
          * Specifies the {@link RunnableScheduler} to be used by {@link WorkManager}.
          * <br/>
-         * This is used by the in-process scheduler to keep track of timed work.
+         * This is used by the in-process scheduler to keep track of timed work. Apps with a large
+         * number of delayed {@link WorkRequest}s can use a {@link TimingWheelRunnableScheduler}.
          *
          * @param runnableScheduler The {@link RunnableScheduler} to be used
          * @return This {@link Builder} instance
@@ -30,6 +30,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.nio.BufferUnderflowException;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
@@ -374,6 +375,11 @@ public final class Data {
     @TypeConverter
     @NonNull
     public static byte[] toByteArrayInternal(@NonNull Data data) {
+        byte[] compact = CompactDataFormat.encode(data.mValues, MAX_DATA_BYTES);
+        if (compact != null) {
+            return compact;
+        }
+        // Values the compact format cannot represent are written in the legacy format.
         ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
         ObjectOutputStream objectOutputStream = null;
         try {
@@ -427,6 +433,14 @@ public final class Data {
         }
 
         Map<String, Object> map = new HashMap<>();
+        if (CompactDataFormat.isCompact(bytes)) {
+            try {
+                CompactDataFormat.decode(bytes, map);
+            } catch (IllegalArgumentException | BufferUnderflowException e) {
+                Log.e(TAG, "Error in Data#fromByteArray: ", e);
+            }
+            return new Data(map);
+        }
         ByteArrayInputStream inputStream = new ByteArrayInputStream(bytes);
         ObjectInputStream objectInputStream = null;
         try {
@@ -0,0 +1,310 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.work;
+
+import androidx.annotation.IntRange;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link RunnableScheduler} backed by a hashed timing wheel.
+ * <p>
+ * Time is divided into ticks of a fixed duration, and each scheduled {@link Runnable} is placed in
+ * the bucket of the tick it is due in, so both
+ * {@link #scheduleWithDelay(long, Runnable) scheduling} and {@link #cancel(Runnable) cancelling}
+ * take constant time regardless of how many runnables are pending. Runnables run on the thread of
+ * the {@link ScheduledExecutorService} driving the wheel, which is only woken up for ticks that
+ * have runnables due. A runnable may run up to one tick later than requested.
+ * <p>
+ * This is well suited to apps with a large number of delayed or time limited
+ * {@link WorkRequest}s, and can be used by WorkManager with
+ * {@link Configuration.Builder#setRunnableScheduler(RunnableScheduler)}.
+ */
+public final class TimingWheelRunnableScheduler implements RunnableScheduler {
+
+    private static final String TAG = Logger.tagWithPrefix("TimingWheelScheduler");
+
+    private static final long DEFAULT_TICK_DURATION_MILLIS = 10L;
+    private static final int WHEEL_SIZE = 512;
+
+    private final ScheduledExecutorService mExecutor;
+    private final long mTickDurationMillis;
+    private final long mStartMillis;
+    // Each bucket is a doubly linked list of the nodes due in a tick that maps to it.
+    private final Node[] mHeads;
+    private final Node[] mTails;
+    // All pending nodes of a runnable, chained through Node.mNextForRunnable.
+    private final Map<Runnable, Node> mNodes;
+    private final Object mLock;
+    private final Runnable mTick;
+
+    private long mCurrentTick;
+    private int mPendingCount;
+    private long mWakeUpTick;
+    @Nullable
+    private ScheduledFuture<?> mWakeUp;
+
+    /**
+     * Creates a {@link TimingWheelRunnableScheduler} with a tick duration of 10 milliseconds,
+     * driven by its own background thread.
+     */
+    public TimingWheelRunnableScheduler() {
+        this(Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(@NonNull Runnable runnable) {
+                Thread thread = Executors.defaultThreadFactory().newThread(runnable);
+                thread.setName("WorkManager-TimingWheel-thread");
+                thread.setDaemon(true);
+                return thread;
+            }
+        }), DEFAULT_TICK_DURATION_MILLIS);
+    }
+
+    /**
+     * Creates a {@link TimingWheelRunnableScheduler}.
+     *
+     * @param executor           The {@link ScheduledExecutorService} used to wake up the wheel
+     *                           and run the {@link Runnable}s that are due
+     * @param tickDurationMillis The duration of a tick in milliseconds, which is the precision of
+     *                           the scheduler
+     */
+    public TimingWheelRunnableScheduler(
+            @NonNull ScheduledExecutorService executor,
+            @IntRange(from = 1) long tickDurationMillis) {
+        if (tickDurationMillis < 1) {
+            throw new IllegalArgumentException("tickDurationMillis must be positive");
+        }
+        mExecutor = executor;
+        mTickDurationMillis = tickDurationMillis;
+        mStartMillis = now();
+        mHeads = new Node[WHEEL_SIZE];
+        mTails = new Node[WHEEL_SIZE];
+        mNodes = new IdentityHashMap<>();
+        mLock = new Object();
+        mWakeUpTick = Long.MAX_VALUE;
+        mTick = new Runnable() {
+            @Override
+            public void run() {
+                onTick();
+            }
+        };
+    }
+
+    @Override
+    public void scheduleWithDelay(
+            @IntRange(from = 0) long delayInMillis,
+            @NonNull Runnable runnable) {
+        synchronized (mLock) {
+            long elapsed = now() - mStartMillis;
+            if (mPendingCount == 0) {
+                // Nothing is pending, so no tick needs to be processed to catch up.
+                mCurrentTick = elapsed / mTickDurationMillis;
+            }
+            long delay = Math.max(0L, delayInMillis);
+            long tick = (elapsed + delay + mTickDurationMillis - 1) / mTickDurationMillis;
+            if (tick <= mCurrentTick) {
+                tick = mCurrentTick + 1;
+            }
+            Node node = new Node(runnable, tick);
+            link(node);
+            node.mNextForRunnable = mNodes.put(runnable, node);
+            mPendingCount++;
+            wakeUpAt(tick);
+        }
+    }
+
+    @Override
+    public void cancel(@NonNull Runnable runnable) {
+        synchronized (mLock) {
+            Node node = mNodes.remove(runnable);
+            while (node != null) {
+                unlink(node);
+                mPendingCount--;
+                node = node.mNextForRunnable;
+            }
+            if (mPendingCount == 0 && mWakeUp != null) {
+                mWakeUp.cancel(false);
+                mWakeUp = null;
+                mWakeUpTick = Long.MAX_VALUE;
+            }
+        }
+    }
+
+    /**
+     * @return The number of {@link Runnable}s which are scheduled and have not run yet.
+     */
+    public int getPendingCount() {
+        synchronized (mLock) {
+            return mPendingCount;
+        }
+    }
+
+    void onTick() {
+        List<Runnable> due = null;
+        synchronized (mLock) {
+            mWakeUp = null;
+            mWakeUpTick = Long.MAX_VALUE;
+            long targetTick = (now() - mStartMillis) / mTickDurationMillis;
+            if (targetTick > mCurrentTick) {
+                if (targetTick - mCurrentTick >= WHEEL_SIZE) {
+                    // The wheel fell behind by more than a full turn; every bucket is due.
+                    for (int bucket = 0; bucket < WHEEL_SIZE; bucket++) {
+                        due = expire(bucket, targetTick, due);
+                    }
+                } else {
+                    for (long tick = mCurrentTick + 1; tick <= targetTick; tick++) {
+                        due = expire(bucket(tick), targetTick, due);
+                    }
+                }
+                mCurrentTick = targetTick;
+            }
+            if (mPendingCount > 0) {
+                wakeUpAt(nextOccupiedTick());
+            }
+        }
+        if (due != null) {
+            for (Runnable runnable : due) {
+                try {
+                    runnable.run();
+                } catch (RuntimeException exception) {
+                    // Keep the wheel running for everything else that is scheduled.
+                    Logger.get().error(TAG, "Scheduled runnable failed", exception);
+                }
+            }
+        }
+    }
+
+    @Nullable
+    private List<Runnable> expire(int bucket, long tick, @Nullable List<Runnable> due) {
+        Node node = mHeads[bucket];
+        while (node != null) {
+            Node next = node.mNext;
+            // Nodes due in a later turn of the wheel stay in the bucket.
+            if (node.mTick <= tick) {
+                unlink(node);
+                forget(node);
+                mPendingCount--;
+                if (due == null) {
+                    due = new ArrayList<>();
+                }
+                due.add(node.mRunnable);
+            }
+            node = next;
+        }
+        return due;
+    }
+
+    private long nextOccupiedTick() {
+        for (long tick = mCurrentTick + 1; tick <= mCurrentTick + WHEEL_SIZE; tick++) {
+            if (mHeads[bucket(tick)] != null) {
+                return tick;
+            }
+        }
+        // Unreachable while there are pending nodes.
+        return mCurrentTick + WHEEL_SIZE;
+    }
+
+    private void wakeUpAt(long tick) {
+        if (tick >= mWakeUpTick) {
+            return;
+        }
+        if (mWakeUp != null) {
+            mWakeUp.cancel(false);
+        }
+        mWakeUpTick = tick;
+        long delay = Math.max(0L, mStartMillis + tick * mTickDurationMillis - now());
+        mWakeUp = mExecutor.schedule(mTick, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void link(@NonNull Node node) {
+        int bucket = bucket(node.mTick);
+        Node tail = mTails[bucket];
+        node.mPrevious = tail;
+        if (tail == null) {
+            mHeads[bucket] = node;
+        } else {
+            tail.mNext = node;
+        }
+        mTails[bucket] = node;
+    }
+
+    private void unlink(@NonNull Node node) {
+        int bucket = bucket(node.mTick);
+        if (node.mPrevious == null) {
+            mHeads[bucket] = node.mNext;
+        } else {
+            node.mPrevious.mNext = node.mNext;
+        }
+        if (node.mNext == null) {
+            mTails[bucket] = node.mPrevious;
+        } else {
+            node.mNext.mPrevious = node.mPrevious;
+        }
+        node.mPrevious = null;
+        node.mNext = null;
+    }
+
+    private void forget(@NonNull Node node) {
+        Node head = mNodes.get(node.mRunnable);
+        if (head == node) {
+            if (node.mNextForRunnable == null) {
+                mNodes.remove(node.mRunnable);
+            } else {
+                mNodes.put(node.mRunnable, node.mNextForRunnable);
+            }
+            return;
+        }
+        // The same runnable was scheduled more than once, which is rare.
+        while (head != null && head.mNextForRunnable != node) {
+            head = head.mNextForRunnable;
+        }
+        if (head != null) {
+            head.mNextForRunnable = node.mNextForRunnable;
+        }
+    }
+
+    private static int bucket(long tick) {
+        return (int) (tick & (WHEEL_SIZE - 1));
+    }
+
+    private static long now() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+
+    private static final class Node {
+        final Runnable mRunnable;
+        final long mTick;
+        Node mPrevious;
+        Node mNext;
+        Node mNextForRunnable;
+
+        Node(@NonNull Runnable runnable, long tick) {
+            mRunnable = runnable;
+            mTick = tick;
+        }
+    }
+}
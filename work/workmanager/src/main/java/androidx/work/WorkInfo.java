@@ -18,6 +18,7 @@ package androidx.work;
 
 import androidx.annotation.IntRange;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.annotation.RestrictTo;
 
 import java.util.HashSet;
@@ -35,10 +36,13 @@ public final class WorkInfo {
 
     private @NonNull UUID mId;
     private @NonNull State mState;
-    private @NonNull Data mOutputData;
+    private volatile @Nullable Data mOutputData;
     private @NonNull Set<String> mTags;
-    private @NonNull Data mProgress;
+    private volatile @Nullable Data mProgress;
     private int mRunAttemptCount;
+    // The serialized output and progress, when they are deserialized lazily.
+    private @Nullable byte[] mOutputBytes;
+    private @Nullable byte[] mProgressBytes;
 
     /**
      * @hide
@@ -59,6 +63,32 @@ public final class WorkInfo {
         mRunAttemptCount = runAttemptCount;
     }
 
+    /**
+     * Creates a {@link WorkInfo} whose output and progress {@link Data} are only deserialized
+     * when they are first accessed.
+     *
+     * @hide
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+    public WorkInfo(
+            @NonNull UUID id,
+            @NonNull State state,
+            @NonNull byte[] outputData,
+            @NonNull List<String> tags,
+            @Nullable byte[] progress,
+            int runAttemptCount) {
+        mId = id;
+        mState = state;
+        mOutputBytes = outputData;
+        mTags = new HashSet<>(tags);
+        if (progress == null) {
+            mProgress = Data.EMPTY;
+        } else {
+            mProgressBytes = progress;
+        }
+        mRunAttemptCount = runAttemptCount;
+    }
+
     /**
      * Gets the identifier of the {@link WorkRequest}.
      *
@@ -84,7 +114,13 @@ public final class WorkInfo {
      * @return The output {@link Data} of the {@link WorkRequest}
      */
     public @NonNull Data getOutputData() {
-        return mOutputData;
+        // Deserializing more than once on a race is harmless, Data is immutable.
+        Data outputData = mOutputData;
+        if (outputData == null) {
+            outputData = Data.fromByteArray(mOutputBytes);
+            mOutputData = outputData;
+        }
+        return outputData;
     }
 
     /**
@@ -102,7 +138,12 @@ public final class WorkInfo {
      * @return The progress {@link Data} associated with the {@link WorkRequest}
      */
     public @NonNull Data getProgress() {
-        return mProgress;
+        Data progress = mProgress;
+        if (progress == null) {
+            progress = Data.fromByteArray(mProgressBytes);
+            mProgress = progress;
+        }
+        return progress;
     }
 
     /**
@@ -126,18 +167,18 @@ public final class WorkInfo {
         if (mRunAttemptCount != workInfo.mRunAttemptCount) return false;
         if (!mId.equals(workInfo.mId)) return false;
         if (mState != workInfo.mState) return false;
-        if (!mOutputData.equals(workInfo.mOutputData)) return false;
+        if (!getOutputData().equals(workInfo.getOutputData())) return false;
         if (!mTags.equals(workInfo.mTags)) return false;
-        return mProgress.equals(workInfo.mProgress);
+        return getProgress().equals(workInfo.getProgress());
     }
 
     @Override
     public int hashCode() {
         int result = mId.hashCode();
         result = 31 * result + mState.hashCode();
-        result = 31 * result + mOutputData.hashCode();
+        result = 31 * result + getOutputData().hashCode();
         result = 31 * result + mTags.hashCode();
-        result = 31 * result + mProgress.hashCode();
+        result = 31 * result + getProgress().hashCode();
         result = 31 * result + mRunAttemptCount;
         return result;
     }
@@ -147,9 +188,9 @@ public final class WorkInfo {
         return "WorkInfo{"
                 +   "mId='" + mId + '\''
                 +   ", mState=" + mState
-                +   ", mOutputData=" + mOutputData
+                +   ", mOutputData=" + getOutputData()
                 +   ", mTags=" + mTags
-                +   ", mProgress=" + mProgress
+                +   ", mProgress=" + getProgress()
                 + '}';
     }
 
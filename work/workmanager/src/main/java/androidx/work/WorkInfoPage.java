@@ -0,0 +1,94 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.work;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RestrictTo;
+
+import com.google.common.util.concurrent.ListenableFuture;
+
+import java.util.List;
+
+/**
+ * A page of the {@link WorkInfo}s referenced by a {@link WorkQuery}, as returned by
+ * {@link WorkManager#getWorkInfosPaged(WorkQuery, int)}.
+ * <p>
+ * Pages are ordered by the id of the {@link WorkRequest}. Each page is read from the database only
+ * when it is requested, so work that is enqueued or pruned while paging may or may not be seen by
+ * later pages. The output and progress {@link Data} of each {@link WorkInfo} are only deserialized
+ * when they are accessed.
+ */
+public final class WorkInfoPage {
+
+    private final @NonNull List<WorkInfo> mWorkInfos;
+    private final @Nullable NextPageLoader mNextPageLoader;
+
+    /**
+     * @hide
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+    public WorkInfoPage(
+            @NonNull List<WorkInfo> workInfos,
+            @Nullable NextPageLoader nextPageLoader) {
+        mWorkInfos = workInfos;
+        mNextPageLoader = nextPageLoader;
+    }
+
+    /**
+     * Gets the {@link WorkInfo}s in this page.
+     *
+     * @return The {@link List} of {@link WorkInfo}s in this page
+     */
+    public @NonNull List<WorkInfo> getWorkInfos() {
+        return mWorkInfos;
+    }
+
+    /**
+     * @return {@code true} if there may be more {@link WorkInfo}s after this page.
+     */
+    public boolean hasNextPage() {
+        return mNextPageLoader != null;
+    }
+
+    /**
+     * Loads the page following this one.
+     *
+     * @return A {@link ListenableFuture} of the next {@link WorkInfoPage}
+     * @throws IllegalStateException if this is the last page
+     */
+    public @NonNull ListenableFuture<WorkInfoPage> loadNextPage() {
+        if (mNextPageLoader == null) {
+            throw new IllegalStateException("This is the last page");
+        }
+        return mNextPageLoader.loadNextPage();
+    }
+
+    /**
+     * Loads the page following a {@link WorkInfoPage}.
+     *
+     * @hide
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+    public interface NextPageLoader {
+        /**
+         * @return A {@link ListenableFuture} of the next {@link WorkInfoPage}
+         */
+        @NonNull
+        ListenableFuture<WorkInfoPage> loadNextPage();
+    }
+}
@@ -20,6 +20,7 @@ import android.annotation.SuppressLint;
 import android.app.PendingIntent;
 import android.content.Context;
 
+import androidx.annotation.IntRange;
 import androidx.annotation.NonNull;
 import androidx.annotation.RestrictTo;
 import androidx.lifecycle.LiveData;
@@ -230,6 +231,22 @@ public abstract class WorkManager {
     @NonNull
     public abstract Operation enqueue(@NonNull List<? extends WorkRequest> requests);
 
+    /**
+     * Enqueues many {@link WorkContinuation}s at once, as if {@link WorkContinuation#enqueue()}
+     * was called on each of them in order.  All of their work is written to the database in a
+     * single transaction and scheduled once, which is much faster than enqueuing each of them
+     * separately.  If enqueuing any of them fails, none of them are enqueued.
+     * {@link WorkContinuation}s that were already enqueued are skipped.
+     *
+     * @param continuations One or more {@link WorkContinuation}s created by this
+     *                      {@link WorkManager}
+     * @return An {@link Operation} that can be used to determine when all of the continuations
+     * have been enqueued
+     */
+    @NonNull
+    public abstract Operation enqueueBatch(
+            @NonNull List<? extends WorkContinuation> continuations);
+
     /**
      * Begins a chain with one or more {@link OneTimeWorkRequest}s, which can be enqueued together
      * in the future using {@link WorkContinuation#enqueue()}.
@@ -578,6 +595,25 @@ public abstract class WorkManager {
     public abstract @NonNull ListenableFuture<List<WorkInfo>> getWorkInfos(
             @NonNull WorkQuery workQuery);
 
+    /**
+     * Gets the first page of the {@link WorkInfo}s for all work referenced by the
+     * {@link WorkQuery} specification. Further pages can be loaded with
+     * {@link WorkInfoPage#loadNextPage()}.
+     * <p>
+     * Unlike {@link #getWorkInfos(WorkQuery)}, this reads at most {@code pageSize} work items from
+     * the database at a time, and only deserializes their output and progress {@link Data} when it
+     * is accessed, which makes it suitable for queries matching a large number of
+     * {@link WorkRequest}s.
+     *
+     * @param workQuery The work query specification
+     * @param pageSize The maximum number of {@link WorkInfo}s in each page
+     * @return A {@link ListenableFuture} of the first {@link WorkInfoPage} for work referenced by
+     * this {@link WorkQuery}.
+     */
+    public abstract @NonNull ListenableFuture<WorkInfoPage> getWorkInfosPaged(
+            @NonNull WorkQuery workQuery,
+            @IntRange(from = 1) int pageSize);
+
     /**
      * @hide
      */
@@ -36,16 +36,21 @@ import androidx.work.impl.utils.taskexecutor.TaskExecutor;
 
 import com.google.common.util.concurrent.ListenableFuture;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutionException;
 
 /**
  * A Processor can intelligently schedule and execute work on demand.
+ * <p>
+ * The state of work is kept in concurrent maps keyed by work id, so starting, stopping and
+ * querying work does not serialize on a single lock. Listeners are kept in a copy-on-write list and
+ * notified without holding any lock. Only moving work in and out of the foreground, which also
+ * manages the foreground service and its wake lock, is done while holding {@code mLock}.
  *
  * @hide
  */
@@ -61,13 +66,14 @@ public class Processor implements ExecutionListener, ForegroundProcessor {
     private Configuration mConfiguration;
     private TaskExecutor mWorkTaskExecutor;
     private WorkDatabase mWorkDatabase;
-    private Map<String, WorkerWrapper> mForegroundWorkMap;
-    private Map<String, WorkerWrapper> mEnqueuedWorkMap;
+    private final Map<String, WorkerWrapper> mForegroundWorkMap;
+    private final Map<String, WorkerWrapper> mEnqueuedWorkMap;
     private List<Scheduler> mSchedulers;
 
-    private Set<String> mCancelledIds;
+    private final Set<String> mCancelledIds;
 
     private final List<ExecutionListener> mOuterListeners;
+    // Guards foreground transitions and mForegroundLock.
     private final Object mLock;
 
     public Processor(
@@ -80,11 +86,11 @@ public class Processor implements ExecutionListener, ForegroundProcessor {
         mConfiguration = configuration;
         mWorkTaskExecutor = workTaskExecutor;
         mWorkDatabase = workDatabase;
-        mEnqueuedWorkMap = new HashMap<>();
-        mForegroundWorkMap = new HashMap<>();
+        mEnqueuedWorkMap = new ConcurrentHashMap<>();
+        mForegroundWorkMap = new ConcurrentHashMap<>();
         mSchedulers = schedulers;
-        mCancelledIds = new HashSet<>();
-        mOuterListeners = new ArrayList<>();
+        mCancelledIds = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+        mOuterListeners = new CopyOnWriteArrayList<>();
         mForegroundLock = null;
         mLock = new Object();
     }
@@ -110,34 +116,41 @@ public class Processor implements ExecutionListener, ForegroundProcessor {
             @NonNull String id,
             @Nullable WorkerParameters.RuntimeExtras runtimeExtras) {
 
-        WorkerWrapper workWrapper;
-        synchronized (mLock) {
-            // Work may get triggered multiple times if they have passing constraints
-            // and new work with those constraints are added.
-            if (isEnqueued(id)) {
-                Logger.get().debug(
-                        TAG,
-                        String.format("Work %s is already enqueued for processing", id));
-                return false;
-            }
+        // Work may get triggered multiple times if they have passing constraints
+        // and new work with those constraints are added.
+        if (isEnqueued(id)) {
+            logAlreadyEnqueued(id);
+            return false;
+        }
 
-            workWrapper =
-                    new WorkerWrapper.Builder(
-                            mAppContext,
-                            mConfiguration,
-                            mWorkTaskExecutor,
-                            this,
-                            mWorkDatabase,
-                            id)
-                            .withSchedulers(mSchedulers)
-                            .withRuntimeExtras(runtimeExtras)
-                            .build();
-            ListenableFuture<Boolean> future = workWrapper.getFuture();
-            future.addListener(
-                    new FutureListener(this, id, future),
-                    mWorkTaskExecutor.getMainThreadExecutor());
-            mEnqueuedWorkMap.put(id, workWrapper);
+        WorkerWrapper workWrapper =
+                new WorkerWrapper.Builder(
+                        mAppContext,
+                        mConfiguration,
+                        mWorkTaskExecutor,
+                        this,
+                        mWorkDatabase,
+                        id)
+                        .withSchedulers(mSchedulers)
+                        .withRuntimeExtras(runtimeExtras)
+                        .build();
+        if (mEnqueuedWorkMap.putIfAbsent(id, workWrapper) != null) {
+            // Lost a race with another caller starting the same work.
+            logAlreadyEnqueued(id);
+            return false;
+        }
+        if (mForegroundWorkMap.containsKey(id)) {
+            // The work was moved to the foreground after the check above. startForeground() adds
+            // it to the foreground map before removing it from the enqueued map, so it is always
+            // seen in one of them.
+            mEnqueuedWorkMap.remove(id, workWrapper);
+            logAlreadyEnqueued(id);
+            return false;
         }
+        ListenableFuture<Boolean> future = workWrapper.getFuture();
+        future.addListener(
+                new FutureListener(this, id, future),
+                mWorkTaskExecutor.getMainThreadExecutor());
         mWorkTaskExecutor.getBackgroundExecutor().execute(workWrapper);
         Logger.get().debug(TAG, String.format("%s: processing %s", getClass().getSimpleName(), id));
         return true;
@@ -148,13 +161,14 @@ public class Processor implements ExecutionListener, ForegroundProcessor {
         synchronized (mLock) {
             Logger.get().info(TAG, String.format("Moving WorkSpec (%s) to the foreground",
                     workSpecId));
-            WorkerWrapper wrapper = mEnqueuedWorkMap.remove(workSpecId);
+            WorkerWrapper wrapper = mEnqueuedWorkMap.get(workSpecId);
             if (wrapper != null) {
                 if (mForegroundLock == null) {
                     mForegroundLock = WakeLocks.newWakeLock(mAppContext, FOREGROUND_WAKELOCK_TAG);
                     mForegroundLock.acquire();
                 }
                 mForegroundWorkMap.put(workSpecId, wrapper);
+                mEnqueuedWorkMap.remove(workSpecId, wrapper);
                 Intent intent = createStartForegroundIntent(mAppContext, workSpecId, info);
                 ContextCompat.startForegroundService(mAppContext, intent);
             }
@@ -168,11 +182,9 @@ public class Processor implements ExecutionListener, ForegroundProcessor {
      * @return {@code true} if the work was stopped successfully
      */
     public boolean stopForegroundWork(@NonNull String id) {
-        synchronized (mLock) {
-            Logger.get().debug(TAG, String.format("Processor stopping foreground work %s", id));
-            WorkerWrapper wrapper = mForegroundWorkMap.remove(id);
-            return interrupt(id, wrapper);
-        }
+        Logger.get().debug(TAG, String.format("Processor stopping foreground work %s", id));
+        WorkerWrapper wrapper = mForegroundWorkMap.remove(id);
+        return interrupt(id, wrapper);
     }
 
     /**
@@ -182,11 +194,9 @@ public class Processor implements ExecutionListener, ForegroundProcessor {
      * @return {@code true} if the work was stopped successfully
      */
     public boolean stopWork(@NonNull String id) {
-        synchronized (mLock) {
-            Logger.get().debug(TAG, String.format("Processor stopping background work %s", id));
-            WorkerWrapper wrapper = mEnqueuedWorkMap.remove(id);
-            return interrupt(id, wrapper);
-        }
+        Logger.get().debug(TAG, String.format("Processor stopping background work %s", id));
+        WorkerWrapper wrapper = mEnqueuedWorkMap.remove(id);
+        return interrupt(id, wrapper);
     }
 
     /**
@@ -196,23 +206,21 @@ public class Processor implements ExecutionListener, ForegroundProcessor {
      * @return {@code true} if the work was stopped successfully
      */
     public boolean stopAndCancelWork(@NonNull String id) {
-        synchronized (mLock) {
-            Logger.get().debug(TAG, String.format("Processor cancelling %s", id));
-            mCancelledIds.add(id);
-            WorkerWrapper wrapper;
-            // Check if running in the context of a foreground service
-            wrapper = mForegroundWorkMap.remove(id);
-            boolean isForegroundWork = wrapper != null;
-            if (wrapper == null) {
-                // Fallback to enqueued Work
-                wrapper = mEnqueuedWorkMap.remove(id);
-            }
-            boolean interrupted = interrupt(id, wrapper);
-            if (isForegroundWork) {
-                stopForegroundService();
-            }
-            return interrupted;
+        Logger.get().debug(TAG, String.format("Processor cancelling %s", id));
+        mCancelledIds.add(id);
+        WorkerWrapper wrapper;
+        // Check if running in the context of a foreground service
+        wrapper = mForegroundWorkMap.remove(id);
+        boolean isForegroundWork = wrapper != null;
+        if (wrapper == null) {
+            // Fallback to enqueued Work
+            wrapper = mEnqueuedWorkMap.remove(id);
+        }
+        boolean interrupted = interrupt(id, wrapper);
+        if (isForegroundWork) {
+            stopForegroundService();
         }
+        return interrupted;
     }
 
     @Override
@@ -230,19 +238,15 @@ public class Processor implements ExecutionListener, ForegroundProcessor {
      * @return {@code true} if the id has already been marked as cancelled
      */
     public boolean isCancelled(@NonNull String id) {
-        synchronized (mLock) {
-            return mCancelledIds.contains(id);
-        }
+        return mCancelledIds.contains(id);
     }
 
     /**
      * @return {@code true} if the processor has work to process.
      */
     public boolean hasWork() {
-        synchronized (mLock) {
-            return !(mEnqueuedWorkMap.isEmpty()
-                    && mForegroundWorkMap.isEmpty());
-        }
+        return !(mEnqueuedWorkMap.isEmpty()
+                && mForegroundWorkMap.isEmpty());
     }
 
     /**
@@ -250,10 +254,10 @@ public class Processor implements ExecutionListener, ForegroundProcessor {
      * @return {@code true} if the id was enqueued in the processor.
      */
     public boolean isEnqueued(@NonNull String workSpecId) {
-        synchronized (mLock) {
-            return mEnqueuedWorkMap.containsKey(workSpecId)
-                    || mForegroundWorkMap.containsKey(workSpecId);
-        }
+        // Check the enqueued map first: work moving to the foreground is added to the foreground
+        // map before it leaves the enqueued one.
+        return mEnqueuedWorkMap.containsKey(workSpecId)
+                || mForegroundWorkMap.containsKey(workSpecId);
     }
 
     /**
@@ -261,9 +265,7 @@ public class Processor implements ExecutionListener, ForegroundProcessor {
      * @return {@code true} if the id was enqueued as foreground work in the processor.
      */
     public boolean isEnqueuedInForeground(@NonNull String workSpecId) {
-        synchronized (mLock) {
-            return mForegroundWorkMap.containsKey(workSpecId);
-        }
+        return mForegroundWorkMap.containsKey(workSpecId);
     }
 
     /**
@@ -272,9 +274,7 @@ public class Processor implements ExecutionListener, ForegroundProcessor {
      * @param executionListener The {@link ExecutionListener} to add
      */
     public void addExecutionListener(@NonNull ExecutionListener executionListener) {
-        synchronized (mLock) {
-            mOuterListeners.add(executionListener);
-        }
+        mOuterListeners.add(executionListener);
     }
 
     /**
@@ -283,9 +283,7 @@ public class Processor implements ExecutionListener, ForegroundProcessor {
      * @param executionListener The {@link ExecutionListener} to remove
      */
     public void removeExecutionListener(@NonNull ExecutionListener executionListener) {
-        synchronized (mLock) {
-            mOuterListeners.remove(executionListener);
-        }
+        mOuterListeners.remove(executionListener);
     }
 
     @Override
@@ -293,14 +291,12 @@ public class Processor implements ExecutionListener, ForegroundProcessor {
             @NonNull final String workSpecId,
             boolean needsReschedule) {
 
-        synchronized (mLock) {
-            mEnqueuedWorkMap.remove(workSpecId);
-            Logger.get().debug(TAG, String.format("%s %s executed; reschedule = %s",
-                    getClass().getSimpleName(), workSpecId, needsReschedule));
+        mEnqueuedWorkMap.remove(workSpecId);
+        Logger.get().debug(TAG, String.format("%s %s executed; reschedule = %s",
+                getClass().getSimpleName(), workSpecId, needsReschedule));
 
-            for (ExecutionListener executionListener : mOuterListeners) {
-                executionListener.onExecuted(workSpecId, needsReschedule);
-            }
+        for (ExecutionListener executionListener : mOuterListeners) {
+            executionListener.onExecuted(workSpecId, needsReschedule);
         }
     }
 
@@ -326,6 +322,12 @@ public class Processor implements ExecutionListener, ForegroundProcessor {
         }
     }
 
+    private static void logAlreadyEnqueued(@NonNull String id) {
+        Logger.get().debug(
+                TAG,
+                String.format("Work %s is already enqueued for processing", id));
+    }
+
     /**
      * Interrupts a unit of work.
      *
@@ -32,6 +32,7 @@ import androidx.work.WorkInfo;
 import androidx.work.WorkRequest;
 import androidx.work.impl.utils.EnqueueRunnable;
 import androidx.work.impl.utils.StatusRunnable;
+import androidx.work.impl.utils.WorkScopes;
 import androidx.work.impl.workers.CombineContinuationsWorker;
 
 import com.google.common.util.concurrent.ListenableFuture;
@@ -173,7 +174,7 @@ public class WorkContinuationImpl extends WorkContinuation {
         StatusRunnable<List<WorkInfo>> runnable =
                 StatusRunnable.forStringIds(mWorkManagerImpl, mAllIds);
 
-        mWorkManagerImpl.getWorkTaskExecutor().executeOnBackgroundThread(runnable);
+        runnable.executeOn(mWorkManagerImpl.getWorkTaskExecutor().getBackgroundExecutor());
         return runnable.getFuture();
     }
 
@@ -184,7 +185,11 @@ public class WorkContinuationImpl extends WorkContinuation {
             // The runnable walks the hierarchy of the continuations
             // and marks them enqueued using the markEnqueued() method, parent first.
             EnqueueRunnable runnable = new EnqueueRunnable(this);
-            mWorkManagerImpl.getWorkTaskExecutor().executeOnBackgroundThread(runnable);
+            // Unique work without parents only needs to be ordered with the other
+            // operations on the same unique work.
+            String key = mName != null && (mParents == null || mParents.isEmpty()) ? mName : null;
+            mWorkManagerImpl.getWorkTaskExecutor().getBackgroundExecutor()
+                    .execute(key, getWriteScopes(), runnable);
             mOperation = runnable.getOperation();
         } else {
             Logger.get().warning(TAG,
@@ -193,6 +198,87 @@ public class WorkContinuationImpl extends WorkContinuation {
         return mOperation;
     }
 
+    /**
+     * Enqueues all of {@code continuations} that are not enqueued yet with a single
+     * {@link EnqueueRunnable}.
+     *
+     * @return The {@link Operation} tracking the enqueue of all of them
+     */
+    static @NonNull Operation enqueueBatch(
+            @NonNull WorkManagerImpl workManagerImpl,
+            @NonNull List<WorkContinuationImpl> continuations) {
+        List<WorkContinuationImpl> pending = new ArrayList<>(continuations.size());
+        for (WorkContinuationImpl continuation : continuations) {
+            if (!continuation.mEnqueued) {
+                pending.add(continuation);
+            } else {
+                Logger.get().warning(TAG, String.format("Already enqueued work ids (%s)",
+                        TextUtils.join(", ", continuation.mIds)));
+            }
+        }
+        EnqueueRunnable runnable = new EnqueueRunnable(workManagerImpl, pending);
+        Set<String> scopes = new HashSet<>();
+        for (WorkContinuationImpl continuation : pending) {
+            if (!addWriteScopes(continuation, scopes)) {
+                scopes = null;
+                break;
+            }
+        }
+        workManagerImpl.getWorkTaskExecutor().getBackgroundExecutor()
+                .execute(null, scopes, runnable);
+        Operation operation = runnable.getOperation();
+        for (WorkContinuationImpl continuation : pending) {
+            continuation.mOperation = operation;
+        }
+        return operation;
+    }
+
+    /**
+     * @return the scopes of the work which enqueuing this continuation may change, for the read
+     * lane of the {@link androidx.work.impl.utils.SerialExecutor}, or {@code null} if it may also
+     * change work outside of the continuation, like when it replaces existing unique work.
+     */
+    @Nullable
+    Set<String> getWriteScopes() {
+        Set<String> scopes = new HashSet<>();
+        return addWriteScopes(this, scopes) ? scopes : null;
+    }
+
+    /**
+     * Adds the scopes of the work which enqueuing {@code continuation} and its parents may change
+     * to {@code scopes}.
+     *
+     * @return {@code false} if it may also change work outside of the continuations.
+     */
+    private static boolean addWriteScopes(
+            @NonNull WorkContinuationImpl continuation,
+            @NonNull Set<String> scopes) {
+        List<WorkContinuationImpl> parents = continuation.mParents;
+        boolean hasParents = parents != null && !parents.isEmpty();
+        if (continuation.mName != null) {
+            // Every policy but APPEND may cancel and delete the existing unique work, which
+            // cascades to the work depending on it.
+            if (!hasParents && continuation.mExistingWorkPolicy != ExistingWorkPolicy.APPEND) {
+                return false;
+            }
+            scopes.add(WorkScopes.forName(continuation.mName));
+        }
+        for (WorkRequest work : continuation.mWork) {
+            scopes.add(WorkScopes.forId(work.getStringId()));
+            for (String tag : work.getTags()) {
+                scopes.add(WorkScopes.forTag(tag));
+            }
+        }
+        if (hasParents) {
+            for (WorkContinuationImpl parent : parents) {
+                if (!addWriteScopes(parent, scopes)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
     @Override
     protected @NonNull WorkContinuation combineInternal(
             @NonNull List<WorkContinuation> continuations) {
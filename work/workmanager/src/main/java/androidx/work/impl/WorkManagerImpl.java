@@ -42,6 +42,7 @@ import androidx.work.PeriodicWorkRequest;
 import androidx.work.R;
 import androidx.work.WorkContinuation;
 import androidx.work.WorkInfo;
+import androidx.work.WorkInfoPage;
 import androidx.work.WorkManager;
 import androidx.work.WorkQuery;
 import androidx.work.WorkRequest;
@@ -67,6 +68,7 @@ import androidx.work.multiprocess.RemoteWorkManager;
 
 import com.google.common.util.concurrent.ListenableFuture;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -378,6 +380,25 @@ public class WorkManagerImpl extends WorkManager {
         return new WorkContinuationImpl(this, workRequests).enqueue();
     }
 
+    @Override
+    @NonNull
+    public Operation enqueueBatch(@NonNull List<? extends WorkContinuation> continuations) {
+        if (continuations.isEmpty()) {
+            throw new IllegalArgumentException(
+                    "enqueueBatch needs at least one WorkContinuation.");
+        }
+        List<WorkContinuationImpl> continuationImpls = new ArrayList<>(continuations.size());
+        for (WorkContinuation continuation : continuations) {
+            WorkContinuationImpl continuationImpl = (WorkContinuationImpl) continuation;
+            if (continuationImpl.getWorkManagerImpl() != this) {
+                throw new IllegalArgumentException(
+                        "enqueueBatch needs WorkContinuations of this WorkManager.");
+            }
+            continuationImpls.add(continuationImpl);
+        }
+        return WorkContinuationImpl.enqueueBatch(this, continuationImpls);
+    }
+
     @Override
     public @NonNull WorkContinuation beginWith(@NonNull List<OneTimeWorkRequest> work) {
         if (work.isEmpty()) {
@@ -460,7 +481,8 @@ public class WorkManagerImpl extends WorkManager {
     @NonNull
     public Operation cancelUniqueWork(@NonNull String uniqueWorkName) {
         CancelWorkRunnable runnable = CancelWorkRunnable.forName(uniqueWorkName, this, true);
-        mWorkTaskExecutor.executeOnBackgroundThread(runnable);
+        // Only needs to be ordered with the other operations on the same unique work.
+        mWorkTaskExecutor.getBackgroundExecutor().execute(uniqueWorkName, runnable);
         return runnable.getOperation();
     }
 
@@ -488,7 +510,7 @@ public class WorkManagerImpl extends WorkManager {
         final SettableFuture<Long> future = SettableFuture.create();
         // Avoiding synthetic accessors.
         final PreferenceUtils preferenceUtils = mPreferenceUtils;
-        mWorkTaskExecutor.executeOnBackgroundThread(new Runnable() {
+        mWorkTaskExecutor.getBackgroundExecutor().executeRead(new Runnable() {
             @Override
             public void run() {
                 try {
@@ -530,7 +552,7 @@ public class WorkManagerImpl extends WorkManager {
     @Override
     public @NonNull ListenableFuture<WorkInfo> getWorkInfoById(@NonNull UUID id) {
         StatusRunnable<WorkInfo> runnable = StatusRunnable.forUUID(this, id);
-        mWorkTaskExecutor.getBackgroundExecutor().execute(runnable);
+        runnable.executeOn(mWorkTaskExecutor.getBackgroundExecutor());
         return runnable.getFuture();
     }
 
@@ -548,7 +570,7 @@ public class WorkManagerImpl extends WorkManager {
     @Override
     public @NonNull ListenableFuture<List<WorkInfo>> getWorkInfosByTag(@NonNull String tag) {
         StatusRunnable<List<WorkInfo>> runnable = StatusRunnable.forTag(this, tag);
-        mWorkTaskExecutor.getBackgroundExecutor().execute(runnable);
+        runnable.executeOn(mWorkTaskExecutor.getBackgroundExecutor());
         return runnable.getFuture();
     }
 
@@ -569,7 +591,7 @@ public class WorkManagerImpl extends WorkManager {
     public ListenableFuture<List<WorkInfo>> getWorkInfosForUniqueWork(@NonNull String name) {
         StatusRunnable<List<WorkInfo>> runnable =
                 StatusRunnable.forUniqueWork(this, name);
-        mWorkTaskExecutor.getBackgroundExecutor().execute(runnable);
+        runnable.executeOn(mWorkTaskExecutor.getBackgroundExecutor());
         return runnable.getFuture();
     }
 
@@ -593,7 +615,21 @@ public class WorkManagerImpl extends WorkManager {
             @NonNull WorkQuery workQuery) {
         StatusRunnable<List<WorkInfo>> runnable =
                 StatusRunnable.forWorkQuerySpec(this, workQuery);
-        mWorkTaskExecutor.getBackgroundExecutor().execute(runnable);
+        runnable.executeOn(mWorkTaskExecutor.getBackgroundExecutor());
+        return runnable.getFuture();
+    }
+
+    @NonNull
+    @Override
+    public ListenableFuture<WorkInfoPage> getWorkInfosPaged(
+            @NonNull WorkQuery workQuery,
+            int pageSize) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("pageSize must be at least 1");
+        }
+        StatusRunnable<WorkInfoPage> runnable =
+                StatusRunnable.forWorkQueryPage(this, workQuery, null, pageSize);
+        runnable.executeOn(mWorkTaskExecutor.getBackgroundExecutor());
         return runnable.getFuture();
     }
 
@@ -693,6 +729,17 @@ public class WorkManagerImpl extends WorkManager {
         Schedulers.schedule(getConfiguration(), getWorkDatabase(), getSchedulers());
     }
 
+    /**
+     * Prunes finished work whose results no longer have to be kept, and then enforces
+     * {@link Configuration#getMaxRetainedWorkCount()}, in batches on the background thread.
+     *
+     * @hide
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+    public void pruneExpiredWork() {
+        mWorkTaskExecutor.executeOnBackgroundThread(PruneWorkRunnable.forExpiredWork(this));
+    }
+
     /**
      * A way for {@link ForceStopRunnable} to tell {@link WorkManagerImpl} that it has completed.
      *
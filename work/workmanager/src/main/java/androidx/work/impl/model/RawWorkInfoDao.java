@@ -38,6 +38,15 @@ public interface RawWorkInfoDao {
     @NonNull
     List<WorkSpec.WorkInfoPojo> getWorkInfoPojos(@NonNull SupportSQLiteQuery query);
 
+    /**
+     * @param query The raw query obtained using
+     *              {@link androidx.work.impl.utils.RawQueries#workQueryToPagedRawQuery}
+     * @return A {@link List} of {@link WorkSpec.LazyWorkInfoPojo}s using the raw query.
+     */
+    @RawQuery(observedEntities = {WorkSpec.class, WorkProgress.class})
+    @NonNull
+    List<WorkSpec.LazyWorkInfoPojo> getLazyWorkInfoPojos(@NonNull SupportSQLiteQuery query);
+
     /**
      * @param query The raw query obtained using {@link WorkQuery}
      * @return A {@link LiveData} of a {@link List} of {@link WorkSpec.WorkInfoPojo}s using the
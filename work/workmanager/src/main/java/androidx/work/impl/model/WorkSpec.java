@@ -24,6 +24,7 @@ import static androidx.work.WorkRequest.MIN_BACKOFF_MILLIS;
 
 import androidx.annotation.IntRange;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.annotation.RestrictTo;
 import androidx.arch.core.util.Function;
 import androidx.room.ColumnInfo;
@@ -52,7 +53,8 @@ import java.util.UUID;
 @Entity(
         indices = {
                 @Index(value = {"schedule_requested_at"}),
-                @Index(value = {"period_start_time"})
+                @Index(value = {"period_start_time"}),
+                @Index(value = {"state", "id"})
         }
 )
 public final class WorkSpec {
@@ -480,4 +482,66 @@ public final class WorkSpec {
                     return output;
                 }
             };
+
+    /**
+     * A POJO containing the serialized {@link Data} of a {@link WorkInfo}, which is only
+     * deserialized when accessed.
+     */
+    public static class LazyWorkInfoPojo {
+
+        @ColumnInfo(name = "id")
+        public String id;
+
+        @ColumnInfo(name = "state")
+        public WorkInfo.State state;
+
+        @ColumnInfo(name = "output")
+        public byte[] output;
+
+        @ColumnInfo(name = "run_attempt_count")
+        public int runAttemptCount;
+
+        // Selected with a sub-query, null when there is no progress.
+        @ColumnInfo(name = "progress")
+        @Nullable
+        public byte[] progress;
+
+        @Relation(
+                parentColumn = "id",
+                entityColumn = "work_spec_id",
+                entity = WorkTag.class,
+                projection = {"tag"})
+        public List<String> tags;
+
+        /**
+         * Converts this POJO to a {@link WorkInfo}.
+         *
+         * @return The {@link WorkInfo} represented by this POJO
+         */
+        @NonNull
+        public WorkInfo toWorkInfo() {
+            return new WorkInfo(
+                    UUID.fromString(id),
+                    state,
+                    output,
+                    tags,
+                    progress,
+                    runAttemptCount);
+        }
+    }
+
+    public static final Function<List<LazyWorkInfoPojo>, List<WorkInfo>> LAZY_WORK_INFO_MAPPER =
+            new Function<List<LazyWorkInfoPojo>, List<WorkInfo>>() {
+                @Override
+                public List<WorkInfo> apply(List<LazyWorkInfoPojo> input) {
+                    if (input == null) {
+                        return null;
+                    }
+                    List<WorkInfo> output = new ArrayList<>(input.size());
+                    for (LazyWorkInfoPojo in : input) {
+                        output.add(in.toWorkInfo());
+                    }
+                    return output;
+                }
+            };
 }
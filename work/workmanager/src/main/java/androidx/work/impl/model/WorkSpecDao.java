@@ -46,6 +46,14 @@ public interface WorkSpecDao {
     @Insert(onConflict = IGNORE)
     void insertWorkSpec(WorkSpec workSpec);
 
+    /**
+     * Attempts to insert {@link WorkSpec}s into the database.
+     *
+     * @param workSpecs The WorkSpecs to insert.
+     */
+    @Insert(onConflict = IGNORE)
+    void insertWorkSpecs(List<WorkSpec> workSpecs);
+
     /**
      * Deletes {@link WorkSpec}s from the database.
      *
@@ -365,4 +373,49 @@ public interface WorkSpecDao {
             + "    work_spec_id NOT IN "
             + "        (SELECT id FROM workspec WHERE state IN " + COMPLETED_STATES + "))")
     void pruneFinishedWorkWithZeroDependentsIgnoringKeepForAtLeast();
+
+    /**
+     * Prunes up to {@code limit} of the oldest eligible work from the database meeting the
+     * following criteria:
+     * - Is finished (succeeded, failed, or cancelled)
+     * - Has zero unfinished dependents
+     *
+     * @param limit The maximum number of {@link WorkSpec}s to prune
+     * @return The number of pruned {@link WorkSpec}s
+     */
+    @Query("DELETE FROM workspec WHERE id IN (SELECT id FROM workspec WHERE "
+            + "state IN " + COMPLETED_STATES
+            + " AND (SELECT COUNT(*)=0 FROM dependency WHERE "
+            + "    prerequisite_id=id AND "
+            + "    work_spec_id NOT IN "
+            + "        (SELECT id FROM workspec WHERE state IN " + COMPLETED_STATES + "))"
+            + " ORDER BY period_start_time LIMIT :limit)")
+    int pruneOldestFinishedWorkWithZeroDependentsIgnoringKeepForAtLeast(int limit);
+
+    /**
+     * Prunes up to {@code limit} of the oldest eligible work from the database meeting the
+     * following criteria:
+     * - Is finished (succeeded, failed, or cancelled)
+     * - Has a minimum retention time that expired before {@code prunableBefore}
+     * - Has zero unfinished dependents
+     *
+     * @param prunableBefore The time in milliseconds before which the retention time has to expire
+     * @param limit          The maximum number of {@link WorkSpec}s to prune
+     * @return The number of pruned {@link WorkSpec}s
+     */
+    @Query("DELETE FROM workspec WHERE id IN (SELECT id FROM workspec WHERE "
+            + "state IN " + COMPLETED_STATES
+            + " AND (period_start_time + minimum_retention_duration) < :prunableBefore"
+            + " AND (SELECT COUNT(*)=0 FROM dependency WHERE "
+            + "    prerequisite_id=id AND "
+            + "    work_spec_id NOT IN "
+            + "        (SELECT id FROM workspec WHERE state IN " + COMPLETED_STATES + "))"
+            + " ORDER BY period_start_time LIMIT :limit)")
+    int pruneOldestExpiredFinishedWorkWithZeroDependents(long prunableBefore, int limit);
+
+    /**
+     * @return The number of {@link WorkSpec}s in the database
+     */
+    @Query("SELECT COUNT(*) FROM workspec")
+    int getWorkSpecCount();
 }
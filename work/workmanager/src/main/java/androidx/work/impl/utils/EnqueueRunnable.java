@@ -62,7 +62,7 @@ import java.util.List;
 import java.util.Set;
 
 /**
- * Manages the enqueuing of a {@link WorkContinuationImpl}.
+ * Manages the enqueuing of one or more {@link WorkContinuationImpl}s.
  *
  * @hide
  */
@@ -71,26 +71,39 @@ public class EnqueueRunnable implements Runnable {
 
     private static final String TAG = Logger.tagWithPrefix("EnqueueRunnable");
 
-    private final WorkContinuationImpl mWorkContinuation;
+    private final WorkManagerImpl mWorkManagerImpl;
+    private final List<WorkContinuationImpl> mWorkContinuations;
     private final OperationImpl mOperation;
 
     public EnqueueRunnable(@NonNull WorkContinuationImpl workContinuation) {
-        mWorkContinuation = workContinuation;
+        this(workContinuation.getWorkManagerImpl(), Collections.singletonList(workContinuation));
+    }
+
+    /**
+     * Creates a runnable enqueuing all of {@code workContinuations} in a single transaction and
+     * scheduling their work once.
+     */
+    public EnqueueRunnable(
+            @NonNull WorkManagerImpl workManagerImpl,
+            @NonNull List<WorkContinuationImpl> workContinuations) {
+        mWorkManagerImpl = workManagerImpl;
+        mWorkContinuations = workContinuations;
         mOperation = new OperationImpl();
     }
 
     @Override
     public void run() {
         try {
-            if (mWorkContinuation.hasCycles()) {
-                throw new IllegalStateException(
-                        String.format("WorkContinuation has cycles (%s)", mWorkContinuation));
+            for (WorkContinuationImpl workContinuation : mWorkContinuations) {
+                if (workContinuation.hasCycles()) {
+                    throw new IllegalStateException(
+                            String.format("WorkContinuation has cycles (%s)", workContinuation));
+                }
             }
             boolean needsScheduling = addToDatabase();
             if (needsScheduling) {
                 // Enable RescheduleReceiver, only when there are Worker's that need scheduling.
-                final Context context =
-                        mWorkContinuation.getWorkManagerImpl().getApplicationContext();
+                final Context context = mWorkManagerImpl.getApplicationContext();
                 PackageManagerHelper.setComponentEnabled(context, RescheduleReceiver.class, true);
                 scheduleWorkInBackground();
             }
@@ -114,11 +127,17 @@ public class EnqueueRunnable implements Runnable {
      */
     @VisibleForTesting
     public boolean addToDatabase() {
-        WorkManagerImpl workManagerImpl = mWorkContinuation.getWorkManagerImpl();
-        WorkDatabase workDatabase = workManagerImpl.getWorkDatabase();
+        WorkDatabase workDatabase = mWorkManagerImpl.getWorkDatabase();
         workDatabase.beginTransaction();
         try {
-            boolean needsScheduling = processContinuation(mWorkContinuation);
+            PendingRows pendingRows = new PendingRows(workDatabase);
+            boolean needsScheduling = false;
+            for (WorkContinuationImpl workContinuation : mWorkContinuations) {
+                if (!workContinuation.isEnqueued()) {
+                    needsScheduling |= processContinuation(workContinuation, pendingRows);
+                }
+            }
+            pendingRows.flush();
             workDatabase.setTransactionSuccessful();
             return needsScheduling;
         } finally {
@@ -131,14 +150,16 @@ public class EnqueueRunnable implements Runnable {
      */
     @VisibleForTesting
     public void scheduleWorkInBackground() {
-        WorkManagerImpl workManager = mWorkContinuation.getWorkManagerImpl();
+        WorkManagerImpl workManager = mWorkManagerImpl;
         Schedulers.schedule(
                 workManager.getConfiguration(),
                 workManager.getWorkDatabase(),
                 workManager.getSchedulers());
     }
 
-    private static boolean processContinuation(@NonNull WorkContinuationImpl workContinuation) {
+    private static boolean processContinuation(
+            @NonNull WorkContinuationImpl workContinuation,
+            @NonNull PendingRows pendingRows) {
         boolean needsScheduling = false;
         List<WorkContinuationImpl> parents = workContinuation.getParents();
         if (parents != null) {
@@ -146,18 +167,20 @@ public class EnqueueRunnable implements Runnable {
                 // When chaining off a completed continuation we need to pay
                 // attention to parents that may have been marked as enqueued before.
                 if (!parent.isEnqueued()) {
-                    needsScheduling |= processContinuation(parent);
+                    needsScheduling |= processContinuation(parent, pendingRows);
                 } else {
                     Logger.get().warning(TAG, String.format("Already enqueued work ids (%s).",
                             TextUtils.join(", ", parent.getIds())));
                 }
             }
         }
-        needsScheduling |= enqueueContinuation(workContinuation);
+        needsScheduling |= enqueueContinuation(workContinuation, pendingRows);
         return needsScheduling;
     }
 
-    private static boolean enqueueContinuation(@NonNull WorkContinuationImpl workContinuation) {
+    private static boolean enqueueContinuation(
+            @NonNull WorkContinuationImpl workContinuation,
+            @NonNull PendingRows pendingRows) {
         Set<String> prerequisiteIds = WorkContinuationImpl.prerequisitesFor(workContinuation);
 
         boolean needsScheduling = enqueueWorkWithPrerequisites(
@@ -165,14 +188,16 @@ public class EnqueueRunnable implements Runnable {
                 workContinuation.getWork(),
                 prerequisiteIds.toArray(new String[0]),
                 workContinuation.getName(),
-                workContinuation.getExistingWorkPolicy());
+                workContinuation.getExistingWorkPolicy(),
+                pendingRows);
 
         workContinuation.markEnqueued();
         return needsScheduling;
     }
 
     /**
-     * Enqueues the {@link WorkSpec}'s while keeping track of the prerequisites.
+     * Enqueues the {@link WorkSpec}'s while keeping track of the prerequisites. Their rows are
+     * added to {@code pendingRows}.
      *
      * @return {@code true} If there is any scheduling to be done.
      */
@@ -181,7 +206,8 @@ public class EnqueueRunnable implements Runnable {
             @NonNull List<? extends WorkRequest> workList,
             String[] prerequisiteIds,
             String name,
-            ExistingWorkPolicy existingWorkPolicy) {
+            ExistingWorkPolicy existingWorkPolicy,
+            @NonNull PendingRows pendingRows) {
 
         boolean needsScheduling = false;
 
@@ -193,6 +219,14 @@ public class EnqueueRunnable implements Runnable {
         boolean hasFailedPrerequisites = false;
         boolean hasCancelledPrerequisites = false;
 
+        boolean isNamed = !TextUtils.isEmpty(name);
+
+        if (hasPrerequisite || isNamed) {
+            // The prerequisites or the existing work with the same name may have been enqueued
+            // earlier in this batch, write their rows before looking them up.
+            pendingRows.flush();
+        }
+
         if (hasPrerequisite) {
             // If there are prerequisites, make sure they actually exist before enqueuing
             // anything.  Prerequisites may not exist if we are using unique tags, because the
@@ -215,8 +249,6 @@ public class EnqueueRunnable implements Runnable {
             }
         }
 
-        boolean isNamed = !TextUtils.isEmpty(name);
-
         // We only apply existing work policies for unique tag sequences that are the beginning of
         // chains.
         boolean shouldApplyExistingWorkPolicy = isNamed && !hasPrerequisite;
@@ -289,6 +321,12 @@ public class EnqueueRunnable implements Runnable {
             }
         }
 
+        boolean delegateConstrainedWork =
+                (Build.VERSION.SDK_INT >= WorkManagerImpl.MIN_JOB_SCHEDULER_API_LEVEL
+                        && Build.VERSION.SDK_INT <= 25)
+                        || (Build.VERSION.SDK_INT <= WorkManagerImpl.MAX_PRE_JOB_SCHEDULER_API_LEVEL
+                        && usesScheduler(workManagerImpl, Schedulers.GCM_SCHEDULER));
+
         for (WorkRequest work : workList) {
             WorkSpec workSpec = work.getWorkSpec();
 
@@ -318,11 +356,7 @@ public class EnqueueRunnable implements Runnable {
                 }
             }
 
-            if (Build.VERSION.SDK_INT >= WorkManagerImpl.MIN_JOB_SCHEDULER_API_LEVEL
-                    && Build.VERSION.SDK_INT <= 25) {
-                tryDelegateConstrainedWorkSpec(workSpec);
-            } else if (Build.VERSION.SDK_INT <= WorkManagerImpl.MAX_PRE_JOB_SCHEDULER_API_LEVEL
-                    && usesScheduler(workManagerImpl, Schedulers.GCM_SCHEDULER)) {
+            if (delegateConstrainedWork) {
                 tryDelegateConstrainedWorkSpec(workSpec);
             }
 
@@ -331,21 +365,21 @@ public class EnqueueRunnable implements Runnable {
                 needsScheduling = true;
             }
 
-            workDatabase.workSpecDao().insertWorkSpec(workSpec);
+            pendingRows.mWorkSpecs.add(workSpec);
 
             if (hasPrerequisite) {
                 for (String prerequisiteId : prerequisiteIds) {
-                    Dependency dep = new Dependency(work.getStringId(), prerequisiteId);
-                    workDatabase.dependencyDao().insertDependency(dep);
+                    pendingRows.mDependencies.add(
+                            new Dependency(work.getStringId(), prerequisiteId));
                 }
             }
 
             for (String tag : work.getTags()) {
-                workDatabase.workTagDao().insert(new WorkTag(tag, work.getStringId()));
+                pendingRows.mWorkTags.add(new WorkTag(tag, work.getStringId()));
             }
 
             if (isNamed) {
-                workDatabase.workNameDao().insert(new WorkName(name, work.getStringId()));
+                pendingRows.mWorkNames.add(new WorkName(name, work.getStringId()));
             }
         }
         return needsScheduling;
@@ -396,4 +430,41 @@ public class EnqueueRunnable implements Runnable {
             return false;
         }
     }
+
+    /**
+     * Rows of enqueued work that have not been written yet. They are written with one multi-row
+     * insert per table, either at the end of the transaction or before the database is queried
+     * for work enqueued earlier in it.
+     */
+    private static final class PendingRows {
+        private final WorkDatabase mWorkDatabase;
+        final List<WorkSpec> mWorkSpecs = new ArrayList<>();
+        final List<Dependency> mDependencies = new ArrayList<>();
+        final List<WorkTag> mWorkTags = new ArrayList<>();
+        final List<WorkName> mWorkNames = new ArrayList<>();
+
+        PendingRows(@NonNull WorkDatabase workDatabase) {
+            mWorkDatabase = workDatabase;
+        }
+
+        void flush() {
+            // WorkSpecs first, the other tables have foreign keys referencing them.
+            if (!mWorkSpecs.isEmpty()) {
+                mWorkDatabase.workSpecDao().insertWorkSpecs(mWorkSpecs);
+                mWorkSpecs.clear();
+            }
+            if (!mDependencies.isEmpty()) {
+                mWorkDatabase.dependencyDao().insertDependencies(mDependencies);
+                mDependencies.clear();
+            }
+            if (!mWorkTags.isEmpty()) {
+                mWorkDatabase.workTagDao().insert(mWorkTags);
+                mWorkTags.clear();
+            }
+            if (!mWorkNames.isEmpty()) {
+                mWorkDatabase.workNameDao().insert(mWorkNames);
+                mWorkNames.clear();
+            }
+        }
+    }
 }
@@ -187,6 +187,8 @@ public class ForceStopRunnable implements Runnable {
                     mWorkManager.getWorkDatabase(),
                     mWorkManager.getSchedulers());
         }
+        // Prune old work after everything else, so it does not delay scheduling.
+        mWorkManager.pruneExpiredWork();
         mWorkManager.onForceStopRunnableCompleted();
     }
 
@@ -16,29 +16,89 @@
 
 package androidx.work.impl.utils;
 
+import androidx.annotation.NonNull;
 import androidx.annotation.RestrictTo;
+import androidx.annotation.VisibleForTesting;
+import androidx.work.Logger;
 import androidx.work.Operation;
 import androidx.work.impl.OperationImpl;
 import androidx.work.impl.WorkDatabase;
 import androidx.work.impl.WorkManagerImpl;
 import androidx.work.impl.model.WorkSpecDao;
 
+import java.util.concurrent.TimeUnit;
+
 /**
  * A Runnable that prunes work in the background.  Pruned work meets the following criteria:
  * - Is finished (succeeded, failed, or cancelled)
  * - Has zero unfinished dependents
+ * <p>
+ * The oldest work is pruned first, in batches of at most {@link #BATCH_SIZE} {@link
+ * androidx.work.impl.model.WorkSpec}s.  After each batch the runnable is executed again on the
+ * background thread, so other background tasks do not have to wait for all the work to be pruned.
  *
  * @hide
  */
 @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
 public class PruneWorkRunnable implements Runnable {
 
+    private static final String TAG = Logger.tagWithPrefix("PruneWorkRunnable");
+
+    // Bounds how long a single batch holds the database.
+    @VisibleForTesting
+    static final int BATCH_SIZE = 500;
+
     private final WorkManagerImpl mWorkManagerImpl;
     private final OperationImpl mOperation;
+    private final boolean mIgnoreKeepForAtLeast;
+    private final long mPrunableBefore;
+    private final int mMaxRetainedWorkCount;
+
+    private boolean mPrunedExpiredWork;
+    private int mPrunedCount;
+    private int mBatchCount;
+    private long mStartNanos;
+    private long mPruneNanos;
+    private long mElapsedNanos;
+
+    /**
+     * Creates a {@link PruneWorkRunnable} that prunes all the eligible work, ignoring how long
+     * results should be kept for.
+     *
+     * @param workManagerImpl The {@link WorkManagerImpl} to prune work for
+     */
+    public PruneWorkRunnable(@NonNull WorkManagerImpl workManagerImpl) {
+        this(workManagerImpl, true, Long.MAX_VALUE, Integer.MAX_VALUE);
+    }
 
-    public PruneWorkRunnable(WorkManagerImpl workManagerImpl) {
+    private PruneWorkRunnable(
+            @NonNull WorkManagerImpl workManagerImpl,
+            boolean ignoreKeepForAtLeast,
+            long prunableBefore,
+            int maxRetainedWorkCount) {
         mWorkManagerImpl = workManagerImpl;
         mOperation = new OperationImpl();
+        mIgnoreKeepForAtLeast = ignoreKeepForAtLeast;
+        mPrunableBefore = prunableBefore;
+        mMaxRetainedWorkCount = maxRetainedWorkCount;
+    }
+
+    /**
+     * Creates a {@link PruneWorkRunnable} that prunes the eligible work whose minimum retention
+     * time expired before {@link WorkDatabase#getPruneDate()}.  If more than
+     * {@link androidx.work.Configuration#getMaxRetainedWorkCount()} work is left afterwards, the
+     * oldest eligible work is pruned regardless of its retention time until the limit is met.
+     *
+     * @param workManagerImpl The {@link WorkManagerImpl} to prune work for
+     * @return The {@link PruneWorkRunnable}
+     */
+    @NonNull
+    public static PruneWorkRunnable forExpiredWork(@NonNull WorkManagerImpl workManagerImpl) {
+        return new PruneWorkRunnable(
+                workManagerImpl,
+                false,
+                WorkDatabase.getPruneDate(),
+                workManagerImpl.getConfiguration().getMaxRetainedWorkCount());
     }
 
     /**
@@ -48,16 +108,97 @@ public class PruneWorkRunnable implements Runnable {
         return mOperation;
     }
 
+    /**
+     * @return The number of {@link androidx.work.impl.model.WorkSpec}s pruned so far
+     */
+    public int getPrunedCount() {
+        return mPrunedCount;
+    }
+
+    /**
+     * @return The number of batches run so far
+     */
+    public int getBatchCount() {
+        return mBatchCount;
+    }
+
+    /**
+     * @return The time spent pruning in the database so far, in milliseconds
+     */
+    public long getPruneDurationMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(mPruneNanos);
+    }
+
+    /**
+     * @return The time between the first batch and the end of the last batch, in milliseconds,
+     * which includes the time other background tasks ran in between batches
+     */
+    public long getElapsedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(mElapsedNanos);
+    }
 
     @Override
     public void run() {
         try {
+            long batchStartNanos = System.nanoTime();
+            if (mBatchCount == 0) {
+                mStartNanos = batchStartNanos;
+            }
             WorkDatabase workDatabase = mWorkManagerImpl.getWorkDatabase();
-            WorkSpecDao workSpecDao = workDatabase.workSpecDao();
-            workSpecDao.pruneFinishedWorkWithZeroDependentsIgnoringKeepForAtLeast();
+            boolean hasMore = pruneBatch(workDatabase.workSpecDao());
+            long batchEndNanos = System.nanoTime();
+            mBatchCount++;
+            mPruneNanos += batchEndNanos - batchStartNanos;
+            mElapsedNanos = batchEndNanos - mStartNanos;
+            if (hasMore) {
+                // Yield to other background tasks before pruning the next batch.
+                mWorkManagerImpl.getWorkTaskExecutor().executeOnBackgroundThread(this);
+                return;
+            }
+            Logger.get().debug(TAG, String.format(
+                    "Pruned %s WorkSpecs in %s batches (%s ms pruning, %s ms elapsed)",
+                    mPrunedCount, mBatchCount, getPruneDurationMillis(), getElapsedMillis()));
             mOperation.setState(Operation.SUCCESS);
         } catch (Throwable exception) {
             mOperation.setState(new Operation.State.FAILURE(exception));
         }
     }
+
+    /**
+     * Prunes a single batch of work.
+     *
+     * @return {@code true} if there may be more work to prune
+     */
+    private boolean pruneBatch(@NonNull WorkSpecDao workSpecDao) {
+        if (mIgnoreKeepForAtLeast) {
+            int pruned = workSpecDao
+                    .pruneOldestFinishedWorkWithZeroDependentsIgnoringKeepForAtLeast(BATCH_SIZE);
+            mPrunedCount += pruned;
+            return pruned == BATCH_SIZE;
+        }
+
+        if (!mPrunedExpiredWork) {
+            int pruned = workSpecDao.pruneOldestExpiredFinishedWorkWithZeroDependents(
+                    mPrunableBefore, BATCH_SIZE);
+            mPrunedCount += pruned;
+            if (pruned == BATCH_SIZE) {
+                return true;
+            }
+            mPrunedExpiredWork = true;
+        }
+
+        if (mMaxRetainedWorkCount == Integer.MAX_VALUE) {
+            return false;
+        }
+        int excess = workSpecDao.getWorkSpecCount() - mMaxRetainedWorkCount;
+        if (excess <= 0) {
+            return false;
+        }
+        int limit = Math.min(excess, BATCH_SIZE);
+        int pruned =
+                workSpecDao.pruneOldestFinishedWorkWithZeroDependentsIgnoringKeepForAtLeast(limit);
+        mPrunedCount += pruned;
+        // Stop once the limit is met, or when the remaining work cannot be pruned.
+        return pruned == limit && excess > limit;
+    }
 }
@@ -17,6 +17,7 @@
 package androidx.work.impl.utils;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.sqlite.db.SimpleSQLiteQuery;
 import androidx.sqlite.db.SupportSQLiteQuery;
 import androidx.work.WorkInfo;
@@ -45,6 +46,56 @@ public final class RawQueries {
     public static SupportSQLiteQuery workQueryToRawQuery(@NonNull WorkQuery querySpec) {
         List<Object> arguments = new ArrayList<>();
         StringBuilder builder = new StringBuilder("SELECT * FROM workspec");
+        appendFilters(querySpec, builder, arguments);
+        builder.append(";");
+        return new SimpleSQLiteQuery(builder.toString(), arguments.toArray());
+    }
+
+    /**
+     * Converts a {@link WorkQuery} to a raw {@link SupportSQLiteQuery} returning a page of
+     * {@link androidx.work.impl.model.WorkSpec.LazyWorkInfoPojo}s, ordered by id.
+     * <p>
+     * Pages are found by seeking past the last id of the previous page using the primary key, or
+     * the index on {@code (state, id)}, rather than with an {@code OFFSET} that would scan all the
+     * skipped rows.
+     *
+     * @param querySpec The instance of {@link WorkQuery}
+     * @param afterId   The last id of the previous page, or {@code null} for the first page
+     * @param limit     The maximum number of rows to return
+     * @return a {@link SupportSQLiteQuery} instance
+     */
+    @NonNull
+    public static SupportSQLiteQuery workQueryToPagedRawQuery(
+            @NonNull WorkQuery querySpec,
+            @Nullable String afterId,
+            int limit) {
+        List<Object> arguments = new ArrayList<>();
+        StringBuilder builder = new StringBuilder(
+                "SELECT id, state, output, run_attempt_count, "
+                        + "(SELECT progress FROM workprogress "
+                        + "WHERE workprogress.work_spec_id = workspec.id) AS progress "
+                        + "FROM workspec");
+        String conjunction = appendFilters(querySpec, builder, arguments);
+        if (afterId != null) {
+            builder.append(conjunction)
+                    .append(" id > ?");
+            arguments.add(afterId);
+        }
+        builder.append(" ORDER BY id LIMIT ?;");
+        arguments.add(limit);
+        return new SimpleSQLiteQuery(builder.toString(), arguments.toArray());
+    }
+
+    /**
+     * Appends the {@code WHERE} clause for the filters of a {@link WorkQuery}.
+     *
+     * @return the conjunction to use for any further condition
+     */
+    @NonNull
+    private static String appendFilters(
+            @NonNull WorkQuery querySpec,
+            @NonNull StringBuilder builder,
+            @NonNull List<Object> arguments) {
         String conjunction = " WHERE";
 
         List<WorkInfo.State> states = querySpec.getStates();
@@ -94,8 +145,7 @@ public final class RawQueries {
             arguments.addAll(uniqueWorkNames);
             conjunction = " AND";
         }
-        builder.append(";");
-        return new SimpleSQLiteQuery(builder.toString(), arguments.toArray());
+        return conjunction;
     }
 
     private static void bindings(@NonNull StringBuilder builder, int count) {
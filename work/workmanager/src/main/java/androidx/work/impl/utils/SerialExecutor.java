@@ -17,52 +17,224 @@
 package androidx.work.impl.utils;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
 
 import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.Executor;
 
 /**
  * A {@link Executor} which delegates to another {@link Executor} but ensures that tasks are
  * executed serially, like a single threaded executor.
+ * <p>
+ * Tasks can also be given a key with {@link #execute(String, Runnable)}.  A keyed task still runs
+ * after every task submitted before it without a key or with the same key, and before every task
+ * submitted after it without a key, but may run at the same time as tasks with other keys.
+ * <p>
+ * Tasks which only read state are submitted with
+ * {@link #executeRead(Collection, int, Runnable)} and run in a separate lane: they are not queued
+ * behind the tasks which write, and only wait for the writes submitted before them whose scopes
+ * overlap their own, so that they observe those writes.  Reads never hold back writes.  When
+ * several reads are ready, the ones with the highest priority run first.
  */
 public class SerialExecutor implements Executor {
+    /**
+     * The priority of reads which nothing is actively waiting on.
+     */
+    public static final int PRIORITY_DEFAULT = 0;
+
+    /**
+     * The priority of reads which a caller is waiting on, such as status queries.
+     */
+    public static final int PRIORITY_USER_FACING = 1;
+
+    // Keeps keyed tasks from taking every thread of the delegated executor.
+    @VisibleForTesting
+    static final int MAX_ACTIVE_KEYS = 2;
+
+    // Keeps reads from taking every thread of the delegated executor.
+    @VisibleForTesting
+    static final int MAX_ACTIVE_READS = 2;
+
     private final ArrayDeque<Task> mTasks;
     private final Executor mExecutor;
     private final Object mLock;
+    private final Set<String> mActiveKeys;
+    // The writes which are queued or running, in the order they were submitted.
+    private final Set<Task> mWrites;
+    // The reads which are waiting to run, in the order they were submitted.
+    private final List<Task> mReads;
+    private int mActiveReads;
+    private long mSequence;
     private volatile Runnable mActive;
 
     public SerialExecutor(@NonNull Executor executor) {
         mExecutor = executor;
         mTasks = new ArrayDeque<>();
         mLock = new Object();
+        mActiveKeys = new HashSet<>();
+        mWrites = new LinkedHashSet<>();
+        mReads = new ArrayList<>();
     }
 
     @Override
     public void execute(@NonNull Runnable command) {
+        execute(null, null, command);
+    }
+
+    /**
+     * Executes a task that only needs to be serialized with the tasks that share its key, such
+     * as the operations on a unique work name.
+     *
+     * @param key     The key of the task
+     * @param command The task
+     */
+    public void execute(@NonNull String key, @NonNull Runnable command) {
+        execute(key, null, command);
+    }
+
+    /**
+     * Executes a task which writes state.
+     *
+     * @param key     The key of the task, or {@code null} if it needs to be serialized with every
+     *                other task
+     * @param scopes  The scopes of the state the task writes, or {@code null} if it may write
+     *                anything.  Reads only wait for the writes with overlapping scopes.
+     * @param command The task
+     */
+    public void execute(
+            @Nullable String key,
+            @Nullable Collection<String> scopes,
+            @NonNull Runnable command) {
         synchronized (mLock) {
-            mTasks.add(new Task(this, command));
-            if (mActive == null) {
-                scheduleNext();
-            }
+            Task task = new Task(this, key, scopes, false, PRIORITY_DEFAULT, mSequence++, command);
+            mTasks.add(task);
+            mWrites.add(task);
+            scheduleNext();
+        }
+    }
+
+    /**
+     * Executes a task which only reads state, after every task submitted before it.
+     *
+     * @param command The task
+     * @see #executeRead(Collection, int, Runnable)
+     */
+    public void executeRead(@NonNull Runnable command) {
+        executeRead(null, PRIORITY_DEFAULT, command);
+    }
+
+    /**
+     * Executes a task which only reads state, such as a status query.  The read waits for the
+     * writes submitted before it whose scopes overlap {@code scopes}, so that it observes them,
+     * but not for the other writes, and the tasks submitted after it do not wait for the read.
+     *
+     * @param scopes   The scopes of the state the task reads, or {@code null} if it may read
+     *                 anything
+     * @param priority The priority of the task, such as {@link #PRIORITY_USER_FACING}
+     * @param command  The task
+     */
+    public void executeRead(
+            @Nullable Collection<String> scopes,
+            int priority,
+            @NonNull Runnable command) {
+        synchronized (mLock) {
+            mReads.add(new Task(this, null, scopes, true, priority, mSequence++, command));
+            scheduleNext();
         }
     }
 
     // Synthetic access
-    void scheduleNext() {
+    void onTaskCompleted(@NonNull Task task) {
+        synchronized (mLock) {
+            if (task.mRead) {
+                mActiveReads--;
+            } else {
+                mWrites.remove(task);
+                if (task.mKey == null) {
+                    mActive = null;
+                } else {
+                    mActiveKeys.remove(task.mKey);
+                }
+            }
+            scheduleNext();
+        }
+    }
+
+    private void scheduleNext() {
         synchronized (mLock) {
-            if ((mActive = mTasks.poll()) != null) {
-                mExecutor.execute(mActive);
+            scheduleNextWrite();
+            scheduleNextReads();
+        }
+    }
+
+    private void scheduleNextWrite() {
+        Task next;
+        while (mActive == null && (next = mTasks.peek()) != null) {
+            if (next.mKey == null) {
+                // Tasks without a key wait for every keyed task to complete.
+                if (mActiveKeys.isEmpty()) {
+                    mTasks.poll();
+                    mActive = next;
+                    mExecutor.execute(next);
+                }
+                return;
+            }
+            if (mActiveKeys.contains(next.mKey) || mActiveKeys.size() >= MAX_ACTIVE_KEYS) {
+                return;
             }
+            mTasks.poll();
+            mActiveKeys.add(next.mKey);
+            mExecutor.execute(next);
+        }
+    }
+
+    private void scheduleNextReads() {
+        while (mActiveReads < MAX_ACTIVE_READS) {
+            Task next = null;
+            for (Task read : mReads) {
+                // Reads are in submission order, so ties keep the order they were submitted in.
+                if ((next == null || read.mPriority > next.mPriority) && !isBlocked(read)) {
+                    next = read;
+                }
+            }
+            if (next == null) {
+                return;
+            }
+            mReads.remove(next);
+            mActiveReads++;
+            mExecutor.execute(next);
         }
     }
 
+    /**
+     * @return {@code true} if a write submitted before {@code read} which may write what it
+     * reads has not completed yet.
+     */
+    private boolean isBlocked(@NonNull Task read) {
+        for (Task write : mWrites) {
+            if (write.mSequence > read.mSequence) {
+                return false;
+            }
+            if (write.overlaps(read)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * @return {@code true} if there are tasks to execute in the queue.
      */
     public boolean hasPendingTasks() {
         synchronized (mLock) {
-            return !mTasks.isEmpty();
+            return !mTasks.isEmpty() || !mReads.isEmpty();
         }
     }
 
@@ -78,19 +250,48 @@ public class SerialExecutor implements Executor {
      */
     static class Task implements Runnable {
         final SerialExecutor mSerialExecutor;
+        final String mKey;
+        final Set<String> mScopes;
+        final boolean mRead;
+        final int mPriority;
+        final long mSequence;
         final Runnable mRunnable;
 
-        Task(@NonNull SerialExecutor serialExecutor, @NonNull Runnable runnable) {
+        Task(
+                @NonNull SerialExecutor serialExecutor,
+                @Nullable String key,
+                @Nullable Collection<String> scopes,
+                boolean read,
+                int priority,
+                long sequence,
+                @NonNull Runnable runnable) {
             mSerialExecutor = serialExecutor;
+            mKey = key;
+            mScopes = scopes != null ? new HashSet<>(scopes) : null;
+            mRead = read;
+            mPriority = priority;
+            mSequence = sequence;
             mRunnable = runnable;
         }
 
+        boolean overlaps(@NonNull Task other) {
+            if (mScopes == null || other.mScopes == null) {
+                return true;
+            }
+            for (String scope : other.mScopes) {
+                if (mScopes.contains(scope)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
         @Override
         public void run() {
             try {
                 mRunnable.run();
             } finally {
-                mSerialExecutor.scheduleNext();
+                mSerialExecutor.onTaskCompleted(this);
             }
         }
     }
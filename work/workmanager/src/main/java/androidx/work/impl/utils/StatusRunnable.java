@@ -17,9 +17,11 @@
 package androidx.work.impl.utils;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.annotation.RestrictTo;
 import androidx.annotation.WorkerThread;
 import androidx.work.WorkInfo;
+import androidx.work.WorkInfoPage;
 import androidx.work.WorkQuery;
 import androidx.work.impl.WorkDatabase;
 import androidx.work.impl.WorkManagerImpl;
@@ -28,6 +30,9 @@ import androidx.work.impl.utils.futures.SettableFuture;
 
 import com.google.common.util.concurrent.ListenableFuture;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
 
@@ -40,6 +45,11 @@ import java.util.UUID;
 @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
 public abstract class StatusRunnable<T> implements Runnable {
     private final SettableFuture<T> mFuture = SettableFuture.create();
+    private final Collection<String> mScopes;
+
+    StatusRunnable(@Nullable Collection<String> scopes) {
+        mScopes = scopes;
+    }
 
     @Override
     public void run() {
@@ -59,6 +69,24 @@ public abstract class StatusRunnable<T> implements Runnable {
         return mFuture;
     }
 
+    /**
+     * @return the priority of the status query in the read lane of the {@link SerialExecutor}.
+     * Callers are waiting on the result, so it runs ahead of the other reads.
+     */
+    public int getPriority() {
+        return SerialExecutor.PRIORITY_USER_FACING;
+    }
+
+    /**
+     * Submits the status query to the read lane of the given {@link SerialExecutor}.  It only
+     * waits for the writes submitted before it which may change the {@link WorkInfo}s it reads.
+     *
+     * @param executor The {@link SerialExecutor} to use
+     */
+    public void executeOn(@NonNull SerialExecutor executor) {
+        executor.executeRead(mScopes, getPriority(), this);
+    }
+
     /**
      * Creates a {@link StatusRunnable} which can get statuses for a given {@link List} of
      * {@link String} workSpec ids.
@@ -72,7 +100,11 @@ public abstract class StatusRunnable<T> implements Runnable {
             @NonNull final WorkManagerImpl workManager,
             @NonNull final List<String> ids) {
 
-        return new StatusRunnable<List<WorkInfo>>() {
+        List<String> scopes = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            scopes.add(WorkScopes.forId(id));
+        }
+        return new StatusRunnable<List<WorkInfo>>(scopes) {
             @Override
             public List<WorkInfo> runInternal() {
                 WorkDatabase workDatabase = workManager.getWorkDatabase();
@@ -97,7 +129,8 @@ public abstract class StatusRunnable<T> implements Runnable {
             @NonNull final WorkManagerImpl workManager,
             @NonNull final UUID id) {
 
-        return new StatusRunnable<WorkInfo>() {
+        return new StatusRunnable<WorkInfo>(
+                Collections.singleton(WorkScopes.forId(id.toString()))) {
             @Override
             WorkInfo runInternal() {
                 WorkDatabase workDatabase = workManager.getWorkDatabase();
@@ -122,7 +155,8 @@ public abstract class StatusRunnable<T> implements Runnable {
             @NonNull final WorkManagerImpl workManager,
             @NonNull final String tag) {
 
-        return new StatusRunnable<List<WorkInfo>>() {
+        return new StatusRunnable<List<WorkInfo>>(
+                Collections.singleton(WorkScopes.forTag(tag))) {
             @Override
             List<WorkInfo> runInternal() {
                 WorkDatabase workDatabase = workManager.getWorkDatabase();
@@ -147,7 +181,8 @@ public abstract class StatusRunnable<T> implements Runnable {
             @NonNull final WorkManagerImpl workManager,
             @NonNull final String name) {
 
-        return new StatusRunnable<List<WorkInfo>>() {
+        return new StatusRunnable<List<WorkInfo>>(
+                Collections.singleton(WorkScopes.forName(name))) {
             @Override
             List<WorkInfo> runInternal() {
                 WorkDatabase workDatabase = workManager.getWorkDatabase();
@@ -172,7 +207,7 @@ public abstract class StatusRunnable<T> implements Runnable {
             @NonNull final WorkManagerImpl workManager,
             @NonNull final WorkQuery querySpec) {
 
-        return new StatusRunnable<List<WorkInfo>>() {
+        return new StatusRunnable<List<WorkInfo>>(WorkScopes.forQuery(querySpec)) {
             @Override
             List<WorkInfo> runInternal() {
                 WorkDatabase workDatabase = workManager.getWorkDatabase();
@@ -183,4 +218,53 @@ public abstract class StatusRunnable<T> implements Runnable {
             }
         };
     }
+
+    /**
+     * Creates a {@link StatusRunnable} which can get a page of statuses for {@link WorkSpec}s
+     * referenced by a given {@link WorkQuery}.
+     *
+     * @param workManager The {@link WorkManagerImpl} to use
+     * @param querySpec   The {@link WorkQuery} to use
+     * @param afterId     The last id of the previous page, or {@code null} for the first page
+     * @param pageSize    The maximum number of statuses in the page
+     * @return an instance of {@link StatusRunnable}
+     */
+    @NonNull
+    public static StatusRunnable<WorkInfoPage> forWorkQueryPage(
+            @NonNull final WorkManagerImpl workManager,
+            @NonNull final WorkQuery querySpec,
+            @Nullable final String afterId,
+            final int pageSize) {
+
+        return new StatusRunnable<WorkInfoPage>(WorkScopes.forQuery(querySpec)) {
+            @Override
+            WorkInfoPage runInternal() {
+                WorkDatabase workDatabase = workManager.getWorkDatabase();
+                // Read one extra row to know whether there is another page.
+                List<WorkSpec.LazyWorkInfoPojo> workInfoPojos =
+                        workDatabase.rawWorkInfoDao().getLazyWorkInfoPojos(
+                                RawQueries.workQueryToPagedRawQuery(
+                                        querySpec, afterId, pageSize + 1));
+                if (workInfoPojos.size() <= pageSize) {
+                    return new WorkInfoPage(
+                            WorkSpec.LAZY_WORK_INFO_MAPPER.apply(workInfoPojos), null);
+                }
+                List<WorkSpec.LazyWorkInfoPojo> page = workInfoPojos.subList(0, pageSize);
+                final String lastId = page.get(pageSize - 1).id;
+                return new WorkInfoPage(
+                        WorkSpec.LAZY_WORK_INFO_MAPPER.apply(page),
+                        new WorkInfoPage.NextPageLoader() {
+                            @NonNull
+                            @Override
+                            public ListenableFuture<WorkInfoPage> loadNextPage() {
+                                StatusRunnable<WorkInfoPage> runnable =
+                                        forWorkQueryPage(workManager, querySpec, lastId, pageSize);
+                                runnable.executeOn(
+                                        workManager.getWorkTaskExecutor().getBackgroundExecutor());
+                                return runnable.getFuture();
+                            }
+                        });
+            }
+        };
+    }
 }
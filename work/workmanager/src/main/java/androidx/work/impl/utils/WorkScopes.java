@@ -0,0 +1,88 @@
+/*
+ * Copyright 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.work.impl.utils;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.work.WorkQuery;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * A helper to build the scopes which tell the {@link SerialExecutor} which reads have to wait
+ * for which writes.
+ */
+public final class WorkScopes {
+    private WorkScopes() {
+        // Does nothing
+    }
+
+    /**
+     * @param id The id of a {@link androidx.work.impl.model.WorkSpec}
+     * @return the scope of the work with the given id
+     */
+    @NonNull
+    public static String forId(@NonNull String id) {
+        return "id:" + id;
+    }
+
+    /**
+     * @param tag A tag
+     * @return the scope of the work with the given tag
+     */
+    @NonNull
+    public static String forTag(@NonNull String tag) {
+        return "tag:" + tag;
+    }
+
+    /**
+     * @param name A unique work name
+     * @return the scope of the work with the given unique name
+     */
+    @NonNull
+    public static String forName(@NonNull String name) {
+        return "name:" + name;
+    }
+
+    /**
+     * @param querySpec The instance of {@link WorkQuery}
+     * @return the scopes of the work the query may return, or {@code null} if it may return any
+     * work because it only filters by state
+     */
+    @Nullable
+    public static Set<String> forQuery(@NonNull WorkQuery querySpec) {
+        if (querySpec.getIds().isEmpty()
+                && querySpec.getTags().isEmpty()
+                && querySpec.getUniqueWorkNames().isEmpty()) {
+            return null;
+        }
+        Set<String> scopes = new HashSet<>();
+        for (UUID id : querySpec.getIds()) {
+            scopes.add(forId(id.toString()));
+        }
+        for (String tag : querySpec.getTags()) {
+            scopes.add(forTag(tag));
+        }
+        for (String name : querySpec.getUniqueWorkNames()) {
+            scopes.add(forName(name));
+        }
+        return Collections.unmodifiableSet(scopes);
+    }
+}
@@ -20,6 +20,8 @@ import androidx.annotation.NonNull;
 import androidx.annotation.RestrictTo;
 import androidx.annotation.VisibleForTesting;
 import androidx.work.Logger;
+import androidx.work.RunnableScheduler;
+import androidx.work.TimingWheelRunnableScheduler;
 import androidx.work.WorkRequest;
 
 import java.util.HashMap;
@@ -27,12 +29,15 @@ import java.util.Map;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadFactory;
-import java.util.concurrent.TimeUnit;
 
 /**
  * Manages timers to enforce a time limit for processing {@link WorkRequest}.
  * Notifies a {@link TimeLimitExceededListener} when the time limit
  * is exceeded.
+ * <p>
+ * Timers are kept in a {@link TimingWheelRunnableScheduler} driven by a single background thread,
+ * so starting and stopping a timer takes constant time and stopped timers do not linger in the
+ * executor's queue until they would have expired.
  *
  * @hide
  */
@@ -55,7 +60,10 @@ public class WorkTimer {
         }
     };
 
+    private static final long TICK_DURATION_MILLIS = 10L;
+
     private final ScheduledExecutorService mExecutorService;
+    private final RunnableScheduler mRunnableScheduler;
     final Map<String, WorkTimerRunnable> mTimerMap;
     final Map<String, TimeLimitExceededListener> mListeners;
     final Object mLock;
@@ -65,6 +73,8 @@ public class WorkTimer {
         mListeners = new HashMap<>();
         mLock = new Object();
         mExecutorService = Executors.newSingleThreadScheduledExecutor(mBackgroundThreadFactory);
+        mRunnableScheduler = new TimingWheelRunnableScheduler(
+                mExecutorService, TICK_DURATION_MILLIS);
     }
 
     /**
@@ -77,7 +87,6 @@ public class WorkTimer {
      * @param listener             The listener which is notified when the execution time exceeds
      *                             {@code processingTimeMillis}
      */
-    @SuppressWarnings("FutureReturnValueIgnored")
     public void startTimer(@NonNull final String workSpecId,
             long processingTimeMillis,
             @NonNull TimeLimitExceededListener listener) {
@@ -89,7 +98,7 @@ public class WorkTimer {
             WorkTimerRunnable runnable = new WorkTimerRunnable(this, workSpecId);
             mTimerMap.put(workSpecId, runnable);
             mListeners.put(workSpecId, listener);
-            mExecutorService.schedule(runnable, processingTimeMillis, TimeUnit.MILLISECONDS);
+            mRunnableScheduler.scheduleWithDelay(processingTimeMillis, runnable);
         }
     }
 
@@ -103,6 +112,7 @@ public class WorkTimer {
             WorkTimerRunnable removed = mTimerMap.remove(workSpecId);
             if (removed != null) {
                 Logger.get().debug(TAG, String.format("Stopping timer for %s", workSpecId));
+                mRunnableScheduler.cancel(removed);
                 mListeners.remove(workSpecId);
             }
         }
@@ -27,6 +27,10 @@ import androidx.annotation.NonNull;
 
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -115,6 +119,70 @@ public class DataTest {
         }
     }
 
+    @Test
+    public void testSerializeAllTypes() {
+        Data data = new Data.Builder()
+                .putBoolean("boolean", true)
+                .putByte("byte", (byte) -3)
+                .putInt("int", Integer.MIN_VALUE)
+                .putLong("long", Long.MAX_VALUE)
+                .putFloat("float", -1.5f)
+                .putDouble("double", Double.NaN)
+                .putString("string", "h\u00e9llo \u4e16\u754c \ud83d\ude00 \u0000")
+                .putString("null", null)
+                .putBooleanArray("boolean array", new boolean[]{true, false})
+                .putByteArray("byte array", new byte[]{Byte.MIN_VALUE, 0, Byte.MAX_VALUE})
+                .putIntArray("int array", new int[0])
+                .putLongArray("long array", new long[]{-1L, 1L << 40})
+                .putFloatArray("float array", new float[]{Float.MIN_VALUE})
+                .putDoubleArray("double array", new double[]{Double.NEGATIVE_INFINITY})
+                .putStringArray("string array", new String[]{"", null, "\ud800"})
+                .build();
+
+        byte[] byteArray = data.toByteArray();
+        assertThat(CompactDataFormat.isCompact(byteArray), is(true));
+        assertThat(Data.fromByteArray(byteArray), is(data));
+    }
+
+    @Test
+    public void testSerializeSmallerThanLegacy() throws IOException {
+        Data data = new Data.Builder()
+                .putString(KEY1, "value")
+                .putIntArray(KEY2, new int[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10})
+                .build();
+
+        assertThat(data.toByteArray().length < toLegacyByteArray(data).length, is(true));
+    }
+
+    @Test
+    public void testDeserializeLegacyFormat() throws IOException {
+        Data data = createData();
+
+        Data restoredData = Data.fromByteArray(toLegacyByteArray(data));
+
+        assertThat(restoredData, is(data));
+    }
+
+    @Test
+    public void testSerializeArrayWithNullElements() {
+        Map<String, Object> map = new HashMap<>();
+        map.put(KEY1, new Integer[]{1, null, 3});
+        Data data = new Data(map);
+
+        byte[] byteArray = data.toByteArray();
+        assertThat(CompactDataFormat.isCompact(byteArray), is(false));
+        assertThat(Data.fromByteArray(byteArray), is(data));
+    }
+
+    @Test
+    public void testDeserializeTruncated() {
+        byte[] byteArray = createData().toByteArray();
+
+        Data restoredData = Data.fromByteArray(Arrays.copyOf(byteArray, byteArray.length - 1));
+
+        assertThat(restoredData.size() < createData().size(), is(true));
+    }
+
     @Test
     public void testToString() {
         Data data = createData();
@@ -230,6 +298,19 @@ public class DataTest {
         assertThat(caughtIllegalArgumentException, is(true));
     }
 
+    // Data#toByteArray before it switched to CompactDataFormat.
+    private static byte[] toLegacyByteArray(Data data) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ObjectOutputStream objectOutputStream = new ObjectOutputStream(outputStream);
+        objectOutputStream.writeInt(data.size());
+        for (Map.Entry<String, Object> entry : data.getKeyValueMap().entrySet()) {
+            objectOutputStream.writeUTF(entry.getKey());
+            objectOutputStream.writeObject(entry.getValue());
+        }
+        objectOutputStream.close();
+        return outputStream.toByteArray();
+    }
+
     @NonNull
     private Data createData() {
         Map<String, Object> map = new HashMap<>();